@@ -0,0 +1,75 @@
+package bot;
+
+import model.H2HData;
+import model.Match;
+import org.openjdk.jmh.annotations.*;
+import scraper.Fixtures;
+import scraper.MatchTextTokenizer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+//Benchmark della formattazione delle risposte del bot (partite di oggi e head to head)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatterBenchmark {
+    private List<Match> matches;	//Partite costruite dalla fixture di Sofascore
+    private H2HData h2h;	//Dati H2H della fixture
+
+    @Setup
+    public void setup() throws IOException {
+        matches = new ArrayList<>();
+        for (Fixtures.MatchBlock block : Fixtures.sofascoreMatches()) {	//Costruisco le partite come getRecentMatches
+            MatchTextTokenizer.ParsedMatch data = MatchTextTokenizer.tokenize(block.text);
+            if (!data.isValid() || data.getTime().isEmpty() || !data.hasValidStatus()) continue;
+            matches.add(data.toMatch(block.tournament, block.location));
+        }
+        h2h = loadH2H("h2h_sinner_alcaraz.properties");
+    }
+
+    @Benchmark
+    public String formatMatches() {
+        return BotTelegramGastaldello.formatMatches(matches);
+    }
+
+    @Benchmark
+    public String formatH2HData() {
+        return BotTelegramGastaldello.formatH2HData(h2h);
+    }
+
+    //Metodo privato che crea i dati H2H dalla fixture
+    private static H2HData loadH2H(String name) throws IOException {
+        Properties p = new Properties();
+        p.load(new StringReader(Fixtures.read(name)));
+        H2HData data = new H2HData();
+        data.setPlayer1Name(p.getProperty("player1Name"));
+        data.setPlayer2Name(p.getProperty("player2Name"));
+        data.setPlayer1PrizeMoney(p.getProperty("player1PrizeMoney"));
+        data.setPlayer2PrizeMoney(p.getProperty("player2PrizeMoney"));
+        data.setPlayer1WinLoss(p.getProperty("player1WinLoss"));
+        data.setPlayer2WinLoss(p.getProperty("player2WinLoss"));
+        data.setPlayer1WinPercentage(p.getProperty("player1WinPercentage"));
+        data.setPlayer2WinPercentage(p.getProperty("player2WinPercentage"));
+        data.setPlayer1Titles(Integer.parseInt(p.getProperty("player1Titles")));
+        data.setPlayer2Titles(Integer.parseInt(p.getProperty("player2Titles")));
+        data.setPlayer1Clay(Integer.parseInt(p.getProperty("player1Clay")));
+        data.setPlayer2Clay(Integer.parseInt(p.getProperty("player2Clay")));
+        data.setPlayer1Grass(Integer.parseInt(p.getProperty("player1Grass")));
+        data.setPlayer2Grass(Integer.parseInt(p.getProperty("player2Grass")));
+        data.setPlayer1Hard(Integer.parseInt(p.getProperty("player1Hard")));
+        data.setPlayer2Hard(Integer.parseInt(p.getProperty("player2Hard")));
+        data.setPlayer1Indoor(Integer.parseInt(p.getProperty("player1Indoor")));
+        data.setPlayer2Indoor(Integer.parseInt(p.getProperty("player2Indoor")));
+        data.setTotalH2HMatches(Integer.parseInt(p.getProperty("totalH2HMatches")));
+        data.setH2hRecord(p.getProperty("h2hRecord"));
+        return data;
+    }
+}
@@ -0,0 +1,42 @@
+package scraper;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Benchmark dell'interpretazione dei testi dei match di Sofascore: MatchTextTokenizer contro il vecchio parser a espressioni regolari
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchTextBenchmark {
+    private List<String> texts;	//Testi dei match della fixture (un'operazione = tutta la pagina dei match)
+
+    @Setup
+    public void setup() {
+        texts = new ArrayList<>();
+        for (Fixtures.MatchBlock block : Fixtures.sofascoreMatches()) {
+            texts.add(block.text);
+            List<String> expected = LegacyMatchTextParser.parse(block.text);
+            List<String> actual = LegacyMatchTextParser.summarize(MatchTextTokenizer.tokenize(block.text));
+            if (!expected.equals(actual)) {	//Il tokenizer deve dare gli stessi risultati del vecchio parser
+                throw new IllegalStateException("Risultato diverso per:\n" + block.text + "\natteso " + expected + "\nottenuto " + actual);
+            }
+        }
+    }
+
+    @Benchmark
+    public void tokenizer(Blackhole bh) {
+        for (String text : texts) bh.consume(MatchTextTokenizer.tokenize(text));
+    }
+
+    @Benchmark
+    public void legacyParser(Blackhole bh) {
+        for (String text : texts) bh.consume(LegacyMatchTextParser.parse(text));
+    }
+}
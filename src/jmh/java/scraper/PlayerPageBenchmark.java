@@ -0,0 +1,75 @@
+package scraper;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*Benchmark dell'infobox di una pagina giocatore:
+- legacyFields: il vecchio percorso, una scansione di tutte le righe per ogni campo (LegacyInfoboxExtractor, riferimento)
+- indexedFields: gli stessi campi con l'infobox indicizzata una sola volta, come fa ora extractPlayerInfo
+- indexInfobox ed extractGrandSlams misurano separatamente l'indicizzazione e l'estrazione dei Grand Slam
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayerPageBenchmark {
+    @Param({"player_sinner.html", "player_paolini.html"})
+    public String page;	//Fixture della pagina Wikipedia (Sinner con i Grand Slam, Paolini senza)
+
+    private Element table;	//Infobox della fixture
+    private Infobox index;	//Infobox già indicizzata
+    private TennisService service;
+
+    @Setup
+    public void setup() {
+        table = Jsoup.parse(Fixtures.read(page)).selectFirst("table.infobox");
+        index = Infobox.of(table);
+        service = new TennisService();
+        List<String> expected = LegacyInfoboxExtractor.fields(table);
+        List<String> actual = indexedFields();
+        if (!expected.equals(actual)) {	//I due percorsi devono estrarre gli stessi campi
+            throw new IllegalStateException(page + ": campi " + actual + ", percorso originale " + expected);
+        }
+    }
+
+    @Benchmark
+    public List<String> legacyFields() {
+        return LegacyInfoboxExtractor.fields(table);
+    }
+
+    @Benchmark
+    public List<String> indexedFields() {
+        Infobox infobox = Infobox.of(table);	//L'indicizzazione fa parte del costo, come in extractPlayerInfo
+        List<String> fields = new ArrayList<>();
+        fields.add(service.extractNationality(infobox));
+        fields.add(service.cleanText(infobox.value("Altezza")));
+        fields.add(service.cleanText(infobox.value("Peso")));
+        fields.add(service.extractBirthDate(infobox));
+        fields.add(String.valueOf(service.extractRanking(infobox)));
+        fields.add(service.cleanText(infobox.value("Miglior ranking")));
+        fields.add(service.cleanText(infobox.value("Vittorie/sconfitte")));
+        fields.add(service.cleanText(infobox.value("Titoli vinti")));
+        fields.add(service.extractGrandSlams(infobox));
+        fields.add(service.cleanText(infobox.value("Mano")));
+        fields.add(service.cleanText(infobox.value("Allenatore")));
+        fields.add(service.cleanText(infobox.value("Montepremi", "Palmares")));
+        return fields;
+    }
+
+    @Benchmark
+    public Infobox indexInfobox() {
+        return Infobox.of(table);
+    }
+
+    @Benchmark
+    public String extractGrandSlams() {
+        return service.extractGrandSlams(index);
+    }
+}
@@ -0,0 +1,52 @@
+package scraper;
+
+import model.Player;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Benchmark dell'estrazione delle classifiche dalla pagina ATP_rankings di Wikipedia (fixture salvata, nessuna chiamata di rete)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RankingsBenchmark {
+    @Param({"atp", "race", "atp_doppio"})
+    public String type;	//Tipo di classifica (decide quale tabella viene usata)
+
+    @Param({"10", "100"})
+    public int limit;	//Numero di giocatori richiesti
+
+    private String html;	//HTML della pagina
+    private Document doc;	//Pagina già parsata
+    private TennisService service;
+
+    @Setup
+    public void setup() {
+        Fixtures.silenceStdout();	//parseRankings stampa la tabella usata
+        html = Fixtures.read("atp_rankings.html");
+        doc = Jsoup.parse(html);
+        service = new TennisService();
+        List<Player> players = service.parseRankings(doc, limit, type);
+        if (players.size() != limit) {
+            throw new IllegalStateException(type + ": estratti " + players.size() + " giocatori invece di " + limit);
+        }
+    }
+
+    //Solo l'estrazione dalle tabelle
+    @Benchmark
+    public List<Player> parseRankings() {
+        return service.parseRankings(doc, limit, type);
+    }
+
+    //Parsing dell'HTML ed estrazione, cioè tutto getRankings tranne la richiesta HTTP
+    @Benchmark
+    public List<Player> parseHtmlAndRankings() {
+        return service.parseRankings(Jsoup.parse(html), limit, type);
+    }
+}
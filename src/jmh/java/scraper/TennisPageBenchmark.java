@@ -0,0 +1,41 @@
+package scraper;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+//Benchmark del riconoscimento delle pagine di tennisti: TennisPageClassifier contro il vecchio controllo sul testo completo
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TennisPageBenchmark {
+    @Param({"player_sinner.html", "player_paolini.html", "non_tennis_calciatore.html", "non_tennis_torino.html"})
+    public String page;	//Fixture della pagina Wikipedia
+
+    private Document doc;	//Pagina già parsata (misuro solo la classificazione)
+
+    @Setup
+    public void setup() {
+        doc = Jsoup.parse(Fixtures.read(page));
+        boolean expected = LegacyTennisClassifier.isTennisPlayer(doc);
+        boolean actual = TennisPageClassifier.isTennisPlayer(doc);
+        if (expected != actual) {	//I due classificatori devono concordare sulle fixture
+            throw new IllegalStateException(page + ": classificatore " + actual + ", controllo originale " + expected);
+        }
+    }
+
+    @Benchmark
+    public boolean classifier() {
+        return TennisPageClassifier.isTennisPlayer(doc);
+    }
+
+    @Benchmark
+    public boolean legacyFullText() {
+        return LegacyTennisClassifier.isTennisPlayer(doc);
+    }
+}
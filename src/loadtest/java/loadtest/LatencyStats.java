@@ -0,0 +1,85 @@
+package loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*Classe LatencyStats che raccoglie i tempi (in nanosecondi) per etichetta e ne calcola i percentili.
+Tiene tutti i campioni: un test di carico ne produce al massimo qualche milione, e così i percentili sono esatti.
+ */
+public class LatencyStats {
+    private final Map<String, Samples> samplesByLabel = new TreeMap<>();	//Campioni per etichetta, in ordine alfabetico
+
+    //Metodo che registra un campione
+    public synchronized void record(String label, long nanos) {
+        samplesByLabel.computeIfAbsent(label, l -> new Samples()).add(nanos);
+    }
+
+    //Metodo che registra un errore (timeout o risposta mancante)
+    public synchronized void recordError(String label) {
+        samplesByLabel.computeIfAbsent(label, l -> new Samples()).errors++;
+    }
+
+    //Metodo che ritorna un riepilogo per etichetta, ordinato per etichetta
+    public synchronized Map<String, Summary> summarize() {
+        Map<String, Summary> result = new TreeMap<>();
+        samplesByLabel.forEach((label, samples) -> result.put(label, samples.summarize()));
+        return result;
+    }
+
+    //Metodo che ritorna il riepilogo di tutti i campioni insieme
+    public synchronized Summary total() {
+        Samples all = new Samples();
+        for (Samples samples : samplesByLabel.values()) {
+            for (int i = 0; i < samples.count; i++) all.add(samples.values[i]);
+            all.errors += samples.errors;
+        }
+        return all.summarize();
+    }
+
+    //Classe statica con il riepilogo di un'etichetta: numero di campioni, errori e percentili in millisecondi
+    public static final class Summary {
+        final int count;
+        final int errors;
+        final double p50;
+        final double p95;
+        final double p99;
+        final double max;
+
+        Summary(int count, int errors, double p50, double p95, double p99, double max) {
+            this.count = count;
+            this.errors = errors;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.max = max;
+        }
+    }
+
+    //Classe statica privata con i campioni di un'etichetta
+    private static class Samples {
+        private long[] values = new long[256];
+        private int count;
+        private int errors;
+
+        private void add(long nanos) {
+            if (count == values.length) values = Arrays.copyOf(values, count * 2);	//Raddoppio la capacità
+            values[count++] = nanos;
+        }
+
+        private Summary summarize() {
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            return new Summary(count, errors,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    count > 0 ? sorted[count - 1] / 1_000_000.0 : 0);
+        }
+
+        //Metodo statico privato: percentile "nearest rank" in millisecondi
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int rank = (int) Math.ceil(p * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+        }
+    }
+}
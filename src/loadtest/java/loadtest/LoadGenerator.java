@@ -0,0 +1,293 @@
+package loadtest;
+
+import API.WeatherService;
+import bot.BotTelegramGastaldello;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import database.DatabaseManager;
+import okhttp3.OkHttpClient;
+import org.telegram.telegrambots.client.okhttp.OkHttpTelegramClient;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import replay.ReplayHarness;
+import replay.ReplayMode;
+import scraper.TennisService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*Classe LoadGenerator: test di carico end-to-end del bot, senza Telegram e senza rete.
+- N chat simulate (un thread ciascuna) conversano con il bot con un mix realistico di comandi:
+  classifiche, /cerca, /h2h in due passi, /meteo, preferiti e /partite
+- Gli update finiti in coda vengono passati a consume() da un solo thread, come fa LongPollingSingleThreadUpdateConsumer
+- Il client Telegram è quello reale con RecordingTelegramTransport al posto delle Bot API
+- Gli scraper leggono le risposte registrate (ReplayHarness in modalità REPLAY, vedi README) e il database è un file temporaneo
+Per ogni comando misura il tempo di risposta (dall'invio dell'update al primo messaggio di risposta) e la durata di consume(),
+e stampa throughput e p50/p95/p99.
+Uso (dopo mvn package, che compila src/loadtest in target/test-classes):
+java -cp target/tennis-telegram-bot-1.0-SNAPSHOT.jar:target/test-classes loadtest.LoadGenerator chats=50 duration=60 [chiave=valore ...]
+ */
+public class LoadGenerator {
+    private static final long BASE_CHAT_ID = 900_000_000L;	//Id delle chat simulate (lontani da quelli reali)
+    private static final String[] RANKING_COMMANDS = {
+            "/classificaatp", "/classificawta", "/racetoturin", "/classificaatpdoppio", "/classificawtadoppio"
+    };
+    private static final String[] PLAYERS = {
+            "Jannik Sinner", "Carlos Alcaraz", "Novak Djokovic", "Alexander Zverev",
+            "Daniil Medvedev", "Jasmine Paolini", "Iga Swiatek", "Aryna Sabalenka"
+    };
+    private static final String[] CITIES = {"Torino", "Roma", "Milano", "London", "Paris", "Melbourne"};
+
+    private final BotTelegramGastaldello bot;
+    private final RecordingTelegramTransport transport;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LinkedBlockingQueue<Submitted> inbox = new LinkedBlockingQueue<>();	//Update in attesa di consume()
+    private final LatencyStats replyTimes = new LatencyStats();	//Invio update -> primo messaggio di risposta
+    private final LatencyStats consumeTimes = new LatencyStats();	//Durata di consume()
+    private final AtomicLong updateIds = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final long thinkMs;	//Pausa media tra due messaggi della stessa chat
+    private final long timeoutMs;	//Attesa massima di una risposta
+    private volatile boolean running = true;
+    private volatile long measureFrom;	//Istante (nanoTime) di fine riscaldamento
+
+    //Costruttore che riceve il bot già collegato al trasporto simulato
+    public LoadGenerator(BotTelegramGastaldello bot, RecordingTelegramTransport transport, long thinkMs, long timeoutMs) {
+        this.bot = bot;
+        this.transport = transport;
+        this.thinkMs = thinkMs;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int chats = Integer.parseInt(options.getOrDefault("chats", "20"));
+        long durationSec = Long.parseLong(options.getOrDefault("duration", "60"));
+        long warmupSec = Long.parseLong(options.getOrDefault("warmup", "10"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        ReplayHarness replay = new ReplayHarness(ReplayMode.REPLAY,
+                Path.of(options.getOrDefault("replayDir", "replay")), 0,
+                Long.parseLong(options.getOrDefault("latency", "0")),
+                Double.parseDouble(options.getOrDefault("errorRate", "0")));	//Scraper e meteo leggono le risposte registrate
+        RecordingTelegramTransport transport = new RecordingTelegramTransport();
+        OkHttpClient telegramHttp = new OkHttpClient.Builder().addInterceptor(transport).build();
+        File dbFile = Files.createTempFile("tennis-loadtest", ".db").toFile();	//Database usa e getta
+        dbFile.deleteOnExit();
+
+        BotTelegramGastaldello bot = new BotTelegramGastaldello(
+                new OkHttpTelegramClient(telegramHttp, "loadtest"),
+                new TennisService(replay),
+                new WeatherService("loadtest", replay),
+                new DatabaseManager("jdbc:sqlite:" + dbFile.getAbsolutePath()));
+        LoadGenerator generator = new LoadGenerator(bot, transport,
+                Long.parseLong(options.getOrDefault("think", "500")),
+                Long.parseLong(options.getOrDefault("timeout", "30000")));
+        try {
+            generator.run(chats, warmupSec, durationSec, seed);
+            System.out.println(replay.stats());
+        } finally {
+            replay.close();
+            telegramHttp.dispatcher().executorService().shutdown();
+            telegramHttp.connectionPool().evictAll();
+        }
+        System.exit(0);	//Termino subito senza aspettare i thread inattivi dei client HTTP
+    }
+
+    //Metodo che esegue il test: riscaldamento, misura, chiusura delle chat e stampa del report
+    public void run(int chats, long warmupSec, long durationSec, long seed) throws InterruptedException {
+        System.out.println("🚀 Test di carico: " + chats + " chat, " + warmupSec + "s di riscaldamento + " + durationSec + "s di misura");
+        Thread dispatcher = new Thread(this::dispatchLoop, "loadtest-consume");
+        dispatcher.start();
+        List<Thread> users = new ArrayList<>();
+        for (int i = 0; i < chats; i++) {
+            long chatId = BASE_CHAT_ID + i;
+            long chatSeed = seed + i;
+            Thread user = new Thread(() -> chatLoop(chatId, new Random(chatSeed)), "loadtest-chat-" + i);
+            user.setDaemon(true);
+            users.add(user);
+        }
+        measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSec);
+        users.forEach(Thread::start);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSec + durationSec));
+        long measuredNanos = System.nanoTime() - measureFrom;
+        running = false;	//Le chat terminano dopo la risposta in corso
+        for (Thread user : users) user.join(timeoutMs);
+        dispatcher.join(timeoutMs);
+        printReport(measuredNanos / 1_000_000_000.0);
+    }
+
+    //Metodo privato eseguito da ogni chat simulata: /start e poi conversazioni casuali finché il test è attivo
+    private void chatLoop(long chatId, Random random) {
+        try {
+            exchange(chatId, new Step("/start", "/start"));
+            while (running) {
+                for (Step step : nextConversation(random)) {
+                    exchange(chatId, step);	//Anche in caso di timeout continuo: gli update di una chat restano in ordine
+                    if (!running) return;
+                    Thread.sleep(thinkTime(random));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //Metodo privato che invia un messaggio e attende la risposta del bot e la fine di consume()
+    private void exchange(long chatId, Step step) throws InterruptedException {
+        transport.reset(chatId);	//Scarto le risposte arrivate in precedenza
+        Submitted submitted = new Submitted(step.label, buildUpdate(chatId, step.text), System.nanoTime());
+        inbox.offer(submitted);
+        maxQueueDepth.accumulateAndGet(inbox.size(), Math::max);
+        long repliedAt = transport.awaitReply(chatId, timeoutMs);
+        boolean measured = submitted.submittedAt >= measureFrom;	//Ignoro i campioni del riscaldamento
+        if (measured) {
+            if (repliedAt < 0) replyTimes.recordError(step.label);
+            else replyTimes.record(step.label, repliedAt - submitted.submittedAt);
+        }
+        submitted.done.await(timeoutMs, TimeUnit.MILLISECONDS);	//Aspetto anche le eventuali altre parti della risposta
+    }
+
+    //Metodo privato eseguito dal thread che chiama consume(), uno alla volta come nel long polling
+    private void dispatchLoop() {
+        try {
+            while (running || !inbox.isEmpty()) {
+                Submitted submitted = inbox.poll(100, TimeUnit.MILLISECONDS);
+                if (submitted == null) continue;
+                long start = System.nanoTime();
+                try {
+                    bot.consume(submitted.update);
+                    if (submitted.submittedAt >= measureFrom) consumeTimes.record(submitted.label, System.nanoTime() - start);
+                    bot.pendingDelivery(submitted.update.getMessage().getChatId())
+                            .whenComplete((result, error) -> submitted.done.countDown());	//Le parti della risposta escono dalla coda di invio dopo consume()
+                } catch (RuntimeException e) {
+                    System.err.println("❌ consume() fallito per " + submitted.label + ": " + e);
+                    if (submitted.submittedAt >= measureFrom) consumeTimes.recordError(submitted.label);
+                    submitted.done.countDown();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //Metodo privato che sceglie la prossima conversazione secondo il mix di comandi
+    private static List<Step> nextConversation(Random random) {
+        int roll = random.nextInt(100);
+        String player = PLAYERS[random.nextInt(PLAYERS.length)];
+        if (roll < 25) {	//25% classifiche
+            String command = RANKING_COMMANDS[random.nextInt(RANKING_COMMANDS.length)];
+            return List.of(new Step(command, command));
+        }
+        if (roll < 45) {	//20% ricerca giocatore
+            return List.of(new Step("/cerca", "/cerca"), new Step("/cerca ▸ nome", player));
+        }
+        if (roll < 60) {	//15% H2H in due passi
+            String opponent = PLAYERS[(Arrays.asList(PLAYERS).indexOf(player) + 1 + random.nextInt(PLAYERS.length - 1)) % PLAYERS.length];
+            return List.of(new Step("/h2h", "/h2h"), new Step("/h2h ▸ giocatore 1", player), new Step("/h2h ▸ giocatore 2", opponent));
+        }
+        if (roll < 75) {	//15% meteo
+            return List.of(new Step("/meteo", "/meteo"), new Step("/meteo ▸ città", CITIES[random.nextInt(CITIES.length)]));
+        }
+        if (roll < 95) {	//20% preferiti
+            List<Step> steps = new ArrayList<>(List.of(new Step("/aggiungi <nome>", "/aggiungi " + player), new Step("/preferiti", "/preferiti")));
+            if (random.nextBoolean()) steps.add(new Step("/rimuovi <nome>", "/rimuovi " + player));
+            return steps;
+        }
+        return List.of(new Step("/partite", "/partite"));	//5% partite di oggi
+    }
+
+    //Metodo privato che costruisce un Update di testo come quelli ricevuti dalle Bot API
+    private Update buildUpdate(long chatId, String text) {
+        long id = updateIds.incrementAndGet();
+        ObjectNode root = mapper.createObjectNode();
+        root.put("update_id", id);
+        ObjectNode message = root.putObject("message");
+        message.put("message_id", id);
+        message.put("date", System.currentTimeMillis() / 1000);
+        message.put("text", text);
+        message.putObject("chat").put("id", chatId).put("type", "private");
+        message.putObject("from").put("id", chatId).put("is_bot", false)
+                .put("first_name", "Load").put("username", "loadtest_" + (chatId - BASE_CHAT_ID));
+        try {
+            return mapper.treeToValue(root, Update.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Update non valido: " + root, e);
+        }
+    }
+
+    //Metodo privato che ritorna una pausa casuale (distribuzione esponenziale) di media thinkMs
+    private long thinkTime(Random random) {
+        if (thinkMs <= 0) return 0;
+        return (long) (-thinkMs * Math.log(1 - random.nextDouble()));
+    }
+
+    //Metodo privato che stampa throughput e percentili per comando
+    private void printReport(double seconds) {
+        Map<String, LatencyStats.Summary> replies = replyTimes.summarize();
+        Map<String, LatencyStats.Summary> consumes = consumeTimes.summarize();
+        System.out.println();
+        System.out.println("📊 Risultati su " + String.format(Locale.ROOT, "%.1f", seconds) + "s (tempi in ms: risposta = invio update -> primo messaggio)");
+        String header = String.format(Locale.ROOT, "%-22s %7s %8s %9s %9s %9s %9s %12s %12s %7s",
+                "Comando", "n", "req/s", "p50", "p95", "p99", "max", "consume p50", "consume p99", "errori");
+        System.out.println(header);
+        System.out.println("-".repeat(header.length()));
+        replies.forEach((label, summary) -> printRow(label, summary, consumes.get(label), seconds));
+        System.out.println("-".repeat(header.length()));
+        printRow("TOTALE", replyTimes.total(), consumeTimes.total(), seconds);
+        System.out.println("Massima profondità della coda di consume(): " + maxQueueDepth.get());
+        System.out.println("Chiamate alle Bot API: " + new TreeMap<>(transport.getCallsByMethod()));
+    }
+
+    //Metodo statico privato che stampa una riga del report
+    private static void printRow(String label, LatencyStats.Summary reply, LatencyStats.Summary consume, double seconds) {
+        double consumeP50 = consume != null ? consume.p50 : 0;
+        double consumeP99 = consume != null ? consume.p99 : 0;
+        int errors = reply.errors + (consume != null ? consume.errors : 0);
+        System.out.println(String.format(Locale.ROOT, "%-22s %7d %8.2f %9.1f %9.1f %9.1f %9.1f %12.1f %12.1f %7d",
+                label, reply.count, reply.count / seconds, reply.p50, reply.p95, reply.p99, reply.max, consumeP50, consumeP99, errors));
+    }
+
+    //Metodo statico privato che legge gli argomenti nella forma chiave=valore
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Argomento non valido (atteso chiave=valore): " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    //Classe statica privata con un messaggio di una conversazione: etichetta per il report e testo inviato
+    private static final class Step {
+        private final String label;
+        private final String text;
+
+        private Step(String label, String text) {
+            this.label = label;
+            this.text = text;
+        }
+    }
+
+    //Classe statica privata con un update in coda e l'istante in cui è stato inviato
+    private static final class Submitted {
+        private final String label;
+        private final Update update;
+        private final long submittedAt;
+        private final CountDownLatch done = new CountDownLatch(1);	//Segnalato quando consume() ha finito
+
+        private Submitted(String label, Update update, long submittedAt) {
+            this.label = label;
+            this.update = update;
+            this.submittedAt = submittedAt;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package loadtest;
+
+import okhttp3.*;
+import okio.Buffer;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*Classe RecordingTelegramTransport: interceptor OkHttp che sostituisce le Bot API di Telegram durante i test di carico.
+Il client Telegram resta quello reale (OkHttpTelegramClient), quindi serializzazione e parsing delle risposte vengono misurati;
+le chiamate però non escono mai dalla macchina:
+1. Legge il metodo dall'URL (.../bot<token>/<metodo>) e il chat_id dal corpo (JSON o multipart)
+2. Registra la chiamata e, per sendMessage/editMessageText, segnala la risposta alla chat che la sta aspettando
+3. Risponde {"ok":true,...} con un Message finto (metodi send/edit) oppure true (tutti gli altri)
+ */
+public class RecordingTelegramTransport implements Interceptor {
+    private static final Pattern CHAT_ID_PATTERN = Pattern.compile("\"chat_id\"\\s*:\\s*\"?(-?\\d+)|name=\"chat_id\"[^\\n]*\\n(?:[^\\n]*\\n)*?\\r?\\n(-?\\d+)");	//chat_id nel corpo JSON o nella parte multipart
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final Map<String, AtomicLong> callsByMethod = new ConcurrentHashMap<>();	//Chiamate per metodo
+    private final Map<Long, LinkedBlockingQueue<Long>> replies = new ConcurrentHashMap<>();	//Istanti (nanoTime) delle risposte testuali per chat
+    private final AtomicLong messageIds = new AtomicLong();	//Contatore per gli id dei messaggi finti
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String method = request.url().pathSegments().get(request.url().pathSize() - 1);	//Ultimo segmento del path = metodo delle Bot API
+        long chatId = readChatId(request.body());
+        callsByMethod.computeIfAbsent(method, m -> new AtomicLong()).incrementAndGet();
+        boolean returnsMessage = method.startsWith("send") || method.startsWith("edit");
+        if (chatId != 0 && (method.equals("sendMessage") || method.equals("editMessageText"))) {
+            repliesFor(chatId).offer(System.nanoTime());	//Segnalo la risposta a chi la sta aspettando
+        }
+        String result = returnsMessage
+                ? "{\"message_id\":" + messageIds.incrementAndGet() + ",\"date\":" + (System.currentTimeMillis() / 1000)
+                  + ",\"chat\":{\"id\":" + chatId + ",\"type\":\"private\"}}"
+                : "true";
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create("{\"ok\":true,\"result\":" + result + "}", JSON))
+                .build();
+    }
+
+    //Metodo che scarta le risposte già ricevute da una chat, da chiamare prima di inviare il prossimo update
+    public void reset(long chatId) {
+        repliesFor(chatId).clear();
+    }
+
+    //Metodo che attende la prossima risposta testuale a una chat; ritorna l'istante (nanoTime) o -1 allo scadere del timeout
+    public long awaitReply(long chatId, long timeoutMs) throws InterruptedException {
+        Long at = repliesFor(chatId).poll(timeoutMs, TimeUnit.MILLISECONDS);
+        return at != null ? at : -1;
+    }
+
+    //Metodo che ritorna il numero di chiamate per metodo delle Bot API
+    public Map<String, AtomicLong> getCallsByMethod() {
+        return callsByMethod;
+    }
+
+    private LinkedBlockingQueue<Long> repliesFor(long chatId) {
+        return replies.computeIfAbsent(chatId, id -> new LinkedBlockingQueue<>());
+    }
+
+    //Metodo statico privato che estrae il chat_id dal corpo della richiesta (0 se assente)
+    private static long readChatId(RequestBody body) throws IOException {
+        if (body == null) return 0;
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        Matcher matcher = CHAT_ID_PATTERN.matcher(buffer.readUtf8());
+        if (!matcher.find()) return 0;
+        return Long.parseLong(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+    }
+}
@@ -0,0 +1,53 @@
+package startup;
+
+import API.WeatherService;
+import bot.BotTelegramGastaldello;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import database.DatabaseManager;
+import loadtest.RecordingTelegramTransport;
+import okhttp3.OkHttpClient;
+import org.telegram.telegrambots.client.okhttp.OkHttpTelegramClient;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import replay.ReplayHarness;
+import scraper.TennisService;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/*Classe CdsTraining: esecuzione di prova usata dal profilo Maven appcds per creare l'archivio AppCDS (java -XX:DumpLoadedClassList=...).
+Crea il bot come all'avvio vero, con un client Telegram simulato (RecordingTelegramTransport) e un database temporaneo, gli passa alcuni comandi
+che non usano la rete e termina: le classi caricate finiscono nella lista da cui viene creato l'archivio, che gli avvii con -XX:SharedArchiveFile leggono già analizzate e verificate.
+È in src/loadtest (compilata con i test) per non finire nel JAR: l'archivio contiene solo le classi del JAR.
+ */
+public class CdsTraining {
+    private static final long CHAT_ID = 1;	//Chat finta dei comandi di prova
+    private static final String[] COMMANDS = {"/start", "/aiuto", "/preferiti", "/statistiche", "/digest", "/cerca", "/annulla", "testo qualsiasi"};	//Comandi senza scraping
+
+    public static void main(String[] args) throws Exception {
+        long start = System.nanoTime();
+        RecordingTelegramTransport transport = new RecordingTelegramTransport();
+        OkHttpClient telegramHttp = new OkHttpClient.Builder().addInterceptor(transport).build();
+        File dbFile = Files.createTempFile("tennis-cds", ".db").toFile();	//Database usa e getta
+        dbFile.deleteOnExit();
+        BotTelegramGastaldello bot = new BotTelegramGastaldello(
+                new OkHttpTelegramClient(telegramHttp, "cds"),
+                new TennisService(ReplayHarness.disabled()),
+                new WeatherService("cds"),
+                new DatabaseManager("jdbc:sqlite:" + dbFile.getAbsolutePath()));
+        ObjectMapper mapper = new ObjectMapper();	//Gli update passano dalla stessa deserializzazione del long polling
+        int updateId = 0;
+        for (String command : COMMANDS) {
+            transport.reset(CHAT_ID);
+            String json = "{\"update_id\":" + (++updateId) + ",\"message\":{\"message_id\":" + updateId
+                    + ",\"date\":" + System.currentTimeMillis() / 1000 + ",\"text\":" + mapper.writeValueAsString(command)
+                    + ",\"chat\":{\"id\":" + CHAT_ID + ",\"type\":\"private\"},\"from\":{\"id\":" + CHAT_ID
+                    + ",\"is_bot\":false,\"first_name\":\"CDS\",\"username\":\"cds\"}}}";
+            bot.consume(mapper.readValue(json, Update.class));
+            if (transport.awaitReply(CHAT_ID, 10_000) < 0) System.err.println("⚠️ Nessuna risposta a " + command);
+        }
+        bot.shutdown(2000);
+        telegramHttp.dispatcher().executorService().shutdown();
+        System.out.println("📦 Esecuzione di prova per AppCDS completata in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        System.exit(0);	//All'uscita la JVM scrive l'archivio
+    }
+}
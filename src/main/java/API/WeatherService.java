@@ -2,10 +2,18 @@ package API;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import cache.CacheSnapshot;
+import cache.TtlCache;
+import metrics.MetricsRegistry;
+import metrics.Timer;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import replay.ReplayHarness;
+import tracing.Span;
+import tracing.Tracer;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 //Classe WeatherService per la gestione delle richieste all'API per ottenere le informazioni meteo della città
@@ -13,11 +21,19 @@ public class WeatherService {
     private final String apiKey;	//Memorizzo la chiave API per OpenWeather
     private final OkHttpClient client;	//Creo il client HTTP per fare richieste
     private final Logger logger = Logger.getLogger(WeatherService.class.getName());	//Creo un logger per loggare informazioni
+    private final TtlCache<String, String> weatherCache = new TtlCache<>("meteo", TimeUnit.MINUTES.toMillis(30));	//Risposte meteo riuscite (chiave: città normalizzata in minuscolo)
+    private static final Timer WEATHER_TIMER = MetricsRegistry.getInstance().timer("scraper_operation_seconds", "Durata delle operazioni di scraping", "operation", "weather");	//Durata delle richieste meteo
 
     //Costruttore che riceve la chiave API
     public WeatherService(String apiKey) {
+        this(apiKey, ReplayHarness.disabled());	//Nessuna registrazione o replay
+    }
+
+    //Costruttore che riceve la chiave API e lo strato di registrazione/replay delle chiamate
+    public WeatherService(String apiKey, ReplayHarness replay) {
         this.apiKey = apiKey;	//Inizializzo la chiave API
-        this.client = new OkHttpClient();	//Inizializzo il client HTTP
+        this.client = replay.configure(new OkHttpClient.Builder()).build();	//Inizializzo il client HTTP
+        MetricsRegistry.getInstance().registerCache(weatherCache);	//Esporto la cache nelle metriche
     }
 
     //Metodo per ottenere il meteo attuale di una città
@@ -26,37 +42,67 @@ public class WeatherService {
             return "❌ API KEY OpenWeather non configurata.";	//Ritorno messaggio di errore se manca la chiave
         }
 
-        try {
-            String normalizedCity = normalizeCity(city);	//Normalizzo il nome della città (rimuovo caratteri speciali, spazi ecc.)
-
-            String url = String.format(	//Costruisco l'URL per la richiesta OpenWeather
-                    "https://api.openweathermap.org/data/2.5/weather?q=%s&appid=%s&units=metric&lang=it",
-                    normalizedCity, apiKey
-            );
-
-            Request request = new Request.Builder()	//Creo la richiesta HTTP
-                    .url(url)	//Imposto l'URL
-                    .header("User-Agent", "WeatherBot/1.0")	//Imposto l'header User-Agent
-                    .build();
-
-            try (Response response = client.newCall(request).execute()) {	//Eseguo la richiesta e ottengo la risposta
-                if (!response.isSuccessful()) {	//Controllo se la risposta non è positiva
-                    if (response.code() == 404) {	//Se il codice è 404
-                        return "❌ Città non trovata.\nProva a specificare la provincia (es: Como,CO)";	//Ritorno messaggio città non trovata
-                    }
-                    logger.severe("Errore OpenWeather: " + response.code());	//Loggo errore con codice risposta
-                    return "❌ Errore OpenWeather\nCodice: " + response.code();	//Ritorno messaggio di errore generico
-                }
-                String jsonResponse = response.body().string();	//Leggo il corpo della risposta come stringa
-                return formatWeatherResponse(jsonResponse);	//Formatto e ritorno la risposta meteo
-            }
+        String normalizedCity = normalizeCity(city);	//Normalizzo il nome della città (rimuovo caratteri speciali, spazi ecc.)
+        String cached = weatherCache.get(normalizedCity.toLowerCase());	//Riuso una risposta recente (es. città dei tornei aggiornate dal RefreshScheduler)
+        if (cached != null) return cached;
 
+        try {
+            String text = fetchWeather(normalizedCity);	//Richiedo il meteo a OpenWeather
+            weatherCache.put(normalizedCity.toLowerCase(), text);	//Salvo in cache solo le risposte riuscite
+            return text;
+        } catch (WeatherException e) {	//Risposta negativa di OpenWeather (già contata e loggata)
+            return e.getMessage();
         } catch (IOException e) {	//Gestisco eccezioni di connessione
+            countError();
             logger.severe("Errore connessione meteo: " + e.getMessage());	//Loggo il messaggio di errore
             return "⚠️ Errore di connessione al servizio meteo.";	//Ritorno messaggio di errore
         }
     }
 
+    //Metodo che rilegge il meteo di una città e lo salva in cache (chiamato dal RefreshScheduler); lancia un'eccezione se la richiesta fallisce
+    public void refreshWeather(String city) throws IOException {
+        if (apiKey == null || apiKey.isEmpty()) return;	//Senza chiave non c'è nulla da aggiornare
+        String normalizedCity = normalizeCity(city);
+        weatherCache.put(normalizedCity.toLowerCase(), fetchWeather(normalizedCity));
+    }
+
+    //Metodo che rimuove le risposte scadute dalla cache e ritorna quante ne ha rimosse
+    public int evictExpired() {
+        return weatherCache.evictExpired();
+    }
+
+    //Metodo che aggiunge la cache del meteo allo snapshot salvato tra un riavvio e l'altro
+    public void registerSnapshot(CacheSnapshot snapshot) {
+        snapshot.register(weatherCache, snapshot.mapper().getTypeFactory().constructType(String.class));
+    }
+
+    //Metodo privato che richiede il meteo di una città già normalizzata e ritorna il testo formattato
+    private String fetchWeather(String normalizedCity) throws IOException {
+        String url = String.format(	//Costruisco l'URL per la richiesta OpenWeather
+                "https://api.openweathermap.org/data/2.5/weather?q=%s&appid=%s&units=metric&lang=it",
+                normalizedCity, apiKey
+        );
+
+        Request request = new Request.Builder()	//Creo la richiesta HTTP
+                .url(url)	//Imposto l'URL
+                .header("User-Agent", "WeatherBot/1.0")	//Imposto l'header User-Agent
+                .build();
+
+        try (Timer.Context timing = WEATHER_TIMER.time(); Span span = Tracer.getInstance().span("scraper.weather");
+             Response response = client.newCall(request).execute()) {	//Eseguo la richiesta e ottengo la risposta, misurando la durata
+            if (!response.isSuccessful()) {	//Controllo se la risposta non è positiva
+                if (response.code() == 404) {	//Se il codice è 404
+                    throw new WeatherException("❌ Città non trovata.\nProva a specificare la provincia (es: Como,CO)");	//Messaggio città non trovata
+                }
+                countError();
+                logger.severe("Errore OpenWeather: " + response.code());	//Loggo errore con codice risposta
+                throw new WeatherException("❌ Errore OpenWeather\nCodice: " + response.code());	//Messaggio di errore generico
+            }
+            String jsonResponse = response.body().string();	//Leggo il corpo della risposta come stringa
+            return formatWeatherResponse(jsonResponse);	//Formatto e ritorno la risposta meteo
+        }
+    }
+
     //Metodo privato per normalizzare il nome della città
     private String normalizeCity(String city) {
         city = city.trim();	//Rimuovo spazi iniziali/finali
@@ -99,4 +145,16 @@ public class WeatherService {
         if (text == null || text.isEmpty()) return text;	//Se testo vuoto o null, ritorno così com'è
         return text.substring(0, 1).toUpperCase() + text.substring(1);	//Capitalizzo la prima lettera e ritorno
     }
-}
\ No newline at end of file
+
+    //Metodo statico privato che conta un errore della richiesta meteo
+    private static void countError() {
+        MetricsRegistry.getInstance().counter("scraper_errors_total", "Errori delle operazioni di scraping", "operation", "weather").inc();
+    }
+
+    //Classe statica privata per una risposta negativa di OpenWeather: il messaggio è il testo da mostrare all'utente
+    private static final class WeatherException extends IOException {
+        private WeatherException(String message) {
+            super(message);
+        }
+    }
+}
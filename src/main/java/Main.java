@@ -1,11 +1,29 @@
 import bot.BotTelegramGastaldello;
 import config.MyConfiguration;
+import jfr.ContinuousRecording;
+import metrics.MetricsRegistry;
+import metrics.MetricsServer;
 import org.telegram.telegrambots.longpolling.TelegramBotsLongPollingApplication;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import replay.ReplayHarness;
+import startup.StartupTimer;
+import tracing.Tracer;
+import webhook.WebhookServer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 //Classe Main per l'avvio del codice e del bot
 public class Main {
     public static void main(String[] args) {
+        StartupTimer startup = StartupTimer.getInstance();    //Misuro le fasi dell'avvio (la prima chiamata chiude la fase "jvm")
         System.out.println("🎾 Avvio Tennis Bot...");    //Stampo il messaggio che indica che sto avviando il bot
         MyConfiguration myConfiguration = MyConfiguration.getInstance();    //Prendo un'istanza del file di configurazione
 
@@ -26,16 +44,57 @@ public class Main {
                 System.exit(-1);    //Il codice termina con codice di stato -1
             }
 
-            TelegramBotsLongPollingApplication botsApplication = new TelegramBotsLongPollingApplication();  //Crea l'applicazione per la gestione dei bot Telegram basata su Long Polling
-            BotTelegramGastaldello bot = new BotTelegramGastaldello(botToken, apiKey);  //Crea un'istanza della classe BotTelegramGastaldello passando come parametri BOT_TOKEN e API_KEY
-            botsApplication.registerBot(botToken, bot); //Registra il bot su Telegram
+            ReplayHarness replay = ReplayHarness.fromConfiguration(myConfiguration);  //Registrazione/replay delle sorgenti esterne (REPLAY_MODE, di default disattivato)
+            Tracer.getInstance().configure(myConfiguration.getDouble("TRACE_SAMPLE_RATE", 0),
+                    myConfiguration.getLong("TRACE_SLOW_MS", 1000),
+                    (int) myConfiguration.getLong("TRACE_BUFFER_SIZE", 20));  //Tracing degli update (di default disattivato)
+            boolean fastStart = myConfiguration.getBoolean("FAST_START", false);  //Avvio rapido: servizi creati alla prima richiesta, JFR e snapshot delle cache dopo la registrazione
+            AtomicReference<ContinuousRecording> flightRecording = new AtomicReference<>();  //Registrazione JFR continua (JFR_ENABLED, di default attiva)
+            if (!fastStart) flightRecording.set(startFlightRecording(myConfiguration));
+            startup.phase("config");
+            BotTelegramGastaldello bot = new BotTelegramGastaldello(botToken, apiKey, replay, fastStart);  //Crea un'istanza della classe BotTelegramGastaldello passando come parametri BOT_TOKEN, API_KEY, lo strato di replay e la modalità di avvio
+            bot.setAdminChatIds(parseChatIds(myConfiguration.getProperty("ADMIN_CHAT_ID")));  //Chat autorizzate ai comandi di amministrazione
+            bot.configureConversations("sqlite".equalsIgnoreCase(myConfiguration.getProperty("CONVERSATION_STORE")),
+                    myConfiguration.getLong("CONVERSATION_TTL_MINUTES", 30) * 60_000);  //Stato delle conversazioni in memoria (default) o condiviso nel database
+            bot.setFlightRecording(flightRecording.get());  //Usata dal comando /jfrdump
+            bot.startDigest((int) myConfiguration.getLong("DIGEST_HOUR", 8), digestZone(myConfiguration));  //Digest giornaliero (DIGEST_HOUR, DIGEST_TIMEZONE)
+            startup.phase("bot");
+            if (!fastStart) {
+                enableCacheSnapshot(myConfiguration, bot);  //Cache rilette dallo snapshot dell'ultima esecuzione (pochi millisecondi, prima di registrare il bot)
+                startup.phase("cache_snapshot");
+            }
+            WebhookServer webhookServer = null;  //Server degli update in modalità webhook (null in long polling)
+            if ("webhook".equalsIgnoreCase(myConfiguration.getProperty("UPDATE_MODE"))) {  //UPDATE_MODE=webhook: Telegram invia gli update al server HTTP del bot
+                webhookServer = startWebhook(myConfiguration, bot);
+            } else {
+                bot.deleteWebhook();  //Un webhook rimasto registrato bloccherebbe il long polling
+                TelegramBotsLongPollingApplication botsApplication = new TelegramBotsLongPollingApplication();  //Crea l'applicazione per la gestione dei bot Telegram basata su Long Polling
+                botsApplication.registerBot(botToken, bot); //Registra il bot su Telegram
+            }
+            startup.phase("register");
+            WebhookServer webhook = webhookServer;
+            MetricsServer metricsServer = startMetricsServer(myConfiguration); //Endpoint HTTP delle metriche (solo se METRICS_PORT è configurata)
+            if (metricsServer != null) {
+                metricsServer.addEndpoint("/traces", () -> Tracer.getInstance().dump(Integer.MAX_VALUE));  //Tracce lente
+                metricsServer.addEndpoint("/jobs", bot::jobsReport);  //Lavori periodici e ultime esecuzioni
+                metricsServer.addEndpoint("/cache", bot::cacheReport);  //Statistiche delle cache di ricerca giocatori
+                metricsServer.addEndpoint("/startup", startup::report);  //Durata delle fasi di avvio
+            }
+            startup.phase("metrics");
+            if (fastStart) finishStartInBackground(myConfiguration, bot, flightRecording);  //Il bot riceve già gli update
 
             //Stampo messaggi di Stato
             System.out.println("✅ Tennis Bot avviato correttamente!");
             System.out.println("📱 Il bot è ora in ascolto...");
+            System.out.println(startup.report());
 
             Runtime.getRuntime().addShutdownHook(new Thread(() -> { //Registra un thread di shutdown che viene eseguito automaticamente quando la JVM sta per terminare l'applicazione
                 System.out.println("\n🛑 Arresto Tennis Bot...");    //Stampo lo stato di arresto
+                if (webhook != null) webhook.stop(5000);    //Smetto di ricevere update ed elaboro quelli già accettati
+                bot.shutdown(5000);    //Invio i messaggi ancora in coda (al massimo 5 secondi)
+                replay.close();    //Fermo l'eventuale server di replay
+                if (metricsServer != null) metricsServer.stop();    //Fermo il server delle metriche
+                if (flightRecording.get() != null) flightRecording.get().close();    //Fermo la registrazione JFR
             }));
         } catch(TelegramApiException e) {
             System.err.println("❌ Errore nell'avvio del bot:"); //Stampo messaggio di errore in caso di errore nell'avvio del bot
@@ -43,4 +102,110 @@ public class Main {
             System.exit(-1);    //Il codice termina con codice di stato -1
         }
     }
+
+    //Metodo statico privato che rilegge le cache dallo snapshot su file e lo fa riscrivere periodicamente (CACHE_SNAPSHOT_ENABLED, CACHE_SNAPSHOT_FILE, CACHE_SNAPSHOT_MINUTES)
+    private static void enableCacheSnapshot(MyConfiguration myConfiguration, BotTelegramGastaldello bot) {
+        if (!myConfiguration.getBoolean("CACHE_SNAPSHOT_ENABLED", true)) return;
+        String snapshotFile = myConfiguration.getProperty("CACHE_SNAPSHOT_FILE");
+        bot.enableCacheSnapshot(Path.of(snapshotFile != null && !snapshotFile.isBlank() ? snapshotFile : "cache-snapshot.json.gz"),
+                myConfiguration.getLong("CACHE_SNAPSHOT_MINUTES", 5) * 60_000);
+    }
+
+    //Metodo statico privato che in avvio rapido completa in background quello che non serve per il primo update: registrazione JFR e snapshot delle cache
+    private static void finishStartInBackground(MyConfiguration myConfiguration, BotTelegramGastaldello bot, AtomicReference<ContinuousRecording> flightRecording) {
+        Thread thread = new Thread(() -> {
+            ContinuousRecording recording = startFlightRecording(myConfiguration);
+            flightRecording.set(recording);
+            bot.setFlightRecording(recording);
+            enableCacheSnapshot(myConfiguration, bot);  //Non crea i servizi: le loro cache vengono rilette quando vengono creati
+            StartupTimer.getInstance().phase("background");
+        }, "startup-background");
+        thread.setDaemon(true);	//Non blocca lo spegnimento della JVM
+        thread.start();
+    }
+
+    //Metodo statico privato che legge una lista di chat id separati da virgola (es. ADMIN_CHAT_ID=123,456)
+    private static Set<Long> parseChatIds(String value) {
+        Set<Long> chatIds = new HashSet<>();
+        if (value == null) return chatIds;
+        for (String part : value.split(",")) {
+            try {
+                if (!part.isBlank()) chatIds.add(Long.parseLong(part.trim()));
+            } catch (NumberFormatException e) {
+                System.err.println("⚠️ Chat id non valido in ADMIN_CHAT_ID: " + part);
+            }
+        }
+        return chatIds;
+    }
+
+    //Metodo statico privato che ritorna il fuso orario delle ore del digest (DIGEST_TIMEZONE, di default Europe/Rome)
+    private static ZoneId digestZone(MyConfiguration myConfiguration) {
+        String zone = myConfiguration.getProperty("DIGEST_TIMEZONE");
+        try {
+            return ZoneId.of(zone != null && !zone.isBlank() ? zone.trim() : "Europe/Rome");
+        } catch (DateTimeException e) {
+            System.err.println("⚠️ DIGEST_TIMEZONE non valido, uso Europe/Rome: " + zone);
+            return ZoneId.of("Europe/Rome");
+        }
+    }
+
+    //Metodo statico privato che avvia il server del webhook (WEBHOOK_HOST, WEBHOOK_PORT, WEBHOOK_PATH, WEBHOOK_SECRET, WEBHOOK_QUEUE_SIZE)
+    //e, se è configurato WEBHOOK_URL, lo registra su Telegram; senza WEBHOOK_URL il server si prova in locale inviando il JSON degli update
+    private static WebhookServer startWebhook(MyConfiguration myConfiguration, BotTelegramGastaldello bot) throws TelegramApiException {
+        String secret = myConfiguration.getProperty("WEBHOOK_SECRET");
+        if (secret == null || !secret.trim().matches("[A-Za-z0-9_-]{1,256}")) {    //Formato accettato da Telegram per il secret_token
+            System.err.println("❌ ERRORE: WEBHOOK_SECRET mancante o non valido (1-256 caratteri tra A-Z, a-z, 0-9, _ e -)");
+            System.exit(-1);
+        }
+        String host = myConfiguration.getProperty("WEBHOOK_HOST");
+        String path = myConfiguration.getProperty("WEBHOOK_PATH");
+        WebhookServer server;
+        try {
+            server = new WebhookServer(host != null && !host.isBlank() ? host.trim() : "0.0.0.0",
+                    (int) myConfiguration.getLong("WEBHOOK_PORT", 8443),
+                    path != null && !path.isBlank() ? path.trim() : "/telegram",
+                    secret.trim(),
+                    (int) myConfiguration.getLong("WEBHOOK_QUEUE_SIZE", 1000),
+                    bot::consume);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("❌ Server del webhook non avviato: " + e.getMessage());    //Senza server il bot non riceverebbe nulla
+            System.exit(-1);
+            return null;
+        }
+        String url = myConfiguration.getProperty("WEBHOOK_URL");
+        if (url != null && !url.isBlank()) {
+            bot.setWebhook(url.trim(), secret.trim(), (int) myConfiguration.getLong("WEBHOOK_MAX_CONNECTIONS", 40));
+            System.out.println("🪝 Webhook registrato su " + url.trim());
+        } else {
+            System.out.println("⚠️ WEBHOOK_URL non configurato: webhook non registrato su Telegram (solo prove locali)");
+        }
+        return server;
+    }
+
+    //Metodo statico privato che avvia il server delle metriche se è configurata METRICS_PORT (METRICS_HOST di default 127.0.0.1)
+    private static MetricsServer startMetricsServer(MyConfiguration myConfiguration) {
+        String port = myConfiguration.getProperty("METRICS_PORT");
+        if (port == null || port.isBlank()) return null;    //Metriche non esposte
+        String host = myConfiguration.getProperty("METRICS_HOST");
+        try {
+            return new MetricsServer(host != null && !host.isBlank() ? host : "127.0.0.1", Integer.parseInt(port.trim()), MetricsRegistry.getInstance());
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("⚠️ Server delle metriche non avviato: " + e.getMessage());    //Il bot funziona anche senza metriche
+            return null;
+        }
+    }
+
+    //Metodo statico privato che avvia la registrazione JFR continua (JFR_MAX_AGE_MINUTES, JFR_MAX_SIZE_MB, JFR_DUMP_DIR)
+    private static ContinuousRecording startFlightRecording(MyConfiguration myConfiguration) {
+        if (!myConfiguration.getBoolean("JFR_ENABLED", true)) return null;    //Registrazione disattivata
+        String dumpDir = myConfiguration.getProperty("JFR_DUMP_DIR");
+        try {
+            return ContinuousRecording.start(Duration.ofMinutes(myConfiguration.getLong("JFR_MAX_AGE_MINUTES", 60)),
+                    myConfiguration.getLong("JFR_MAX_SIZE_MB", 100) * 1024 * 1024,
+                    Path.of(dumpDir != null && !dumpDir.isBlank() ? dumpDir : "jfr"));
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            System.err.println("⚠️ Registrazione JFR non avviata: " + e.getMessage());    //Il bot funziona anche senza JFR
+            return null;
+        }
+    }
 }
@@ -0,0 +1,112 @@
+package alerts;
+
+import database.FavoriteIndex;
+import live.MatchChange;
+import live.LiveMatchPoller;
+import live.MatchChangeListener;
+import live.MatchState;
+import metrics.MetricsRegistry;
+import model.Match;
+import outbound.BroadcastSender;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/*Classe FavoriteAlerts che avvisa le chat quando una partita di un loro giocatore preferito inizia, cambia set o finisce.
+1. Riceve i cambiamenti da MatchDeltaEngine (letture di LiveMatchPoller)
+2. Trova le chat iscritte con FavoriteIndex, senza query al database (una chat che segue entrambi i giocatori riceve un solo avviso)
+3. Invia gli avvisi con BroadcastSender, a blocchi: un giocatore con migliaia di iscritti non riempie la coda di invio
+Le letture ogni 30 secondi (con il browser) servono solo mentre una partita di un preferito è in corso o sta per iniziare;
+negli altri momenti basta una lettura di controllo ogni IDLE_READ_INTERVAL_MS per scoprire le partite in programma.
+ */
+public class FavoriteAlerts implements MatchChangeListener {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+    private static final long IDLE_READ_INTERVAL_MS = 15 * 60_000;	//Lettura di controllo senza partite imminenti dei preferiti
+    private static final int START_WINDOW_MINUTES = 15;	//Una partita in programma è imminente da 15 minuti prima dell'orario (non più dell'intervallo di controllo)
+    private static final int LATE_START_MINUTES = 3 * 60;	//Oltre 3 ore di ritardo la partita non tiene più attive le letture
+    private static final DateTimeFormatter START_TIME = DateTimeFormatter.ofPattern("H:mm");	//Orario delle partite in programma (es. 9:30, 14:00)
+
+    private final FavoriteIndex index;
+    private final BroadcastSender broadcasts;
+    private final LiveMatchPoller poller;	//Ultima lettura delle partite e la sua età
+
+    //Costruttore che riceve l'indice dei preferiti, l'invio a blocchi e le letture delle partite
+    public FavoriteAlerts(FavoriteIndex index, BroadcastSender broadcasts, LiveMatchPoller poller) {
+        this.index = index;
+        this.broadcasts = broadcasts;
+        this.poller = poller;
+        METRICS.gauge("favorite_index_players", "Giocatori seguiti da almeno una chat", index::players);
+    }
+
+    //Le letture periodiche servono se una partita di un preferito è in corso o imminente, oppure per la lettura di controllo
+    @Override
+    public boolean wantsChanges() {
+        if (index.isEmpty()) return false;
+        if (poller.getLatestAgeMs() >= IDLE_READ_INTERVAL_MS) return true;	//Lettura di controllo: scopre le nuove partite in programma
+        LocalTime now = LocalTime.now();
+        for (Match match : poller.getLatest()) {
+            if (isActive(match, now) && !subscribersOf(match).isEmpty()) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void onChanges(List<MatchChange> changes) {
+        for (MatchChange change : changes) {
+            String text = alertText(change);
+            if (text == null) continue;	//Cambiamento che non genera avvisi (es. un game)
+            List<Long> chatIds = subscribersOf(change.getMatch());
+            if (chatIds.isEmpty()) continue;
+            METRICS.counter("favorite_alerts_total", "Avvisi dei preferiti per tipo di cambiamento", "type", change.getType().name().toLowerCase(Locale.ROOT)).inc();
+            METRICS.counter("favorite_alert_recipients_total", "Chat a cui è stato accodato un avviso dei preferiti").inc(chatIds.size());
+            broadcasts.send(chatIds, text);
+        }
+    }
+
+    //Metodo privato che ritorna le chat che seguono almeno uno dei giocatori (nei doppi i nomi sono separati da "/")
+    private List<Long> subscribersOf(Match match) {
+        Set<Long> chatIds = new LinkedHashSet<>();
+        for (String side : new String[]{match.getPlayer1(), match.getPlayer2()}) {
+            if (side == null) continue;
+            for (String player : side.split("/")) chatIds.addAll(index.subscribersOf(player.trim()));
+        }
+        return new ArrayList<>(chatIds);
+    }
+
+    //Metodo statico che indica se una partita è in corso o in programma tra meno di START_WINDOW_MINUTES (o in ritardo da meno di LATE_START_MINUTES)
+    static boolean isActive(Match match, LocalTime now) {
+        MatchState.Phase phase = MatchState.of(match).getPhase();
+        if (phase == MatchState.Phase.LIVE) return true;
+        if (phase != MatchState.Phase.SCHEDULED || match.getDate() == null) return false;
+        LocalTime start;
+        try {
+            start = LocalTime.parse(match.getDate().trim(), START_TIME);
+        } catch (DateTimeParseException e) {
+            return false;	//Senza orario ("-"): la scopre la lettura di controllo quando inizia
+        }
+        int minutes = start.toSecondOfDay() / 60 - now.toSecondOfDay() / 60;	//Minuti all'orario di inizio (negativi se già passato)
+        return minutes <= START_WINDOW_MINUTES && minutes >= -LATE_START_MINUTES;
+    }
+
+    //Metodo statico che ritorna il testo dell'avviso per un cambiamento (null se il cambiamento non genera avvisi)
+    static String alertText(MatchChange change) {
+        Match match = change.getMatch();
+        String players = match.getPlayer1() + " vs " + match.getPlayer2();
+        String tournament = "\n🏆 " + match.getTournament();
+        String games = change.getCurrent().getGames();
+        return switch (change.getType()) {
+            case STARTED -> "🎾 PARTITA INIZIATA\n\n" + players + tournament;
+            case SET_COMPLETED -> "🔔 SET " + change.getCurrent().getCompletedSets() + " CONCLUSO\n\n" + players + "\n📊 " + games + tournament;
+            case FINISHED -> "🏁 PARTITA FINITA\n\n" + players
+                    + (change.getCurrent().getWinner() != null ? "\n🥇 Vince " + change.getCurrent().getWinner() : "")
+                    + (games.isEmpty() ? "" : "\n📊 " + games) + tournament;
+            default -> null;	//Game e partite annullate: nessun avviso
+        };
+    }
+}
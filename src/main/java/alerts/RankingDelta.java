@@ -0,0 +1,45 @@
+package alerts;
+
+//Classe RankingDelta con la variazione di un giocatore tra due classifiche (ranking 0 = assente in quella classifica)
+public final class RankingDelta {
+    private final String name;
+    private final int previousRanking;
+    private final int ranking;
+    private final int previousPoints;
+    private final int points;
+
+    public RankingDelta(String name, int previousRanking, int ranking, int previousPoints, int points) {
+        this.name = name;
+        this.previousRanking = previousRanking;
+        this.ranking = ranking;
+        this.previousPoints = previousPoints;
+        this.points = points;
+    }
+
+    public String getName() { return name; }
+    public int getPreviousRanking() { return previousRanking; }
+    public int getRanking() { return ranking; }
+    public int getPreviousPoints() { return previousPoints; }
+    public int getPoints() { return points; }
+
+    public boolean isNewEntry() { return previousRanking == 0; }	//Entrato in classifica
+    public boolean isDropped() { return ranking == 0; }	//Uscito dalla classifica
+
+    //Metodo che ritorna le posizioni guadagnate (negativo se perse)
+    public int positionsGained() {
+        return previousRanking - ranking;
+    }
+
+    //Metodo che ritorna la variazione in testo (es. "Jannik Sinner: 2º → 1º (▲1), 9500 → 10200 punti (+700)")
+    public String describe() {
+        if (isNewEntry()) return name + ": entra in classifica al " + ranking + "º posto (" + points + " punti)";
+        if (isDropped()) return name + ": esce dalla classifica (era " + previousRanking + "º)";
+        StringBuilder sb = new StringBuilder(name).append(": ");
+        int gained = positionsGained();
+        if (gained == 0) sb.append(ranking).append("º (=)");
+        else sb.append(previousRanking).append("º → ").append(ranking).append("º (").append(gained > 0 ? "▲" : "▼").append(Math.abs(gained)).append(')');
+        int pointsDelta = points - previousPoints;
+        if (pointsDelta != 0) sb.append(", ").append(previousPoints).append(" → ").append(points).append(" punti (").append(pointsDelta > 0 ? "+" : "").append(pointsDelta).append(')');
+        return sb.toString();
+    }
+}
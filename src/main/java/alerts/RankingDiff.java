@@ -0,0 +1,64 @@
+package alerts;
+
+import model.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/*Classe RankingDiff che confronta due classifiche dello stesso circuito con un sort-merge sui nomi:
+entrambe le liste vengono ordinate per nome e scorse una volta sola (O(n log n) per l'ordinamento, O(n) per il confronto).
+Ritorna solo i giocatori cambiati: ranking o punti diversi, entrati o usciti dalla classifica.
+Un giocatore risulta uscito solo se la classifica nuova è completa (expectedSize righe) oppure se la sua posizione precedente
+rientra in quelle lette: una lettura troncata (es. tabella di Wikipedia letta a metà) non fa uscire chi era in fondo.
+ */
+public final class RankingDiff {
+    private static final Comparator<Player> BY_NAME = Comparator.comparing(Player::getNome);
+
+    private RankingDiff() { }
+
+    //Metodo statico che ritorna le variazioni tra la classifica precedente e quella nuova (expectedSize: righe di una classifica completa)
+    public static List<RankingDelta> diff(List<Player> previous, List<Player> current, int expectedSize) {
+        Player[] before = sorted(previous);
+        Player[] after = sorted(current);
+        int lastRank = current.size() >= expectedSize ? Integer.MAX_VALUE : lastRank(current);	//Posizioni coperte dalla lettura nuova
+        List<RankingDelta> deltas = new ArrayList<>();
+        int i = 0, j = 0;
+        while (i < before.length || j < after.length) {
+            int order = i == before.length ? 1 : j == after.length ? -1 : before[i].getNome().compareTo(after[j].getNome());
+            if (order < 0) {	//Solo nella classifica precedente: uscito, se la lettura nuova arriva alla sua posizione
+                if (before[i].getRanking() <= lastRank) deltas.add(new RankingDelta(before[i].getNome(), before[i].getRanking(), 0, before[i].getPunti(), 0));
+                i++;
+            } else if (order > 0) {	//Solo nella classifica nuova: entrato
+                deltas.add(new RankingDelta(after[j].getNome(), 0, after[j].getRanking(), 0, after[j].getPunti()));
+                j++;
+            } else {	//In entrambe: conta solo se è cambiato qualcosa
+                if (before[i].getRanking() != after[j].getRanking() || before[i].getPunti() != after[j].getPunti()) {
+                    deltas.add(new RankingDelta(after[j].getNome(), before[i].getRanking(), after[j].getRanking(), before[i].getPunti(), after[j].getPunti()));
+                }
+                i++;
+                j++;
+            }
+        }
+        return deltas;
+    }
+
+    //Metodo statico privato che ritorna la posizione più bassa di una classifica (0 se è vuota)
+    private static int lastRank(List<Player> players) {
+        int last = 0;
+        for (Player player : players) last = Math.max(last, player.getRanking());
+        return last;
+    }
+
+    //Metodo statico privato che ritorna i giocatori ordinati per nome, senza nomi ripetuti (conta la posizione migliore)
+    private static Player[] sorted(List<Player> players) {
+        Player[] array = players.toArray(new Player[0]);
+        Arrays.sort(array, BY_NAME.thenComparingInt(Player::getRanking));
+        int size = 0;
+        for (Player player : array) {
+            if (size == 0 || !array[size - 1].getNome().equals(player.getNome())) array[size++] = player;
+        }
+        return Arrays.copyOf(array, size);
+    }
+}
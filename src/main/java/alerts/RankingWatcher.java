@@ -0,0 +1,107 @@
+package alerts;
+
+import database.DatabaseManager;
+import metrics.MetricsRegistry;
+import model.Player;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import outbound.BroadcastSender;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/*Classe RankingWatcher che rilegge periodicamente (refreshAll, chiamato dal RefreshScheduler) le classifiche ATP e WTA e avvisa le chat i cui preferiti hanno cambiato posizione o punti.
+Per ogni circuito, a ogni lettura:
+1. Confronto la classifica nuova con l'ultima salvata in ranking_snapshot (RankingDiff, una volta sola per tutti gli utenti)
+2. Salvo la classifica nuova come riferimento per la lettura successiva
+3. Con una sola query trovo le chat che hanno tra i preferiti almeno un giocatore cambiato, con i rispettivi giocatori
+4. Invio a ogni chat un solo messaggio con tutti i suoi preferiti cambiati (BroadcastSender, a blocchi)
+La prima lettura di un circuito serve solo da riferimento e non genera avvisi.
+ */
+public class RankingWatcher {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+
+    private final DatabaseManager databaseManager;
+    private final BroadcastSender broadcasts;
+    private final int size;	//Giocatori letti per classifica
+    private final Map<String, IntFunction<List<Player>>> tours = new LinkedHashMap<>();	//Circuito -> lettura della classifica
+    private final Map<String, TourChanges> latestChanges = new ConcurrentHashMap<>();	//Ultime variazioni di ogni circuito (per il digest)
+
+    //Costruttore che riceve database, invio a blocchi e giocatori per classifica
+    public RankingWatcher(DatabaseManager databaseManager, BroadcastSender broadcasts, int size) {
+        this.databaseManager = databaseManager;
+        this.broadcasts = broadcasts;
+        this.size = size;
+    }
+
+    //Metodo che aggiunge un circuito da controllare (es. "atp" con tennisService::getATPRankings)
+    public RankingWatcher watch(String tour, IntFunction<List<Player>> rankings) {
+        tours.put(tour, rankings);
+        return this;
+    }
+
+    //Metodo che ritorna, per ogni circuito, le variazioni dell'ultima lettura che ne ha trovate se risale al massimo a maxAgeMs fa
+    public Map<String, List<RankingDelta>> getRecentChanges(long maxAgeMs) {
+        Map<String, List<RankingDelta>> recent = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        for (String tour : tours.keySet()) {
+            TourChanges changes = latestChanges.get(tour);
+            if (changes != null && now - changes.at <= maxAgeMs) recent.put(tour, changes.deltas);
+        }
+        return recent;
+    }
+
+    //Metodo che controlla tutti i circuiti (un errore su uno non ferma gli altri né le letture successive)
+    public void refreshAll() {
+        for (Map.Entry<String, IntFunction<List<Player>>> tour : tours.entrySet()) {
+            try {
+                refresh(tour.getKey(), tour.getValue().apply(size));
+            } catch (RuntimeException e) {
+                System.err.println("❌ Errore nel controllo della classifica " + tour.getKey().toUpperCase() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    //Metodo che confronta una classifica appena letta con quella salvata e avvisa le chat interessate; ritorna le chat avvisate
+    int refresh(String tour, List<Player> current) {
+        if (current.isEmpty()) return 0;	//Lettura fallita: tengo la classifica salvata
+        METRICS.counter("ranking_refresh_total", "Letture periodiche delle classifiche", "tour", tour).inc();
+        List<Player> previous = databaseManager.getRankingSnapshot(tour);
+        databaseManager.saveRankingSnapshot(tour, current);
+        if (previous.isEmpty()) return 0;	//Prima lettura: solo riferimento
+
+        List<RankingDelta> deltas = RankingDiff.diff(previous, current, size);
+        if (deltas.isEmpty()) return 0;
+        latestChanges.put(tour, new TourChanges(deltas, System.currentTimeMillis()));
+        METRICS.counter("ranking_changes_total", "Giocatori con ranking o punti cambiati", "tour", tour).inc(deltas.size());
+        Map<String, RankingDelta> byName = new HashMap<>();
+        for (RankingDelta delta : deltas) byName.put(delta.getName(), delta);
+
+        Map<Long, List<String>> chats = databaseManager.getFavoriteChats(byName.keySet());	//Join con i preferiti in una sola query
+        List<SendMessage> messages = new ArrayList<>(chats.size());
+        for (Map.Entry<Long, List<String>> chat : chats.entrySet()) {
+            StringBuilder text = new StringBuilder("📈 CLASSIFICA " + tour.toUpperCase() + " AGGIORNATA\n\n⭐ I tuoi preferiti:\n");
+            for (String name : chat.getValue()) text.append("• ").append(byName.get(name).describe()).append('\n');
+            messages.add(SendMessage.builder().chatId(chat.getKey()).text(text.toString()).build());
+        }
+        METRICS.counter("ranking_alerts_total", "Chat avvisate di un cambiamento in classifica dei preferiti", "tour", tour).inc(messages.size());
+        broadcasts.send(messages);
+        System.out.println("📈 Classifica " + tour.toUpperCase() + ": " + deltas.size() + " giocatori cambiati, " + messages.size() + " chat avvisate");
+        return messages.size();
+    }
+
+    //Classe statica privata con le variazioni di una lettura e il suo istante
+    private static final class TourChanges {
+        private final List<RankingDelta> deltas;
+        private final long at;
+
+        private TourChanges(List<RankingDelta> deltas, long at) {
+            this.deltas = deltas;
+            this.at = at;
+        }
+    }
+}
@@ -1,14 +1,40 @@
 package bot;
 
+import alerts.FavoriteAlerts;
+import alerts.RankingWatcher;
+import cache.CacheSnapshot;
+import conversation.ConversationStateStore;
+import conversation.InMemoryConversationStore;
+import conversation.SqliteConversationStore;
+import commands.Bulkheads;
+import commands.Command;
+import commands.CommandRegistry;
+import commands.CostClass;
+import commands.RequestGuard;
+import commands.Route;
 import database.DatabaseManager;
+import digest.DigestScheduler;
+import jfr.ContinuousRecording;
+import live.LiveMatchPoller;
+import live.MatchDeltaEngine;
+import live.LiveScoreboard;
+import metrics.MetricsRegistry;
+import metrics.Timer;
 import model.H2HData;
 import model.Match;
 import model.Player;
+import outbound.BroadcastSender;
+import outbound.OutboundQueue;
+import outbound.Reply;
+import outbound.SendPipeline;
+import outbound.SendPriority;
 import API.WeatherService;
+import scraper.MissReason;
 import org.telegram.telegrambots.client.okhttp.OkHttpTelegramClient;
 import org.telegram.telegrambots.longpolling.util.LongPollingSingleThreadUpdateConsumer;
 import org.telegram.telegrambots.meta.api.methods.commands.SetMyCommands;
-import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updates.DeleteWebhook;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.commands.BotCommand;
 import org.telegram.telegrambots.meta.api.objects.commands.scope.BotCommandScopeDefault;
@@ -16,29 +42,268 @@ import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMar
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardRow;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.meta.generics.TelegramClient;
+import replay.ReplayHarness;
+import scheduler.RefreshJob;
+import scheduler.RefreshScheduler;
 import scraper.TennisService;
+import startup.Lazy;
+import startup.StartupTimer;
+import tracing.Span;
+import tracing.Tracer;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 //Classe BotTelegramGastaldello che gestisce il bot Telegram
 public class BotTelegramGastaldello implements LongPollingSingleThreadUpdateConsumer {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance(); //Registro delle metriche
+    private static final Tracer TRACER = Tracer.getInstance(); //Tracing degli update
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null); //Nessun messaggio in gestione per la chat
+    private static final ThreadLocal<Reply> CURRENT_REPLY = new ThreadLocal<>(); //Risposta dell'update gestito dal thread (per le foto degli handler)
+    private static final String STILL_WORKING = "⏳ Sto ancora lavorando alle tue richieste precedenti.\nRiprova tra qualche secondo."; //Risposta a chi supera i limiti per chat
+    private static final int MAX_PENDING_PER_CHAT = 3; //Messaggi di una chat in gestione contemporaneamente (gli altri ricevono STILL_WORKING)
+    private static final String UNKNOWN_COMMAND = "❓ Comando non riconosciuto.\nUsa /aiuto o il menu in basso.";
+    private static final double GLOBAL_SENDS_PER_SECOND = 30; //Limite di Telegram per tutte le chat insieme
+    private static final double CHAT_SENDS_PER_SECOND = 1; //Limite di Telegram per una singola chat
+    private static final double CHAT_SEND_BURST = 3; //Raffica ammessa per chat (es. le parti di un messaggio lungo)
+    private static final long LIVE_POLL_INTERVAL_MS = 30_000; //Intervallo tra due letture delle partite per i tabelloni live
+    private static final long LIVE_MIN_EDIT_INTERVAL_MS = 20_000; //Intervallo minimo tra due modifiche dello stesso tabellone
+    private static final long LIVE_FOLLOW_TTL_MS = 30 * 60_000; //Un tabellone si ferma dopo 30 minuti senza messaggi dalla chat
+    private static final int BROADCAST_BATCH_SIZE = 100; //Chat per blocco negli invii a molte chat (avvisi e notifiche)
+    private static final int RANKING_WATCH_SIZE = 100; //Giocatori confrontati per classifica negli avvisi dei preferiti
+    private static final long RANKING_WATCH_INTERVAL_MS = 6 * 60 * 60_000; //Le classifiche si aggiornano una volta a settimana: controllo ogni 6 ore
+    private static final long RANKING_REFRESH_INTERVAL_MS = 60 * 60_000; //Classifiche richieste nelle ultime 24 ore: rilette ogni ora
+    private static final long RANKING_IDLE_FACTOR = 6; //Classifiche non richieste da 24 ore: rilette 6 volte più di rado
+    private static final long RANKING_DEMAND_WINDOW_MS = 24 * 60 * 60_000; //Finestra della domanda di una classifica
+    private static final long WEATHER_REFRESH_INTERVAL_MS = 30 * 60_000; //Meteo delle città dei tornei in corso
+    private static final int WEATHER_MAX_CITIES = 10; //Città dei tornei aggiornate per esecuzione
+    private static final long CACHE_SWEEP_INTERVAL_MS = 10 * 60_000; //Pulizia delle voci scadute di cache e conversazioni
+    private static final long DIGEST_MATCHES_MAX_AGE_MS = 10 * 60_000; //Il digest riusa una lettura delle partite di al massimo 10 minuti
+    private static final long DIGEST_RANKING_MAX_AGE_MS = 24 * 60 * 60_000; //Il digest mostra le variazioni di classifica delle ultime 24 ore
+    private static final long CONVERSATION_TTL_MS = 30 * 60_000; //Una conversazione abbandonata scade dopo 30 minuti
+    private static final String STATE = "state"; //Chiave dello stato della conversazione (es. WAITING_PLAYER_NAME)
+    private static final String H2H_PLAYER1 = "h2h_player1"; //Chiave del primo giocatore del confronto testa a testa
     private final TelegramClient telegramClient; //Tengo il client Telegram per inviare e ricevere messaggi
-    private final TennisService tennisService; //Tengo il servizio tennis per recuperare dati e risultati tramite web scraping
+    private final OutboundQueue outbound; //Coda di invio con i limiti di Telegram: gli handler non aspettano la rete
+    private final SendPipeline sendPipeline; //Consegna ordinata di foto e parti del testo di una risposta
+    private final LiveMatchPoller livePoller; //Lettura periodica delle partite di oggi, condivisa tra /partite e i tabelloni live
+    private final LiveScoreboard liveScoreboard; //Tabelloni live modificati sul posto (/segui)
+    private final MatchDeltaEngine matchChanges; //Cambiamenti delle partite tra due letture (inizio, game, set, fine)
+    private final RankingWatcher rankingWatcher; //Avvisi dei preferiti che cambiano posizione nelle classifiche ATP e WTA
+    private final RefreshScheduler refresher = new RefreshScheduler(2); //Lavori periodici: classifiche, partite live, meteo, pulizia delle cache
+    private final BroadcastSender broadcasts; //Invii a molte chat, a blocchi
+    private DigestScheduler digestScheduler; //Invio del digest giornaliero (null finché non viene avviato)
+    private int digestDefaultHour = 8; //Ora del digest per chi si iscrive con /digest senza indicarla
+    private final Lazy<TennisService> tennisService; //Tengo il servizio tennis per recuperare dati e risultati tramite web scraping (in avvio rapido creato al primo uso: prima richiesta o job ranking_alerts/live_board)
     private final DatabaseManager databaseManager; //Tengo il manager del database per salvare utenti e giocatori
-    private final WeatherService weatherService; //Tengo il servizio meteo per fornire informazioni sul tempo tramite API
-    private final Map<Long, String> userStates = new HashMap<>(); //Tengo lo stato corrente di ogni utente per gestire conversazioni
-    private final Map<Long, String> h2hPlayer1 = new HashMap<>(); //Tengo il primo giocatore per il confronto testa a testa
+    private final Lazy<WeatherService> weatherService; //Tengo il servizio meteo per fornire informazioni sul tempo tramite API (in avvio rapido creato alla prima richiesta o al primo aggiornamento del meteo dei tornei)
+    private ConversationStateStore conversations = new InMemoryConversationStore(CONVERSATION_TTL_MS); //Stato delle conversazioni a più passi (comando in attesa e primo giocatore H2H)
+    private final CommandRegistry commands; //Comandi, alias dei pulsanti e handler degli stati della conversazione
+    private final Bulkheads bulkheads = new Bulkheads(); //Un pool di thread per tipo di lavoro (database, scraping, browser)
+    private final Map<Long, CompletableFuture<Void>> handling = new ConcurrentHashMap<>(); //Ultimo messaggio in gestione per ogni chat
+    private final RequestGuard guard = new RequestGuard(MAX_PENDING_PER_CHAT); //Limiti per chat e messaggi duplicati
+    private final Map<Long, CompletableFuture<Void>> deliveries = new ConcurrentHashMap<>(); //Consegna in corso dell'ultima risposta di ogni chat
+    private Set<Long> adminChatIds = Set.of(); //Chat autorizzate ai comandi di amministrazione (ADMIN_CHAT_ID)
+    private volatile ContinuousRecording flightRecording; //Registrazione JFR continua (null se disattivata o non ancora avviata)
+    private CacheSnapshot cacheSnapshot; //Snapshot delle cache salvato su file tra un riavvio e l'altro (null se disattivato)
 
     //Costruttore
     public BotTelegramGastaldello(String botToken, String apiKey) {
-        this.telegramClient = new OkHttpTelegramClient(botToken); //Creo il client Telegram con il token del bot
-        this.tennisService = new TennisService(); //Inizializzo il servizio tennis per recuperare dati e risultati
-        this.weatherService = new WeatherService(apiKey); //Inizializzo il servizio meteo con la chiave API
-        this.databaseManager = new DatabaseManager(); //Inizializzo il manager del database per gestire utenti e giocatori
-        setupBotCommands(); //Configuro i comandi disponibili del bot
+        this(botToken, apiKey, ReplayHarness.disabled()); //Nessuna registrazione o replay delle sorgenti esterne
     }
 
-    //Metodo privato per creare il menu dei comandi
-    private void setupBotCommands() {
+    //Costruttore che collega i servizi di scraping e meteo allo strato di registrazione/replay
+    public BotTelegramGastaldello(String botToken, String apiKey, ReplayHarness replay) {
+        this(botToken, apiKey, replay, false); //Avvio completo: servizi creati subito
+    }
+
+    //Costruttore che con fastStart crea i servizi di scraping e meteo alla prima richiesta e imposta il menu dei comandi in background
+    public BotTelegramGastaldello(String botToken, String apiKey, ReplayHarness replay, boolean fastStart) {
+        this(new OkHttpTelegramClient(botToken), //Client Telegram reale, servizi collegati al replay e database di default
+                fastStart ? Lazy.of("TennisService", () -> new TennisService(replay)) : Lazy.ready("TennisService", new TennisService(replay)),
+                fastStart ? Lazy.of("WeatherService", () -> new WeatherService(apiKey, replay)) : Lazy.ready("WeatherService", new WeatherService(apiKey, replay)),
+                new DatabaseManager(), fastStart);
+    }
+
+    //Costruttore che riceve tutte le dipendenze (usato dal generatore di carico con un client Telegram simulato)
+    public BotTelegramGastaldello(TelegramClient telegramClient, TennisService tennisService, WeatherService weatherService, DatabaseManager databaseManager) {
+        this(telegramClient, Lazy.ready("TennisService", tennisService), Lazy.ready("WeatherService", weatherService), databaseManager, false);
+    }
+
+    //Costruttore privato comune: con asyncMenu il menu dei comandi viene impostato senza aspettare Telegram
+    private BotTelegramGastaldello(TelegramClient telegramClient, Lazy<TennisService> tennisService, Lazy<WeatherService> weatherService, DatabaseManager databaseManager, boolean asyncMenu) {
+        this.telegramClient = telegramClient; //Tengo il client Telegram per inviare i messaggi
+        this.outbound = new OutboundQueue(telegramClient, GLOBAL_SENDS_PER_SECOND, CHAT_SENDS_PER_SECOND, CHAT_SEND_BURST, 8); //Coda di invio con 8 thread per le chiamate
+        this.sendPipeline = new SendPipeline(outbound); //Consegna delle risposte tramite la coda
+        this.broadcasts = new BroadcastSender(outbound, BROADCAST_BATCH_SIZE); //Invii a molte chat, a blocchi
+        this.tennisService = tennisService; //Servizio tennis per recuperare dati e risultati
+        this.weatherService = weatherService; //Servizio meteo
+        this.databaseManager = databaseManager; //Manager del database per gestire utenti e giocatori
+        this.livePoller = new LiveMatchPoller(() -> tennisService.get().getRecentMatches()); //Letture delle partite condivise tra /partite, tabelloni live e avvisi
+        this.liveScoreboard = new LiveScoreboard(outbound, BotTelegramGastaldello::formatMatches, LIVE_MIN_EDIT_INTERVAL_MS, LIVE_FOLLOW_TTL_MS);
+        this.matchChanges = new MatchDeltaEngine(); //Stato compatto di ogni partita e eventi di cambiamento
+        livePoller.addListener(liveScoreboard);
+        livePoller.addListener(matchChanges);
+        matchChanges.addListener(new FavoriteAlerts(databaseManager.getFavoriteIndex(), broadcasts, livePoller)); //Avvisi delle partite dei preferiti
+        this.rankingWatcher = new RankingWatcher(databaseManager, broadcasts, RANKING_WATCH_SIZE)
+                .watch("atp", limit -> tennisService.get().getATPRankings(limit))
+                .watch("wta", limit -> tennisService.get().getWTARankings(limit));
+        registerRefreshJobs(); //Programmo i lavori periodici
+        METRICS.gauge("bot_pending_conversations", "Conversazioni in attesa di una risposta dell'utente", () -> conversations.size()); //Stati di conversazione aperti
+        this.commands = createCommands(); //Registro i comandi con il loro tipo di lavoro e timeout
+        setupBotCommands(asyncMenu); //Configuro i comandi disponibili del bot
+    }
+
+    //Metodo che imposta le chat autorizzate ai comandi di amministrazione
+    public void setAdminChatIds(Set<Long> adminChatIds) {
+        this.adminChatIds = Set.copyOf(adminChatIds);
+    }
+
+    //Metodo che sceglie dove tenere lo stato delle conversazioni: in memoria oppure, con shared, nel database (condiviso tra più istanze)
+    public void configureConversations(boolean shared, long ttlMs) {
+        this.conversations = shared ? new SqliteConversationStore(databaseManager, ttlMs) : new InMemoryConversationStore(ttlMs);
+    }
+
+    //Metodo che collega la registrazione JFR continua usata dal comando /jfrdump
+    public void setFlightRecording(ContinuousRecording flightRecording) {
+        this.flightRecording = flightRecording;
+    }
+
+    //Metodo che rilegge le cache dallo snapshot su file (classifiche, giocatori, H2H, immagini, meteo, ultime partite) e lo riscrive ogni intervalMs e all'arresto.
+    //Non crea i servizi: le cache di un servizio non ancora creato (avvio rapido) vengono rilette quando viene creato
+    public void enableCacheSnapshot(Path file, long intervalMs) {
+        CacheSnapshot snapshot = new CacheSnapshot(file);
+        tennisService.whenInitialized(service -> service.registerSnapshot(snapshot));
+        weatherService.whenInitialized(service -> service.registerSnapshot(snapshot));
+        livePoller.registerSnapshot(snapshot);
+        snapshot.load(); //Le prime risposte usano le cache rilette, i job periodici le aggiornano in background
+        this.cacheSnapshot = snapshot;
+        refresher.register(new RefreshJob("cache_snapshot", intervalMs, snapshot::save).initialDelay(intervalMs));
+    }
+
+    //Metodo che avvia il digest giornaliero: defaultHour è l'ora per chi non la sceglie, zone il fuso orario delle ore
+    public void startDigest(int defaultHour, ZoneId zone) {
+        this.digestDefaultHour = defaultHour;
+        this.digestScheduler = new DigestScheduler(databaseManager, broadcasts, () -> livePoller.getMatches(DIGEST_MATCHES_MAX_AGE_MS),
+                () -> rankingWatcher.getRecentChanges(DIGEST_RANKING_MAX_AGE_MS), zone);
+        digestScheduler.start();
+    }
+
+    //Metodo che chiede a Telegram di inviare gli update all'indirizzo pubblico url, firmati con secretToken (modalità webhook)
+    public void setWebhook(String url, String secretToken, int maxConnections) throws TelegramApiException {
+        telegramClient.execute(SetWebhook.builder()
+                .url(url)
+                .secretToken(secretToken) //Inviato da Telegram nell'header X-Telegram-Bot-Api-Secret-Token
+                .maxConnections(maxConnections) //Richieste contemporanee che Telegram apre verso il webhook
+                .build());
+    }
+
+    //Metodo che rimuove il webhook (gli update in attesa restano disponibili per il long polling)
+    public void deleteWebhook() throws TelegramApiException {
+        telegramClient.execute(DeleteWebhook.builder().dropPendingUpdates(false).build());
+    }
+
+    //Metodo che ritorna lo stato dei lavori periodici e le ultime esecuzioni (per /jobs e per l'endpoint HTTP)
+    public String jobsReport() {
+        return refresher.report(3);
+    }
+
+    //Metodo che ritorna le statistiche delle cache di ricerca giocatori (per /cache e per l'endpoint HTTP)
+    public String cacheReport() {
+        return tennisService.isInitialized() ? tennisService.get().getCacheStats() : "🗄️ CACHE RICERCHE\nServizio non ancora creato (avvio rapido)\n";	//Non creo il servizio solo per leggerne le statistiche
+    }
+
+    //Metodo che ferma i lavori periodici e il digest, aspetta i comandi avviati e chiude la coda di invio aspettando (al massimo timeoutMs) i messaggi già accodati
+    public void shutdown(long timeoutMs) {
+        refresher.stop();
+        saveCacheSnapshot(); //Al riavvio le cache ripartono da qui
+        if (digestScheduler != null) digestScheduler.stop();
+        bulkheads.shutdown(timeoutMs); //Lascio finire i comandi già avviati
+        outbound.shutdown(timeoutMs);
+    }
+
+    //Metodo privato che scrive lo snapshot delle cache (se attivo)
+    private void saveCacheSnapshot() {
+        if (cacheSnapshot == null) return;
+        try {
+            long bytes = cacheSnapshot.save();
+            System.out.println("💾 Snapshot delle cache salvato (" + bytes / 1024 + " KB)");
+        } catch (IOException e) {
+            System.err.println("⚠️ Snapshot delle cache non salvato: " + e.getMessage());
+        }
+    }
+
+    //Metodo privato che registra i lavori periodici nel RefreshScheduler
+    private void registerRefreshJobs() {
+        refresher.register(new RefreshJob("live_board", LIVE_POLL_INTERVAL_MS, livePoller::refresh)	//Partite di oggi, solo se qualcuno segue un tabellone
+                .adaptive(base -> livePoller.wantsSnapshots() ? base : 0)
+                .initialDelay(LIVE_POLL_INTERVAL_MS)
+                .maxBackoff(5 * 60_000));
+        refresher.register(new RefreshJob("ranking_alerts", RANKING_WATCH_INTERVAL_MS, rankingWatcher::refreshAll)	//Avvisi dei preferiti (legge le classifiche dalla cache)
+                .initialDelay(60_000)); //Primo controllo un minuto dopo l'avvio
+        String[] rankingTypes = {"atp", "wta", "race", "atp_doppio", "wta_doppio"};
+        for (int i = 0; i < rankingTypes.length; i++) {
+            String type = rankingTypes[i];
+            refresher.register(new RefreshJob("rankings_" + type, RANKING_REFRESH_INTERVAL_MS, () -> tennisService.get().refreshRankings(type))
+                    .adaptive(base -> !tennisService.isInitialized() ? 0	//Servizio non ancora creato (avvio rapido): nessuna classifica richiesta da aggiornare
+                            : System.currentTimeMillis() - tennisService.get().getRankingsRequestedAt(type) < RANKING_DEMAND_WINDOW_MS ? base : base * RANKING_IDLE_FACTOR)
+                    .jitter(0.2)
+                    .initialDelay(10_000L * (i + 1))); //Prime letture scaglionate per non colpire Wikipedia insieme
+        }
+        refresher.register(new RefreshJob("weather", WEATHER_REFRESH_INTERVAL_MS, this::refreshTournamentWeather)
+                .adaptive(base -> tournamentCities().isEmpty() ? 0 : base)	//Nessuna partita letta: nessuna città da aggiornare
+                .initialDelay(2 * 60_000));
+        refresher.register(new RefreshJob("cache_sweep", CACHE_SWEEP_INTERVAL_MS, () -> {
+            int evicted = conversations.evictExpired(); //I servizi non ancora creati non hanno nulla da pulire
+            if (tennisService.isInitialized()) evicted += tennisService.get().evictExpired();
+            if (weatherService.isInitialized()) evicted += weatherService.get().evictExpired();
+            if (evicted > 0) System.out.println("🧹 Voci scadute rimosse: " + evicted);
+        }).initialDelay(CACHE_SWEEP_INTERVAL_MS));
+    }
+
+    //Metodo privato che aggiorna il meteo delle città dei tornei delle partite di oggi (un errore su una città non ferma le altre)
+    private void refreshTournamentWeather() throws IOException {
+        IOException failure = null;
+        for (String city : tournamentCities()) {
+            try {
+                weatherService.get().refreshWeather(city);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) throw failure;	//Almeno una città fallita: il job va in backoff
+    }
+
+    //Metodo privato che ritorna le città (senza nazione) dei tornei dell'ultima lettura delle partite
+    private Set<String> tournamentCities() {
+        Set<String> cities = new LinkedHashSet<>();
+        for (Match match : livePoller.getLatest()) {
+            String location = match.getLocation();
+            if (location == null || location.isBlank()) continue;
+            cities.add(location.split(",")[0].trim()); //"Shanghai, China" -> "Shanghai"
+            if (cities.size() >= WEATHER_MAX_CITIES) break;
+        }
+        return cities;
+    }
+
+    //Metodo privato che indica se /partite e /segui possono rispondere con l'ultima lettura delle partite, senza il browser
+    private boolean hasRecentMatches() {
+        return livePoller.getLatestAgeMs() <= LIVE_POLL_INTERVAL_MS;
+    }
+
+    //Metodo privato che indica se una chat è di un amministratore
+    private boolean isAdmin(Long chatId) {
+        return adminChatIds.contains(chatId);
+    }
+
+    //Metodo privato per creare il menu dei comandi (con async la richiesta a Telegram non blocca l'avvio)
+    private void setupBotCommands(boolean async) {
         List<BotCommand> commands = new ArrayList<>(); //Creo la lista dei comandi disponibili del bot
         commands.add(new BotCommand("start", "Avvia il bot")); //Aggiungo il comando start per avviare il bot
         commands.add(new BotCommand("classificaatp", "Top 10 ATP")); //Aggiungo il comando per la classifica ATP
@@ -47,10 +312,12 @@ public class BotTelegramGastaldello implements LongPollingSingleThreadUpdateCons
         commands.add(new BotCommand("classificawta", "Top 10 WTA")); //Aggiungo il comando per la classifica WTA
         commands.add(new BotCommand("classificawtadoppio", "Top 10 WTA Doppio")); //Aggiungo il comando per la classifica WTA Doppio
         commands.add(new BotCommand("partite", "Partite di oggi")); //Aggiungo il comando per le partite del giorno
+        commands.add(new BotCommand("segui", "Tabellone live delle partite")); //Aggiungo il comando per il tabellone aggiornato automaticamente
         commands.add(new BotCommand("cerca", "Cerca giocatore")); //Aggiungo il comando per cercare un giocatore
         commands.add(new BotCommand("h2h", "Head to Head tra giocatori")); //Aggiungo il comando per confrontare due giocatori
         commands.add(new BotCommand("meteo", "Meteo attuale di una città")); //Aggiungo il comando per ottenere il meteo
         commands.add(new BotCommand("preferiti", "I tuoi preferiti")); //Aggiungo il comando per vedere i preferiti
+        commands.add(new BotCommand("digest", "Digest giornaliero dei preferiti")); //Aggiungo il comando per il digest giornaliero
         commands.add(new BotCommand("statistiche", "Statistiche personali")); //Aggiungo il comando per le statistiche personali
         commands.add(new BotCommand("aiuto", "Mostra aiuto")); //Aggiungo il comando per visualizzare l'aiuto
 
@@ -59,6 +326,13 @@ public class BotTelegramGastaldello implements LongPollingSingleThreadUpdateCons
                     .commands(commands) //Imposto i comandi che ho appena creato
                     .scope(new BotCommandScopeDefault()) //Applico i comandi a tutti gli utenti
                     .build(); //Costruisco l'oggetto SetMyCommands
+            if (async) { //Il menu arriva a Telegram mentre il bot inizia a ricevere gli update
+                telegramClient.executeAsync(setMyCommands).whenComplete((result, error) -> {
+                    if (error != null) System.err.println("Errore impostazione menu: " + error.getMessage());
+                    else System.out.println("Menu comandi impostato");
+                });
+                return;
+            }
             telegramClient.execute(setMyCommands); //Invio la richiesta al bot per settare i comandi
             System.out.println("Menu comandi impostato"); //Stampo conferma sul terminale
         } catch (TelegramApiException e) {
@@ -98,169 +372,276 @@ public class BotTelegramGastaldello implements LongPollingSingleThreadUpdateCons
     }
 
     //Metodo pubblico consume obbligatorio da sovrascrivere per implementare l'interfaccia LongPollingSingleThreadUpdateConsumer
+    //Il comando viene eseguito sul pool del suo tipo di lavoro: consume non aspetta né lo scraping né Telegram
     @Override
     public void consume(Update update) {
         if (update.hasMessage() && update.getMessage().hasText()) { //Controllo se l'update contiene un messaggio di testo
             String messageText = update.getMessage().getText().trim(); //Prendo il testo del messaggio e tolgo spazi iniziali e finali
             Long chatId = update.getMessage().getChatId(); //Prendo l'ID della chat
             String username = update.getMessage().getFrom().getUserName(); //Prendo il nome utente del mittente
-            databaseManager.saveUser(chatId, username); //Salvo o aggiorno l'utente nel database
-            databaseManager.logInteraction(chatId, messageText); //Registro l'interazione nel database
-            String response; //Dichiaro la variabile per la risposta da inviare
-            String state = userStates.get(chatId); //Recupero lo stato della conversazione dell'utente
-
-            if ("WAITING_PLAYER_NAME".equals(state)) { //Se sto aspettando il nome di un giocatore
-                response = handlePlayerSearch(chatId, messageText); //Gestisco la ricerca del giocatore
-            } else if ("WAITING_ADD_FAVORITE".equals(state)) { //Se sto aspettando il giocatore da aggiungere ai preferiti
-                response = handleAddFavorite(chatId, messageText); //Gestisco l'aggiunta ai preferiti
-            } else if ("WAITING_REMOVE_FAVORITE".equals(state)) { //Se sto aspettando il giocatore da rimuovere dai preferiti
-                response = handleRemoveFavorite(chatId, messageText); //Gestisco la rimozione dai preferiti
-            } else if ("WAITING_H2H_PLAYER1".equals(state)) { //Se sto aspettando il primo giocatore per H2H
-                response = handleH2HPlayer1(chatId, messageText); //Gestisco il primo giocatore H2H
-            } else if ("WAITING_H2H_PLAYER2".equals(state)) { //Se sto aspettando il secondo giocatore per H2H
-                response = handleH2HPlayer2(chatId, messageText); //Gestisco il secondo giocatore H2H
-            } else if ("WAITING_CITY_WEATHER".equals(state)) { //Se sto aspettando il nome di una città per il meteo
-                response = handleWeather(chatId, messageText); //Gestisco la richiesta meteo
-            } else { //Se non c'è uno stato specifico
-                response = processCommand(messageText, chatId); //Processo il messaggio come comando generico
+            long startedAt = System.nanoTime(); //Inizio della gestione, per il tempo di consegna della risposta
+            liveScoreboard.touch(chatId); //La chat è attiva: il suo tabellone live continua
+            CompletableFuture<Void> recorded = recordInteraction(chatId, username, messageText); //Prima dei limiti: anche i messaggi uniti o limitati vengono registrati
+            if (guard.duplicateOf(chatId, messageText) != null) return; //Stesso messaggio ancora in gestione: la sua risposta vale per entrambi
+            if (guard.isSaturated(chatId)) { //Troppi messaggi in gestione: rispondo subito senza accodarlo
+                if (guard.shouldWarn(chatId)) sendPipeline.deliver(new Reply(chatId).text(STILL_WORKING), SendPriority.INTERACTIVE);
+                return;
             }
-            sendMessage(chatId, response, messageText.equals("/start")); //Invio la risposta all'utente
+            CompletableFuture<Void> previous = handling.getOrDefault(chatId, DONE);
+            CompletableFuture<Handled> handled = CompletableFuture.allOf(previous, recorded)
+                    .thenCompose(ignored -> handle(chatId, messageText)); //I messaggi di una chat sono gestiti in ordine (lo stato della conversazione dipende dal precedente), dopo la registrazione dell'utente
+            CompletableFuture<Void> done = handled.thenAccept(result -> { });
+            handling.put(chatId, done);
+            done.whenComplete((result, error) -> handling.remove(chatId, done)); //Solo se nel frattempo non è arrivato un altro messaggio
+            guard.track(chatId, messageText, done);
+            CompletableFuture<Void> delivery = deliveries.getOrDefault(chatId, DONE).handle((result, error) -> null) //Dopo la consegna della risposta precedente: il testo di una risposta parte solo dopo le sue foto
+                    .thenCompose(ignored -> handled)
+                    .thenCompose(result -> deliver(result, messageText.equals("/start"), startedAt)); //Accodo la risposta (foto e testo) per l'utente
+            deliveries.put(chatId, delivery);
+            delivery.whenComplete((result, error) -> deliveries.remove(chatId, delivery));
         }
     }
 
-    private String processCommand(String command, Long chatId) {
-        try {
-            if (command.equals("/start")) { //Se il comando è /start
-                return "🎾 Benvenuto nel Tennis Bot!\n\nSono il tuo assistente personale per il tennis.\n\n" +
-                        "Comandi disponibili:\n" +
-                        " 🏆  /classificaatp - Top 10 ATP\n" +
-                        " 🏁  /racetoturin - Top 10 Race\n" +
-                        "👨👨 /classificaatpdoppio - Top 10 ATP doppio\n" +
-                        " 👩  /classificawta - Top 10 WTA\n" +
-                        "👩👩 /classificawtadoppio - Top 10 WTA doppio\n" +
-                        " 📅  /partite - Partite di oggi\n" +
-                        " 🔍  /cerca - Cerca giocatore\n" +
-                        " ⚔️  /h2h - Confronta due giocatori\n" +
-                        " ⛅  /meteo - Trova il meteo delle città dove si svolgono i tornei\n" +
-                        " ⭐  /preferiti - I tuoi preferiti\n" +
-                        " ➕  /aggiungi - Aggiungi preferito\n" +
-                        " ➖  /rimuovi - Rimuovi preferito\n" +
-                        " 📊  /statistiche - Le tue statistiche\n" +
-                        " ❓  /aiuto - Mostra questo messaggio\n\n" +
-                        "💡 Usa il menu in basso per i comandi rapidi!"; //Restituisco messaggio di benvenuto con comandi
-            }
+    //Metodo privato che salva l'utente e registra l'interazione sul pool del database, senza bloccare consume; il future non fallisce
+    private CompletableFuture<Void> recordInteraction(Long chatId, String username, String messageText) {
+        return bulkheads.run(CostClass.DATABASE, CostClass.DATABASE.getDefaultTimeoutMs(), () -> {
+            databaseManager.saveUser(chatId, username); //Salvo o aggiorno l'utente nel database
+            databaseManager.logInteraction(chatId, messageText); //Registro l'interazione nel database
+            return (Void) null;
+        }).exceptionally(error -> null); //Pool pieno o timeout: l'interazione non viene registrata, il messaggio viene gestito comunque
+    }
 
-            if (command.equals("/aiuto") || command.equals("/help")) { //Se il comando è /aiuto o /help
-                return processCommand("/start", chatId); //Chiamo il comando /start per mostrare guida
-            }
+    //Metodo che ritorna il future della gestione e della consegna dell'ultima risposta a una chat (già completato se non c'è nulla in corso)
+    public CompletableFuture<Void> pendingDelivery(Long chatId) {
+        CompletableFuture<Void> delivery = deliveries.get(chatId);
+        return delivery != null ? delivery : CompletableFuture.completedFuture(null);
+    }
 
-            if (command.equals("/classificaatp") || command.equals("🏆 ATP")) { //Se comando classifica ATP singolare
-                List<Player> rankings = tennisService.getATPRankings(10); //Prendo top 10 ATP
-                databaseManager.savePlayers(rankings); //Salvo i giocatori nel database
-                return formatRankings(rankings, "ATP"); //Restituisco testo formattato
-            }
+    //Metodo privato che sceglie il comando del messaggio (in base allo stato della conversazione) e lo esegue sul pool del suo tipo di lavoro
+    private CompletableFuture<Handled> handle(Long chatId, String messageText) {
+        String state = conversations.get(chatId, STATE); //Recupero lo stato della conversazione dell'utente
+        Route route = commands.route(messageText, state); //Comando da eseguire ed etichetta per metriche e tracing
+        Command command = route.getCommand();
+        CostClass costClass = command.currentCostClass(); //Es. /partite con una lettura recente: niente browser, quindi né il suo pool né il suo limite
+        if (!guard.tryAcquire(chatId, costClass)) { //Limite per chat del tipo di lavoro superato: non occupo il pool
+            return CompletableFuture.completedFuture(limited(chatId, costClass));
+        }
+        return bulkheads.run(costClass, command.getTimeoutMs(), () -> execute(chatId, state, route))
+                .exceptionally(error -> new Handled(route.getLabel(), new Reply(chatId).text(failureText(route, error)))); //Pool pieno, timeout o errore: rispondo comunque
+    }
 
-            if (command.equals("/racetoturin") || command.equals("🏁 RACE")) { //Se comando Race to Turin
-                List<Player> rankings = tennisService.getRaceRankings(10); //Prendo top 10 Race
-                databaseManager.savePlayers(rankings); //Salvo nel database
-                return formatRankings(rankings, "RACE ATP"); //Restituisco classifica formattata
-            }
+    //Metodo privato che ritorna l'esito di un comando fermato dal limite per chat (già contato in bot_requests_limited_total da RequestGuard):
+    //la chat riceve l'attesa al primo comando fermato di una raffica; gli altri, entro WARNING_INTERVAL dall'avviso, restano senza un nuovo messaggio
+    private Handled limited(Long chatId, CostClass costClass) {
+        if (!guard.shouldWarn(chatId)) return Handled.limited(null);
+        return Handled.limited(new Reply(chatId).text("🚦 Troppi comandi di questo tipo.\nRiprova tra " + guard.secondsUntilAvailable(chatId, costClass) + " s."));
+    }
 
-            if (command.equals("/classificaatpdoppio") || command.equals("👨👨 ATP")) { //Se classifica ATP doppio
-                List<Player> rankings = tennisService.getATPDoubleRankings(10); //Prendo top 10 doppio ATP
-                databaseManager.savePlayers(rankings); //Salvo nel database
-                return formatRankings(rankings, "DOPPIO ATP"); //Restituisco classifica
+    //Metodo privato eseguito sul pool del comando: esegue l'handler, misurato e tracciato (l'interazione è già stata registrata in consume)
+    //La traccia resta aperta dopo l'handler e si chiude in deliver, così comprende anche gli invii a Telegram
+    private Handled execute(Long chatId, String state, Route route) throws Exception {
+        Span trace = TRACER.startTrace("update " + route.getLabel()).tag("chat", chatId); //Traccio la gestione dell'update per comando
+        try (Timer.Context timing = commandTimer(route.getLabel()).time()) { //Misuro l'handler
+            Reply reply = new Reply(chatId);
+            CURRENT_REPLY.set(reply); //Le foto aggiunte dall'handler (es. /cerca e /h2h) finiscono in questa risposta
+            try (Span handler = TRACER.span("handler").tag("stato", state)) {
+                reply.text(route.getCommand().getHandler().handle(chatId, route.getArgument())); //Eseguo il comando o rispondo alla conversazione in corso
+            } finally {
+                CURRENT_REPLY.remove();
             }
+            return new Handled(route.getLabel(), reply, trace);
+        } catch (Exception | Error e) {
+            trace.close(); //Nessuna risposta da consegnare con questa traccia
+            throw e;
+        } finally {
+            TRACER.detach(trace); //Il thread del pool passa ad altro; la traccia continua negli invii
+        }
+    }
 
-            if (command.equals("/classificawta") || command.equals("👩 WTA")) { //Se classifica WTA singolare
-                List<Player> rankings = tennisService.getWTARankings(10); //Prendo top 10 WTA
-                databaseManager.savePlayers(rankings); //Salvo nel database
-                return formatRankings(rankings, "WTA"); //Restituisco testo
-            }
+    //Metodo privato che consegna la risposta dell'update e misura il tempo fino all'ultima parte consegnata
+    private CompletableFuture<Void> deliver(Handled handled, boolean showKeyboard, long startedAt) {
+        if (handled.reply == null) return DONE; //Comando limitato, avviso già inviato per questa raffica
+        if (showKeyboard) handled.reply.keyboard(createKeyboard()); //Tastiera solo sulla prima parte
+        CompletableFuture<Void> delivery = sendPipeline.deliver(handled.reply, SendPriority.INTERACTIVE, handled.trace);
+        delivery.whenComplete((result, error) -> {
+            if (handled.trace != null) handled.trace.close(); //La traccia termina con l'ultima parte consegnata
+            replyTimer(handled.label).record(System.nanoTime() - startedAt);
+            StartupTimer.getInstance().firstUpdateHandled(); //Solo la prima risposta dopo l'avvio viene registrata
+        });
+        return delivery;
+    }
 
-            if (command.equals("/classificawtadoppio") || command.equals("👩👩 WTA")) { //Se classifica WTA doppio
-                List<Player> rankings = tennisService.getWTADoubleRankings(10); //Prendo top 10 doppio WTA
-                databaseManager.savePlayers(rankings); //Salvo nel database
-                return formatRankings(rankings, "WTA"); //Restituisco testo
-            }
+    //Metodo statico privato che ritorna la risposta per un comando non completato (pool pieno, timeout o eccezione)
+    private static String failureText(Route route, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) { //Contato da Bulkheads
+            return "🚦 Troppe richieste di questo tipo in corso.\nRiprova tra qualche secondo.";
+        }
+        if (cause instanceof TimeoutException) {
+            METRICS.counter("bot_command_timeouts_total", "Comandi interrotti dal timeout", "command", route.getLabel()).inc(); //Conto il timeout nelle metriche
+            return "⏱ La richiesta sta impiegando troppo tempo.\nRiprova più tardi.";
+        }
+        METRICS.counter("bot_command_errors_total", "Comandi terminati con un'eccezione", "command", route.getLabel()).inc(); //Conto l'errore nelle metriche
+        cause.printStackTrace(); //Stampo stack trace
+        return "⚠️ Si è verificato un errore. Riprova più tardi."; //Messaggio errore generico
+    }
 
-            if (command.equals("/partite") || command.equals("📅 PARTITE")) { //Se comando partite
-                List<Match> matches = tennisService.getRecentMatches(); //Prendo partite recenti
-                return formatMatches(matches); //Restituisco testo partite
-            }
+    //Metodo privato che registra i comandi: nome, alias (pulsanti della tastiera), tipo di lavoro e handler
+    private CommandRegistry createCommands() {
+        CommandRegistry registry = new CommandRegistry(new Command("testo", CostClass.DATABASE, (chatId, text) -> UNKNOWN_COMMAND)); //Messaggio non riconosciuto
+        registry.register(new Command("/start", CostClass.DATABASE, (chatId, argument) -> startText())) //Messaggio di benvenuto con i comandi
+                .register(new Command("/aiuto", CostClass.DATABASE, (chatId, argument) -> startText()).alias("/help")) //Guida uguale a /start
+                .register(new Command("/classificaatp", CostClass.SCRAPE, (chatId, argument) -> rankings(tennisService.get().getATPRankings(10), "ATP")).alias("🏆 ATP"))
+                .register(new Command("/racetoturin", CostClass.SCRAPE, (chatId, argument) -> rankings(tennisService.get().getRaceRankings(10), "RACE ATP")).alias("🏁 RACE"))
+                .register(new Command("/classificaatpdoppio", CostClass.SCRAPE, (chatId, argument) -> rankings(tennisService.get().getATPDoubleRankings(10), "DOPPIO ATP")).alias("👨👨 ATP"))
+                .register(new Command("/classificawta", CostClass.SCRAPE, (chatId, argument) -> rankings(tennisService.get().getWTARankings(10), "WTA")).alias("👩 WTA"))
+                .register(new Command("/classificawtadoppio", CostClass.SCRAPE, (chatId, argument) -> rankings(tennisService.get().getWTADoubleRankings(10), "WTA")).alias("👩👩 WTA"))
+                .register(new Command("/partite", CostClass.BROWSER, (chatId, argument) -> formatMatches(livePoller.getMatches(LIVE_POLL_INTERVAL_MS))).alias("📅 PARTITE")
+                        .whenCached(CostClass.DATABASE, this::hasRecentMatches)) //Riuso l'ultima lettura se recente: il browser serve solo senza
+                .register(new Command("/segui", CostClass.BROWSER, this::handleFollow).withArgument()
+                        .whenCached(CostClass.DATABASE, this::hasRecentMatches)) //Tabellone live (tutte le partite o un torneo)
+                .register(new Command("/smetti", CostClass.DATABASE, (chatId, argument) -> liveScoreboard.unfollow(chatId)
+                        ? "⏹ Tabellone live fermato." //Conferma
+                        : "ℹ️ Non stai seguendo nessun tabellone. Usa /segui per iniziare.")) //Nessun tabellone attivo
+                .register(new Command("/cerca", CostClass.DATABASE, (chatId, argument) -> ask(chatId, "WAITING_PLAYER_NAME",
+                        "🔍 RICERCA GIOCATORE\n\nScrivi il nome del giocatore da cercare.\n\nEsempi:\n• Jannik Sinner\n• Novak Djokovic\n• Carlos Alcaraz\n\nDigita /annulla per annullare.")).alias("🔍 CERCA"))
+                .register(new Command("/h2h", CostClass.DATABASE, (chatId, argument) -> ask(chatId, "WAITING_H2H_PLAYER1",
+                        "⚔️ HEAD TO HEAD\n\nScrivi il nome completo del PRIMO giocatore.\n\nEsempi:\n• Jannik Sinner\n• Novak Djokovic\n• Carlos Alcaraz\n\n⚠️ IMPORTANTE: Usa nome e cognome completi!\n\nDigita /annulla per annullare.")).alias("⚔️ H2H"))
+                .register(new Command("/meteo", CostClass.DATABASE, (chatId, argument) -> ask(chatId, "WAITING_CITY_WEATHER",
+                        "🌤 METEO\n\nScrivi il nome della città.\n\nEsempi:\n• Roma\n• Milano\n• London\n\nDigita /annulla per annullare.")).alias("🌤 METEO"))
+                .register(new Command("/preferiti", CostClass.DATABASE, (chatId, argument) -> databaseManager.getFavoritePlayers(chatId)).alias("⭐ PREFERITI")) //Lista preferiti
+                .register(new Command("/aggiungi", CostClass.DATABASE, this::handleAddCommand).withArgument()) //Con il nome aggiunge subito, senza lo chiede
+                .register(new Command("/rimuovi", CostClass.DATABASE, this::handleRemoveCommand).withArgument()) //Con il nome rimuove subito, senza lo chiede
+                .register(new Command("/digest", CostClass.DATABASE, this::handleDigest).withArgument()) //Iscrizione, cambio ora o disiscrizione
+                .register(new Command("/statistiche", CostClass.DATABASE, (chatId, argument) ->
+                        databaseManager.getUserStatistics(chatId)).alias("📊 Stats")) //Statistiche utente
+                .register(new Command("/trace", CostClass.DATABASE, this::handleTrace).withArgument()) //Amministrazione: tracce lente
+                .register(new Command("/jfrdump", CostClass.DATABASE, this::handleJfrDump).withArgument()) //Amministrazione: dump della registrazione JFR
+                .register(new Command("/jobs", CostClass.DATABASE, this::handleJobs).withArgument()) //Amministrazione: lavori periodici
+                .register(new Command("/cache", CostClass.DATABASE, (chatId, argument) -> isAdmin(chatId) ? cacheReport() : UNKNOWN_COMMAND)) //Amministrazione: statistiche delle cache
+                .register(new Command("/annulla", CostClass.DATABASE, (chatId, argument) -> {
+                    conversations.clear(chatId); //Resetto stato utente ed eventuale H2H
+                    return "❌ Operazione annullata."; //Messaggio conferma annullamento
+                }));
+        registry.registerState("WAITING_PLAYER_NAME", new Command("/cerca", CostClass.SCRAPE, this::handlePlayerSearch)) //Nome del giocatore da cercare
+                .registerState("WAITING_ADD_FAVORITE", new Command("/aggiungi", CostClass.DATABASE, this::handleAddFavorite)) //Giocatore da aggiungere ai preferiti
+                .registerState("WAITING_REMOVE_FAVORITE", new Command("/rimuovi", CostClass.DATABASE, this::handleRemoveFavorite)) //Giocatore da rimuovere dai preferiti
+                .registerState("WAITING_H2H_PLAYER1", new Command("/h2h", CostClass.DATABASE, this::handleH2HPlayer1)) //Primo giocatore H2H
+                .registerState("WAITING_H2H_PLAYER2", new Command("/h2h", CostClass.SCRAPE, this::handleH2HPlayer2).timeout(45_000)) //Secondo giocatore H2H: Matchstat e due immagini
+                .registerState("WAITING_CITY_WEATHER", new Command("/meteo", CostClass.SCRAPE, this::handleWeather)); //Città del meteo
+        return registry;
+    }
 
-            if (command.equals("/cerca") || command.equals("🔍 CERCA")) { //Se comando cerca giocatore
-                userStates.put(chatId, "WAITING_PLAYER_NAME"); //Imposto stato attesa nome giocatore
-                return "🔍 RICERCA GIOCATORE\n\nScrivi il nome del giocatore da cercare.\n\nEsempi:\n• Jannik Sinner\n• Novak Djokovic\n• Carlos Alcaraz\n\nDigita /annulla per annullare."; //Restituisco istruzioni
-            }
+    //Metodo privato che ritorna il messaggio di benvenuto con l'elenco dei comandi
+    private static String startText() {
+        return "🎾 Benvenuto nel Tennis Bot!\n\nSono il tuo assistente personale per il tennis.\n\n" +
+                "Comandi disponibili:\n" +
+                " 🏆  /classificaatp - Top 10 ATP\n" +
+                " 🏁  /racetoturin - Top 10 Race\n" +
+                "👨👨 /classificaatpdoppio - Top 10 ATP doppio\n" +
+                " 👩  /classificawta - Top 10 WTA\n" +
+                "👩👩 /classificawtadoppio - Top 10 WTA doppio\n" +
+                " 📅  /partite - Partite di oggi\n" +
+                " 🔄  /segui [torneo] - Tabellone live aggiornato automaticamente\n" +
+                " ⏹  /smetti - Ferma il tabellone live\n" +
+                " 🔍  /cerca - Cerca giocatore\n" +
+                " ⚔️  /h2h - Confronta due giocatori\n" +
+                " ⛅  /meteo - Trova il meteo delle città dove si svolgono i tornei\n" +
+                " ⭐  /preferiti - I tuoi preferiti\n" +
+                " ➕  /aggiungi - Aggiungi preferito\n" +
+                " ➖  /rimuovi - Rimuovi preferito\n" +
+                " 📰  /digest [ora|off] - Digest giornaliero dei preferiti\n" +
+                " 📊  /statistiche - Le tue statistiche\n" +
+                " ❓  /aiuto - Mostra questo messaggio\n\n" +
+                "💡 Usa il menu in basso per i comandi rapidi!"; //Restituisco messaggio di benvenuto con comandi
+    }
 
-            if (command.equals("/h2h") || command.equals("⚔️ H2H")) { //Se comando head to head
-                userStates.put(chatId, "WAITING_H2H_PLAYER1"); //Imposto stato attesa primo giocatore
-                return "⚔️ HEAD TO HEAD\n\nScrivi il nome completo del PRIMO giocatore.\n\nEsempi:\n• Jannik Sinner\n• Novak Djokovic\n• Carlos Alcaraz\n\n⚠️ IMPORTANTE: Usa nome e cognome completi!\n\nDigita /annulla per annullare."; //Restituisco istruzioni
-            }
+    //Metodo privato che salva i giocatori di una classifica nel database e ritorna il testo formattato
+    private String rankings(List<Player> rankings, String type) {
+        databaseManager.savePlayers(rankings); //Salvo i giocatori nel database
+        return formatRankings(rankings, type); //Restituisco testo formattato
+    }
 
-            if (command.equals("/meteo") || command.equals("🌤 METEO")) { //Se comando meteo
-                userStates.put(chatId, "WAITING_CITY_WEATHER"); //Imposto stato attesa città
-                return "🌤 METEO\n\nScrivi il nome della città.\n\nEsempi:\n• Roma\n• Milano\n• London\n\nDigita /annulla per annullare."; //Restituisco istruzioni
-            }
+    //Metodo privato che mette la chat in attesa di una risposta (stato della conversazione) e ritorna la domanda
+    private String ask(Long chatId, String state, String question) {
+        conversations.put(chatId, STATE, state); //Imposto lo stato di attesa
+        return question; //Restituisco istruzioni
+    }
 
-            if (command.equals("/preferiti") || command.equals("⭐ PREFERITI")) { //Se comando preferiti
-                return databaseManager.getFavoritePlayers(chatId); //Recupero lista preferiti
-            }
+    //Metodo privato per il comando /segui: invia il tabellone che verrà poi modificato
+    private String handleFollow(Long chatId, String filter) {
+        liveScoreboard.follow(chatId, filter, livePoller.getMatches(LIVE_POLL_INTERVAL_MS)); //Torneo o città da seguire (vuoto = tutte le partite)
+        return ""; //Nessuna altra risposta: il tabellone è il messaggio
+    }
 
-            if (command.equals("/aggiungi")) { //Se comando aggiungi preferito
-                userStates.put(chatId, "WAITING_ADD_FAVORITE"); //Imposto stato attesa aggiunta
-                return "➕ AGGIUNGI AI PREFERITI\n\nScrivi il nome del giocatore da aggiungere.\n\nEsempi:\n• Jannik Sinner\n• Novak Djokovic\n• Iga Swiatek\n\nDigita /annulla per annullare."; //Restituisco istruzioni
-            }
+    //Metodo privato per il comando /aggiungi: senza nome lo chiede, con il nome aggiunge subito il giocatore
+    private String handleAddCommand(Long chatId, String playerName) {
+        if (playerName.isEmpty()) { //Nessun nome: lo chiedo
+            return ask(chatId, "WAITING_ADD_FAVORITE", "➕ AGGIUNGI AI PREFERITI\n\nScrivi il nome del giocatore da aggiungere.\n\nEsempi:\n• Jannik Sinner\n• Novak Djokovic\n• Iga Swiatek\n\nDigita /annulla per annullare.");
+        }
+        return addFavorite(chatId, playerName); //Aggiungo al database
+    }
 
-            if (command.equals("/rimuovi")) { //Se comando rimuovi preferito
-                userStates.put(chatId, "WAITING_REMOVE_FAVORITE"); //Imposto stato attesa rimozione
-                return "➖ RIMUOVI DAI PREFERITI\n\nScrivi il nome del giocatore da rimuovere.\n\nDigita /annulla per annullare."; //Restituisco istruzioni
-            }
+    //Metodo privato per il comando /rimuovi: senza nome lo chiede, con il nome rimuove subito il giocatore
+    private String handleRemoveCommand(Long chatId, String playerName) {
+        if (playerName.isEmpty()) { //Nessun nome: lo chiedo
+            return ask(chatId, "WAITING_REMOVE_FAVORITE", "➖ RIMUOVI DAI PREFERITI\n\nScrivi il nome del giocatore da rimuovere.\n\nDigita /annulla per annullare.");
+        }
+        return databaseManager.removeFavoritePlayer(chatId, playerName); //Rimuovo dal database
+    }
 
-            if (command.startsWith("/aggiungi ")) { //Se comando aggiungi con nome diretto
-                String playerName = command.replace("/aggiungi ", "").trim(); //Estraggo nome giocatore
-                if (playerName.isEmpty()) { //Se vuoto
-                    return "⚠️ Usa: /aggiungi\nTi chiederò il nome dopo!"; //Messaggio errore
-                }
-                return databaseManager.addFavoritePlayer(chatId, playerName); //Aggiungo al database
-            }
+    //Metodo privato per il comando di amministrazione /trace [n]: tracce lente
+    private String handleTrace(Long chatId, String argument) {
+        if (!isAdmin(chatId)) return UNKNOWN_COMMAND; //Per gli altri utenti il comando non esiste
+        int limit = argument.matches("\\d{1,3}") ? Integer.parseInt(argument) : 5; //Numero di tracce (default 5)
+        return TRACER.dump(limit);
+    }
 
-            if (command.startsWith("/rimuovi ")) { //Se comando rimuovi con nome diretto
-                String playerName = command.replace("/rimuovi ", "").trim(); //Estraggo nome giocatore
-                if (playerName.isEmpty()) { //Se vuoto
-                    return "⚠️ Usa: /rimuovi\nTi chiederò il nome dopo!"; //Messaggio errore
-                }
-                return databaseManager.removeFavoritePlayer(chatId, playerName); //Rimuovo dal database
-            }
+    //Metodo privato per il comando di amministrazione /jfrdump [minuti]: dump della registrazione JFR
+    private String handleJfrDump(Long chatId, String argument) {
+        if (!isAdmin(chatId)) return UNKNOWN_COMMAND; //Per gli altri utenti il comando non esiste
+        int minutes = argument.matches("\\d{1,4}") ? Math.max(1, Integer.parseInt(argument)) : 10; //Minuti da salvare (default 10)
+        return dumpFlightRecording(minutes);
+    }
 
-            if (command.equals("/statistiche") || command.equals("📊 Stats")) { //Se comando statistiche
-                return databaseManager.getUserStatistics(chatId); //Recupero statistiche utente
-            }
+    //Metodo privato per il comando di amministrazione /jobs [nome]: stato dei lavori periodici, oppure esecuzione immediata di un lavoro
+    private String handleJobs(Long chatId, String argument) {
+        if (!isAdmin(chatId)) return UNKNOWN_COMMAND; //Per gli altri utenti il comando non esiste
+        if (argument.isEmpty()) return jobsReport();
+        return refresher.runNow(argument) ? "▶️ Job " + argument + " avviato." : "⚠️ Job non trovato: " + argument;
+    }
 
-            if (command.equals("/annulla")) { //Se comando annulla
-                userStates.remove(chatId); //Resetto stato utente
-                h2hPlayer1.remove(chatId); //Resetto eventuale H2H
-                return "❌ Operazione annullata."; //Messaggio conferma annullamento
-            }
-            return "❓ Comando non riconosciuto.\nUsa /aiuto o il menu in basso."; //Messaggio per comando non valido
-        } catch (Exception e) { //Gestione eccezioni generiche
-            e.printStackTrace(); //Stampo stack trace
-            return "⚠️ Si è verificato un errore. Riprova più tardi."; //Messaggio errore generico
+    //Metodo privato per la gestione del comando /digest: senza argomenti iscrive (o mostra l'iscrizione), con un'ora la cambia, con off la cancella
+    private String handleDigest(Long chatId, String argument) {
+        if (argument.equalsIgnoreCase("off")) {	//Disiscrizione
+            return databaseManager.removeDigestSubscription(chatId) ? "🔕 Non riceverai più il digest giornaliero." : "ℹ️ Non sei iscritto al digest. Usa /digest per iscriverti.";
+        }
+        Integer current = databaseManager.getDigestHour(chatId);	//Ora attuale (null se non iscritto)
+        int hour;
+        if (argument.isEmpty()) {
+            if (current != null) return "📰 Ricevi il digest ogni giorno alle " + current + ":00.\n\n🕗 /digest <ora> per cambiare ora (0-23)\n🔕 /digest off per non riceverlo più";
+            hour = digestDefaultHour;	//Prima iscrizione senza ora
+        } else if (argument.matches("\\d{1,2}") && Integer.parseInt(argument) < 24) {
+            hour = Integer.parseInt(argument);
+        } else {
+            return "⚠️ Ora non valida. Usa /digest <ora> con un'ora da 0 a 23 (es. /digest 8), oppure /digest off.";
         }
+        if (!databaseManager.setDigestSubscription(chatId, hour)) return "❌ Errore nell'iscrizione al digest.";
+        return "📰 Riceverai ogni giorno alle " + hour + ":00 il digest con le partite dei tuoi preferiti, i risultati e le variazioni in classifica."
+                + (current != null ? "" : "\n\n🔕 /digest off per non riceverlo più");
     }
 
     //==================== HANDLER STATO UTENTE ====================
     //Metodo privato per la gestione della ricerca del giocatore
     private String handlePlayerSearch(Long chatId, String playerName) {
-        userStates.remove(chatId);	//Rimuovo lo stato dell'utente perché sto iniziando una nuova ricerca
+        conversations.remove(chatId, STATE);	//Rimuovo lo stato dell'utente perché sto iniziando una nuova ricerca
         if (playerName.equalsIgnoreCase("/annulla")) {	//Controllo se l'utente vuole annullare la ricerca
             return "❌ Ricerca annullata.";	//Informo l'utente che ho annullato la ricerca
         }
         if (playerName.isEmpty() || playerName.length() < 2) {	//Verifico se il nome del giocatore è troppo corto o vuoto
             return "⚠️ Nome troppo corto. Riprova con /cerca";	//Avviso l'utente che deve inserire un nome più lungo
         }
-        Player player = tennisService.searchPlayer(playerName);	//Cerco il giocatore usando il servizio tennisService
+        Player player = tennisService.get().searchPlayer(playerName);	//Cerco il giocatore usando il servizio tennisService (una ricerca fallita di recente ritorna subito null)
         if (player != null) {	//Se ho trovato il giocatore
             databaseManager.savePlayer(player);	//Salvo il giocatore nel database
             if (player.getExtraInfo() != null && !player.getExtraInfo().isEmpty()) {	//Se il giocatore ha informazioni extra
@@ -274,6 +655,8 @@ public class BotTelegramGastaldello implements LongPollingSingleThreadUpdateCons
                 return formatPlayerInfo(player) + "\n\n💡 Aggiungi ai preferiti con /aggiungi";	//Ritorno info base formattata con suggerimento
             }
         } else {	//Se il giocatore non viene trovato
+            MissReason reason = tennisService.get().peekCachedMiss(playerName);	//La ricerca fallita (ora o di recente) è in cache negativa con il suo motivo
+            if (reason != null) return formatMiss(playerName, reason, "/cerca");
             return "❌ Giocatore \"" + playerName + "\" non trovato.\n\n" +	//Informo l'utente che non ho trovato nulla
                     "💡 Suggerimenti:\n" +	//Fornisco alcuni suggerimenti per migliorare la ricerca
                     "• Scrivi nome e cognome (es: Jannik Sinner)\n" +	//Suggerisco di scrivere nome e cognome
@@ -285,19 +668,41 @@ public class BotTelegramGastaldello implements LongPollingSingleThreadUpdateCons
 
     //Metodo privato per la gestione dell'aggiunta di un giocatore ai preferiti
     private String handleAddFavorite(Long chatId, String playerName) {
-        userStates.remove(chatId);	//Rimuovo lo stato dell'utente perché sto iniziando l'aggiunta ai preferiti
+        conversations.remove(chatId, STATE);	//Rimuovo lo stato dell'utente perché sto iniziando l'aggiunta ai preferiti
         if (playerName.equalsIgnoreCase("/annulla")) {	//Controllo se l'utente vuole annullare l'operazione
             return "❌ Operazione annullata.";	//Informo l'utente che ho annullato l'aggiunta
         }
         if (playerName.isEmpty() || playerName.length() < 2) {	//Verifico se il nome del giocatore è vuoto o troppo corto
             return "⚠️ Nome troppo corto. Riprova con /aggiungi";	//Avviso l'utente di inserire un nome valido
         }
-        return databaseManager.addFavoritePlayer(chatId, playerName);	//Aggiungo il giocatore ai preferiti e ritorno il risultato
+        return addFavorite(chatId, playerName);	//Aggiungo il giocatore ai preferiti e ritorno il risultato
+    }
+
+    //Metodo privato che aggiunge un giocatore ai preferiti: prima il database, la cache negativa serve solo a spiegare perché non c'è
+    private String addFavorite(Long chatId, String playerName) {
+        String result = databaseManager.addFavoritePlayer(chatId, playerName);	//Il giocatore già cercato è nel database anche se una ricerca successiva è fallita
+        if (result != null) return result;
+        MissReason cachedMiss = tennisService.isInitialized() ? tennisService.get().peekCachedMiss(playerName) : null;	//Senza servizio creato (avvio rapido) non c'è nessuna ricerca fallita da spiegare
+        if (cachedMiss != null) return formatMiss(playerName, cachedMiss, "/aggiungi");	//Rispondo con il motivo della ricerca fallita
+        return "❌ Giocatore \"" + playerName + "\" non trovato nel database.\n\n💡 Prima cercalo con /cerca, poi aggiungilo ai preferiti!";
+    }
+
+    //Metodo privato che costruisce la risposta per una ricerca fallita in base al motivo salvato in cache negativa
+    private String formatMiss(String playerName, MissReason reason, String retryCommand) {
+        if (reason == MissReason.NETWORK_ERROR) {	//Errore temporaneo: suggerisco di riprovare tra poco
+            return "⚠️ Ricerca di \"" + playerName + "\" non riuscita: " + reason.getDescription() + ".\n\n" +
+                    "Riprova tra qualche minuto con " + retryCommand;
+        }
+        return "❌ \"" + playerName + "\": " + reason.getDescription() + ".\n\n" +	//Fallimento definitivo (per ora)
+                "💡 Suggerimenti:\n" +
+                "• Scrivi nome e cognome (es: Jannik Sinner)\n" +
+                "• Controlla lo spelling\n\n" +
+                "Riprova con " + retryCommand;
     }
 
     //Metodo privato per la gestione della rimozione di un giocatore ai preferiti
     private String handleRemoveFavorite(Long chatId, String playerName) {
-        userStates.remove(chatId);	//Rimuovo lo stato dell'utente perché sto iniziando la rimozione dai preferiti
+        conversations.remove(chatId, STATE);	//Rimuovo lo stato dell'utente perché sto iniziando la rimozione dai preferiti
         if (playerName.equalsIgnoreCase("/annulla")) {	//Controllo se l'utente vuole annullare l'operazione
             return "❌ Operazione annullata.";	//Informo l'utente che ho annullato la rimozione
         }
@@ -310,14 +715,14 @@ public class BotTelegramGastaldello implements LongPollingSingleThreadUpdateCons
     //Metodo privato per la gestione della richiesta del primo giocatore per l'H2H
     private String handleH2HPlayer1(Long chatId, String playerName) {
         if (playerName.equalsIgnoreCase("/annulla")) {	//Controllo se l'utente vuole annullare l'operazione H2H
-            userStates.remove(chatId);	//Rimuovo lo stato dell'utente perché sto annullando
+            conversations.remove(chatId, STATE);	//Rimuovo lo stato dell'utente perché sto annullando
             return "❌ H2H annullato.";	//Informo l'utente che ho annullato la richiesta H2H
         }
         if (playerName.isEmpty() || playerName.length() < 2) {	//Verifico se il nome del giocatore è vuoto o troppo corto
             return "⚠️ Nome troppo corto. Riprova.";	//Avviso l'utente di inserire un nome valido
         }
-        h2hPlayer1.put(chatId, playerName);	//Salvo il primo giocatore della sfida H2H per questo utente
-        userStates.put(chatId, "WAITING_H2H_PLAYER2");	//Aggiorno lo stato dell'utente per aspettare il secondo giocatore
+        conversations.put(chatId, H2H_PLAYER1, playerName);	//Salvo il primo giocatore della sfida H2H per questo utente
+        conversations.put(chatId, STATE, "WAITING_H2H_PLAYER2");	//Aggiorno lo stato dell'utente per aspettare il secondo giocatore
         return "⚔️ HEAD TO HEAD\n\n" +	//Creo il messaggio di conferma per l'utente
                 "Primo giocatore: " + playerName + "\n\n" +	//Mostro il primo giocatore selezionato
                 "Ora scrivi il nome del SECONDO giocatore.\n\n" +	//Istruisco l'utente su cosa fare dopo
@@ -326,19 +731,19 @@ public class BotTelegramGastaldello implements LongPollingSingleThreadUpdateCons
 
     //Metodo privato per la gestione della richiesta del secondo giocatore per l'H2H
     private String handleH2HPlayer2(Long chatId, String player2Name) {
-        userStates.remove(chatId);	//Rimuovo lo stato dell'utente perché sto gestendo il secondo giocatore H2H
+        conversations.remove(chatId, STATE);	//Rimuovo lo stato dell'utente perché sto gestendo il secondo giocatore H2H
         if (player2Name.equalsIgnoreCase("/annulla")) {	//Controllo se l'utente vuole annullare l'H2H
-            h2hPlayer1.remove(chatId);	//Rimuovo anche il primo giocatore salvato perché annullo l'operazione
+            conversations.remove(chatId, H2H_PLAYER1);	//Rimuovo anche il primo giocatore salvato perché annullo l'operazione
             return "❌ H2H annullato.";	//Informo l'utente che l'H2H è stato annullato
         }
-        String player1Name = h2hPlayer1.remove(chatId);	//Recupero e rimuovo il primo giocatore salvato
+        String player1Name = conversations.remove(chatId, H2H_PLAYER1);	//Recupero e rimuovo il primo giocatore salvato
         if (player1Name == null) {	//Se non c'è un primo giocatore registrato
             return "⚠️ Errore. Riprova con /h2h";	//Avviso l'utente che qualcosa è andato storto
         }
         if (player2Name.isEmpty() || player2Name.length() < 2) {	//Verifico se il nome del secondo giocatore è troppo corto o vuoto
             return "⚠️ Nome troppo corto. Riprova con /h2h";	//Avviso l'utente di inserire un nome valido
         }
-        H2HData h2hData = tennisService.getH2HData(player1Name, player2Name);	//Richiedo i dati H2H completi dai servizi tennisService
+        H2HData h2hData = tennisService.get().getH2HData(player1Name, player2Name);	//Richiedo i dati H2H completi dai servizi tennisService
         if (h2hData != null) {	//Se i dati H2H sono stati trovati
             if (h2hData.getPlayer1Image() != null && !h2hData.getPlayer1Image().isEmpty()) {	//Se il primo giocatore ha un'immagine
                 sendPhoto(chatId, h2hData.getPlayer1Image(), h2hData.getPlayer1Name());	//Invio la foto del primo giocatore
@@ -346,7 +751,7 @@ public class BotTelegramGastaldello implements LongPollingSingleThreadUpdateCons
             if (h2hData.getPlayer2Image() != null && !h2hData.getPlayer2Image().isEmpty()) {	//Se il secondo giocatore ha un'immagine
                 sendPhoto(chatId, h2hData.getPlayer2Image(), h2hData.getPlayer2Name());	//Invio la foto del secondo giocatore
             }
-            return getH2H(player1Name, player2Name);	//Formato e ritorno i dati H2H tra i due giocatori
+            return formatH2HData(h2hData);	//Formatto i dati già scaricati (senza rifare lo scraping)
         } else {	//Se i dati H2H non sono disponibili
             return "❌ Impossibile recuperare H2H tra " + player1Name + " e " + player2Name + ".\n\n" +	//Informo l'utente che non posso recuperare i dati
                     "Possibili cause:\n" +	//Fornisco alcune possibili cause del problema
@@ -363,20 +768,20 @@ public class BotTelegramGastaldello implements LongPollingSingleThreadUpdateCons
 
     //Metodo privato per ottenere le informazioni meteo su una città
     private String handleWeather(Long chatId, String city) {
-        userStates.remove(chatId);	//Rimuovo stato utente
+        conversations.remove(chatId, STATE);	//Rimuovo stato utente
         if (city.equalsIgnoreCase("/annulla")) {	//Controllo annulla
             return "❌ Meteo annullato.";	//Avviso annullamento
         }
         if (city.isEmpty() || city.length() < 2) {	//Verifico nome città
             return "⚠️ Nome città non valido.\nRiprova con /meteo";	//Avviso nome non valido
         }
-        return weatherService.getCurrentWeather(city);	//Richiedo meteo attuale
+        return weatherService.get().getCurrentWeather(city);	//Richiedo meteo attuale
     }
 
     //==================== FORMATTATORI ====================
     //Metodo pubblico per ottenere il riepilogo H2H in formato testuale
     public String getH2H(String player1, String player2) {
-        H2HData data = tennisService.getH2HData(player1, player2);	//Richiamo il metodo che recupera i dati H2H completi
+        H2HData data = tennisService.get().getH2HData(player1, player2);	//Richiamo il metodo che recupera i dati H2H completi
         if (data == null) {	//Se non sono riuscito a recuperare i dati
             return "❌ Impossibile recuperare i dati H2H.\n\n" +	//Ritorno un messaggio di errore dettagliato
                     "Possibili cause:\n" +
@@ -389,8 +794,8 @@ public class BotTelegramGastaldello implements LongPollingSingleThreadUpdateCons
         return formatH2HData(data);	//Ritorno i dati H2H formattati tramite il metodo helper
     }
 
-    //Metodo privato per formattare i dati dell'H2H e ritornare una stringa leggibile per l'utente
-    private String formatH2HData(H2HData data) {
+    //Metodo per formattare i dati dell'H2H e ritornare una stringa leggibile per l'utente (package-private per i benchmark)
+    static String formatH2HData(H2HData data) {
         StringBuilder sb = new StringBuilder();	//Creo un StringBuilder per costruire il messaggio H2H
         sb.append("⚔️ HEAD TO HEAD ⚔️\n\n");	//Aggiungo intestazione H2H
         sb.append(String.format("👤 %s vs %s\n\n",
@@ -518,8 +923,8 @@ public class BotTelegramGastaldello implements LongPollingSingleThreadUpdateCons
         return sb.toString();	//Ritorno il messaggio formattato
     }
 
-    //Metodo privato per formattare la visualizzazione delle partite in una stringa leggibile per l'utente
-    private String formatMatches(List<Match> matches) {
+    //Metodo per formattare la visualizzazione delle partite in una stringa leggibile per l'utente (package-private per i benchmark)
+    static String formatMatches(List<Match> matches) {
         if (matches.isEmpty()) {	//Se non ci sono partite
             return "ℹ️ NESSUNA PARTITA LIVE\n\n" +
                     "Non ci sono partite in corso.\n\n" +
@@ -585,7 +990,7 @@ public class BotTelegramGastaldello implements LongPollingSingleThreadUpdateCons
     }
 
     //Metodo helper per associare un emoji a una specifica tipologia di torneo
-    private String getTournamentEmoji(String tournament) {
+    private static String getTournamentEmoji(String tournament) {
         String lower = tournament.toLowerCase();	//Converto il nome in minuscolo
         if (lower.contains("grande slam") || lower.contains("roland garros") || lower.contains("australian open") ||
                 lower.contains("wimbledon") || lower.contains("us open")) {	//Se torneo Grand Slam
@@ -610,38 +1015,55 @@ public class BotTelegramGastaldello implements LongPollingSingleThreadUpdateCons
         return sb.toString();	//Ritorno stringa formattata
     }
 
-    //Metodo per inviare un messaggio nella chat telegram spezzandolo eventualmente se è troppo lungo
-    private void sendMessage(Long chatId, String text, boolean showKeyboard) {
-        int MAX_LENGTH = 4000; //Definisco lunghezza massima messaggio
-        for (int i = 0; i < text.length(); i += MAX_LENGTH) {	//Divido messaggio in più parti se necessario
-            String part = text.substring(i, Math.min(text.length(), i + MAX_LENGTH));	//Estraggo parte del messaggio
-            SendMessage message = SendMessage.builder()
-                    .chatId(chatId.toString())
-                    .text(part)
-                    .build();	//Costruisco messaggio
-            if (showKeyboard && i == 0) {	//Mostro tastiera solo nel primo messaggio
-                message.setReplyMarkup(createKeyboard());	//Imposto tastiera
-            }
-            try {
-                telegramClient.execute(message);	//Invio messaggio
-            } catch (TelegramApiException e) {
-                e.printStackTrace();	//Gestione errore
-            }
-        }
+    //Metodo privato che aggiunge una foto alla risposta dell'update in corso (viene inviata prima del testo)
+    private void sendPhoto(Long chatId, String photoUrl, String caption) {
+        Reply reply = CURRENT_REPLY.get(); //Risposta dell'update gestito da questo thread
+        if (reply != null) reply.addPhoto(photoUrl, caption);
     }
 
-    //Metodo privato per inviare nel bot telegram una foto
-    private void sendPhoto(Long chatId, String photoUrl, String caption) {
+    //Metodo privato che salva su file gli ultimi minuti della registrazione JFR e ritorna il messaggio per l'amministratore
+    private String dumpFlightRecording(int minutes) {
+        if (flightRecording == null) return "⚠️ Registrazione JFR disattivata (JFR_ENABLED=false)";
         try {
-            org.telegram.telegrambots.meta.api.methods.send.SendPhoto sendPhoto =
-                    org.telegram.telegrambots.meta.api.methods.send.SendPhoto.builder()
-                            .chatId(chatId.toString())
-                            .photo(new org.telegram.telegrambots.meta.api.objects.InputFile(photoUrl))
-                            .caption(caption)
-                            .build();	//Costruisco messaggio foto
-            telegramClient.execute(sendPhoto);	//Invio foto
-        } catch (TelegramApiException e) {
-            System.out.println("⚠️ Impossibile inviare foto: " + e.getMessage());	//Errore invio foto
+            Path file = flightRecording.dump(minutes);
+            return "🎥 Dump JFR degli ultimi " + minutes + " minuti salvato in:\n" + file + "\n\nAprilo con JDK Mission Control o con \"jfr summary\"";
+        } catch (IOException e) {
+            System.err.println("❌ Errore nel dump JFR: " + e.getMessage());
+            return "❌ Errore nel dump JFR: " + e.getMessage();
+        }
+    }
+
+    //==================== METRICHE ====================
+    //Metodo statico privato che ritorna il timer del tempo fino alla consegna completa della risposta
+    private static Timer replyTimer(String command) {
+        return METRICS.timer("bot_reply_delivered_seconds", "Tempo dall'update alla consegna dell'ultima parte della risposta", "command", command);
+    }
+
+    //Metodo statico privato che ritorna il timer della gestione di un comando
+    private static Timer commandTimer(String command) {
+        return METRICS.timer("bot_command_seconds", "Durata della gestione di un update per comando", "command", command);
+    }
+
+    //Classe statica privata con il risultato di un update: etichetta del comando e risposta da consegnare
+    private static final class Handled {
+        private static final String LIMITED = "limitato"; //Etichetta dei comandi fermati dal limite per chat (non quella del comando)
+        private final String label;
+        private final Reply reply;
+        private final Span trace; //Traccia dell'update ancora aperta (null se la risposta non viene dall'handler)
+
+        private Handled(String label, Reply reply) {
+            this(label, reply, null);
+        }
+
+        private Handled(String label, Reply reply, Span trace) {
+            this.label = label;
+            this.reply = reply;
+            this.trace = trace;
+        }
+
+        //Metodo statico che ritorna l'esito di un comando fermato dal limite per chat (reply null = nessun messaggio da inviare)
+        private static Handled limited(Reply reply) {
+            return new Handled(LIMITED, reply);
         }
     }
-}
\ No newline at end of file
+}
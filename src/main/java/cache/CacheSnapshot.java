@@ -0,0 +1,189 @@
+package cache;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import metrics.MetricsRegistry;
+import metrics.Timer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*Classe CacheSnapshot che salva le cache del bot in un file locale compresso (JSON in GZIP) e le rilegge all'avvio.
+Ogni sezione ha un nome (es. "classifiche") e salva le sue voci con gli istanti di inserimento e di scadenza originali:
+dopo un riavvio le voci ancora valide tornano in cache come prima del riavvio, quelle scadute nel frattempo vengono scartate.
+Il file viene scritto su un file temporaneo e poi rinominato, così un arresto durante la scrittura non lascia uno snapshot a metà.
+Una sezione registrata dopo load (es. la cache di un servizio creato alla prima richiesta) viene riletta subito dai dati già letti;
+finché non viene registrata, save riscrive il suo contenuto com'era, così un salvataggio intermedio non la perde.
+ */
+public class CacheSnapshot {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+    private static final int VERSION = 1;	//Versione del formato (uno snapshot di un'altra versione viene ignorato)
+
+    private final Path file;
+    private final ObjectMapper mapper = new ObjectMapper()	//Serializzo i campi dei modelli, non i getter (es. isTennisPlayer)
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .setVisibility(PropertyAccessor.CREATOR, JsonAutoDetect.Visibility.ANY)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Map<String, Section> sections = new LinkedHashMap<>();
+    private final Map<String, JsonNode> pending = new LinkedHashMap<>();	//Sezioni lette dal file ma non ancora registrate
+    private boolean loaded;	//true dopo load: le sezioni registrate dopo vengono rilette da pending
+
+    //Interfaccia Section per una parte dello snapshot (una cache o un altro stato da conservare tra i riavvii)
+    public interface Section {
+        //Metodo che ritorna il contenuto della sezione da salvare
+        JsonNode save(ObjectMapper mapper);
+
+        //Metodo che rimette in memoria il contenuto salvato e ritorna le voci ripristinate
+        int load(JsonNode data, ObjectMapper mapper) throws IOException;
+    }
+
+    //Costruttore che riceve il file dello snapshot
+    public CacheSnapshot(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() { return file; }
+
+    //Metodo che aggiunge una sezione con il suo nome (dopo load la sezione viene riletta subito, se era nel file)
+    public synchronized CacheSnapshot register(String name, Section section) {
+        sections.put(name, section);
+        JsonNode content = loaded ? pending.remove(name) : null;
+        if (content != null) {
+            int restored = restore(name, section, content);
+            System.out.println("♻️ Snapshot delle cache: " + restored + " voci ripristinate nella sezione " + name);
+        }
+        return this;
+    }
+
+    //Metodo che aggiunge una cache come sezione (il nome è quello della cache); valueType è il tipo dei valori, es. List<Player>
+    public <V> CacheSnapshot register(TtlCache<String, V> cache, JavaType valueType) {
+        return register(cache.getName(), new CacheSection<>(cache, valueType));
+    }
+
+    //Metodo che ritorna il mapper dello snapshot (es. mapper().getTypeFactory() per costruire il tipo List<Player>)
+    public ObjectMapper mapper() {
+        return mapper;
+    }
+
+    //Metodo che scrive lo snapshot di tutte le sezioni e ritorna la dimensione del file in byte
+    public synchronized long save() throws IOException {
+        try (Timer.Context timing = snapshotTimer("save").time()) {
+            ObjectNode root = mapper.createObjectNode();
+            root.put("version", VERSION);
+            root.put("savedAt", System.currentTimeMillis());
+            ObjectNode data = root.putObject("sections");
+            for (Map.Entry<String, Section> section : sections.entrySet()) {
+                data.set(section.getKey(), section.getValue().save(mapper));
+            }
+            pending.forEach(data::set);	//Sezioni non ancora registrate: riscritte come erano (le voci scadute vengono scartate alla lettura)
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+                mapper.writeValue(out, root);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return Files.size(file);
+        }
+    }
+
+    //Metodo che rilegge lo snapshot e ritorna le voci ripristinate (0 se il file non c'è o non è leggibile: si riparte a freddo)
+    public synchronized int load() {
+        loaded = true;
+        long start = System.nanoTime();
+        JsonNode root;
+        try (Timer.Context timing = snapshotTimer("load").time();
+             InputStream in = new GZIPInputStream(Files.newInputStream(file), 64 * 1024)) {
+            root = mapper.readTree(in);
+        } catch (NoSuchFileException e) {
+            return 0;	//Primo avvio
+        } catch (IOException e) {
+            System.err.println("⚠️ Snapshot delle cache non leggibile, avvio a freddo: " + e.getMessage());
+            return 0;
+        }
+        if (root.path("version").asInt() != VERSION) {
+            System.err.println("⚠️ Snapshot delle cache di un'altra versione, avvio a freddo");
+            return 0;
+        }
+        int restored = 0;
+        for (Iterator<Map.Entry<String, JsonNode>> it = root.path("sections").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> content = it.next();
+            Section section = sections.get(content.getKey());
+            if (section != null) restored += restore(content.getKey(), section, content.getValue());
+            else pending.put(content.getKey(), content.getValue());	//Riletta quando la sezione viene registrata
+        }
+        long ageMinutes = (System.currentTimeMillis() - root.path("savedAt").asLong()) / 60_000;
+        System.out.println("♻️ Snapshot delle cache: " + restored + " voci ripristinate in " + (System.nanoTime() - start) / 1_000_000 + " ms (salvato " + ageMinutes + " minuti fa)");
+        return restored;
+    }
+
+    //Metodo privato che rimette in memoria una sezione e ritorna le voci ripristinate (una sezione illeggibile, es. modello cambiato, non blocca le altre)
+    private int restore(String name, Section section, JsonNode content) {
+        try {
+            return section.load(content, mapper);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Sezione " + name + " dello snapshot ignorata: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    //Metodo statico privato che ritorna il timer delle operazioni sullo snapshot
+    private static Timer snapshotTimer(String operation) {
+        return METRICS.timer("cache_snapshot_seconds", "Durata di scrittura e lettura dello snapshot delle cache", "operation", operation);
+    }
+
+    //Classe statica privata che salva una TtlCache come array di voci {key, storedAt, expiresAt, value}
+    private static final class CacheSection<V> implements Section {
+        private final TtlCache<String, V> cache;
+        private final JavaType valueType;
+
+        private CacheSection(TtlCache<String, V> cache, JavaType valueType) {
+            this.cache = cache;
+            this.valueType = valueType;
+        }
+
+        @Override
+        public JsonNode save(ObjectMapper mapper) {
+            ArrayNode entries = mapper.createArrayNode();
+            cache.liveEntries().forEach((key, entry) -> {
+                ObjectNode node = entries.addObject();
+                node.put("key", key);
+                node.put("storedAt", entry.storedAt);
+                node.put("expiresAt", entry.expiresAt);
+                node.set("value", mapper.valueToTree(entry.value));
+            });
+            return entries;
+        }
+
+        @Override
+        public int load(JsonNode data, ObjectMapper mapper) throws IOException {
+            int restored = 0;
+            long now = System.currentTimeMillis();
+            for (Iterator<JsonNode> it = data.elements(); it.hasNext(); ) {
+                JsonNode node = it.next();
+                long expiresAt = node.path("expiresAt").asLong();
+                if (expiresAt <= now) continue;	//Scaduta durante il riavvio
+                V value = mapper.readValue(mapper.treeAsTokens(node.get("value")), valueType);
+                if (cache.putWithTimestamp(node.path("key").asText(), value, node.path("storedAt").asLong(), expiresAt)) restored++;	//Una voce più recente già in cache resta
+            }
+            return restored;
+        }
+    }
+}
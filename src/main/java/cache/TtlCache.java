@@ -0,0 +1,119 @@
+package cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Classe TtlCache per una cache in memoria thread-safe con scadenza delle voci e contatori di hit/miss
+public class TtlCache<K, V> {
+    private final String name;	//Nome della cache (usato nelle statistiche)
+    private final long ttlMs;	//Durata di default delle voci in millisecondi
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();	//Voci della cache
+    private final AtomicLong hits = new AtomicLong();	//Numero di letture andate a buon fine
+    private final AtomicLong misses = new AtomicLong();	//Numero di letture senza voce valida
+
+    //Costruttore che riceve il nome della cache e la durata di default delle voci
+    public TtlCache(String name, long ttlMs) {
+        this.name = name;
+        this.ttlMs = ttlMs;
+    }
+
+    //Metodo che ritorna il valore associato alla chiave se presente e non scaduto, aggiornando le statistiche
+    public V get(K key) {
+        V value = peek(key);	//Leggo la voce senza contare
+        if (value != null) hits.incrementAndGet();	//Conto l'hit
+        else misses.incrementAndGet();	//Conto il miss
+        return value;
+    }
+
+    //Metodo che ritorna il valore associato alla chiave senza aggiornare le statistiche
+    public V peek(K key) {
+        Entry<V> entry = entries.get(key);	//Recupero la voce
+        if (entry == null) return null;	//Nessuna voce
+        if (entry.isExpired(System.currentTimeMillis())) {	//Se la voce è scaduta la rimuovo
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;	//Ritorno il valore valido
+    }
+
+    //Metodo per inserire un valore con la durata di default
+    public void put(K key, V value) {
+        put(key, value, ttlMs);
+    }
+
+    //Metodo per inserire un valore con una durata specifica
+    public void put(K key, V value, long ttlMs) {
+        long now = System.currentTimeMillis();	//Istante di inserimento
+        entries.put(key, new Entry<>(value, now, now + ttlMs));
+    }
+
+    //Metodo per inserire un valore con gli istanti di inserimento e di scadenza originali (es. voci rilette da uno snapshot).
+    //Le voci già scadute vengono ignorate e una voce presente viene sostituita solo se è scaduta o inserita prima di storedAt; ritorna true se il valore è stato inserito
+    public boolean putWithTimestamp(K key, V value, long storedAt, long expiresAt) {
+        long now = System.currentTimeMillis();
+        if (expiresAt <= now) return false;	//Voce scaduta nel frattempo
+        Entry<V> entry = new Entry<>(value, storedAt, expiresAt);
+        return entries.merge(key, entry, (current, restored) ->	//Es. una risposta arrivata durante la lettura dello snapshot in avvio rapido
+                current.isExpired(now) || current.storedAt < restored.storedAt ? restored : current) == entry;
+    }
+
+    //Metodo per rimuovere una voce
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    //Metodo che rimuove tutte le voci scadute e ritorna quante ne ha rimosse
+    public int evictExpired() {
+        long now = System.currentTimeMillis();
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.isExpired(now));	//Rimuovo le voci scadute
+        return before - entries.size();
+    }
+
+    //Metodo package-private che ritorna una copia delle voci non scadute (usato da CacheSnapshot)
+    Map<K, Entry<V>> liveEntries() {
+        long now = System.currentTimeMillis();
+        Map<K, Entry<V>> copy = new HashMap<>();
+        entries.forEach((key, entry) -> {
+            if (!entry.isExpired(now)) copy.put(key, entry);
+        });
+        return copy;
+    }
+
+    //────────── STATISTICHE ──────────
+    public String getName() { return name; }
+    public int size() { return entries.size(); }
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+
+    //Metodo che calcola la percentuale di hit sulle letture totali
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    //Metodo che ritorna una riga testuale con le statistiche della cache
+    public String stats() {
+        return String.format("%s: %d hit / %d miss (%.0f%%) - %d voci",
+                name, getHits(), getMisses(), getHitRate() * 100, size());
+    }
+
+    //Classe interna che rappresenta una voce della cache con il suo istante di inserimento e di scadenza
+    public static class Entry<V> {
+        final V value;	//Valore memorizzato
+        final long storedAt;	//Istante di inserimento
+        final long expiresAt;	//Istante di scadenza
+
+        Entry(V value, long storedAt, long expiresAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;	//La voce è scaduta se ho superato l'istante di scadenza
+        }
+    }
+}
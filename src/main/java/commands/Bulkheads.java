@@ -0,0 +1,89 @@
+package commands;
+
+import metrics.MetricsRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*Classe Bulkheads: un pool di thread con coda limitata per ogni CostClass, così un tipo di lavoro lento (es. Selenium)
+non può occupare i thread che servono agli altri (es. /preferiti).
+run esegue un comando sul pool del suo tipo:
+1. Con la coda piena il future fallisce subito con RejectedExecutionException
+2. Allo scadere del timeout (attesa in coda compresa) il future fallisce con TimeoutException e il thread del comando viene interrotto
+ */
+public class Bulkheads {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+
+    private final Map<CostClass, ThreadPoolExecutor> pools = new EnumMap<>(CostClass.class);
+    private final ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "command-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //Costruttore che crea i pool con i thread e le code indicati da ogni CostClass
+    public Bulkheads() {
+        for (CostClass costClass : CostClass.values()) {
+            String name = "cmd-" + costClass.name().toLowerCase();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(costClass.getThreads(), costClass.getThreads(), 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(costClass.getQueueCapacity()), runnable -> {
+                        Thread thread = new Thread(runnable, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pools.put(costClass, pool);
+            String cost = costClass.name().toLowerCase();
+            METRICS.gauge("bot_bulkhead_active", "Comandi in esecuzione per tipo di lavoro", pool::getActiveCount, "cost", cost);
+            METRICS.gauge("bot_bulkhead_queue_depth", "Comandi in coda per tipo di lavoro", () -> pool.getQueue().size(), "cost", cost);
+        }
+    }
+
+    //Metodo che esegue task sul pool di costClass e ritorna il suo risultato (fallisce se il pool è pieno o dopo timeoutMs)
+    public <T> CompletableFuture<T> run(CostClass costClass, long timeoutMs, Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running;
+        try {
+            running = pools.get(costClass).submit(() -> {
+                try {
+                    result.complete(task.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            METRICS.counter("bot_bulkhead_rejected_total", "Comandi rifiutati per coda piena", "cost", costClass.name().toLowerCase()).inc();
+            result.completeExceptionally(e);
+            return result;
+        }
+        ScheduledFuture<?> timeout = timeouts.schedule(() -> {
+            if (result.completeExceptionally(new TimeoutException("Timeout dopo " + timeoutMs + " ms"))) running.cancel(true);	//Tolgo il comando dalla coda o interrompo il thread
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        result.whenComplete((value, error) -> timeout.cancel(false));
+        return result;
+    }
+
+    //Metodo che smette di accettare comandi e aspetta (al massimo timeoutMs) quelli già avviati
+    public void shutdown(long timeoutMs) {
+        pools.values().forEach(ThreadPoolExecutor::shutdown);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            for (ThreadPoolExecutor pool : pools.values()) {
+                pool.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        timeouts.shutdownNow();
+    }
+}
@@ -0,0 +1,69 @@
+package commands;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/*Classe Command: un comando del bot con il suo nome (es. /classificaatp), gli alias (es. il pulsante "🏆 ATP"),
+il tipo di lavoro che decide su quale pool viene eseguito e il timeout.
+Si configura prima di registrarlo: new Command("/aggiungi", CostClass.DATABASE, handler).withArgument().alias("➕")
+Un comando che a volte risponde dalla cache (es. /partite con una lettura recente) può indicare con whenCached un tipo di lavoro più leggero:
+in quel caso usa il pool e il limite per chat del tipo più leggero, e il gettone del tipo costoso viene consumato solo quando il lavoro costoso serve davvero.
+ */
+public class Command {
+    private final String name;	//Nome usato anche come etichetta nelle metriche
+    private final CostClass costClass;
+    private final CommandHandler handler;
+    private final List<String> aliases = new ArrayList<>();
+    private long timeoutMs;
+    private boolean takesArgument;	//Se true risponde anche a "/nome argomento"
+    private CostClass cachedCostClass;	//Tipo di lavoro quando la risposta è già in cache (null se non cambia)
+    private BooleanSupplier cached;	//Indica se la risposta è già in cache
+
+    //Costruttore che riceve nome, tipo di lavoro e handler (timeout di default del tipo di lavoro)
+    public Command(String name, CostClass costClass, CommandHandler handler) {
+        this.name = name;
+        this.costClass = costClass;
+        this.handler = handler;
+        this.timeoutMs = costClass.getDefaultTimeoutMs();
+    }
+
+    //Metodo che aggiunge altri testi che eseguono il comando (es. i pulsanti della tastiera)
+    public Command alias(String... aliases) {
+        Collections.addAll(this.aliases, aliases);
+        return this;
+    }
+
+    //Metodo che fa accettare al comando un argomento dopo il nome (es. /segui Roma)
+    public Command withArgument() {
+        this.takesArgument = true;
+        return this;
+    }
+
+    //Metodo che fa usare al comando il tipo di lavoro cheaper quando cached è vero (es. una lettura delle partite ancora valida)
+    public Command whenCached(CostClass cheaper, BooleanSupplier cached) {
+        this.cachedCostClass = cheaper;
+        this.cached = cached;
+        return this;
+    }
+
+    //Metodo che cambia il timeout del comando
+    public Command timeout(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        return this;
+    }
+
+    public String getName() { return name; }
+    public CostClass getCostClass() { return costClass; }
+
+    //Metodo che ritorna il tipo di lavoro per un'esecuzione che parte ora (quello più leggero se la risposta è in cache)
+    public CostClass currentCostClass() {
+        return cached != null && cached.getAsBoolean() ? cachedCostClass : costClass;
+    }
+
+    public CommandHandler getHandler() { return handler; }
+    public List<String> getAliases() { return aliases; }
+    public long getTimeoutMs() { return timeoutMs; }
+    public boolean takesArgument() { return takesArgument; }
+}
@@ -0,0 +1,7 @@
+package commands;
+
+//Interfaccia CommandHandler: esegue un comando per una chat e ritorna il testo della risposta (argument è il testo dopo il comando, vuoto se assente)
+@FunctionalInterface
+public interface CommandHandler {
+    String handle(Long chatId, String argument) throws Exception;
+}
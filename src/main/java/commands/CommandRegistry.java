@@ -0,0 +1,57 @@
+package commands;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*Classe CommandRegistry con i comandi del bot, i loro alias e gli handler degli stati della conversazione.
+route sceglie il comando di un messaggio con una ricerca in una HashMap:
+1. Se la chat sta rispondendo a una domanda del bot (stato della conversazione), il messaggio va all'handler dello stato
+2. Altrimenti cerco il testo intero (comandi senza argomenti e pulsanti della tastiera)
+3. Per "/nome argomento" cerco /nome, solo tra i comandi che accettano un argomento
+I messaggi non riconosciuti vanno al comando fallback.
+ */
+public class CommandRegistry {
+    private final Map<String, Command> commands = new HashMap<>();	//Nomi e alias dei comandi
+    private final Map<String, Command> states = new HashMap<>();	//Handler degli stati della conversazione
+    private final Command fallback;	//Comando per i messaggi non riconosciuti
+
+    //Costruttore che riceve il comando per i messaggi non riconosciuti
+    public CommandRegistry(Command fallback) {
+        this.fallback = fallback;
+    }
+
+    //Metodo che registra un comando con i suoi alias (un nome già registrato è un errore di configurazione)
+    public CommandRegistry register(Command command) {
+        put(command.getName(), command);
+        for (String alias : command.getAliases()) put(alias, command);
+        return this;
+    }
+
+    //Metodo che registra l'handler dei messaggi di una chat nello stato indicato (es. WAITING_PLAYER_NAME)
+    public CommandRegistry registerState(String state, Command command) {
+        if (states.putIfAbsent(state, command) != null) throw new IllegalArgumentException("Stato già registrato: " + state);
+        return this;
+    }
+
+    //Metodo che ritorna il comando da eseguire per il messaggio text di una chat nello stato state (null se nessuno)
+    public Route route(String text, String state) {
+        if (state != null) {
+            Command command = states.get(state);
+            if (command != null) return new Route(command, text, state.toLowerCase());	//Risposta a una domanda del bot
+        }
+        Command command = commands.get(text);
+        if (command != null) return new Route(command, "", command.getName());
+        if (text.startsWith("/")) {
+            int space = text.indexOf(' ');
+            command = space > 0 ? commands.get(text.substring(0, space)) : null;
+            if (command != null && command.takesArgument()) return new Route(command, text.substring(space + 1).trim(), command.getName());
+            return new Route(fallback, text, "/sconosciuto");
+        }
+        return new Route(fallback, text, "testo");	//Testo libero fuori da una conversazione
+    }
+
+    //Metodo privato che associa un testo a un comando
+    private void put(String key, Command command) {
+        if (commands.putIfAbsent(key, command) != null) throw new IllegalArgumentException("Comando già registrato: " + key);
+    }
+}
@@ -0,0 +1,29 @@
+package commands;
+
+//Enum CostClass: tipo di lavoro di un comando; ogni tipo ha il suo pool di thread (bulkhead), la sua coda, un timeout di default
+//e il limite di comandi per chat (gettoni al secondo e raffica) applicato da RequestGuard
+public enum CostClass {
+    DATABASE(4, 64, 5_000, 2, 10),	//Letture e scritture su SQLite (es. /preferiti, /statistiche)
+    SCRAPE(4, 32, 30_000, 0.2, 4),	//Scraping e API via HTTP (Wikipedia, Matchstat, OpenWeather): uno ogni 5 secondi
+    BROWSER(1, 16, 120_000, 1.0 / 30, 2);	//Selenium su SofaScore, un browser alla volta: uno ogni 30 secondi
+
+    private final int threads;	//Comandi eseguiti insieme
+    private final int queueCapacity;	//Comandi in attesa oltre i quali il bot risponde subito "riprova"
+    private final long defaultTimeoutMs;	//Tempo massimo di un comando (attesa in coda compresa)
+    private final double chatRatePerSecond;	//Comandi al secondo concessi a una chat
+    private final double chatBurst;	//Comandi di fila concessi a una chat
+
+    CostClass(int threads, int queueCapacity, long defaultTimeoutMs, double chatRatePerSecond, double chatBurst) {
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.chatRatePerSecond = chatRatePerSecond;
+        this.chatBurst = chatBurst;
+    }
+
+    public int getThreads() { return threads; }
+    public int getQueueCapacity() { return queueCapacity; }
+    public long getDefaultTimeoutMs() { return defaultTimeoutMs; }
+    public double getChatRatePerSecond() { return chatRatePerSecond; }
+    public double getChatBurst() { return chatBurst; }
+}
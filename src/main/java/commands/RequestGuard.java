@@ -0,0 +1,117 @@
+package commands;
+
+import metrics.MetricsRegistry;
+import outbound.TokenBucket;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*Classe RequestGuard che protegge i pool dei comandi dai singoli utenti:
+1. Un messaggio identico a uno della stessa chat ancora in gestione viene unito a quello (es. dieci tocchi su "📅 PARTITE" = una lettura)
+2. Una chat non può avere più di maxPendingPerChat messaggi in gestione
+3. Ogni chat ha un secchio di gettoni per tipo di lavoro (CostClass): senza gettoni il comando non viene eseguito
+Chi supera i limiti riceve una risposta breve, al massimo una ogni WARNING_INTERVAL, così anche le risposte restano limitate.
+ */
+public class RequestGuard {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+    private static final long WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);	//Intervallo minimo tra due avvisi alla stessa chat
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);	//Intervallo tra due pulizie dei secchi pieni
+
+    private final int maxPendingPerChat;
+    private final Map<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();	//Messaggi in gestione per chat e testo
+    private final Map<Long, Integer> pending = new ConcurrentHashMap<>();	//Numero di messaggi in gestione per chat
+    private final Map<Long, ChatLimits> limits = new HashMap<>();	//Secchi di gettoni per chat (sotto il lock dell'oggetto)
+    private long sweptAt = System.nanoTime();
+
+    //Costruttore che riceve il numero massimo di messaggi in gestione per chat
+    public RequestGuard(int maxPendingPerChat) {
+        this.maxPendingPerChat = maxPendingPerChat;
+        METRICS.gauge("bot_requests_in_flight", "Messaggi in gestione (in coda o in esecuzione)", inFlight::size);
+    }
+
+    //Metodo che ritorna la gestione ancora in corso di un messaggio identico della stessa chat (null se non c'è)
+    public CompletableFuture<?> duplicateOf(long chatId, String text) {
+        CompletableFuture<?> running = inFlight.get(key(chatId, text));
+        if (running == null) return null;
+        METRICS.counter("bot_requests_collapsed_total", "Messaggi uniti a uno identico ancora in gestione").inc();
+        return running;
+    }
+
+    //Metodo che indica se la chat ha già il numero massimo di messaggi in gestione
+    public boolean isSaturated(long chatId) {
+        if (pending.getOrDefault(chatId, 0) < maxPendingPerChat) return false;
+        countLimited("pending");
+        return true;
+    }
+
+    //Metodo che registra un messaggio in gestione fino al completamento di handled
+    public void track(long chatId, String text, CompletableFuture<?> handled) {
+        String key = key(chatId, text);
+        inFlight.put(key, handled);
+        pending.merge(chatId, 1, Integer::sum);
+        handled.whenComplete((result, error) -> {
+            inFlight.remove(key, handled);
+            pending.computeIfPresent(chatId, (id, count) -> count > 1 ? count - 1 : null);
+        });
+    }
+
+    //Metodo che consuma un gettone della chat per il tipo di lavoro; ritorna false se la chat ha superato il limite
+    public synchronized boolean tryAcquire(long chatId, CostClass costClass) {
+        long now = System.nanoTime();
+        sweep(now);
+        ChatLimits chat = limits.computeIfAbsent(chatId, id -> new ChatLimits());
+        TokenBucket bucket = chat.buckets.computeIfAbsent(costClass,
+                cost -> new TokenBucket(cost.getChatRatePerSecond(), cost.getChatBurst(), now));
+        if (bucket.nanosUntilAvailable(now) > 0) {
+            countLimited(costClass.name().toLowerCase());
+            return false;
+        }
+        bucket.take(now);
+        return true;
+    }
+
+    //Metodo che ritorna i secondi (almeno 1) che mancano al prossimo gettone della chat per il tipo di lavoro
+    public synchronized long secondsUntilAvailable(long chatId, CostClass costClass) {
+        ChatLimits chat = limits.get(chatId);
+        TokenBucket bucket = chat != null ? chat.buckets.get(costClass) : null;
+        long nanos = bucket != null ? bucket.nanosUntilAvailable(System.nanoTime()) : 0;
+        return Math.max(1, (nanos + 999_999_999) / 1_000_000_000);
+    }
+
+    //Metodo che indica se avvisare la chat che ha superato un limite (al massimo un avviso ogni WARNING_INTERVAL)
+    public synchronized boolean shouldWarn(long chatId) {
+        long now = System.nanoTime();
+        ChatLimits chat = limits.computeIfAbsent(chatId, id -> new ChatLimits());
+        if (chat.warnedAt != 0 && now - chat.warnedAt < WARNING_INTERVAL_NANOS) return false;
+        chat.warnedAt = now;
+        return true;
+    }
+
+    //Metodo privato che dimentica le chat con tutti i secchi pieni (i loro limiti non cambierebbero)
+    private void sweep(long now) {
+        if (now - sweptAt < SWEEP_INTERVAL_NANOS) return;
+        sweptAt = now;
+        limits.values().removeIf(chat -> (chat.warnedAt == 0 || now - chat.warnedAt >= WARNING_INTERVAL_NANOS)
+                && chat.buckets.values().stream().allMatch(bucket -> bucket.isFull(now)));
+    }
+
+    //Metodo statico privato che conta un messaggio non eseguito per un limite
+    private static void countLimited(String reason) {
+        METRICS.counter("bot_requests_limited_total", "Messaggi non eseguiti per i limiti per chat", "reason", reason).inc();
+    }
+
+    //Metodo statico privato che ritorna la chiave di un messaggio di una chat
+    private static String key(long chatId, String text) {
+        return chatId + "\n" + text;
+    }
+
+    //Classe statica privata con i limiti di una chat
+    private static final class ChatLimits {
+        private final Map<CostClass, TokenBucket> buckets = new EnumMap<>(CostClass.class);
+        private long warnedAt;	//Ultimo avviso (nanoTime, 0 = mai)
+    }
+}
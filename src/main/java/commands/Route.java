@@ -0,0 +1,18 @@
+package commands;
+
+//Classe Route: il comando scelto per un messaggio, con l'argomento da passargli e l'etichetta per metriche e tracing
+public class Route {
+    private final Command command;
+    private final String argument;
+    private final String label;	//Nome del comando o stato della conversazione (mai il testo libero dell'utente)
+
+    Route(Command command, String argument, String label) {
+        this.command = command;
+        this.argument = argument;
+        this.label = label;
+    }
+
+    public Command getCommand() { return command; }
+    public String getArgument() { return argument; }
+    public String getLabel() { return label; }
+}
@@ -32,4 +32,35 @@ public class MyConfiguration {
     public String getProperty(String key) {
         return config.getString(key);   //Ritorno il valore associato alla chiave dal file di configurazione
     }
-}
\ No newline at end of file
+
+    //Metodo per ottenere una proprietà numerica intera, con un valore di default se manca o non è valida
+    public long getLong(String key, long defaultValue) {
+        String value = getProperty(key);    //Leggo il valore come stringa
+        if (value == null || value.isBlank()) return defaultValue;  //Chiave assente
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️ Valore non valido per " + key + ": " + value);   //Segnalo il valore errato e uso il default
+            return defaultValue;
+        }
+    }
+
+    //Metodo per ottenere una proprietà numerica decimale, con un valore di default se manca o non è valida
+    public double getDouble(String key, double defaultValue) {
+        String value = getProperty(key);    //Leggo il valore come stringa
+        if (value == null || value.isBlank()) return defaultValue;  //Chiave assente
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️ Valore non valido per " + key + ": " + value);   //Segnalo il valore errato e uso il default
+            return defaultValue;
+        }
+    }
+
+    //Metodo per ottenere una proprietà booleana (true/false), con un valore di default se manca
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getProperty(key);    //Leggo il valore come stringa
+        if (value == null || value.isBlank()) return defaultValue;  //Chiave assente
+        return Boolean.parseBoolean(value.trim());
+    }
+}
@@ -0,0 +1,25 @@
+package conversation;
+
+/*Interfaccia ConversationStateStore per lo stato delle conversazioni a più passi (es. /cerca seguito dal nome, /h2h con due giocatori).
+Ogni chat ha alcune coppie chiave/valore; la conversazione scade dopo un tempo senza modifiche, così chi abbandona un comando non occupa memoria per sempre.
+Le implementazioni sono InMemoryConversationStore (una sola istanza del bot) e SqliteConversationStore (condivisa tra più istanze).
+ */
+public interface ConversationStateStore {
+    //Metodo che ritorna il valore della chiave per la chat (null se assente o se la conversazione è scaduta)
+    String get(long chatId, String key);
+
+    //Metodo che salva il valore della chiave e rinnova la scadenza della conversazione della chat
+    void put(long chatId, String key, String value);
+
+    //Metodo che rimuove la chiave e ritorna il valore che aveva (null se assente o scaduto)
+    String remove(long chatId, String key);
+
+    //Metodo che chiude la conversazione della chat (rimuove tutte le chiavi)
+    void clear(long chatId);
+
+    //Metodo che ritorna il numero di conversazioni aperte
+    int size();
+
+    //Metodo che rimuove le conversazioni scadute e ritorna quante ne ha rimosse
+    int evictExpired();
+}
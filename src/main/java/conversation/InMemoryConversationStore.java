@@ -0,0 +1,100 @@
+package conversation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*Classe InMemoryConversationStore: stato delle conversazioni in memoria (ConcurrentHashMap), valido per una sola istanza del bot.
+Ogni conversazione è un oggetto immutabile sostituito a ogni modifica; le scadute vengono ignorate in lettura
+e rimosse da put al massimo una volta ogni metà della durata, senza un thread dedicato.
+ */
+public class InMemoryConversationStore implements ConversationStateStore {
+    private final long ttlNanos;	//Durata di una conversazione senza modifiche
+    private final Map<Long, Conversation> conversations = new ConcurrentHashMap<>();	//Conversazioni per chat
+    private volatile long lastSweep = System.nanoTime();	//Ultima rimozione delle conversazioni scadute
+
+    //Costruttore che riceve la durata delle conversazioni senza modifiche
+    public InMemoryConversationStore(long ttlMs) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    @Override
+    public String get(long chatId, String key) {
+        Conversation conversation = live(chatId, System.nanoTime());
+        return conversation != null ? conversation.values.get(key) : null;
+    }
+
+    @Override
+    public void put(long chatId, String key, String value) {
+        long now = System.nanoTime();
+        conversations.compute(chatId, (id, current) -> {
+            Map<String, String> values = current != null && !current.isExpired(now) ? new HashMap<>(current.values) : new HashMap<>();
+            values.put(key, value);
+            return new Conversation(values, now + ttlNanos);
+        });
+        if (now - lastSweep > ttlNanos / 2) {	//Pulizia periodica: la memoria resta limitata alle conversazioni attive
+            lastSweep = now;
+            evictExpired();
+        }
+    }
+
+    @Override
+    public String remove(long chatId, String key) {
+        long now = System.nanoTime();
+        String[] removed = new String[1];
+        conversations.computeIfPresent(chatId, (id, current) -> {
+            if (current.isExpired(now)) return null;
+            removed[0] = current.values.get(key);
+            if (removed[0] == null) return current;
+            Map<String, String> values = new HashMap<>(current.values);
+            values.remove(key);
+            return values.isEmpty() ? null : new Conversation(values, current.expiresAt);	//Senza chiavi la conversazione è chiusa
+        });
+        return removed[0];
+    }
+
+    @Override
+    public void clear(long chatId) {
+        conversations.remove(chatId);
+    }
+
+    @Override
+    public int size() {
+        return conversations.size();
+    }
+
+    @Override
+    public int evictExpired() {
+        long now = System.nanoTime();
+        int before = conversations.size();
+        conversations.values().removeIf(conversation -> conversation.isExpired(now));
+        return before - conversations.size();
+    }
+
+    //Metodo privato che ritorna la conversazione della chat se non è scaduta (rimuovendola se lo è)
+    private Conversation live(long chatId, long now) {
+        Conversation conversation = conversations.get(chatId);
+        if (conversation == null) return null;
+        if (conversation.isExpired(now)) {
+            conversations.remove(chatId, conversation);
+            return null;
+        }
+        return conversation;
+    }
+
+    //Classe statica privata con le chiavi di una conversazione e la sua scadenza
+    private static final class Conversation {
+        private final Map<String, String> values;
+        private final long expiresAt;	//In System.nanoTime
+
+        private Conversation(Map<String, String> values, long expiresAt) {
+            this.values = values;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
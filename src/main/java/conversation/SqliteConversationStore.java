@@ -0,0 +1,54 @@
+package conversation;
+
+import database.DatabaseManager;
+
+/*Classe SqliteConversationStore: stato delle conversazioni nella tabella conversation_state del database del bot.
+Più processi che usano lo stesso file SQLite vedono le stesse conversazioni, quindi un utente può scrivere il nome dopo /cerca
+a un'istanza diversa da quella che ha ricevuto il comando. La scadenza è un istante assoluto (ms dall'epoch) perché è condivisa tra processi.
+ */
+public class SqliteConversationStore implements ConversationStateStore {
+    private final DatabaseManager databaseManager;
+    private final long ttlMs;	//Durata di una conversazione senza modifiche
+    private volatile long lastSweep = System.currentTimeMillis();	//Ultima rimozione delle conversazioni scadute
+
+    //Costruttore che riceve il database e la durata delle conversazioni senza modifiche
+    public SqliteConversationStore(DatabaseManager databaseManager, long ttlMs) {
+        this.databaseManager = databaseManager;
+        this.ttlMs = ttlMs;
+    }
+
+    @Override
+    public String get(long chatId, String key) {
+        return databaseManager.getConversationValue(chatId, key, System.currentTimeMillis());
+    }
+
+    @Override
+    public void put(long chatId, String key, String value) {
+        long now = System.currentTimeMillis();
+        databaseManager.putConversationValue(chatId, key, value, now + ttlMs);
+        if (now - lastSweep > ttlMs / 2) {	//Pulizia periodica delle conversazioni abbandonate
+            lastSweep = now;
+            evictExpired();
+        }
+    }
+
+    @Override
+    public String remove(long chatId, String key) {
+        return databaseManager.removeConversationValue(chatId, key, System.currentTimeMillis());
+    }
+
+    @Override
+    public void clear(long chatId) {
+        databaseManager.clearConversation(chatId);
+    }
+
+    @Override
+    public int size() {
+        return databaseManager.countConversations(System.currentTimeMillis());
+    }
+
+    @Override
+    public int evictExpired() {
+        return databaseManager.deleteExpiredConversations(System.currentTimeMillis());
+    }
+}
@@ -1,19 +1,40 @@
 package database;
 
+import jfr.DbStatementEvent;
+import metrics.MetricsRegistry;
+import metrics.Timer;
 import model.Player;
+import tracing.Span;
+import tracing.Tracer;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 //Classe DatabaseManager per la gestione del database mysqlite con le tabelle
 public class DatabaseManager {
     private static final String DB_URL = "jdbc:sqlite:tennis_bot.db";
-    private Connection connection;
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+    private static final Tracer TRACER = Tracer.getInstance();	//Tracing degli update
+    private final String dbUrl;	//URL del database (per le connessioni dedicate, es. la transazione della classifica)
+    private Connection connection;	//Connessione condivisa da tutti i thread (sempre in auto-commit)
+    private final FavoriteIndex favoriteIndex = new FavoriteIndex();	//Indice in memoria giocatore -> chat per gli avvisi dei preferiti
 
-    //Costruttore che inizializza la connessione al database
+    //Costruttore che inizializza la connessione al database di default
     public DatabaseManager() {
+        this(DB_URL);
+    }
+
+    //Costruttore che inizializza la connessione a un database specifico (es. un file temporaneo per i test di carico)
+    public DatabaseManager(String dbUrl) {
+        this.dbUrl = dbUrl;
         try {
-            connection = DriverManager.getConnection(DB_URL);	//Apro la connessione al database SQLite
+            connection = DriverManager.getConnection(dbUrl);	//Apro la connessione al database SQLite
             initializeDatabase();	//Inizializzo le tabelle e la struttura del database
+            loadFavoriteIndex();	//Carico l'indice dei preferiti
         } catch (SQLException e) {
             e.printStackTrace();	//Stampo lo stack trace per debug
             System.err.println("❌ Errore nella connessione al database");	//Segnalo errore di connessione
@@ -76,6 +97,53 @@ public class DatabaseManager {
                 )
             """);
 
+            //Tabella con l'ultima classifica letta per ogni circuito (atp, wta), confrontata con la successiva per gli avvisi dei preferiti
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS ranking_snapshot (
+                    tour TEXT NOT NULL,
+                    player_name TEXT NOT NULL,
+                    ranking INTEGER NOT NULL,
+                    points INTEGER,
+                    taken_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    PRIMARY KEY (tour, player_name)
+                )
+            """);
+
+            //Tabella con le chat iscritte al digest giornaliero (ora di invio e ultimo giorno inviato)
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS digest_subscriptions (
+                    chat_id INTEGER PRIMARY KEY,
+                    hour INTEGER NOT NULL,
+                    last_sent_date TEXT,
+                    subscribed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    FOREIGN KEY (chat_id) REFERENCES users(chat_id)
+                )
+            """);
+
+            //Tabella con l'avanzamento degli invii a molte chat (es. digest del giorno e ora), per riprenderli dopo un riavvio
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS broadcast_progress (
+                    broadcast_id TEXT PRIMARY KEY,
+                    total INTEGER DEFAULT 0,
+                    sent INTEGER DEFAULT 0,
+                    failed INTEGER DEFAULT 0,
+                    started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    completed_at TIMESTAMP
+                )
+            """);
+
+            //Tabella con lo stato delle conversazioni a più passi, condiviso tra più istanze del bot (CONVERSATION_STORE=sqlite)
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS conversation_state (
+                    chat_id INTEGER NOT NULL,
+                    key TEXT NOT NULL,
+                    value TEXT NOT NULL,
+                    expires_at INTEGER NOT NULL,
+                    PRIMARY KEY (chat_id, key)
+                )
+            """);
+
             System.out.println("✅ Database inizializzato correttamente");
             System.out.println("📍 Percorso: " + System.getProperty("user.dir") + "/tennis_bot.db");
         } catch (SQLException e) {
@@ -95,11 +163,14 @@ public class DatabaseManager {
 			last_interaction = CURRENT_TIMESTAMP,
 			total_interactions = total_interactions + 1
 	""";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {	//Preparo statement SQL
+        try (Timer.Context timing = dbTimer("saveUser").time(); Span span = TRACER.span("db.saveUser");
+             DbStatementEvent event = DbStatementEvent.start("saveUser", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {	//Preparo statement SQL
             pstmt.setLong(1, chatId);	//Imposto chat_id
             pstmt.setString(2, username);	//Imposto username
             pstmt.executeUpdate();	//Eseguo insert o update
         } catch (SQLException e) {
+            countDbError("saveUser");	//Conto l'errore nelle metriche
             e.printStackTrace();	//Stampo eventuale errore SQL
         }
     }
@@ -127,7 +198,9 @@ public class DatabaseManager {
 			last_updated = CURRENT_TIMESTAMP
 	""";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {	//Preparo statement SQL
+        try (Timer.Context timing = dbTimer("savePlayer").time(); Span span = TRACER.span("db.savePlayer");
+             DbStatementEvent event = DbStatementEvent.start("savePlayer", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {	//Preparo statement SQL
             pstmt.setString(1, player.getNome());	//Imposto nome
             pstmt.setString(2, player.getPaese());	//Imposto paese
             pstmt.setInt(3, player.getRanking());	//Imposto ranking
@@ -141,6 +214,7 @@ public class DatabaseManager {
             pstmt.setInt(11, player.isTennisPlayer() ? 1 : 0);	//Imposto flag tennis player
             pstmt.executeUpdate();	//Eseguo insert o update
         } catch (SQLException e) {
+            countDbError("savePlayer");	//Conto l'errore nelle metriche
             e.printStackTrace();	//Stampo eventuale errore SQL
         }
     }
@@ -155,24 +229,29 @@ public class DatabaseManager {
     //==================== INTERACTIONS ====================
     //Metodo pubblico per registrare le interazioni di un utente nel database
     public void logInteraction(Long chatId, String command) {
-        try (PreparedStatement pstmt = connection.prepareStatement(
-                "INSERT INTO interactions (chat_id, command) VALUES (?, ?)")) {	//Preparo la query
+        String sql = "INSERT INTO interactions (chat_id, command) VALUES (?, ?)";
+        try (Timer.Context timing = dbTimer("logInteraction").time(); Span span = TRACER.span("db.logInteraction");
+             DbStatementEvent event = DbStatementEvent.start("logInteraction", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {	//Preparo la query
             pstmt.setLong(1, chatId);	//Imposto l'ID chat
             pstmt.setString(2, command);	//Imposto il comando inviato
             pstmt.executeUpdate();	//Eseguo l'inserimento
         } catch (SQLException e) {	//Gestisco eventuali errori
+            countDbError("logInteraction");	//Conto l'errore nelle metriche
             e.printStackTrace();	//Stampo lo stack trace
         }
     }
 
     // ==================== FAVOURITE_PLAYERS ====================
-    //Metodo pubblico per aggiungere un giocatore ai preferiti di un utente
+    //Metodo pubblico per aggiungere un giocatore ai preferiti di un utente (ritorna null se il giocatore non è nel database)
     public String addFavoritePlayer(Long chatId, String playerName) {
         String checkSql = "SELECT is_tennis_player, name, country, altezza, peso, miglior_ranking, vittorie_sconfitte, titoli FROM players WHERE name = ?";	//Controllo se il giocatore esiste e prendo le info
-        try (PreparedStatement checkStmt = connection.prepareStatement(checkSql)) {
+        try (Timer.Context timing = dbTimer("addFavoritePlayer").time(); Span span = TRACER.span("db.addFavoritePlayer");
+             DbStatementEvent event = DbStatementEvent.start("addFavoritePlayer", checkSql);
+             PreparedStatement checkStmt = connection.prepareStatement(checkSql)) {
             checkStmt.setString(1, playerName);	//Imposto il nome del giocatore
             ResultSet rs = checkStmt.executeQuery();	//Eseguo la query
-            if (!rs.next()) return "❌ Giocatore \"" + playerName + "\" non trovato nel database.\n\n💡 Prima cercalo con /cerca, poi aggiungilo ai preferiti!";	//Giocatore non trovato
+            if (!rs.next()) return null;	//Giocatore non trovato: il messaggio lo costruisce il bot
             int isTennisPlayer = rs.getInt("is_tennis_player");	//Controllo se è un giocatore di tennis
             if (isTennisPlayer == 0) return "❌ \"" + playerName + "\" non è un giocatore di tennis.\n\n⚠️ Solo giocatori di tennis possono essere aggiunti ai preferiti!";	//Non è un giocatore valido
             String insertSql = "INSERT INTO favorite_players (chat_id, player_name) VALUES (?, ?)";	//Query per aggiungere ai preferiti
@@ -180,6 +259,7 @@ public class DatabaseManager {
                 insertStmt.setLong(1, chatId);	//Imposto ID chat
                 insertStmt.setString(2, playerName);	//Imposto nome giocatore
                 insertStmt.executeUpdate();	//Eseguo inserimento
+                favoriteIndex.add(chatId, playerName);	//Tengo allineato l'indice degli avvisi
                 StringBuilder info = new StringBuilder();	//Costruisco messaggio di conferma
                 info.append("⭐ ").append(playerName).append(" aggiunto ai preferiti!\n\n📊 INFO GIOCATORE\n\n");
                 String country = rs.getString("country");
@@ -194,10 +274,12 @@ public class DatabaseManager {
                 if (migliorRanking != null) info.append("⭐ Miglior ranking: ").append(migliorRanking).append("\n");
                 if (vittorieSconfitte != null) info.append("📈 V/S: ").append(vittorieSconfitte).append("\n");
                 if (titoli != null) info.append("🏅 Titoli: ").append(titoli).append("\n");
+                info.append("\n🔔 Riceverai un avviso quando una sua partita inizia, cambia set o finisce.");
                 return info.toString();	//Ritorno le informazioni del giocatore
             }
         } catch (SQLException e) {	//Gestisco errori SQL
             if (e.getMessage().contains("UNIQUE constraint failed")) return "⚠️ " + playerName + " è già nei tuoi preferiti!";	//Giocatore già presente
+            countDbError("addFavoritePlayer");	//Conto l'errore nelle metriche
             e.printStackTrace();	//Errore generico
             return "❌ Errore nell'aggiungere il giocatore.";
         }
@@ -207,19 +289,47 @@ public class DatabaseManager {
     public String removeFavoritePlayer(Long chatId, String playerName) {
         String sql = "DELETE FROM favorite_players WHERE chat_id = ? AND player_name = ?";	//Query di cancellazione
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Timer.Context timing = dbTimer("removeFavoritePlayer").time(); Span span = TRACER.span("db.removeFavoritePlayer");
+             DbStatementEvent event = DbStatementEvent.start("removeFavoritePlayer", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setLong(1, chatId);	//Imposto ID chat
             pstmt.setString(2, playerName);	//Imposto nome giocatore
             int deleted = pstmt.executeUpdate();	//Eseguo cancellazione
+            if (deleted > 0) favoriteIndex.remove(chatId, playerName);	//Tengo allineato l'indice degli avvisi
 
             if (deleted > 0) return "➖ " + playerName + " rimosso dai preferiti.";	//Cancellazione avvenuta
             else return "⚠️ " + playerName + " non è nei tuoi preferiti.";	//Nessun record trovato
         } catch (SQLException e) {	//Gestisco errori SQL
+            countDbError("removeFavoritePlayer");	//Conto l'errore nelle metriche
             e.printStackTrace();
             return "❌ Errore nella rimozione.";
         }
     }
 
+    //Metodo privato che carica in memoria l'indice dei preferiti (una sola query all'avvio)
+    private void loadFavoriteIndex() {
+        String sql = "SELECT chat_id, player_name FROM favorite_players";
+        try (Timer.Context timing = dbTimer("loadFavoriteIndex").time();
+             DbStatementEvent event = DbStatementEvent.start("loadFavoriteIndex", sql);
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            int count = 0;
+            while (rs.next()) {
+                favoriteIndex.add(rs.getLong("chat_id"), rs.getString("player_name"));
+                count++;
+            }
+            System.out.println("⭐ Indice preferiti caricato: " + count + " preferiti, " + favoriteIndex.players() + " giocatori");
+        } catch (SQLException e) {
+            countDbError("loadFavoriteIndex");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+        }
+    }
+
+    //Metodo che ritorna l'indice giocatore -> chat dei preferiti (aggiornato da addFavoritePlayer e removeFavoritePlayer)
+    public FavoriteIndex getFavoriteIndex() {
+        return favoriteIndex;
+    }
+
     //Metodo pubblico per recuperare la lista dei giocatori preferiti di un utente
     public String getFavoritePlayers(Long chatId) {
         StringBuilder sb = new StringBuilder("⭐ I TUOI GIOCATORI PREFERITI\n\n");	//Intestazione messaggio
@@ -232,7 +342,9 @@ public class DatabaseManager {
 		WHERE fp.chat_id = ? 
 		ORDER BY fp.added_at DESC
 	""";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Timer.Context timing = dbTimer("getFavoritePlayers").time(); Span span = TRACER.span("db.getFavoritePlayers");
+             DbStatementEvent event = DbStatementEvent.start("getFavoritePlayers", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setLong(1, chatId);	//Imposto ID chat
             ResultSet rs = pstmt.executeQuery();
             int count = 0;
@@ -267,17 +379,389 @@ public class DatabaseManager {
             sb.append("➕ Aggiungi: /aggiungi\n");	//Suggerimento aggiunta
             sb.append("➖ Rimuovi: /rimuovi");	//Suggerimento rimozione
         } catch (SQLException e) {	//Gestione errori SQL
+            countDbError("getFavoritePlayers");	//Conto l'errore nelle metriche
             e.printStackTrace();
             return "❌ Errore nel recupero dei preferiti.";
         }
         return sb.toString();	//Restituisco messaggio completo
     }
 
+    //Metodo pubblico che ritorna le chat che hanno tra i preferiti almeno uno dei giocatori, con i rispettivi giocatori (una sola query)
+    public Map<Long, List<String>> getFavoriteChats(Collection<String> playerNames) {
+        Map<Long, List<String>> chats = new LinkedHashMap<>();
+        if (playerNames.isEmpty()) return chats;
+        String sql = "SELECT chat_id, player_name FROM favorite_players WHERE player_name IN ("
+                + String.join(", ", Collections.nCopies(playerNames.size(), "?")) + ") ORDER BY chat_id";
+        try (Timer.Context timing = dbTimer("getFavoriteChats").time(); Span span = TRACER.span("db.getFavoriteChats");
+             DbStatementEvent event = DbStatementEvent.start("getFavoriteChats", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            for (String name : playerNames) pstmt.setString(i++, name);	//Un parametro per giocatore
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) chats.computeIfAbsent(rs.getLong("chat_id"), id -> new ArrayList<>()).add(rs.getString("player_name"));
+        } catch (SQLException e) {
+            countDbError("getFavoriteChats");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+        }
+        return chats;
+    }
+
+    // ==================== RANKING_SNAPSHOT ====================
+    //Metodo pubblico che ritorna l'ultima classifica salvata di un circuito (solo nome, ranking e punti), lista vuota se non c'è
+    public List<Player> getRankingSnapshot(String tour) {
+        List<Player> players = new ArrayList<>();
+        String sql = "SELECT player_name, ranking, points FROM ranking_snapshot WHERE tour = ?";
+        try (Timer.Context timing = dbTimer("getRankingSnapshot").time(); Span span = TRACER.span("db.getRankingSnapshot");
+             DbStatementEvent event = DbStatementEvent.start("getRankingSnapshot", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, tour);	//Imposto il circuito
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) players.add(new Player(rs.getString("player_name"), null, rs.getInt("ranking"), rs.getInt("points"), 0));
+        } catch (SQLException e) {
+            countDbError("getRankingSnapshot");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+        }
+        return players;
+    }
+
+    //Metodo pubblico che sostituisce la classifica salvata di un circuito con quella appena letta (DELETE e INSERT in una sola transazione).
+    //La transazione usa una connessione dedicata: sulla connessione condivisa includerebbe anche le scritture degli altri thread
+    public void saveRankingSnapshot(String tour, List<Player> players) {
+        String deleteSql = "DELETE FROM ranking_snapshot WHERE tour = ?";
+        String insertSql = "INSERT OR REPLACE INTO ranking_snapshot (tour, player_name, ranking, points) VALUES "
+                + String.join(", ", Collections.nCopies(players.size(), "(?, ?, ?, ?)"));	//Un solo INSERT per tutta la classifica
+        try (Timer.Context timing = dbTimer("saveRankingSnapshot").time(); Span span = TRACER.span("db.saveRankingSnapshot");
+             DbStatementEvent event = DbStatementEvent.start("saveRankingSnapshot", insertSql);
+             Connection transaction = DriverManager.getConnection(dbUrl)) {	//Una lettura ogni 6 ore: aprirla ogni volta costa poco
+            transaction.setAutoCommit(false);	//Se l'INSERT fallisce resta la classifica precedente, non una vuota
+            try (PreparedStatement delete = transaction.prepareStatement(deleteSql)) {
+                delete.setString(1, tour);
+                delete.executeUpdate();	//Tolgo la classifica precedente
+                if (!players.isEmpty()) {
+                    try (PreparedStatement insert = transaction.prepareStatement(insertSql)) {
+                        int i = 1;
+                        for (Player player : players) {
+                            insert.setString(i++, tour);	//Circuito
+                            insert.setString(i++, player.getNome());	//Nome
+                            insert.setInt(i++, player.getRanking());	//Ranking
+                            insert.setInt(i++, player.getPunti());	//Punti
+                        }
+                        insert.executeUpdate();
+                    }
+                }
+                transaction.commit();
+            } catch (SQLException e) {
+                transaction.rollback();	//Annullo anche il DELETE
+                throw e;
+            }
+        } catch (SQLException e) {
+            countDbError("saveRankingSnapshot");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+        }
+    }
+
+    // ==================== DIGEST_SUBSCRIPTIONS ====================
+    //Metodo pubblico che iscrive una chat al digest giornaliero (o ne cambia l'ora); il digest di oggi già inviato non viene ripetuto
+    public boolean setDigestSubscription(Long chatId, int hour) {
+        String sql = "INSERT INTO digest_subscriptions (chat_id, hour) VALUES (?, ?) ON CONFLICT(chat_id) DO UPDATE SET hour = excluded.hour";
+        try (Timer.Context timing = dbTimer("setDigestSubscription").time(); Span span = TRACER.span("db.setDigestSubscription");
+             DbStatementEvent event = DbStatementEvent.start("setDigestSubscription", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, chatId);	//Imposto ID chat
+            pstmt.setInt(2, hour);	//Imposto l'ora di invio
+            pstmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            countDbError("setDigestSubscription");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    //Metodo pubblico che cancella l'iscrizione al digest; ritorna false se la chat non era iscritta
+    public boolean removeDigestSubscription(Long chatId) {
+        String sql = "DELETE FROM digest_subscriptions WHERE chat_id = ?";
+        try (Timer.Context timing = dbTimer("removeDigestSubscription").time(); Span span = TRACER.span("db.removeDigestSubscription");
+             DbStatementEvent event = DbStatementEvent.start("removeDigestSubscription", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, chatId);	//Imposto ID chat
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            countDbError("removeDigestSubscription");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    //Metodo pubblico che ritorna l'ora del digest di una chat (null se non è iscritta)
+    public Integer getDigestHour(Long chatId) {
+        String sql = "SELECT hour FROM digest_subscriptions WHERE chat_id = ?";
+        try (Timer.Context timing = dbTimer("getDigestHour").time(); Span span = TRACER.span("db.getDigestHour");
+             DbStatementEvent event = DbStatementEvent.start("getDigestHour", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, chatId);	//Imposto ID chat
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt("hour") : null;
+        } catch (SQLException e) {
+            countDbError("getDigestHour");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    //Metodo pubblico che ritorna fino a limit chat (con chat_id maggiore di afterChatId) con il digest dell'ora indicata non ancora inviato
+    //nel giorno date, con i loro preferiti (ordinate per chat_id; lista di preferiti vuota se la chat non ne ha)
+    public Map<Long, List<String>> getPendingDigestChats(int hour, String date, long afterChatId, int limit) {
+        Map<Long, List<String>> chats = new LinkedHashMap<>();
+        String sql = """
+		SELECT ds.chat_id, fp.player_name
+		FROM (SELECT chat_id FROM digest_subscriptions
+		      WHERE hour = ? AND (last_sent_date IS NULL OR last_sent_date < ?) AND chat_id > ?
+		      ORDER BY chat_id LIMIT ?) ds
+		LEFT JOIN favorite_players fp ON fp.chat_id = ds.chat_id
+		ORDER BY ds.chat_id, fp.player_name
+	""";
+        try (Timer.Context timing = dbTimer("getPendingDigestChats").time(); Span span = TRACER.span("db.getPendingDigestChats");
+             DbStatementEvent event = DbStatementEvent.start("getPendingDigestChats", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, hour);	//Ora del digest
+            pstmt.setString(2, date);	//Giorno (yyyy-MM-dd, confrontabile come testo)
+            pstmt.setLong(3, afterChatId);	//Chat già viste in questo invio
+            pstmt.setInt(4, limit);	//Chat per pagina
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                List<String> favorites = chats.computeIfAbsent(rs.getLong("chat_id"), id -> new ArrayList<>());
+                String name = rs.getString("player_name");
+                if (name != null) favorites.add(name);	//LEFT JOIN: null se la chat non ha preferiti
+            }
+        } catch (SQLException e) {
+            countDbError("getPendingDigestChats");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+        }
+        return chats;
+    }
+
+    //Metodo pubblico che conta le chat con il digest dell'ora indicata non ancora inviato nel giorno date
+    public int countPendingDigestChats(int hour, String date) {
+        String sql = "SELECT COUNT(*) AS count FROM digest_subscriptions WHERE hour = ? AND (last_sent_date IS NULL OR last_sent_date < ?)";
+        try (Timer.Context timing = dbTimer("countPendingDigestChats").time(); Span span = TRACER.span("db.countPendingDigestChats");
+             DbStatementEvent event = DbStatementEvent.start("countPendingDigestChats", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, hour);
+            pstmt.setString(2, date);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt("count") : 0;
+        } catch (SQLException e) {
+            countDbError("countPendingDigestChats");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    //Metodo pubblico che segna il digest del giorno date come inviato a una chat
+    public void markDigestSent(Long chatId, String date) {
+        String sql = "UPDATE digest_subscriptions SET last_sent_date = ? WHERE chat_id = ?";
+        try (Timer.Context timing = dbTimer("markDigestSent").time(); Span span = TRACER.span("db.markDigestSent");
+             DbStatementEvent event = DbStatementEvent.start("markDigestSent", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, date);	//Giorno inviato
+            pstmt.setLong(2, chatId);	//Imposto ID chat
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            countDbError("markDigestSent");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+        }
+    }
+
+    // ==================== BROADCAST_PROGRESS ====================
+    //Metodo pubblico che registra l'inizio di un invio a molte chat (se era già iniziato resta com'è: è una ripresa)
+    public void startBroadcast(String broadcastId, int total) {
+        String sql = "INSERT OR IGNORE INTO broadcast_progress (broadcast_id, total) VALUES (?, ?)";
+        try (Timer.Context timing = dbTimer("startBroadcast").time(); Span span = TRACER.span("db.startBroadcast");
+             DbStatementEvent event = DbStatementEvent.start("startBroadcast", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, broadcastId);
+            pstmt.setInt(2, total);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            countDbError("startBroadcast");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+        }
+    }
+
+    //Metodo pubblico che aggiunge all'avanzamento di un invio i messaggi inviati e falliti di un blocco
+    public void updateBroadcast(String broadcastId, int sent, int failed) {
+        String sql = "UPDATE broadcast_progress SET sent = sent + ?, failed = failed + ?, updated_at = CURRENT_TIMESTAMP WHERE broadcast_id = ?";
+        try (Timer.Context timing = dbTimer("updateBroadcast").time(); Span span = TRACER.span("db.updateBroadcast");
+             DbStatementEvent event = DbStatementEvent.start("updateBroadcast", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, sent);
+            pstmt.setInt(2, failed);
+            pstmt.setString(3, broadcastId);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            countDbError("updateBroadcast");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+        }
+    }
+
+    //Metodo pubblico che segna un invio a molte chat come completato
+    public void completeBroadcast(String broadcastId) {
+        String sql = "UPDATE broadcast_progress SET completed_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP WHERE broadcast_id = ?";
+        try (Timer.Context timing = dbTimer("completeBroadcast").time(); Span span = TRACER.span("db.completeBroadcast");
+             DbStatementEvent event = DbStatementEvent.start("completeBroadcast", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, broadcastId);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            countDbError("completeBroadcast");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+        }
+    }
+
+    //Metodo pubblico che ritorna gli invii iniziati e non completati il cui id inizia con prefix (es. i digest di oggi)
+    public List<String> getIncompleteBroadcasts(String prefix) {
+        List<String> ids = new ArrayList<>();
+        String sql = "SELECT broadcast_id FROM broadcast_progress WHERE completed_at IS NULL AND broadcast_id LIKE ? ORDER BY broadcast_id";
+        try (Timer.Context timing = dbTimer("getIncompleteBroadcasts").time(); Span span = TRACER.span("db.getIncompleteBroadcasts");
+             DbStatementEvent event = DbStatementEvent.start("getIncompleteBroadcasts", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, prefix + "%");
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) ids.add(rs.getString("broadcast_id"));
+        } catch (SQLException e) {
+            countDbError("getIncompleteBroadcasts");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+        }
+        return ids;
+    }
+
+    //Metodo pubblico che indica se un invio a molte chat è già stato completato
+    public boolean isBroadcastCompleted(String broadcastId) {
+        String sql = "SELECT completed_at FROM broadcast_progress WHERE broadcast_id = ?";
+        try (Timer.Context timing = dbTimer("isBroadcastCompleted").time(); Span span = TRACER.span("db.isBroadcastCompleted");
+             DbStatementEvent event = DbStatementEvent.start("isBroadcastCompleted", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, broadcastId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() && rs.getString("completed_at") != null;
+        } catch (SQLException e) {
+            countDbError("isBroadcastCompleted");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // ==================== CONVERSATION_STATE ====================
+    //Metodo pubblico che ritorna il valore di una chiave della conversazione di una chat (null se assente o scaduta all'istante now, in ms)
+    public String getConversationValue(Long chatId, String key, long now) {
+        String sql = "SELECT value FROM conversation_state WHERE chat_id = ? AND key = ? AND expires_at > ?";
+        try (Timer.Context timing = dbTimer("getConversationValue").time(); Span span = TRACER.span("db.getConversationValue");
+             DbStatementEvent event = DbStatementEvent.start("getConversationValue", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, chatId);	//Imposto ID chat
+            pstmt.setString(2, key);	//Chiave della conversazione (es. lo stato)
+            pstmt.setLong(3, now);	//Le chiavi scadute non contano
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getString("value") : null;
+        } catch (SQLException e) {
+            countDbError("getConversationValue");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    //Metodo pubblico che salva una chiave della conversazione di una chat e sposta a expiresAt la scadenza di tutta la conversazione
+    public void putConversationValue(Long chatId, String key, String value, long expiresAt) {
+        String sql = "INSERT INTO conversation_state (chat_id, key, value, expires_at) VALUES (?, ?, ?, ?) "
+                + "ON CONFLICT(chat_id, key) DO UPDATE SET value = excluded.value, expires_at = excluded.expires_at";
+        String refresh = "UPDATE conversation_state SET expires_at = ? WHERE chat_id = ?";
+        try (Timer.Context timing = dbTimer("putConversationValue").time(); Span span = TRACER.span("db.putConversationValue");
+             DbStatementEvent event = DbStatementEvent.start("putConversationValue", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql);
+             PreparedStatement refreshStmt = connection.prepareStatement(refresh)) {
+            pstmt.setLong(1, chatId);	//Imposto ID chat
+            pstmt.setString(2, key);
+            pstmt.setString(3, value);
+            pstmt.setLong(4, expiresAt);
+            pstmt.executeUpdate();
+            refreshStmt.setLong(1, expiresAt);	//Le altre chiavi della chat scadono insieme a questa
+            refreshStmt.setLong(2, chatId);
+            refreshStmt.executeUpdate();
+        } catch (SQLException e) {
+            countDbError("putConversationValue");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+        }
+    }
+
+    //Metodo pubblico che rimuove una chiave della conversazione di una chat e ritorna il valore che aveva (null se assente o scaduta)
+    public String removeConversationValue(Long chatId, String key, long now) {
+        String sql = "DELETE FROM conversation_state WHERE chat_id = ? AND key = ? RETURNING value, expires_at";
+        try (Timer.Context timing = dbTimer("removeConversationValue").time(); Span span = TRACER.span("db.removeConversationValue");
+             DbStatementEvent event = DbStatementEvent.start("removeConversationValue", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, chatId);	//Imposto ID chat
+            pstmt.setString(2, key);
+            ResultSet rs = pstmt.executeQuery();	//Lettura e cancellazione in un solo statement: due istanze non leggono lo stesso valore
+            return rs.next() && rs.getLong("expires_at") > now ? rs.getString("value") : null;
+        } catch (SQLException e) {
+            countDbError("removeConversationValue");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    //Metodo pubblico che rimuove tutte le chiavi della conversazione di una chat
+    public void clearConversation(Long chatId) {
+        String sql = "DELETE FROM conversation_state WHERE chat_id = ?";
+        try (Timer.Context timing = dbTimer("clearConversation").time(); Span span = TRACER.span("db.clearConversation");
+             DbStatementEvent event = DbStatementEvent.start("clearConversation", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, chatId);	//Imposto ID chat
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            countDbError("clearConversation");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+        }
+    }
+
+    //Metodo pubblico che conta le chat con una conversazione non scaduta all'istante now
+    public int countConversations(long now) {
+        String sql = "SELECT COUNT(DISTINCT chat_id) AS count FROM conversation_state WHERE expires_at > ?";
+        try (Timer.Context timing = dbTimer("countConversations").time(); Span span = TRACER.span("db.countConversations");
+             DbStatementEvent event = DbStatementEvent.start("countConversations", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, now);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt("count") : 0;
+        } catch (SQLException e) {
+            countDbError("countConversations");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    //Metodo pubblico che cancella le conversazioni scadute all'istante now e ritorna quante righe ha cancellato
+    public int deleteExpiredConversations(long now) {
+        String sql = "DELETE FROM conversation_state WHERE expires_at <= ?";
+        try (Timer.Context timing = dbTimer("deleteExpiredConversations").time(); Span span = TRACER.span("db.deleteExpiredConversations");
+             DbStatementEvent event = DbStatementEvent.start("deleteExpiredConversations", sql);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, now);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            countDbError("deleteExpiredConversations");	//Conto l'errore nelle metriche
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
     // ==================== STATISTICHE ====================
     //Metodo pubblico per recuperare le statistiche personali e globali dell'utente
     public String getUserStatistics(Long chatId) {
         StringBuilder stats = new StringBuilder("📊 LE TUE STATISTICHE\n\n");	//Intestazione messaggio
-        try {
+        try (Timer.Context timing = dbTimer("getUserStatistics").time(); Span span = TRACER.span("db.getUserStatistics");
+             DbStatementEvent event = DbStatementEvent.start("getUserStatistics", null)) {	//Più query: nessuna istruzione principale
             String userSql = "SELECT username, first_interaction, total_interactions FROM users WHERE chat_id = ?";
             try (PreparedStatement pstmt = connection.prepareStatement(userSql)) {
                 pstmt.setLong(1, chatId);	//ID chat
@@ -328,9 +812,20 @@ public class DatabaseManager {
                 if (rs.next()) stats.append(String.format("🎾 Giocatori nel database: %d\n", rs.getInt("count"))); //Mostro quanti giocatori ho nel DB
             }
         } catch (SQLException e) { //Gestisco eventuali errori SQL
+            countDbError("getUserStatistics");	//Conto l'errore nelle metriche
             e.printStackTrace();
             return "⚠️ Errore nel recupero delle statistiche."; //Restituisco messaggio di errore
         }
         return stats.toString(); //Restituisco tutta la stringa di statistiche completa
     }
-}
\ No newline at end of file
+
+    //Metodo statico privato che ritorna il timer di un'operazione sul database
+    private static Timer dbTimer(String operation) {
+        return METRICS.timer("db_operation_seconds", "Durata delle operazioni sul database", "operation", operation);
+    }
+
+    //Metodo statico privato che conta un errore SQL di un'operazione
+    private static void countDbError(String operation) {
+        METRICS.counter("db_errors_total", "Errori SQL per operazione", "operation", operation).inc();
+    }
+}
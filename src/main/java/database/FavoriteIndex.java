@@ -0,0 +1,94 @@
+package database;
+
+import java.text.Normalizer;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*Classe FavoriteIndex: indice in memoria da giocatore a chat che lo hanno tra i preferiti (il contrario della tabella favorite_players).
+Il nome è ridotto a una forma canonica (iniziale del nome + cognome, senza accenti) perché Sofascore scrive "J. Sinner"
+mentre i preferiti hanno il nome completo di Wikipedia ("Jannik Sinner").
+L'indice è per cognome e l'iniziale fa solo da spareggio: un preferito con il solo cognome ("Sinner") segue ogni "x. Sinner",
+mentre "Alexander Zverev" e "Mischa Zverev" restano distinti.
+DatabaseManager lo carica all'avvio e lo aggiorna in addFavoritePlayer/removeFavoritePlayer: gli avvisi non fanno query.
+ */
+public class FavoriteIndex {
+    private final Map<String, Map<String, Map<Long, Integer>>> subscribers = new ConcurrentHashMap<>();	//Cognome -> iniziale ("" se solo cognome) -> chat e numero di preferiti con quel nome
+
+    //Metodo che registra un preferito di una chat
+    public void add(long chatId, String playerName) {
+        String name = canonical(playerName);
+        subscribers.computeIfAbsent(surname(name), surname -> new ConcurrentHashMap<>())
+                .computeIfAbsent(initial(name), initial -> new ConcurrentHashMap<>()).merge(chatId, 1, Integer::sum);
+    }
+
+    //Metodo che toglie un preferito di una chat (la chat resta iscritta se ha un altro preferito con lo stesso nome canonico)
+    public void remove(long chatId, String playerName) {
+        String name = canonical(playerName);
+        subscribers.computeIfPresent(surname(name), (surname, initials) -> {
+            initials.computeIfPresent(initial(name), (initial, chats) -> {
+                chats.computeIfPresent(chatId, (id, count) -> count > 1 ? count - 1 : null);
+                return chats.isEmpty() ? null : chats;
+            });
+            return initials.isEmpty() ? null : initials;
+        });
+    }
+
+    //Metodo che ritorna le chat che seguono un giocatore (nome completo, abbreviato o solo cognome), insieme vuoto se nessuna
+    public Set<Long> subscribersOf(String playerName) {
+        String name = canonical(playerName);
+        Map<String, Map<Long, Integer>> initials = subscribers.get(surname(name));
+        if (initials == null) return Set.of();
+        Set<Long> chatIds = new HashSet<>();
+        for (Map.Entry<String, Map<Long, Integer>> entry : initials.entrySet()) {
+            if (compatible(entry.getKey(), initial(name))) chatIds.addAll(entry.getValue().keySet());
+        }
+        return chatIds;
+    }
+
+    public boolean isEmpty() {
+        return subscribers.isEmpty();
+    }
+
+    //Metodo che ritorna il numero di giocatori seguiti da almeno una chat
+    public int players() {
+        int players = 0;
+        for (Map<String, Map<Long, Integer>> initials : subscribers.values()) players += initials.size();
+        return players;
+    }
+
+    //Metodo statico che ritorna la forma canonica di un nome: iniziale del nome e cognome (es. "Jannik Sinner" e "J. Sinner" diventano "j sinner")
+    public static String canonical(String playerName) {
+        String plain = Normalizer.normalize(playerName, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);	//Senza accenti
+        String[] words = plain.split("[\\s.]+");
+        int first = 0;
+        while (first < words.length && words[first].isEmpty()) first++;	//Spazi iniziali
+        if (first >= words.length) return "";
+        String surname = words[words.length - 1];
+        if (first == words.length - 1) return surname;	//Solo cognome
+        return words[first].charAt(0) + " " + surname;
+    }
+
+    //Metodo statico che indica se due forme canoniche possono essere lo stesso giocatore: stesso cognome e iniziali uguali o mancanti
+    public static boolean samePlayer(String canonicalA, String canonicalB) {
+        return surname(canonicalA).equals(surname(canonicalB)) && compatible(initial(canonicalA), initial(canonicalB));
+    }
+
+    //Metodo statico privato che ritorna il cognome di una forma canonica
+    private static String surname(String canonical) {
+        return canonical.substring(canonical.indexOf(' ') + 1);
+    }
+
+    //Metodo statico privato che ritorna l'iniziale di una forma canonica ("" se c'è solo il cognome)
+    private static String initial(String canonical) {
+        int space = canonical.indexOf(' ');
+        return space > 0 ? canonical.substring(0, space) : "";
+    }
+
+    //Metodo statico privato che indica se due iniziali sono compatibili (una delle due mancante vale come jolly)
+    private static boolean compatible(String initialA, String initialB) {
+        return initialA.isEmpty() || initialB.isEmpty() || initialA.equals(initialB);
+    }
+}
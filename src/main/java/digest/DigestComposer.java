@@ -0,0 +1,136 @@
+package digest;
+
+import alerts.RankingDelta;
+import database.FavoriteIndex;
+import live.MatchState;
+import metrics.MetricsRegistry;
+import model.Match;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*Classe DigestComposer che scrive il testo del digest giornaliero a partire da letture condivise:
+le partite di oggi (una sola lettura per invio) e le ultime variazioni delle classifiche.
+Il testo dipende solo dall'insieme dei preferiti, quindi viene scritto una volta per ogni insieme diverso e riusato per tutte le chat
+con gli stessi preferiti (molte chat non ne hanno o seguono gli stessi giocatori più famosi).
+Il digest deve stare in un solo messaggio: oltre MAX_TEXT_LENGTH il testo viene tagliato dopo l'ultima riga che ci sta
+(Telegram rifiuta i messaggi oltre 4096 caratteri e l'invio tratterebbe il rifiuto come un errore definitivo).
+ */
+public class DigestComposer {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+    private static final int GENERAL_MATCHES = 5;	//Partite mostrate nel digest di chi non ha preferiti
+    static final int MAX_TEXT_LENGTH = 4000;	//Margine sotto il limite di 4096 caratteri di Telegram
+
+    private final String date;	//Giorno del digest (es. 2024-05-12)
+    private final List<Match> matches;
+    private final Map<String, List<RankingDelta>> rankingChanges;	//Circuito -> variazioni
+    private final Map<String, String> texts = new HashMap<>();	//Insieme di preferiti (ordinato) -> testo
+
+    public DigestComposer(String date, List<Match> matches, Map<String, List<RankingDelta>> rankingChanges) {
+        this.date = date;
+        this.matches = matches;
+        this.rankingChanges = rankingChanges;
+    }
+
+    //Metodo che ritorna il digest per una chat con i preferiti indicati (ordinati per nome, come da getPendingDigestChats)
+    public String compose(List<String> favorites) {
+        return texts.computeIfAbsent(String.join("\n", favorites), key -> {
+            METRICS.counter("digest_contents_rendered_total", "Testi del digest scritti (uno per insieme di preferiti)").inc();
+            return favorites.isEmpty() ? general() : personal(favorites);
+        });
+    }
+
+    //Metodo che ritorna il numero di testi diversi scritti finora
+    public int distinctContents() {
+        return texts.size();
+    }
+
+    //Metodo privato che scrive il digest dei preferiti: loro partite di oggi, risultati e variazioni in classifica
+    private String personal(List<String> favorites) {
+        Set<String> canonical = new HashSet<>();
+        for (String favorite : favorites) canonical.add(FavoriteIndex.canonical(favorite));
+        StringBuilder today = new StringBuilder();
+        StringBuilder results = new StringBuilder();
+        for (Match match : matches) {
+            if (!involves(match, canonical)) continue;
+            MatchState.Phase phase = MatchState.of(match).getPhase();
+            if (phase == MatchState.Phase.FINISHED) results.append("• ").append(line(match)).append('\n');
+            else if (phase != MatchState.Phase.CANCELLED) today.append("• ").append(line(match)).append(phase == MatchState.Phase.LIVE ? " 🔴" : "").append('\n');
+        }
+        StringBuilder ranking = new StringBuilder();
+        Set<String> names = new HashSet<>(favorites);
+        for (Map.Entry<String, List<RankingDelta>> tour : rankingChanges.entrySet()) {
+            for (RankingDelta delta : tour.getValue()) {
+                if (names.contains(delta.getName())) ranking.append("• ").append(tour.getKey().toUpperCase()).append(" - ").append(delta.describe()).append('\n');
+            }
+        }
+
+        StringBuilder sb = header();
+        sb.append("📅 OGGI IN CAMPO\n").append(today.length() > 0 ? today : "Nessuna partita dei tuoi preferiti.\n");
+        if (results.length() > 0) sb.append("\n✅ RISULTATI\n").append(results);
+        if (ranking.length() > 0) sb.append("\n📈 CLASSIFICHE\n").append(ranking);
+        return fit(sb.append("\n⭐ Preferiti: ").append(String.join(", ", favorites)), footer());
+    }
+
+    //Metodo privato che scrive il digest di chi non ha preferiti: le prime partite in programma e i primi risultati
+    private String general() {
+        StringBuilder today = new StringBuilder();
+        StringBuilder results = new StringBuilder();
+        int scheduled = 0, finished = 0;
+        for (Match match : matches) {
+            MatchState.Phase phase = MatchState.of(match).getPhase();
+            if (phase == MatchState.Phase.FINISHED && finished < GENERAL_MATCHES) {
+                results.append("• ").append(line(match)).append('\n');
+                finished++;
+            } else if ((phase == MatchState.Phase.SCHEDULED || phase == MatchState.Phase.LIVE) && scheduled < GENERAL_MATCHES) {
+                today.append("• ").append(line(match)).append('\n');
+                scheduled++;
+            }
+        }
+        StringBuilder sb = header();
+        sb.append("📅 OGGI IN CAMPO\n").append(today.length() > 0 ? today : "Nessuna partita in programma.\n");
+        if (results.length() > 0) sb.append("\n✅ RISULTATI\n").append(results);
+        return fit(sb.append("\n💡 Aggiungi dei preferiti con /aggiungi per un digest su misura."), footer());
+    }
+
+    private StringBuilder header() {
+        return new StringBuilder("📰 IL TUO DIGEST DEL ").append(date).append("\n\n");
+    }
+
+    private static String footer() {
+        return "\n\n🔕 /digest off per non riceverlo più";
+    }
+
+    //Metodo statico che unisce testo e footer, tagliando il testo dopo l'ultima riga che ci sta se il totale supera MAX_TEXT_LENGTH
+    static String fit(CharSequence text, String footer) {
+        int max = MAX_TEXT_LENGTH - footer.length();
+        if (text.length() <= max) return text + footer;
+        METRICS.counter("digest_truncated_total", "Testi del digest tagliati per stare in un messaggio").inc();
+        String body = text.toString();
+        int cut = body.lastIndexOf('\n', max - 2);	//Taglio dopo l'ultima riga intera
+        return body.substring(0, cut > 0 ? cut : max - 2) + "\n…" + footer;
+    }
+
+    //Metodo statico privato che ritorna una riga con giocatori, punteggio o orario e torneo
+    private static String line(Match match) {
+        String detail = match.getDetailedScore() != null && !match.getDetailedScore().isEmpty() ? match.getDetailedScore() : match.getDate();
+        return match.getPlayer1() + " vs " + match.getPlayer2() + " (" + detail + ", " + match.getTournament() + ")";
+    }
+
+    //Metodo statico privato che indica se uno dei giocatori (anche nei doppi, separati da "/") è tra i preferiti
+    private static boolean involves(Match match, Set<String> canonical) {
+        for (String side : new String[]{match.getPlayer1(), match.getPlayer2()}) {
+            if (side == null) continue;
+            for (String player : side.split("/")) {
+                String name = FavoriteIndex.canonical(player.trim());
+                for (String favorite : canonical) {
+                    if (FavoriteIndex.samePlayer(favorite, name)) return true;	//Stesso cognome, l'iniziale decide solo se c'è da entrambe le parti
+                }
+            }
+        }
+        return false;
+    }
+}
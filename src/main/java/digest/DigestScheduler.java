@@ -0,0 +1,133 @@
+package digest;
+
+import alerts.RankingDelta;
+import database.DatabaseManager;
+import metrics.MetricsRegistry;
+import model.Match;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import outbound.BroadcastSender;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*Classe DigestScheduler che invia il digest giornaliero alle chat iscritte, all'ora scelta da ciascuna (/digest).
+1. Ogni minuto controllo se ci sono chat con il digest dell'ora corrente non ancora inviato oggi
+2. Un invio ("digest:<giorno>@<ora>") procede a pagine di chat in ordine di chat_id; il testo è scritto da DigestComposer
+   una volta per insieme di preferiti, a partire da una sola lettura delle partite
+3. Ogni chat viene segnata in digest_subscriptions appena Telegram conferma l'invio (o lo rifiuta in modo definitivo, es. bot bloccato)
+   e broadcast_progress tiene i totali: dopo un riavvio l'invio riprende dalle chat non ancora segnate, senza ripetere né saltare nessuno
+   (resta solo la finestra tra la conferma di Telegram e il salvataggio, come in ogni invio verso un sistema esterno).
+   Le chat con un errore temporaneo restano da inviare e l'invio resta aperto: il controllo successivo le riprova
+4. I messaggi passano da BroadcastSender (priorità BROADCAST, a blocchi), quindi le risposte ai comandi passano sempre prima
+ */
+public class DigestScheduler {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+    private static final int PAGE_SIZE = 500;	//Chat lette dal database per pagina
+    private static final String PREFIX = "digest:";
+
+    private final DatabaseManager databaseManager;
+    private final BroadcastSender broadcasts;
+    private final Supplier<List<Match>> matches;	//Partite di oggi (lettura condivisa, es. LiveMatchPoller)
+    private final Supplier<Map<String, List<RankingDelta>>> rankingChanges;	//Ultime variazioni delle classifiche
+    private final ZoneId zone;	//Fuso orario delle ore del digest
+    private final ScheduledExecutorService scheduler;
+
+    public DigestScheduler(DatabaseManager databaseManager, BroadcastSender broadcasts, Supplier<List<Match>> matches,
+                           Supplier<Map<String, List<RankingDelta>>> rankingChanges, ZoneId zone) {
+        this.databaseManager = databaseManager;
+        this.broadcasts = broadcasts;
+        this.matches = matches;
+        this.rankingChanges = rankingChanges;
+        this.zone = zone;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {	//Thread daemon per non bloccare lo spegnimento della JVM
+            Thread thread = new Thread(runnable, "digest");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //Metodo che avvia il controllo ogni minuto (il primo subito, per riprendere un invio interrotto)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::tick, 0, 1, TimeUnit.MINUTES);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    //Metodo privato eseguito ogni minuto: riprende gli invii di oggi interrotti, poi quello dell'ora corrente
+    private void tick() {
+        try {
+            LocalDateTime now = LocalDateTime.now(zone);
+            String date = now.toLocalDate().toString();
+            Set<String> broadcastIds = new LinkedHashSet<>(databaseManager.getIncompleteBroadcasts(PREFIX + date + "@"));	//Invii di oggi da riprendere
+            if (databaseManager.countPendingDigestChats(now.getHour(), date) > 0) broadcastIds.add(PREFIX + date + "@" + now.getHour());
+            for (String broadcastId : broadcastIds) {
+                run(broadcastId, date, Integer.parseInt(broadcastId.substring(broadcastId.indexOf('@') + 1)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();	//Arresto del bot: l'invio riprenderà al prossimo avvio
+        } catch (RuntimeException e) {
+            System.err.println("❌ Errore nell'invio del digest: " + e.getMessage());
+        }
+    }
+
+    //Metodo privato che invia (o riprende) il digest di un giorno e di un'ora alle chat che non l'hanno ancora ricevuto
+    private void run(String broadcastId, String date, int hour) throws InterruptedException {
+        databaseManager.startBroadcast(broadcastId, databaseManager.countPendingDigestChats(hour, date));	//Se esiste già è una ripresa
+        DigestComposer composer = new DigestComposer(date, matches.get(), rankingChanges.get());	//Letture condivise da tutto l'invio
+        long lastChatId = Long.MIN_VALUE;	//Le pagine avanzano per chat_id, anche oltre le chat da riprovare
+        int total = 0;
+        AtomicInteger retry = new AtomicInteger();	//Chat con un errore temporaneo
+        while (true) {
+            Map<Long, List<String>> page = databaseManager.getPendingDigestChats(hour, date, lastChatId, PAGE_SIZE);
+            if (page.isEmpty()) break;
+            List<SendMessage> messages = new ArrayList<>(page.size());
+            for (Map.Entry<Long, List<String>> chat : page.entrySet()) {
+                messages.add(SendMessage.builder().chatId(chat.getKey()).text(composer.compose(chat.getValue())).build());
+                lastChatId = chat.getKey();
+            }
+            AtomicInteger sent = new AtomicInteger();
+            AtomicInteger failed = new AtomicInteger();
+            try {
+                broadcasts.send(messages, (message, error) -> {
+                    if (error != null && !isPermanent(error)) {	//Da riprovare: non la segno
+                        retry.incrementAndGet();
+                        METRICS.counter("digest_messages_total", "Digest inviati per esito", "result", "retry").inc();
+                        return;
+                    }
+                    databaseManager.markDigestSent(Long.valueOf(message.getChatId()), date);
+                    (error == null ? sent : failed).incrementAndGet();
+                    METRICS.counter("digest_messages_total", "Digest inviati per esito", "result", error == null ? "sent" : "failed").inc();
+                }).get();
+            } catch (ExecutionException e) {
+                System.err.println("❌ Errore in un blocco del digest: " + e.getCause());
+            } finally {
+                databaseManager.updateBroadcast(broadcastId, sent.get(), failed.get());
+            }
+            total += page.size();
+        }
+        if (retry.get() == 0) databaseManager.completeBroadcast(broadcastId);	//Altrimenti resta aperto e il prossimo controllo lo riprende
+        if (total > 0) System.out.println("📰 Digest " + broadcastId + ": " + total + " chat, " + composer.distinctContents() + " testi diversi, " + retry.get() + " da riprovare");
+    }
+
+    //Metodo statico privato che indica se un errore di invio è definitivo (4xx di Telegram tranne 429, es. bot bloccato o chat inesistente)
+    private static boolean isPermanent(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof TelegramApiRequestException request && request.getErrorCode() != null
+                && request.getErrorCode() >= 400 && request.getErrorCode() < 500 && request.getErrorCode() != 429;	//429 esauriti: si riprova
+    }
+}
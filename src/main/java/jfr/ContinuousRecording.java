@@ -0,0 +1,70 @@
+package jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.Date;
+
+/*Classe ContinuousRecording: registrazione Java Flight Recorder sempre attiva, con la configurazione "default" del JDK (overhead intorno all'1%)
+più gli eventi del bot (ScrapeEvent, DbStatementEvent, TelegramSendEvent).
+I dati restano nel repository su disco della JVM per al massimo maxAge/maxSize; dump scrive su file solo gli ultimi N minuti.
+Il file si apre con JDK Mission Control oppure con "jfr print --events tennisbot.Scrape file.jfr".
+ */
+public class ContinuousRecording {
+    private static final String NAME = "tennis-bot";	//Nome della registrazione (visibile anche con jcmd <pid> JFR.check)
+
+    private final Recording recording;
+    private final Path dumpDirectory;	//Cartella in cui vengono scritti i dump
+
+    //Costruttore privato: la registrazione si avvia con start
+    private ContinuousRecording(Recording recording, Path dumpDirectory) {
+        this.recording = recording;
+        this.dumpDirectory = dumpDirectory;
+    }
+
+    //Metodo statico che avvia la registrazione continua
+    public static ContinuousRecording start(Duration maxAge, long maxSizeBytes, Path dumpDirectory) throws IOException, ParseException {
+        Recording recording = new Recording(Configuration.getConfiguration("default"));
+        recording.setName(NAME);
+        recording.setToDisk(true);	//Buffer circolare su disco: la memoria occupata non cresce con la durata
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSizeBytes);
+        recording.enable(ScrapeEvent.class);
+        recording.enable(DbStatementEvent.class);
+        recording.enable(TelegramSendEvent.class);
+        recording.start();
+        System.out.println("🎥 Registrazione JFR continua attiva (ultimi " + maxAge.toMinutes() + " minuti)");
+        return new ContinuousRecording(recording, dumpDirectory);
+    }
+
+    //Metodo che scrive su file gli ultimi minutes minuti della registrazione e ritorna il percorso del file
+    public Path dump(int minutes) throws IOException {
+        Files.createDirectories(dumpDirectory);
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        Path file = dumpDirectory.resolve(NAME + "-" + timestamp + "-" + minutes + "m.jfr").toAbsolutePath();
+        try {	//JFR.dump con begin relativo è disponibile solo come comando diagnostico (come jcmd <pid> JFR.dump)
+            ManagementFactory.getPlatformMBeanServer().invoke(
+                    new ObjectName("com.sun.management:type=DiagnosticCommand"), "jfrDump",
+                    new Object[]{new String[]{"name=" + NAME, "begin=-" + minutes + "m", "filename=" + file}},
+                    new String[]{String[].class.getName()});
+        } catch (JMException e) {
+            System.err.println("⚠️ Dump parziale JFR non disponibile, scrivo l'intera registrazione: " + e.getMessage());
+            recording.dump(file);	//Ripiego: tutto quello che è ancora nel repository (al massimo maxAge)
+        }
+        return file;
+    }
+
+    //Metodo che ferma la registrazione
+    public void close() {
+        recording.close();
+    }
+}
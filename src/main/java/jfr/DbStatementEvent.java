@@ -0,0 +1,36 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+//Evento JFR di un'operazione di DatabaseManager: nome dell'operazione e istruzione SQL principale
+@Name("tennisbot.DbStatement")
+@Label("Istruzione SQL")
+@Category({"Tennis Bot", "Database"})
+@Description("Operazione eseguita da DatabaseManager sul database SQLite")
+@StackTrace(false)
+public class DbStatementEvent extends jdk.jfr.Event implements AutoCloseable {
+    @Label("Operazione")
+    String operation;
+
+    @Label("SQL")
+    String sql;
+
+    //Metodo statico che crea l'evento e ne avvia la misura
+    public static DbStatementEvent start(String operation, String sql) {
+        DbStatementEvent event = new DbStatementEvent();
+        event.operation = operation;
+        event.sql = sql;
+        event.begin();
+        return event;
+    }
+
+    //Metodo che chiude la misura e scrive l'evento nella registrazione
+    @Override
+    public void close() {
+        commit();
+    }
+}
@@ -0,0 +1,87 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/*Evento JFR di una pagina scaricata da TennisService: durata della richiesta, host, stato HTTP, byte ricevuti e tempo di parsing.
+Si usa come risorsa di un try-with-resources aperta prima della chiamata HTTP:
+try (ScrapeEvent event = ScrapeEvent.start("h2h", request.url().host()); Response response = ...) { event.status(response.code()); Document doc = event.parse(html); }
+Le letture con il browser (partite di Sofascore) non hanno uno stato HTTP: la dimensione è quella dei testi letti (text) e lo stato resta 0.
+ */
+@Name("tennisbot.Scrape")
+@Label("Scraping")
+@Category({"Tennis Bot", "Scraper"})
+@Description("Pagina scaricata e parsata da TennisService")
+@StackTrace(false)
+public class ScrapeEvent extends jdk.jfr.Event implements AutoCloseable {
+    @Label("Operazione")
+    String operation;
+
+    @Label("Host")
+    String host;
+
+    @Label("Stato HTTP")
+    int status;
+
+    @Label("Dimensione")
+    @DataAmount
+    long bytes;
+
+    @Label("Tempo di parsing")
+    @Timespan
+    long parseTime;
+
+    //Metodo statico che crea l'evento e ne avvia la misura
+    public static ScrapeEvent start(String operation, String host) {
+        ScrapeEvent event = new ScrapeEvent();
+        event.operation = operation;
+        event.host = host;
+        event.begin();
+        return event;
+    }
+
+    //Metodo che registra il codice di stato della risposta
+    public void status(int status) {
+        this.status = status;
+    }
+
+    //Metodo che parsa l'HTML con Jsoup misurando il tempo di parsing e la dimensione della pagina
+    public Document parse(String html) {
+        long start = System.nanoTime();
+        Document doc = Jsoup.parse(html);
+        parseTime = System.nanoTime() - start;
+        if (isEnabled()) bytes = utf8Length(html);	//Conto i byte solo se l'evento viene registrato
+        return doc;
+    }
+
+    //Metodo che aggiunge alla dimensione un testo letto senza HTML (es. il testo di un elemento letto dal browser)
+    public void text(String text) {
+        if (isEnabled()) bytes += utf8Length(text);
+    }
+
+    //Metodo che chiude la misura e scrive l'evento nella registrazione
+    @Override
+    public void close() {
+        commit();
+    }
+
+    //Metodo statico privato che calcola la lunghezza in byte UTF-8 di un testo senza copiarlo
+    private static long utf8Length(String text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch < 0x80) length++;
+            else if (ch < 0x800) length += 2;
+            else if (Character.isHighSurrogate(ch)) { length += 4; i++; }	//Coppia di surrogati: un carattere da 4 byte
+            else length += 3;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,48 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+//Evento JFR di una chiamata alle Bot API di Telegram: metodo, chat, lunghezza del testo ed esito
+@Name("tennisbot.TelegramSend")
+@Label("Invio Telegram")
+@Category({"Tennis Bot", "Telegram"})
+@Description("Chiamata alle Bot API di Telegram per inviare un messaggio o una foto")
+@StackTrace(false)
+public class TelegramSendEvent extends jdk.jfr.Event implements AutoCloseable {
+    @Label("Metodo")
+    String method;
+
+    @Label("Chat")
+    long chatId;
+
+    @Label("Caratteri")
+    int length;
+
+    @Label("Riuscito")
+    boolean success;
+
+    //Metodo statico che crea l'evento e ne avvia la misura
+    public static TelegramSendEvent start(String method, long chatId, int length) {
+        TelegramSendEvent event = new TelegramSendEvent();
+        event.method = method;
+        event.chatId = chatId;
+        event.length = length;
+        event.begin();
+        return event;
+    }
+
+    //Metodo che segna la chiamata come andata a buon fine
+    public void succeeded() {
+        success = true;
+    }
+
+    //Metodo che chiude la misura e scrive l'evento nella registrazione
+    @Override
+    public void close() {
+        commit();
+    }
+}
@@ -0,0 +1,124 @@
+package live;
+
+import cache.CacheSnapshot;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import metrics.MetricsRegistry;
+import model.Match;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/*Classe LiveMatchPoller che legge le partite di oggi e le passa ai SnapshotListener.
+- La lettura periodica (refresh, chiamata dal RefreshScheduler) serve solo se almeno un listener la richiede (wantsSnapshots), perché lo scraping di Sofascore usa un browser
+- getMatches riusa l'ultima lettura se è abbastanza recente, così /partite non rifà lo scraping a ogni richiesta
+- Le letture sono serializzate: chi arriva durante una lettura in corso riceve il suo risultato
+ */
+public class LiveMatchPoller {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+    private static final long MIN_GAP_MS = 5000;	//Letture più ravvicinate di così riusano l'ultima
+
+    private final Supplier<List<Match>> source;	//Sorgente delle partite (es. TennisService::getRecentMatches)
+    private final List<SnapshotListener> listeners = new CopyOnWriteArrayList<>();
+    private final Object pollLock = new Object();	//Una sola lettura alla volta
+    private volatile List<Match> latest;	//Ultima lettura (null finché non ne è stata fatta una)
+    private volatile long latestAt;	//Istante (currentTimeMillis) dell'ultima lettura
+
+    //Costruttore che riceve la sorgente delle partite
+    public LiveMatchPoller(Supplier<List<Match>> source) {
+        this.source = source;
+        METRICS.gauge("live_snapshot_age_seconds", "Età dell'ultima lettura delle partite", () -> latest == null ? 0 : (System.currentTimeMillis() - latestAt) / 1000.0);
+    }
+
+    public void addListener(SnapshotListener listener) {
+        listeners.add(listener);
+    }
+
+    //Metodo che ritorna le partite, riusando l'ultima lettura se ha al massimo maxAgeMs
+    public List<Match> getMatches(long maxAgeMs) {
+        List<Match> matches = latest;
+        if (matches != null && System.currentTimeMillis() - latestAt <= maxAgeMs) {
+            METRICS.counter("live_snapshot_reuses_total", "Richieste di partite servite con l'ultima lettura").inc();
+            return matches;
+        }
+        return poll(false);
+    }
+
+    //Metodo che ritorna l'ultima lettura senza rifarla (vuota se non ne è stata fatta una)
+    public List<Match> getLatest() {
+        List<Match> matches = latest;
+        return matches != null ? matches : List.of();
+    }
+
+    //Metodo che ritorna i millisecondi trascorsi dall'ultima lettura (Long.MAX_VALUE se non ne è stata fatta una)
+    public long getLatestAgeMs() {
+        return latest == null ? Long.MAX_VALUE : System.currentTimeMillis() - latestAt;
+    }
+
+    //Metodo che indica se almeno un listener sta aspettando le letture periodiche
+    public boolean wantsSnapshots() {
+        for (SnapshotListener listener : listeners) {
+            if (listener.wantsSnapshots()) return true;
+        }
+        return false;
+    }
+
+    //Metodo che aggiunge l'ultima lettura allo snapshot salvato tra un riavvio e l'altro (riletta con il suo istante originale)
+    public void registerSnapshot(CacheSnapshot snapshot) {
+        snapshot.register("partite", new CacheSnapshot.Section() {
+            @Override
+            public JsonNode save(ObjectMapper mapper) {
+                return mapper.createObjectNode()
+                        .put("at", latestAt)
+                        .set("matches", mapper.valueToTree(getLatest()));
+            }
+
+            @Override
+            public int load(JsonNode data, ObjectMapper mapper) throws IOException {
+                List<Match> matches = mapper.readValue(mapper.treeAsTokens(data.get("matches")),
+                        mapper.getTypeFactory().constructCollectionType(List.class, Match.class));
+                if (matches.isEmpty()) return 0;
+                synchronized (pollLock) {
+                    if (latest != null) return 0;	//Una lettura vera è già arrivata
+                    latestAt = data.path("at").asLong();
+                    latest = List.copyOf(matches);
+                }
+                return matches.size();
+            }
+        });
+    }
+
+    //Metodo chiamato periodicamente: legge le partite e avvisa i listener (un errore di lettura viene rilanciato per il backoff del job)
+    public void refresh() {
+        poll(true);
+    }
+
+    //Metodo privato che legge le partite e avvisa i listener; se la lettura fallisce rilancia l'errore oppure ritorna l'ultima lettura
+    private List<Match> poll(boolean rethrow) {
+        synchronized (pollLock) {
+            List<Match> previous = latest;
+            if (previous != null && System.currentTimeMillis() - latestAt < MIN_GAP_MS) return previous;	//Lettura appena fatta da un altro thread
+            List<Match> matches;
+            try {
+                matches = List.copyOf(source.get());
+            } catch (RuntimeException e) {
+                System.err.println("❌ Lettura delle partite live fallita: " + e.getMessage());
+                if (rethrow) throw e;
+                return previous != null ? previous : List.of();
+            }
+            latest = matches;
+            latestAt = System.currentTimeMillis();
+            METRICS.counter("live_polls_total", "Letture delle partite di oggi").inc();
+            for (SnapshotListener listener : listeners) {
+                try {
+                    listener.onSnapshot(matches);
+                } catch (RuntimeException e) {
+                    System.err.println("❌ Errore nell'aggiornamento live: " + e.getMessage());	//Un listener non deve fermare gli altri
+                }
+            }
+            return matches;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package live;
+
+import metrics.MetricsRegistry;
+import model.Match;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import outbound.OutboundQueue;
+import outbound.SendPriority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*Classe LiveScoreboard che gestisce i tabelloni live (/segui): un solo messaggio per chat, modificato sul posto (editMessageText).
+1. A ogni lettura di LiveMatchPoller ricalcolo le partite seguite da ogni chat (tutte o solo i tornei che contengono il filtro)
+2. Modifico il messaggio solo se quelle partite sono cambiate, e non più spesso di una volta ogni minEditInterval
+3. Se la chat non scrive al bot per followTtl, il tabellone si ferma con un'ultima modifica
+Le modifiche passano dalla coda di invio con priorità BROADCAST, quindi rispettano i limiti di Telegram e non rallentano le risposte.
+ */
+public class LiveScoreboard implements SnapshotListener {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+    private static final int MAX_TEXT_LENGTH = 4000;	//Il tabellone deve stare in un solo messaggio
+    private static final String FOOTER = "\n\n🔄 Aggiornamento automatico attivo · /smetti per fermarlo";
+    private static final String EXPIRED_FOOTER = "\n\n⏹ Aggiornamento automatico terminato · /segui per riprenderlo";
+
+    private final OutboundQueue outbound;
+    private final Function<List<Match>, String> renderer;	//Testo del tabellone (lo stesso di /partite)
+    private final long minEditIntervalNanos;
+    private final long followTtlNanos;
+    private final Map<Long, Follow> follows = new ConcurrentHashMap<>();	//Tabelloni attivi per chat
+
+    //Costruttore che riceve la coda di invio, il formato del tabellone, l'intervallo minimo tra due modifiche e la durata senza attività
+    public LiveScoreboard(OutboundQueue outbound, Function<List<Match>, String> renderer, long minEditIntervalMs, long followTtlMs) {
+        this.outbound = outbound;
+        this.renderer = renderer;
+        this.minEditIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minEditIntervalMs);
+        this.followTtlNanos = TimeUnit.MILLISECONDS.toNanos(followTtlMs);
+        METRICS.gauge("live_followers", "Chat che seguono le partite live", follows::size);
+    }
+
+    //Metodo che invia il tabellone a una chat e lo registra per le modifiche successive (sostituisce quello precedente)
+    public void follow(long chatId, String filter, List<Match> matches) {
+        Follow follow = new Follow(filter);
+        List<Match> followed = filter(matches, filter);
+        follow.lastKey = key(followed);
+        String text = render(followed, FOOTER);
+        follows.put(chatId, follow);
+        SendMessage message = SendMessage.builder().chatId(chatId).text(text).build();
+        outbound.send(message, SendPriority.INTERACTIVE).whenComplete((sent, error) -> {
+            if (error != null) follows.remove(chatId, follow);	//Senza messaggio non c'è nulla da modificare
+            else follow.messageId = sent.getMessageId();
+        });
+    }
+
+    //Metodo che ferma il tabellone di una chat; ritorna false se non ce n'era uno
+    public boolean unfollow(long chatId) {
+        return follows.remove(chatId) != null;
+    }
+
+    //Metodo che registra un'attività della chat (rinnova la scadenza del tabellone)
+    public void touch(long chatId) {
+        Follow follow = follows.get(chatId);
+        if (follow != null) follow.lastActivity = System.nanoTime();
+    }
+
+    @Override
+    public boolean wantsSnapshots() {
+        return !follows.isEmpty();
+    }
+
+    //Metodo chiamato a ogni lettura delle partite: modifica i tabelloni cambiati e chiude quelli scaduti
+    @Override
+    public void onSnapshot(List<Match> matches) {
+        long now = System.nanoTime();
+        for (Map.Entry<Long, Follow> entry : follows.entrySet()) {
+            long chatId = entry.getKey();
+            Follow follow = entry.getValue();
+            if (follow.messageId == null) continue;	//Primo invio ancora in corso
+            List<Match> followed = filter(matches, follow.filter);
+            if (now - follow.lastActivity > followTtlNanos) {	//Chat inattiva: ultimo aggiornamento e stop
+                follows.remove(chatId, follow);
+                edit(chatId, follow, render(followed, EXPIRED_FOOTER));
+                continue;
+            }
+            String key = key(followed);
+            if (key.equals(follow.lastKey)) {
+                countSkipped("unchanged");
+                continue;
+            }
+            if (now - follow.lastEditAt < minEditIntervalNanos) {	//Cambiato ma modificato da poco: aspetto la prossima lettura
+                countSkipped("rate_limited");
+                continue;
+            }
+            follow.lastKey = key;
+            follow.lastEditAt = now;
+            edit(chatId, follow, render(followed, FOOTER));
+        }
+    }
+
+    //Metodo privato che accoda la modifica del messaggio del tabellone
+    private void edit(long chatId, Follow follow, String text) {
+        EditMessageText edit = EditMessageText.builder()
+                .chatId(chatId)
+                .messageId(follow.messageId)
+                .text(text)
+                .build();
+        METRICS.counter("live_edits_total", "Modifiche dei tabelloni live inviate").inc();
+        outbound.submit(chatId, SendPriority.BROADCAST, "editMessageText", text.length(), telegram -> telegram.execute(edit))
+                .whenComplete((result, error) -> {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof TelegramApiRequestException request && Integer.valueOf(400).equals(request.getErrorCode())
+                            && !String.valueOf(request.getApiResponse()).contains("not modified")) {
+                        follows.remove(chatId, follow);	//Messaggio cancellato o non più modificabile
+                    }
+                });
+    }
+
+    //Metodo privato che scrive il tabellone, tagliato per stare in un solo messaggio
+    private String render(List<Match> matches, String footer) {
+        String text = renderer.apply(matches);
+        int max = MAX_TEXT_LENGTH - footer.length();
+        if (text.length() > max) {
+            int cut = text.lastIndexOf("\n\n", max - 2);	//Taglio dopo l'ultima partita che ci sta
+            text = text.substring(0, cut > 0 ? cut : max - 2) + "\n…";
+        }
+        return text + footer;
+    }
+
+    //Metodo privato che conta una modifica non inviata
+    private static void countSkipped(String reason) {
+        METRICS.counter("live_edits_skipped_total", "Modifiche dei tabelloni live non inviate", "reason", reason).inc();
+    }
+
+    //Metodo statico che ritorna le partite dei tornei che contengono il filtro (tutte se il filtro è vuoto)
+    static List<Match> filter(List<Match> matches, String filter) {
+        if (filter == null || filter.isBlank()) return matches;
+        String needle = filter.toLowerCase();
+        List<Match> followed = new ArrayList<>();
+        for (Match match : matches) {
+            String place = (match.getTournament() + " " + match.getLocation()).toLowerCase();
+            if (place.contains(needle)) followed.add(match);
+        }
+        return followed;
+    }
+
+    //Metodo statico che ritorna una chiave del contenuto delle partite (senza l'orario di aggiornamento del tabellone)
+    static String key(List<Match> matches) {
+        StringBuilder key = new StringBuilder();
+        for (Match match : matches) key.append(match).append('\n');
+        return key.toString();
+    }
+
+    //Classe statica privata con lo stato del tabellone di una chat
+    private static final class Follow {
+        private final String filter;
+        private volatile Integer messageId;	//Id del messaggio da modificare (null finché l'invio non è completato)
+        private volatile long lastActivity = System.nanoTime();
+        private long lastEditAt = System.nanoTime();	//Usati solo da onSnapshot, chiamato sotto il lock delle letture
+        private String lastKey = "";
+
+        private Follow(String filter) {
+            this.filter = filter;
+        }
+    }
+}
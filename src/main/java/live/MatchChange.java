@@ -0,0 +1,40 @@
+package live;
+
+import model.Match;
+
+//Classe MatchChange con un evento di cambiamento di una partita tra due letture consecutive
+public final class MatchChange {
+    //Enum Type con i tipi di cambiamento
+    public enum Type {
+        STARTED,	//La partita è iniziata
+        GAME_SCORE_CHANGED,	//È cambiato il punteggio in game del set in corso
+        SET_COMPLETED,	//Si è concluso un set (la partita continua)
+        FINISHED,	//La partita è finita (anche a tavolino)
+        CANCELLED	//La partita è stata annullata
+    }
+
+    private final Type type;
+    private final String key;	//Chiave della partita (vedi MatchDeltaEngine.key)
+    private final Match match;	//Partita nella lettura più recente
+    private final MatchState previous;	//Stato alla lettura precedente (null se la partita non era ancora nota)
+    private final MatchState current;
+
+    public MatchChange(Type type, String key, Match match, MatchState previous, MatchState current) {
+        this.type = type;
+        this.key = key;
+        this.match = match;
+        this.previous = previous;
+        this.current = current;
+    }
+
+    public Type getType() { return type; }
+    public String getKey() { return key; }
+    public Match getMatch() { return match; }
+    public MatchState getPrevious() { return previous; }
+    public MatchState getCurrent() { return current; }
+
+    @Override
+    public String toString() {
+        return type + " " + match.getTournament() + ": " + match.getPlayer1() + " vs " + match.getPlayer2() + " " + previous + " -> " + current;
+    }
+}
@@ -0,0 +1,14 @@
+package live;
+
+import java.util.List;
+
+//Interfaccia MatchChangeListener per chi riceve i cambiamenti delle partite calcolati da MatchDeltaEngine (es. notifiche dei preferiti)
+public interface MatchChangeListener {
+    //Metodo chiamato con i cambiamenti di una lettura (mai con una lista vuota)
+    void onChanges(List<MatchChange> changes);
+
+    //Metodo che indica se al momento servono letture periodiche per questo listener
+    default boolean wantsChanges() {
+        return true;
+    }
+}
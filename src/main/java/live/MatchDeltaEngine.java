@@ -0,0 +1,143 @@
+package live;
+
+import metrics.MetricsRegistry;
+import model.Match;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/*Classe MatchDeltaEngine che confronta letture consecutive delle partite e produce eventi MatchChange per ogni partita cambiata.
+1. Ogni partita è identificata da torneo e giocatori (key), perché getRecentMatches crea oggetti nuovi a ogni lettura
+2. Per ogni partita tengo solo lo stato compatto (MatchState) dell'ultima lettura
+3. La prima lettura serve da base e non produce eventi; una partita sparita viene dimenticata dopo MAX_MISSED letture
+   (un solo buco nella pagina di Sofascore non deve far ripartire gli eventi)
+I listener ricevono solo i cambiamenti, così non devono rileggere e confrontare tutta la lista.
+ */
+public class MatchDeltaEngine implements SnapshotListener {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+    private static final int MAX_MISSED = 3;	//Letture consecutive senza la partita prima di dimenticarla
+
+    private final Map<String, Tracked> matches = new ConcurrentHashMap<>();	//Stato delle partite note per chiave
+    private final List<MatchChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private boolean baseline;	//true dopo la prima lettura (onSnapshot è chiamato sotto il lock delle letture)
+
+    public MatchDeltaEngine() {
+        METRICS.gauge("live_tracked_matches", "Partite di cui è noto lo stato", matches::size);
+    }
+
+    public void addListener(MatchChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    //Le letture periodiche servono solo se almeno un listener aspetta i cambiamenti
+    @Override
+    public boolean wantsSnapshots() {
+        for (MatchChangeListener listener : listeners) {
+            if (listener.wantsChanges()) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void onSnapshot(List<Match> snapshot) {
+        List<MatchChange> changes = diff(snapshot);
+        if (changes.isEmpty()) return;
+        for (MatchChange change : changes) {
+            METRICS.counter("live_match_changes_total", "Cambiamenti delle partite per tipo", "type", change.getType().name().toLowerCase(Locale.ROOT)).inc();
+        }
+        for (MatchChangeListener listener : listeners) {
+            try {
+                listener.onChanges(changes);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Errore nella gestione dei cambiamenti delle partite: " + e.getMessage());	//Un listener non deve fermare gli altri
+            }
+        }
+    }
+
+    //Metodo che confronta una lettura con lo stato noto, aggiorna lo stato e ritorna i cambiamenti
+    List<MatchChange> diff(List<Match> snapshot) {
+        List<MatchChange> changes = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Match match : snapshot) {
+            String key = key(match);
+            if (!seen.add(key)) continue;	//Stessa partita ripetuta nella pagina: conta la prima
+            MatchState current = MatchState.of(match);
+            Tracked tracked = matches.get(key);
+            if (tracked == null) {
+                matches.put(key, new Tracked(current));
+                if (baseline) compare(key, match, null, current, changes);	//Partita nuova: eventi solo per le fasi già significative
+                continue;
+            }
+            tracked.missed = 0;
+            if (!current.equals(tracked.state)) {
+                compare(key, match, tracked.state, current, changes);
+                tracked.state = current;
+            }
+        }
+        for (Iterator<Map.Entry<String, Tracked>> it = matches.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Tracked> entry = it.next();
+            if (!seen.contains(entry.getKey()) && ++entry.getValue().missed >= MAX_MISSED) it.remove();
+        }
+        baseline = true;
+        return changes;
+    }
+
+    //Metodo statico privato che aggiunge gli eventi tra due stati della stessa partita (previous null = partita nuova)
+    private static void compare(String key, Match match, MatchState previous, MatchState current, List<MatchChange> changes) {
+        MatchState.Phase before = previous != null ? previous.getPhase() : MatchState.Phase.SCHEDULED;
+        MatchState.Phase now = current.getPhase();
+        if (now == MatchState.Phase.CANCELLED) {
+            if (before != now) changes.add(new MatchChange(MatchChange.Type.CANCELLED, key, match, previous, current));
+            return;
+        }
+        if (before == MatchState.Phase.SCHEDULED && now != MatchState.Phase.SCHEDULED) {
+            changes.add(new MatchChange(MatchChange.Type.STARTED, key, match, previous, current));
+        }
+        if (now == MatchState.Phase.FINISHED) {	//La fine comprende l'ultimo set e l'ultimo game
+            if (before != now) changes.add(new MatchChange(MatchChange.Type.FINISHED, key, match, previous, current));
+            return;
+        }
+        if (now != MatchState.Phase.LIVE || before != MatchState.Phase.LIVE) return;	//Set e game contano solo tra due letture live
+        if (current.getCompletedSets() > previous.getCompletedSets()) {	//Il set concluso comprende il suo ultimo game
+            changes.add(new MatchChange(MatchChange.Type.SET_COMPLETED, key, match, previous, current));
+        } else if (!current.getGames().equals(previous.getGames())) {
+            changes.add(new MatchChange(MatchChange.Type.GAME_SCORE_CHANGED, key, match, previous, current));
+        }
+    }
+
+    //Metodo statico che ritorna la chiave di una partita: torneo e giocatori, senza maiuscole e indipendente dall'ordine dei giocatori
+    public static String key(Match match) {
+        String p1 = normalize(match.getPlayer1());
+        String p2 = normalize(match.getPlayer2());
+        String players = p1.compareTo(p2) <= 0 ? p1 + "|" + p2 : p2 + "|" + p1;
+        return normalize(match.getTournament()) + "|" + players;
+    }
+
+    //Metodo statico privato che normalizza un nome per la chiave
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    //Metodo che ritorna lo stato noto di una partita (null se non è nota)
+    public MatchState stateOf(String key) {
+        Tracked tracked = matches.get(key);
+        return tracked != null ? tracked.state : null;
+    }
+
+    //Classe statica privata con lo stato di una partita e le letture consecutive in cui non è comparsa
+    private static final class Tracked {
+        private volatile MatchState state;
+        private int missed;
+
+        private Tracked(MatchState state) {
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package live;
+
+import model.Match;
+
+import java.util.Objects;
+
+/*Classe MatchState con lo stato compatto di una partita tra due letture: fase, set conclusi, game dei set e punti del game in corso.
+È immutabile: MatchDeltaEngine confronta lo stato precedente con quello nuovo per capire cosa è cambiato.
+ */
+public final class MatchState {
+    //Enum Phase con le fasi di una partita
+    public enum Phase { SCHEDULED, LIVE, FINISHED, CANCELLED }
+
+    private final Phase phase;
+    private final int completedSets;	//Set conclusi (senza quello in corso)
+    private final String games;	//Game dei set (es. "6-4 3-2"), stringa vuota se non è iniziata
+    private final String currentGame;	//Punti del game in corso (es. "30-15"), stringa vuota se non è live
+    private final String winner;	//Vincitore (null se non è finita)
+
+    private MatchState(Phase phase, int completedSets, String games, String currentGame, String winner) {
+        this.phase = phase;
+        this.completedSets = completedSets;
+        this.games = games;
+        this.currentGame = currentGame;
+        this.winner = winner;
+    }
+
+    //Metodo statico che ricava lo stato di una partita letta da Sofascore
+    public static MatchState of(Match match) {
+        Phase phase = phaseOf(match);
+        String games = match.getDetailedScore() != null ? match.getDetailedScore() : "";
+        String currentGame = phase == Phase.LIVE && match.getCurrentGame() != null ? match.getCurrentGame() : "";
+        return new MatchState(phase, completedSets(match.getStatus(), phase, games), games, currentGame, match.getWinner());
+    }
+
+    //Metodo statico privato che ricava la fase dallo stato di Sofascore
+    private static Phase phaseOf(Match match) {
+        if (match.isAnnullata()) return Phase.CANCELLED;
+        if (match.isFinished()) return Phase.FINISHED;
+        if (match.isLive() || "Iniziato".equals(match.getStatus())) return Phase.LIVE;
+        return Phase.SCHEDULED;	//Orario, "-" o stato non riconosciuto
+    }
+
+    //Metodo statico privato che conta i set conclusi: dallo stato "Nº set" se c'è, altrimenti dai set del punteggio
+    private static int completedSets(String status, Phase phase, String games) {
+        int sets = games.isEmpty() ? 0 : games.split(" ").length;
+        if (phase == Phase.FINISHED) return sets;
+        if (phase != Phase.LIVE) return 0;
+        if (status != null && status.endsWith("º set")) return Character.getNumericValue(status.charAt(0)) - 1;	//Es. "3º set" -> 2 set conclusi
+        return Math.max(0, sets - 1);	//L'ultimo set del punteggio è quello in corso
+    }
+
+    public Phase getPhase() { return phase; }
+    public int getCompletedSets() { return completedSets; }
+    public String getGames() { return games; }
+    public String getCurrentGame() { return currentGame; }
+    public String getWinner() { return winner; }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof MatchState state)) return false;
+        return phase == state.phase && completedSets == state.completedSets && games.equals(state.games)
+                && currentGame.equals(state.currentGame) && Objects.equals(winner, state.winner);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(phase, completedSets, games, currentGame, winner);
+    }
+
+    @Override
+    public String toString() {
+        return phase + " [" + games + "]" + (currentGame.isEmpty() ? "" : " (" + currentGame + ")");
+    }
+}
@@ -0,0 +1,16 @@
+package live;
+
+import model.Match;
+
+import java.util.List;
+
+//Interfaccia SnapshotListener per chi riceve le partite lette da LiveMatchPoller (es. tabelloni live, notifiche)
+public interface SnapshotListener {
+    //Metodo chiamato a ogni nuova lettura delle partite (la lista non va modificata)
+    void onSnapshot(List<Match> matches);
+
+    //Metodo che indica se al momento servono letture periodiche (es. almeno una chat segue le partite)
+    default boolean wantsSnapshots() {
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+//Classe Counter: contatore monotono thread-safe (LongAdder per non creare contesa tra i thread)
+public class Counter {
+    private final LongAdder value = new LongAdder();
+
+    //Metodo che incrementa il contatore di 1
+    public void inc() {
+        value.increment();
+    }
+
+    //Metodo che incrementa il contatore di n
+    public void inc(long n) {
+        value.add(n);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
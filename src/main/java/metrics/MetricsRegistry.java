@@ -0,0 +1,123 @@
+package metrics;
+
+import cache.TtlCache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/*Classe MetricsRegistry (singleton) che raccoglie le metriche del bot e le esporta nel formato testuale di Prometheus.
+- counter: contatori (es. errori, cache hit)
+- timer: istogrammi delle durate (comandi, scraping, database, invii a Telegram)
+- gauge: valori letti al momento dell'esportazione (es. profondità delle code)
+Ogni metrica è identificata dal nome e da coppie etichetta/valore, es. timer("bot_command_seconds", help, "command", "/cerca").
+I valori delle etichette devono avere pochi valori possibili (nomi di comandi o di operazioni, mai testi degli utenti).
+ */
+public class MetricsRegistry {
+    private static MetricsRegistry instance;	//Istanza unica
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();	//Metriche per nome, in ordine alfabetico
+
+    private MetricsRegistry() { }
+
+    //Metodo statico che ritorna l'istanza unica del registro
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) instance = new MetricsRegistry();
+        return instance;
+    }
+
+    //Metodo che ritorna (creandolo se serve) il contatore con il nome e le etichette indicate
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").children.computeIfAbsent(labelKey(labels), key -> new Counter());
+    }
+
+    //Metodo che ritorna (creandolo se serve) il timer con il nome e le etichette indicate
+    public Timer timer(String name, String help, String... labels) {
+        return (Timer) family(name, help, "histogram").children.computeIfAbsent(labelKey(labels), key -> new Timer());
+    }
+
+    //Metodo che registra un gauge letto al momento dell'esportazione (sostituisce un eventuale gauge con le stesse etichette)
+    public void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        family(name, help, "gauge").children.put(labelKey(labels), supplier);
+    }
+
+    //Metodo che registra un contatore letto al momento dell'esportazione (es. contatori già tenuti da altre classi)
+    public void counterFunction(String name, String help, DoubleSupplier supplier, String... labels) {
+        family(name, help, "counter").children.put(labelKey(labels), supplier);
+    }
+
+    //Metodo che esporta hit, miss e dimensione di una cache
+    public void registerCache(TtlCache<?, ?> cache) {
+        counterFunction("cache_hits_total", "Letture della cache andate a buon fine", cache::getHits, "cache", cache.getName());
+        counterFunction("cache_misses_total", "Letture della cache senza voce valida", cache::getMisses, "cache", cache.getName());
+        gauge("cache_entries", "Voci presenti nella cache", cache::size, "cache", cache.getName());
+    }
+
+    //Metodo che ritorna tutte le metriche nel formato testuale di Prometheus (versione 0.0.4)
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            if (family.children.isEmpty()) continue;
+            out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> child : family.children.entrySet()) {
+                Object metric = child.getValue();
+                if (metric instanceof Timer timer) {
+                    timer.write(out, name, child.getKey());
+                } else {
+                    double value = metric instanceof Counter counter ? counter.get() : ((DoubleSupplier) metric).getAsDouble();
+                    out.append(name).append(child.getKey()).append(' ').append(format(value)).append('\n');
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    //Metodo privato che ritorna la famiglia con il nome indicato controllando che il tipo coincida
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("La metrica " + name + " è già registrata come " + family.type);
+        }
+        return family;
+    }
+
+    //Metodo statico privato che costruisce la parte {etichetta="valore",...} a partire dalle coppie
+    private static String labelKey(String... labels) {
+        if (labels.length == 0) return "";
+        if (labels.length % 2 != 0) throw new IllegalArgumentException("Le etichette vanno passate a coppie nome/valore");
+        StringBuilder key = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) key.append(',');
+            key.append(labels[i]).append("=\"");
+            String value = labels[i + 1] != null ? labels[i + 1] : "";
+            for (int c = 0; c < value.length(); c++) {	//Escape richiesto dal formato di Prometheus
+                char ch = value.charAt(c);
+                if (ch == '\\' || ch == '"') key.append('\\').append(ch);
+                else if (ch == '\n') key.append("\\n");
+                else key.append(ch);
+            }
+            key.append('"');
+        }
+        return key.append('}').toString();
+    }
+
+    //Metodo statico privato che scrive un valore senza decimali inutili
+    private static String format(double value) {
+        return value == Math.rint(value) && !Double.isInfinite(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    //Classe statica privata con le metriche che condividono nome, descrizione e tipo
+    private static final class Family {
+        private final String help;
+        private final String type;
+        private final Map<String, Object> children = new ConcurrentSkipListMap<>();	//Metriche per etichette (Counter, Timer o DoubleSupplier)
+
+        private Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/*Classe MetricsServer: piccolo server HTTP di amministrazione (solo GET, risposte testuali).
+- /metrics: metriche nel formato di Prometheus
+Altre pagine testuali possono essere aggiunte con addEndpoint.
+ */
+public class MetricsServer {
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    //Costruttore che avvia il server sull'indirizzo e la porta indicati
+    public MetricsServer(String host, int port, MetricsRegistry registry) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {	//Un thread basta: le risposte sono generate in memoria
+            Thread thread = new Thread(runnable, "metrics-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        addEndpoint("/metrics", PROMETHEUS_CONTENT_TYPE, registry::scrape);
+        server.start();
+        System.out.println("📈 Metriche su http://" + host + ":" + getPort() + "/metrics");
+    }
+
+    //Metodo che aggiunge una pagina testuale generata a ogni richiesta
+    public void addEndpoint(String path, Supplier<String> body) {
+        addEndpoint(path, "text/plain; charset=utf-8", body);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    //Metodo che ferma il server
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    //Metodo privato che registra un percorso con il relativo content type
+    private void addEndpoint(String path, String contentType, Supplier<String> body) {
+        server.createContext(path, exchange -> handle(exchange, contentType, body));
+    }
+
+    //Metodo statico privato che risponde a una richiesta
+    private static void handle(HttpExchange exchange, String contentType, Supplier<String> body) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);	//Metodo non consentito
+                return;
+            }
+            byte[] bytes = body.get().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+            if (bytes.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Errore nella pagina " + exchange.getRequestURI() + ": " + e.getMessage());
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*Classe Timer: istogramma delle durate con bucket fissi (in secondi), esportato come histogram Prometheus.
+Uso tipico con try-with-resources:
+    try (Timer.Context timing = timer.time()) { ... }
+ */
+public class Timer {
+    static final double[] BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};	//Limiti superiori dei bucket in secondi
+    private static final long[] BUCKET_NANOS = new long[BUCKETS.length];	//Gli stessi limiti in nanosecondi
+
+    static {
+        for (int i = 0; i < BUCKETS.length; i++) BUCKET_NANOS[i] = (long) (BUCKETS[i] * 1_000_000_000L);
+    }
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS.length + 1];	//Campioni per bucket (non cumulativi), l'ultimo è +Inf
+    private final LongAdder sumNanos = new LongAdder();	//Somma delle durate
+
+    //Costruttore package-private: i timer si ottengono da MetricsRegistry
+    Timer() {
+        for (int i = 0; i < counts.length; i++) counts[i] = new LongAdder();
+    }
+
+    //Metodo che registra una durata in nanosecondi
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]) bucket++;	//Primo bucket che contiene la durata
+        counts[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    //Metodo che avvia una misura; la durata viene registrata alla chiusura del contesto
+    public Context time() {
+        return new Context(this, System.nanoTime());
+    }
+
+    //Metodo che ritorna il numero di campioni registrati
+    public long count() {
+        long total = 0;
+        for (LongAdder count : counts) total += count.sum();
+        return total;
+    }
+
+    //Metodo package-private che scrive l'istogramma nel formato testuale di Prometheus
+    void write(StringBuilder out, String name, String labels) {
+        String prefix = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";	//Aggiungo l'etichetta le a quelle esistenti
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS.length; i++) {
+            cumulative += counts[i].sum();
+            out.append(name).append("_bucket").append(prefix).append("le=\"").append(BUCKETS[i]).append("\"} ").append(cumulative).append('\n');
+        }
+        cumulative += counts[BUCKETS.length].sum();
+        out.append(name).append("_bucket").append(prefix).append("le=\"+Inf\"} ").append(cumulative).append('\n');
+        out.append(name).append("_sum").append(labels).append(' ').append(sumNanos.sum() / 1_000_000_000.0).append('\n');
+        out.append(name).append("_count").append(labels).append(' ').append(cumulative).append('\n');
+    }
+
+    //Classe statica che rappresenta una misura in corso
+    public static final class Context implements AutoCloseable {
+        private final Timer timer;
+        private final long start;
+
+        private Context(Timer timer, long start) {
+            this.timer = timer;
+            this.start = start;
+        }
+
+        //Metodo che ritorna i nanosecondi trascorsi dall'inizio della misura
+        public long elapsedNanos() {
+            return System.nanoTime() - start;
+        }
+
+        @Override
+        public void close() {
+            timer.record(elapsedNanos());
+        }
+    }
+}
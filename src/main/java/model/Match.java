@@ -15,6 +15,9 @@ public class Match {
     private String currentGame;	//Memorizzo il punteggio corrente del game per match LIVE
     private int priority;	//Memorizzo la priorità del match
 
+    //Costruttore vuoto usato per rileggere lo snapshot delle cache
+    private Match() { }
+
     //Costruttore principale della classe
     public Match(String tournament, String location,
                  String player1, String player2,
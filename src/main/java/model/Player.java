@@ -16,6 +16,9 @@ public class Player {
     private String titoli;	//Memorizzo il numero di titoli vinti
     private boolean isTennisPlayer;	//Indico se il giocatore è un tennista verificato
 
+    //Costruttore vuoto usato per rileggere lo snapshot delle cache
+    private Player() { }
+
     //Costruttore principale della classe
     public Player(String nome, String paese, int ranking, int punti, int eta) {
         this.nome = nome;	//Inizializzo il nome
@@ -0,0 +1,61 @@
+package outbound;
+
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/*Classe BroadcastSender per gli invii a molte chat (avvisi, notifiche): accoda i messaggi con priorità BROADCAST a blocchi di batchSize.
+Il blocco successivo viene accodato solo quando il precedente è stato inviato, così migliaia di messaggi non riempiono la coda
+e le risposte ai comandi passano sempre prima. I limiti globali e per chat restano quelli di OutboundQueue.
+ */
+public class BroadcastSender {
+    private final OutboundQueue queue;
+    private final int batchSize;	//Messaggi per blocco
+
+    public BroadcastSender(OutboundQueue queue, int batchSize) {
+        this.queue = queue;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    //Metodo che accoda i messaggi un blocco alla volta; il future si completa dopo l'ultimo blocco (anche se alcuni invii falliscono)
+    public CompletableFuture<Void> send(List<SendMessage> messages) {
+        return send(messages, (message, error) -> { });
+    }
+
+    //Metodo come send, che chiama onResult per ogni messaggio appena inviato (error null) o fallito (es. per salvare l'avanzamento)
+    public CompletableFuture<Void> send(List<SendMessage> messages, BiConsumer<SendMessage, Throwable> onResult) {
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (int from = 0; from < messages.size(); from += batchSize) {
+            List<SendMessage> batch = messages.subList(from, Math.min(from + batchSize, messages.size()));
+            chain = chain.thenCompose(previous -> sendBatch(batch, onResult));
+        }
+        return chain;
+    }
+
+    //Metodo che accoda lo stesso testo a più chat
+    public CompletableFuture<Void> send(List<Long> chatIds, String text) {
+        List<SendMessage> messages = new ArrayList<>(chatIds.size());
+        for (Long chatId : chatIds) messages.add(SendMessage.builder().chatId(chatId).text(text).build());
+        return send(messages);
+    }
+
+    //Metodo privato che accoda un blocco e ritorna un future completato quando sono stati tutti inviati
+    private CompletableFuture<Void> sendBatch(List<SendMessage> batch, BiConsumer<SendMessage, Throwable> onResult) {
+        CompletableFuture<?>[] sent = new CompletableFuture[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            SendMessage message = batch.get(i);
+            sent[i] = queue.send(message, SendPriority.BROADCAST).handle((result, error) -> {	//Una chat che ha bloccato il bot non ferma le altre
+                try {
+                    onResult.accept(message, error);
+                } catch (RuntimeException e) {
+                    System.err.println("❌ Errore dopo un invio a molte chat: " + e.getMessage());	//Non deve fermare i blocchi successivi
+                }
+                return null;
+            });
+        }
+        return CompletableFuture.allOf(sent);
+    }
+}
@@ -0,0 +1,341 @@
+package outbound;
+
+import jfr.TelegramSendEvent;
+import metrics.MetricsRegistry;
+import metrics.Timer;
+import tracing.Span;
+import tracing.Tracer;
+import org.telegram.telegrambots.meta.api.methods.send.SendMediaGroup;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.objects.media.InputMedia;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*Classe OutboundQueue: coda di invio verso le Bot API di Telegram, così i thread che gestiscono gli update non aspettano mai la rete.
+1. Ogni chat ha la sua corsia FIFO con un token bucket (circa 1 messaggio al secondo, con una piccola raffica)
+2. Un token bucket globale limita il totale (circa 30 messaggi al secondo)
+3. Le corsie INTERACTIVE passano prima di quelle BROADCAST; tra le chat si procede a turno (round robin)
+4. Una chat ha al massimo una chiamata in corso, quindi i messaggi arrivano nell'ordine in cui sono stati accodati
+5. Con un 429 la chiamata torna in testa alla corsia e la chat resta ferma per il Retry-After indicato da Telegram
+Un thread "telegram-outbound" sceglie la prossima chiamata; le chiamate vengono eseguite da un piccolo pool di thread "telegram-send".
+ */
+public class OutboundQueue {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+    private static final Tracer TRACER = Tracer.getInstance();	//Tracing degli invii
+    private static final int MAX_ATTEMPTS = 5;	//Tentativi massimi di una chiamata respinta con 429
+    private static final long IDLE_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);	//Attesa massima del dispatcher senza novità
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);	//Ogni quanto elimino le corsie inattive
+
+    private final TelegramClient client;
+    private final TokenBucket globalBucket;
+    private final double chatRate;
+    private final double chatBurst;
+    private final Map<Long, ChatLane> lanes = new HashMap<>();	//Corsie per chat (accesso sotto lock)
+    private final ArrayDeque<ChatLane> active = new ArrayDeque<>();	//Corsie con chiamate in attesa e nessuna in corso, in ordine di turno
+    private final Map<SendPriority, AtomicInteger> depth = new EnumMap<>(SendPriority.class);	//Chiamate in coda per priorità
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();	//Segnalata a ogni nuova chiamata o chiamata completata
+    private final ExecutorService senders;
+    private final Thread dispatcher;
+    private long sweptAt = System.nanoTime();
+    private volatile boolean stopped;
+
+    //Costruttore che riceve il client e i limiti (messaggi al secondo globali e per chat, raffica massima per chat)
+    public OutboundQueue(TelegramClient client, double globalPerSecond, double chatPerSecond, double chatBurst, int senderThreads) {
+        this.client = client;
+        this.globalBucket = new TokenBucket(globalPerSecond, globalPerSecond, System.nanoTime());	//Al massimo un secondo di raffica globale
+        this.chatRate = chatPerSecond;
+        this.chatBurst = chatBurst;
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {	//Thread daemon per non bloccare lo spegnimento della JVM
+            Thread thread = new Thread(runnable, "telegram-send");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (SendPriority priority : SendPriority.values()) {
+            AtomicInteger counter = new AtomicInteger();
+            depth.put(priority, counter);
+            METRICS.gauge("telegram_queue_depth", "Chiamate a Telegram in attesa nella coda di invio", counter::get, "priority", label(priority));
+        }
+        this.dispatcher = new Thread(this::dispatchLoop, "telegram-outbound");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    //Metodo che accoda un messaggio di testo
+    public CompletableFuture<Message> send(SendMessage message, SendPriority priority) {
+        return send(message, priority, null);
+    }
+
+    //Metodo che accoda un messaggio di testo registrando l'invio nella traccia indicata (null = nessuna traccia)
+    public CompletableFuture<Message> send(SendMessage message, SendPriority priority, Span trace) {
+        return submit(Long.parseLong(message.getChatId()), priority, "sendMessage", message.getText().length(), trace, telegram -> telegram.execute(message));
+    }
+
+    //Metodo che accoda una foto registrando l'invio nella traccia indicata (null = nessuna traccia)
+    public CompletableFuture<Message> send(SendPhoto photo, SendPriority priority, Span trace) {
+        int length = photo.getCaption() != null ? photo.getCaption().length() : 0;
+        return submit(Long.parseLong(photo.getChatId()), priority, "sendPhoto", length, trace, telegram -> telegram.execute(photo));
+    }
+
+    //Metodo che accoda un album di foto (una sola chiamata per tutte le foto) registrando l'invio nella traccia indicata
+    public CompletableFuture<ArrayList<Message>> send(SendMediaGroup album, SendPriority priority, Span trace) {
+        int length = 0;
+        for (InputMedia media : album.getMedias()) length += media.getCaption() != null ? media.getCaption().length() : 0;
+        return submit(Long.parseLong(album.getChatId()), priority, "sendMediaGroup", length, trace, telegram -> new ArrayList<>(telegram.execute(album)));
+    }
+
+    //Metodo che accoda una chiamata qualsiasi per una chat; il future si completa con la risposta di Telegram o con l'errore
+    public <T extends Serializable> CompletableFuture<T> submit(long chatId, SendPriority priority, String method, int length, TelegramCall<T> call) {
+        return submit(chatId, priority, method, length, null, call);
+    }
+
+    //Metodo privato che accoda la chiamata; ogni tentativo diventa uno span "telegram.<metodo>" della traccia (se presente)
+    private <T extends Serializable> CompletableFuture<T> submit(long chatId, SendPriority priority, String method, int length, Span trace, TelegramCall<T> call) {
+        Outgoing<T> item = new Outgoing<>(chatId, priority, method, length, trace, call);
+        if (stopped) {
+            item.result.completeExceptionally(new IllegalStateException("Coda di invio chiusa"));
+            return item.result;
+        }
+        lock.lock();
+        try {
+            ChatLane lane = lanes.computeIfAbsent(chatId, id -> new ChatLane(new TokenBucket(chatRate, chatBurst, System.nanoTime())));
+            lane.queue(priority).addLast(item);
+            depth.get(priority).incrementAndGet();
+            activate(lane);
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        return item.result;
+    }
+
+    //Metodo che smette di accettare chiamate e aspetta (al massimo timeoutMs) l'invio di quelle già in coda
+    public void shutdown(long timeoutMs) {
+        stopped = true;
+        lock.lock();
+        try {
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            dispatcher.join(timeoutMs);
+            senders.shutdown();
+            senders.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dispatcher.interrupt();
+        senders.shutdownNow();
+    }
+
+    //Metodo privato eseguito dal thread dispatcher: aspetta che una chiamata possa partire e la passa al pool di invio
+    private void dispatchLoop() {
+        while (true) {
+            Outgoing<?> item;
+            lock.lock();
+            try {
+                while ((item = nextReady(System.nanoTime())) == null) {
+                    if (stopped && active.isEmpty()) return;	//Coda svuotata dopo shutdown
+                    changed.awaitNanos(nanosUntilNextReady(System.nanoTime()));
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            Outgoing<?> ready = item;
+            senders.execute(() -> execute(ready));
+        }
+    }
+
+    //Metodo privato (sotto lock) che sceglie la prossima chiamata inviabile: prima le INTERACTIVE, poi le BROADCAST, a turno tra le chat
+    private Outgoing<?> nextReady(long now) {
+        sweepIdleLanes(now);
+        if (globalBucket.nanosUntilAvailable(now) > 0) return null;	//Limite globale raggiunto
+        for (SendPriority priority : SendPriority.values()) {
+            for (Iterator<ChatLane> it = active.iterator(); it.hasNext(); ) {
+                ChatLane lane = it.next();
+                if (lane.queue(priority).isEmpty() || lane.nanosUntilReady(now) > 0) continue;
+                it.remove();	//Torna in fondo al turno quando la chiamata è completata
+                lane.active = false;
+                lane.inFlight = true;
+                lane.bucket.take(now);
+                globalBucket.take(now);
+                depth.get(priority).decrementAndGet();
+                return lane.queue(priority).pollFirst();
+            }
+        }
+        return null;
+    }
+
+    //Metodo privato (sotto lock) che ritorna quanto attendere prima che una chiamata possa partire
+    private long nanosUntilNextReady(long now) {
+        if (active.isEmpty()) return IDLE_WAIT_NANOS;	//Nessuna chiamata in attesa: aspetto un segnale
+        long laneWait = Long.MAX_VALUE;
+        for (ChatLane lane : active) laneWait = Math.min(laneWait, lane.nanosUntilReady(now));
+        long wait = Math.max(laneWait, globalBucket.nanosUntilAvailable(now));
+        return Math.max(1, Math.min(wait, IDLE_WAIT_NANOS));
+    }
+
+    //Metodo privato eseguito dal pool di invio: chiama le Bot API e gestisce il Retry-After
+    private <T extends Serializable> void execute(Outgoing<T> item) {
+        if (item.attempts == 0) waitTimer(item.priority).record(System.nanoTime() - item.enqueuedAt);	//Tempo passato in coda
+        item.attempts++;
+        long retryAfterNanos = 0;
+        try (Timer.Context timing = sendTimer(item.method).time();
+             Span span = TRACER.span(item.trace, "telegram." + item.method).tag("tentativo", item.attempts > 1 ? item.attempts : null);
+             TelegramSendEvent event = TelegramSendEvent.start(item.method, item.chatId, item.length)) {
+            T response = item.call.execute(client);
+            event.succeeded();
+            item.result.complete(response);
+        } catch (TelegramApiRequestException e) {
+            retryAfterNanos = retryAfterNanos(e);
+            if (retryAfterNanos > 0 && item.attempts < MAX_ATTEMPTS) {	//Troppe richieste: riprovo dopo l'attesa indicata
+                METRICS.counter("telegram_send_retries_total", "Chiamate a Telegram respinte con 429 e riaccodate", "method", item.method).inc();
+                System.out.println("⏳ Telegram chiede di attendere " + TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos) + "s per la chat " + item.chatId);
+            } else {
+                retryAfterNanos = 0;
+                fail(item, e);
+            }
+        } catch (TelegramApiException | RuntimeException e) {
+            fail(item, e);
+        } finally {
+            completed(item, retryAfterNanos);
+        }
+    }
+
+    //Metodo privato che registra una chiamata fallita definitivamente
+    private void fail(Outgoing<?> item, Exception e) {
+        countSendError(item.method);	//Conto l'errore nelle metriche
+        System.err.println("❌ " + item.method + " alla chat " + item.chatId + " fallito: " + e.getMessage());
+        item.result.completeExceptionally(e);
+    }
+
+    //Metodo privato che libera la corsia della chat (rimettendo la chiamata in testa se va ritentata)
+    private void completed(Outgoing<?> item, long retryAfterNanos) {
+        lock.lock();
+        try {
+            ChatLane lane = lanes.get(item.chatId);
+            lane.inFlight = false;
+            if (retryAfterNanos > 0) {
+                lane.blockedUntil = System.nanoTime() + retryAfterNanos;
+                lane.queue(item.priority).addFirst(item);	//Mantiene l'ordine dei messaggi della chat
+                depth.get(item.priority).incrementAndGet();
+            }
+            activate(lane);
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Metodo privato (sotto lock) che mette in fondo al turno una corsia con chiamate in attesa e nessuna in corso
+    private void activate(ChatLane lane) {
+        if (!lane.active && !lane.inFlight && !lane.isEmpty()) {
+            lane.active = true;
+            active.addLast(lane);
+        }
+    }
+
+    //Metodo privato (sotto lock) che dimentica le corsie vuote il cui secchio è tornato pieno
+    private void sweepIdleLanes(long now) {
+        if (now - sweptAt < SWEEP_INTERVAL_NANOS) return;
+        sweptAt = now;
+        lanes.values().removeIf(lane -> !lane.inFlight && lane.isEmpty() && lane.blockedUntil - now <= 0 && lane.bucket.isFull(now));
+    }
+
+    //Metodo statico privato che legge il Retry-After di un 429 (0 se la risposta non lo indica)
+    private static long retryAfterNanos(TelegramApiRequestException e) {
+        if (e.getErrorCode() == null || e.getErrorCode() != 429) return 0;
+        Integer seconds = e.getParameters() != null ? e.getParameters().getRetryAfter() : null;
+        return TimeUnit.SECONDS.toNanos(seconds != null && seconds > 0 ? seconds : 1);
+    }
+
+    //Metodo statico privato che ritorna il timer delle chiamate a Telegram
+    private static Timer sendTimer(String method) {
+        return METRICS.timer("telegram_send_seconds", "Durata delle chiamate alle Bot API di Telegram", "method", method);
+    }
+
+    //Metodo statico privato che ritorna il timer dell'attesa in coda
+    private static Timer waitTimer(SendPriority priority) {
+        return METRICS.timer("telegram_queue_wait_seconds", "Attesa nella coda di invio prima della chiamata a Telegram", "priority", label(priority));
+    }
+
+    //Metodo statico privato che conta una chiamata a Telegram fallita
+    private static void countSendError(String method) {
+        METRICS.counter("telegram_send_errors_total", "Chiamate alle Bot API di Telegram fallite", "method", method).inc();
+    }
+
+    //Metodo statico privato che ritorna l'etichetta di una priorità per le metriche
+    private static String label(SendPriority priority) {
+        return priority.name().toLowerCase();
+    }
+
+    //Classe statica privata con la corsia di una chat (accesso sotto lock)
+    private static final class ChatLane {
+        private final TokenBucket bucket;
+        private final ArrayDeque<Outgoing<?>> interactive = new ArrayDeque<>();
+        private final ArrayDeque<Outgoing<?>> broadcast = new ArrayDeque<>();
+        private boolean inFlight;	//Una chiamata della chat è in corso
+        private boolean active;	//La corsia è nel turno del dispatcher
+        private long blockedUntil = System.nanoTime();	//Fine dell'attesa chiesta da Telegram con un 429
+
+        private ChatLane(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+
+        private ArrayDeque<Outgoing<?>> queue(SendPriority priority) {
+            return priority == SendPriority.INTERACTIVE ? interactive : broadcast;
+        }
+
+        private boolean isEmpty() {
+            return interactive.isEmpty() && broadcast.isEmpty();
+        }
+
+        //Metodo che ritorna i nanosecondi prima che la chat possa ricevere un'altra chiamata
+        private long nanosUntilReady(long now) {
+            return Math.max(blockedUntil - now, bucket.nanosUntilAvailable(now));
+        }
+    }
+
+    //Classe statica privata con una chiamata in coda
+    private static final class Outgoing<T extends Serializable> {
+        private final long chatId;
+        private final SendPriority priority;
+        private final String method;
+        private final int length;
+        private final Span trace;	//Traccia dell'update che ha prodotto la chiamata (null se non tracciata)
+        private final TelegramCall<T> call;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final long enqueuedAt = System.nanoTime();
+        private int attempts;	//Accesso da un solo thread di invio alla volta (la corsia ha una sola chiamata in corso)
+
+        private Outgoing(long chatId, SendPriority priority, String method, int length, Span trace, TelegramCall<T> call) {
+            this.chatId = chatId;
+            this.priority = priority;
+            this.method = method;
+            this.length = length;
+            this.trace = trace;
+            this.call = call;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package outbound;
+
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Classe Reply con la risposta completa a un update: le foto da mostrare prima e il testo (eventualmente lungo) da spezzare in parti
+public class Reply {
+    private final long chatId;
+    private final List<Photo> photos = new ArrayList<>();
+    private String text = "";
+    private ReplyKeyboard keyboard;	//Tastiera da mostrare con la prima parte del testo (null = nessuna)
+
+    public Reply(long chatId) {
+        this.chatId = chatId;
+    }
+
+    //Metodo che aggiunge una foto (URL) con la sua didascalia
+    public Reply addPhoto(String url, String caption) {
+        photos.add(new Photo(url, caption));
+        return this;
+    }
+
+    public Reply text(String text) {
+        this.text = text != null ? text : "";
+        return this;
+    }
+
+    public Reply keyboard(ReplyKeyboard keyboard) {
+        this.keyboard = keyboard;
+        return this;
+    }
+
+    public long getChatId() { return chatId; }
+    public List<Photo> getPhotos() { return photos; }
+    public String getText() { return text; }
+    public ReplyKeyboard getKeyboard() { return keyboard; }
+
+    //Classe statica con una foto da inviare
+    public static final class Photo {
+        private final String url;
+        private final String caption;
+
+        private Photo(String url, String caption) {
+            this.url = url;
+            this.caption = caption;
+        }
+
+        public String getUrl() { return url; }
+        public String getCaption() { return caption; }
+    }
+}
@@ -0,0 +1,103 @@
+package outbound;
+
+import org.telegram.telegrambots.meta.api.methods.send.SendMediaGroup;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaPhoto;
+import tracing.Span;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/*Classe SendPipeline che consegna una Reply tramite la coda di invio senza bloccare il chiamante.
+1. Le foto partono per prime: due o più diventano un solo album (sendMediaGroup), così Telegram le scarica in parallelo con una sola chiamata;
+   se l'album viene rifiutato (es. un URL non valido) le foto vengono ritentate una alla volta
+2. Il testo viene spezzato sugli a capo in parti da al massimo MAX_PART_LENGTH caratteri e accodato quando le foto sono state consegnate;
+   la corsia FIFO della chat tiene in ordine le parti del testo, accodate insieme. Le risposte diverse alla stessa chat non sono ordinate
+   dalla coda (il testo di una risposta viene accodato più tardi delle sue foto): chi consegna più risposte a una chat deve aspettare la precedente
+3. deliver ritorna un future completato quando l'ultima parte è stata consegnata (o è fallita)
+4. Con una traccia, ogni chiamata a Telegram ne diventa uno span (telegram.sendMessage, telegram.sendPhoto, ...)
+ */
+public class SendPipeline {
+    static final int MAX_PART_LENGTH = 4000;	//Margine sotto il limite di 4096 caratteri di Telegram
+
+    private final OutboundQueue queue;
+
+    public SendPipeline(OutboundQueue queue) {
+        this.queue = queue;
+    }
+
+    //Metodo che consegna la risposta e ritorna il future del completamento (non fallisce: gli errori sono già registrati dalla coda)
+    public CompletableFuture<Void> deliver(Reply reply, SendPriority priority) {
+        return deliver(reply, priority, null);
+    }
+
+    //Metodo che consegna la risposta registrando gli invii nella traccia dell'update (null = nessuna traccia)
+    public CompletableFuture<Void> deliver(Reply reply, SendPriority priority, Span trace) {
+        return sendPhotos(reply, priority, trace)
+                .handle((result, error) -> null)	//Una foto mancante non deve impedire l'invio del testo
+                .thenCompose(ignored -> sendText(reply, priority, trace))
+                .handle((result, error) -> null);
+    }
+
+    //Metodo privato che accoda le foto della risposta (album se sono almeno due)
+    private CompletableFuture<?> sendPhotos(Reply reply, SendPriority priority, Span trace) {
+        List<Reply.Photo> photos = reply.getPhotos();
+        if (photos.isEmpty()) return CompletableFuture.completedFuture(null);
+        if (photos.size() == 1) return queue.send(photo(reply.getChatId(), photos.get(0)), priority, trace);
+        List<InputMediaPhoto> medias = new ArrayList<>();
+        for (Reply.Photo photo : photos.subList(0, Math.min(10, photos.size()))) {	//Un album contiene al massimo 10 elementi
+            InputMediaPhoto media = new InputMediaPhoto(photo.getUrl());
+            media.setCaption(photo.getCaption());
+            medias.add(media);
+        }
+        SendMediaGroup album = SendMediaGroup.builder().chatId(reply.getChatId()).medias(medias).build();
+        return queue.send(album, priority, trace)
+                .exceptionallyCompose(error -> {	//Album rifiutato: riprovo le foto singolarmente, sempre prima del testo
+                    List<CompletableFuture<?>> singles = new ArrayList<>();
+                    for (Reply.Photo photo : photos) singles.add(queue.send(photo(reply.getChatId(), photo), priority, trace));
+                    return CompletableFuture.allOf(singles.toArray(new CompletableFuture[0])).thenApply(ignored -> null);
+                });
+    }
+
+    //Metodo privato che accoda le parti del testo (la tastiera va sulla prima)
+    private CompletableFuture<Void> sendText(Reply reply, SendPriority priority, Span trace) {
+        List<String> parts = split(reply.getText(), MAX_PART_LENGTH);
+        List<CompletableFuture<?>> sent = new ArrayList<>(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            SendMessage message = SendMessage.builder()
+                    .chatId(reply.getChatId())
+                    .text(parts.get(i))
+                    .build();
+            if (i == 0 && reply.getKeyboard() != null) message.setReplyMarkup(reply.getKeyboard());
+            sent.add(queue.send(message, priority, trace));	//Accodate tutte insieme: la corsia della chat le invia in ordine
+        }
+        return CompletableFuture.allOf(sent.toArray(new CompletableFuture[0]));
+    }
+
+    //Metodo statico che spezza un testo in parti di al massimo maxLength caratteri, preferibilmente su un a capo
+    static List<String> split(String text, int maxLength) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        while (text.length() - start > maxLength) {
+            int end = text.lastIndexOf('\n', start + maxLength - 1);	//Ultimo a capo che sta nella parte
+            if (end <= start) end = start + maxLength;	//Riga troppo lunga: taglio a lunghezza fissa
+            else end++;	//L'a capo resta nella parte corrente
+            parts.add(text.substring(start, end));
+            start = end;
+        }
+        if (start < text.length()) parts.add(text.substring(start));
+        return parts;
+    }
+
+    //Metodo statico privato che costruisce l'invio di una singola foto
+    private static SendPhoto photo(long chatId, Reply.Photo photo) {
+        return SendPhoto.builder()
+                .chatId(chatId)
+                .photo(new InputFile(photo.getUrl()))
+                .caption(photo.getCaption())
+                .build();
+    }
+}
@@ -0,0 +1,7 @@
+package outbound;
+
+//Enum SendPriority con le corsie della coda di invio: le risposte ai comandi passano sempre prima degli invii massivi
+public enum SendPriority {
+    INTERACTIVE,	//Risposta a un messaggio dell'utente
+    BROADCAST	//Notifiche e invii a molte chat
+}
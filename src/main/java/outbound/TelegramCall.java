@@ -0,0 +1,12 @@
+package outbound;
+
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.io.Serializable;
+
+//Interfaccia TelegramCall: una chiamata alle Bot API eseguita dalla coda di invio con il client Telegram
+@FunctionalInterface
+public interface TelegramCall<T extends Serializable> {
+    T execute(TelegramClient client) throws TelegramApiException;
+}
@@ -0,0 +1,45 @@
+package outbound;
+
+/*Classe TokenBucket: limitatore a gettoni (ratePerSecond gettoni al secondo, al massimo burst accumulati).
+Non è thread-safe: OutboundQueue la usa solo sotto il proprio lock.
+ */
+public class TokenBucket {
+    private final double tokensPerNano;
+    private final double burst;
+    private double tokens;	//Gettoni disponibili
+    private long refilledAt;	//Ultimo istante (nanoTime) in cui ho ricaricato i gettoni
+
+    //Costruttore che riceve la frequenza e la raffica massima (il secchio parte pieno)
+    public TokenBucket(double ratePerSecond, double burst, long nowNanos) {
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.refilledAt = nowNanos;
+    }
+
+    //Metodo che ritorna i nanosecondi da attendere per avere un gettone (0 se è già disponibile)
+    public long nanosUntilAvailable(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    //Metodo che consuma un gettone (da chiamare dopo aver verificato che sia disponibile)
+    public void take(long nowNanos) {
+        refill(nowNanos);
+        tokens -= 1;
+    }
+
+    //Metodo che indica se il secchio è pieno, cioè se dimenticarlo non cambia i limiti
+    public boolean isFull(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= burst;
+    }
+
+    //Metodo privato che aggiunge i gettoni maturati dall'ultima ricarica
+    private void refill(long nowNanos) {
+        if (nowNanos > refilledAt) {
+            tokens = Math.min(burst, tokens + (nowNanos - refilledAt) * tokensPerNano);
+            refilledAt = nowNanos;
+        }
+    }
+}
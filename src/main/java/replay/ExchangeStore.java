@@ -0,0 +1,129 @@
+package replay;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*Classe ExchangeStore che salva e rilegge dalla cartella di replay:
+- gli scambi HTTP: <sha1 di metodo e URL>.json con i metadati e <sha1>.body con il corpo della risposta
+- gli snapshot del DOM di Sofascore: snapshot-<nome>.json con la sequenza dei testi letti
+Il parametro appid (chiave API di OpenWeather) viene tolto dagli URL, così non finisce su disco.
+ */
+public class ExchangeStore {
+    private final Path dir;	//Cartella delle registrazioni
+    private final Map<String, Exchange> loaded = new ConcurrentHashMap<>();	//Scambi già letti da disco
+
+    //Costruttore che riceve la cartella delle registrazioni
+    public ExchangeStore(Path dir) {
+        this.dir = dir;
+    }
+
+    public Path getDir() { return dir; }
+
+    //Metodo che salva uno scambio HTTP su disco
+    public void save(Exchange exchange) throws IOException {
+        Files.createDirectories(dir);
+        String key = key(exchange.method, exchange.url);
+        JSONObject meta = new JSONObject();
+        meta.put("method", exchange.method);
+        meta.put("url", normalizeUrl(exchange.url));
+        meta.put("code", exchange.code);
+        meta.put("contentType", exchange.contentType);
+        meta.put("recordedAt", exchange.recordedAt);
+        Files.write(dir.resolve(key + ".body"), exchange.body);	//Prima il corpo, poi i metadati che lo rendono visibile
+        Files.writeString(dir.resolve(key + ".json"), meta.toString(2));
+        loaded.put(key, exchange);
+    }
+
+    //Metodo che cerca lo scambio registrato per metodo e URL, null se non è stato registrato
+    public Exchange find(String method, String url) {
+        String key = key(method, url);
+        Exchange cached = loaded.get(key);
+        if (cached != null) return cached;
+        Path metaFile = dir.resolve(key + ".json");
+        if (!Files.exists(metaFile)) return null;
+        try {
+            JSONObject meta = new JSONObject(Files.readString(metaFile));
+            byte[] body = Files.readAllBytes(dir.resolve(key + ".body"));
+            Exchange exchange = new Exchange(meta.getString("method"), meta.getString("url"), meta.getInt("code"),
+                    meta.optString("contentType", null), body, meta.optLong("recordedAt"));
+            loaded.put(key, exchange);
+            return exchange;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Registrazione non leggibile " + metaFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    //Metodo che salva uno snapshot (sequenza di testi) con un nome
+    public void saveSnapshot(String name, List<String> texts) throws IOException {
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("snapshot-" + name + ".json"), new JSONArray(texts).toString());
+    }
+
+    //Metodo che legge uno snapshot, null se non è stato registrato
+    public List<String> loadSnapshot(String name) throws IOException {
+        Path file = dir.resolve("snapshot-" + name + ".json");
+        if (!Files.exists(file)) return null;
+        JSONArray array = new JSONArray(Files.readString(file));
+        List<String> texts = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) texts.add(array.getString(i));
+        return texts;
+    }
+
+    //Metodo statico che rimuove dall'URL il parametro appid (chiave API)
+    public static String normalizeUrl(String url) {
+        int query = url.indexOf('?');
+        if (query < 0) return url;
+        StringBuilder sb = new StringBuilder(url.substring(0, query));
+        char separator = '?';
+        for (String param : url.substring(query + 1).split("&")) {
+            if (param.isEmpty() || param.startsWith("appid=")) continue;	//Tolgo la chiave API
+            sb.append(separator).append(param);
+            separator = '&';
+        }
+        return sb.toString();
+    }
+
+    //Metodo statico che calcola il nome dei file di uno scambio (SHA-1 di metodo e URL normalizzato)
+    static String key(String method, String url) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] hash = sha1.digest((method + " " + normalizeUrl(url)).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 non disponibile", e);	//SHA-1 è sempre presente nella JVM
+        }
+    }
+
+    //Classe interna che rappresenta uno scambio HTTP registrato
+    public static final class Exchange {
+        final String method;	//Metodo HTTP
+        final String url;	//URL della richiesta
+        final int code;	//Codice di stato della risposta
+        final String contentType;	//Content-Type della risposta (può essere null)
+        final byte[] body;	//Corpo della risposta
+        final long recordedAt;	//Istante della registrazione
+
+        public Exchange(String method, String url, int code, String contentType, byte[] body, long recordedAt) {
+            this.method = method;
+            this.url = url;
+            this.code = code;
+            this.contentType = contentType;
+            this.body = body;
+            this.recordedAt = recordedAt;
+        }
+    }
+}
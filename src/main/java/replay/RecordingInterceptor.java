@@ -0,0 +1,34 @@
+package replay;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+
+//Classe RecordingInterceptor che esegue la chiamata reale e ne salva la risposta nell'ExchangeStore (modalità RECORD)
+public class RecordingInterceptor implements Interceptor {
+    private static final long MAX_RECORDED_BYTES = 16L * 1024 * 1024;	//Corpo massimo registrato (le pagine Wikipedia sono molto più piccole)
+    private final ExchangeStore store;
+
+    public RecordingInterceptor(ExchangeStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);	//Chiamata reale
+        try {
+            ResponseBody copy = response.peekBody(MAX_RECORDED_BYTES);	//Copia del corpo: la risposta resta leggibile dal chiamante
+            MediaType type = copy.contentType();
+            store.save(new ExchangeStore.Exchange(request.method(), request.url().toString(), response.code(),
+                    type != null ? type.toString() : null, copy.bytes(), System.currentTimeMillis()));
+        } catch (IOException e) {
+            System.err.println("⚠️ Registrazione non salvata per " + request.url().host() + ": " + e.getMessage());	//La chiamata reale prosegue comunque
+        }
+        return response;
+    }
+}
@@ -0,0 +1,135 @@
+package replay;
+
+import config.MyConfiguration;
+import okhttp3.OkHttpClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*Classe ReplayHarness che collega i servizi allo strato di registrazione/replay:
+- OFF: i client HTTP restano invariati
+- RECORD: i client HTTP registrano ogni scambio e TennisService salva gli snapshot del DOM di Sofascore
+- REPLAY: i client HTTP vengono deviati sul server locale e gli snapshot di Sofascore vengono riletti da disco
+Configurazione: REPLAY_MODE (off/record/replay), REPLAY_DIR, REPLAY_PORT, REPLAY_LATENCY_MS, REPLAY_ERROR_RATE
+ */
+public class ReplayHarness {
+    private static final ReplayHarness DISABLED = new ReplayHarness(ReplayMode.OFF, Path.of("replay"), 0, 0, 0);	//Istanza condivisa senza replay
+
+    private final ReplayMode mode;
+    private final ExchangeStore store;
+    private final long latencyMs;	//Latenza simulata in replay
+    private final double errorRate;	//Probabilità di errore simulato in replay
+    private final ReplayStubServer server;	//Server locale (solo in REPLAY)
+
+    //Costruttore: in modalità REPLAY avvia il server locale
+    public ReplayHarness(ReplayMode mode, Path dir, int port, long latencyMs, double errorRate) {
+        this.mode = mode;
+        this.store = new ExchangeStore(dir);
+        this.latencyMs = latencyMs;
+        this.errorRate = errorRate;
+        if (mode == ReplayMode.REPLAY) {
+            try {
+                this.server = new ReplayStubServer(store, port, latencyMs, errorRate);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossibile avviare il server di replay", e);
+            }
+            System.out.println("🔁 Replay da " + dir.toAbsolutePath() + " (porta " + server.getPort() + ", latenza " + latencyMs + "ms, errori " + (errorRate * 100) + "%)");
+        } else {
+            this.server = null;
+            if (mode == ReplayMode.RECORD) System.out.println("⏺️ Registrazione delle sorgenti esterne in " + dir.toAbsolutePath());
+        }
+    }
+
+    //Metodo statico che ritorna l'istanza senza replay
+    public static ReplayHarness disabled() {
+        return DISABLED;
+    }
+
+    //Metodo statico che crea l'harness dalle chiavi di config.properties
+    public static ReplayHarness fromConfiguration(MyConfiguration config) {
+        ReplayMode mode = ReplayMode.fromConfig(config.getProperty("REPLAY_MODE"));
+        if (mode == ReplayMode.OFF) return DISABLED;
+        String dir = config.getProperty("REPLAY_DIR");
+        return new ReplayHarness(mode,
+                Path.of(dir != null && !dir.isBlank() ? dir : "replay"),
+                (int) parseLong(config.getProperty("REPLAY_PORT"), 0),
+                parseLong(config.getProperty("REPLAY_LATENCY_MS"), 0),
+                parseDouble(config.getProperty("REPLAY_ERROR_RATE"), 0));
+    }
+
+    //Metodo che aggiunge al client HTTP l'interceptor della modalità corrente
+    public OkHttpClient.Builder configure(OkHttpClient.Builder builder) {
+        switch (mode) {
+            case RECORD -> builder.addInterceptor(new RecordingInterceptor(store));
+            case REPLAY -> builder.addInterceptor(new ReplayRedirectInterceptor(server.getPort()));
+            default -> { }
+        }
+        return builder;
+    }
+
+    public ReplayMode getMode() { return mode; }
+    public boolean isRecording() { return mode == ReplayMode.RECORD; }
+    public boolean isReplaying() { return mode == ReplayMode.REPLAY; }
+
+    //Metodo che salva uno snapshot di testi (es. gli elementi letti da Sofascore)
+    public void recordSnapshot(String name, List<String> texts) {
+        try {
+            store.saveSnapshot(name, texts);
+            System.out.println("⏺️ Snapshot " + name + " salvato (" + texts.size() + " elementi)");
+        } catch (IOException e) {
+            System.err.println("⚠️ Snapshot " + name + " non salvato: " + e.getMessage());
+        }
+    }
+
+    //Metodo che rilegge uno snapshot applicando latenza ed errori simulati, null se manca o se viene iniettato un errore
+    public List<String> replaySnapshot(String name) {
+        try {
+            if (latencyMs > 0) Thread.sleep(latencyMs);	//Latenza simulata
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {	//Errore simulato
+                System.out.println("⚠️ Replay: errore iniettato per lo snapshot " + name);
+                return null;
+            }
+            List<String> texts = store.loadSnapshot(name);
+            if (texts == null) System.err.println("⚠️ Replay: nessuno snapshot " + name);
+            return texts;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (IOException e) {
+            System.err.println("⚠️ Snapshot " + name + " non leggibile: " + e.getMessage());
+            return null;
+        }
+    }
+
+    //Metodo che ritorna le statistiche del server di replay (stringa vuota se non in REPLAY)
+    public String stats() {
+        return server != null ? server.stats() : "";
+    }
+
+    //Metodo che ferma il server di replay
+    public void close() {
+        if (server != null) server.stop();
+    }
+
+    //Metodi statici privati per leggere numeri dalla configurazione con un valore di default
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isBlank()) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static double parseDouble(String value, double defaultValue) {
+        if (value == null || value.isBlank()) return defaultValue;
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
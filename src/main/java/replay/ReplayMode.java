@@ -0,0 +1,19 @@
+package replay;
+
+//Enum ReplayMode che indica come vengono gestite le chiamate verso le sorgenti esterne (Wikipedia, matchstat, OpenWeather, Sofascore)
+public enum ReplayMode {
+    OFF,	//Chiamate reali senza registrazione
+    RECORD,	//Chiamate reali salvate su disco
+    REPLAY;	//Nessuna chiamata reale: le risposte registrate vengono servite da un server locale
+
+    //Metodo statico che converte il valore della configurazione (off, record, replay) nella modalità, OFF se assente o non valido
+    public static ReplayMode fromConfig(String value) {
+        if (value == null || value.isBlank()) return OFF;
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("⚠️ REPLAY_MODE non valido: " + value + " (uso OFF)");
+            return OFF;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package replay;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+
+//Classe ReplayRedirectInterceptor che in modalità REPLAY devia ogni richiesta verso il server locale, passando l'URL originale nell'header X-Replay-Url
+public class ReplayRedirectInterceptor implements Interceptor {
+    public static final String ORIGINAL_URL_HEADER = "X-Replay-Url";	//Header con l'URL originale
+    private final HttpUrl stubUrl;	//Indirizzo del server locale
+
+    public ReplayRedirectInterceptor(int stubPort) {
+        this.stubUrl = HttpUrl.get("http://127.0.0.1:" + stubPort + "/replay");
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request original = chain.request();
+        Request redirected = original.newBuilder()	//Il tag resta lo stesso, quindi la cancellazione delle chiamate continua a funzionare
+                .url(stubUrl)
+                .header(ORIGINAL_URL_HEADER, original.url().toString())
+                .build();
+        return chain.proceed(redirected);
+    }
+}
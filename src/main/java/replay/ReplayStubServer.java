@@ -0,0 +1,99 @@
+package replay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*Classe ReplayStubServer: server HTTP locale che serve le risposte registrate.
+1. L'URL originale arriva nell'header X-Replay-Url (vedi ReplayRedirectInterceptor)
+2. Prima di rispondere attende la latenza configurata
+3. Con probabilità errorRate risponde 503 (errore iniettato)
+4. Se la richiesta non è stata registrata risponde 502, come un errore di rete
+ */
+public class ReplayStubServer {
+    private final ExchangeStore store;
+    private final long latencyMs;	//Latenza aggiunta a ogni risposta
+    private final double errorRate;	//Probabilità (0-1) di rispondere con un errore
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong served = new AtomicLong();	//Risposte registrate servite
+    private final AtomicLong missing = new AtomicLong();	//Richieste non registrate
+    private final AtomicLong injected = new AtomicLong();	//Errori iniettati
+
+    //Costruttore che avvia il server su 127.0.0.1 (porta 0 = porta libera scelta dal sistema)
+    public ReplayStubServer(ExchangeStore store, int port, long latencyMs, double errorRate) throws IOException {
+        this.store = store;
+        this.latencyMs = latencyMs;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {	//Un thread per richiesta: la latenza simulata non deve serializzare le risposte
+            Thread thread = new Thread(runnable, "replay-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    //Metodo privato che gestisce una richiesta
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String url = exchange.getRequestHeaders().getFirst(ReplayRedirectInterceptor.ORIGINAL_URL_HEADER);
+            if (latencyMs > 0) Thread.sleep(latencyMs);	//Latenza simulata
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {	//Errore iniettato
+                injected.incrementAndGet();
+                send(exchange, 503, "text/plain", "Errore iniettato dal replay".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            ExchangeStore.Exchange recorded = url != null ? store.find(exchange.getRequestMethod(), url) : null;
+            if (recorded == null) {	//Richiesta non registrata
+                missing.incrementAndGet();
+                System.err.println("⚠️ Replay: nessuna registrazione per " + exchange.getRequestMethod() + " " + (url != null ? ExchangeStore.normalizeUrl(url) : "?"));
+                send(exchange, 502, "text/plain", "Nessuna registrazione".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            served.incrementAndGet();
+            send(exchange, recorded.code, recorded.contentType, recorded.body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    //Metodo privato che invia la risposta
+    private static void send(HttpExchange exchange, int code, String contentType, byte[] body) throws IOException {
+        if (contentType != null) exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(code, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    //Metodo che ritorna le statistiche del server
+    public String stats() {
+        return String.format("replay: %d servite, %d non registrate, %d errori iniettati", served.get(), missing.get(), injected.get());
+    }
+
+    //Metodo che ferma il server
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,11 @@
+package scheduler;
+
+/*Interfaccia IntervalPolicy: adatta l'intervallo di un RefreshJob alla domanda (es. più spesso se gli utenti hanno chiesto quei dati di recente).
+Riceve l'intervallo di base e ritorna quello da usare; un valore <= 0 indica che ora il job non serve: l'esecuzione viene saltata.
+ */
+@FunctionalInterface
+public interface IntervalPolicy {
+    IntervalPolicy FIXED = baseMs -> baseMs;	//Sempre l'intervallo di base
+
+    long intervalMs(long baseMs);
+}
@@ -0,0 +1,18 @@
+package scheduler;
+
+//Classe JobRun con l'esito di un'esecuzione di un RefreshJob (per la cronologia di /jobs)
+public class JobRun {
+    private final long startedAt;	//Istante di inizio (currentTimeMillis)
+    private final long durationMs;
+    private final String result;	//ok, skipped, overlap oppure il messaggio dell'errore
+
+    JobRun(long startedAt, long durationMs, String result) {
+        this.startedAt = startedAt;
+        this.durationMs = durationMs;
+        this.result = result;
+    }
+
+    public long getStartedAt() { return startedAt; }
+    public long getDurationMs() { return durationMs; }
+    public String getResult() { return result; }
+}
@@ -0,0 +1,7 @@
+package scheduler;
+
+//Interfaccia JobTask: il lavoro di un RefreshJob (un'eccezione conta come esecuzione fallita e fa allungare l'intervallo)
+@FunctionalInterface
+public interface JobTask {
+    void run() throws Exception;
+}
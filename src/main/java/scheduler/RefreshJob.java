@@ -0,0 +1,90 @@
+package scheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*Classe RefreshJob: un lavoro periodico del RefreshScheduler (es. rileggere una classifica).
+Si configura prima di registrarlo: new RefreshJob("rankings_atp", 3_600_000, task).jitter(0.2).adaptive(policy).initialDelay(10_000)
+Tiene lo stato delle esecuzioni: se è in corso, gli errori consecutivi e le ultime HISTORY_SIZE esecuzioni.
+ */
+public class RefreshJob {
+    private static final int HISTORY_SIZE = 10;	//Esecuzioni conservate per /jobs
+
+    private final String name;	//Nome usato anche come etichetta nelle metriche
+    private final long baseIntervalMs;
+    private final JobTask task;
+    private IntervalPolicy policy = IntervalPolicy.FIXED;
+    private double jitter = 0.1;	//Variazione casuale dell'intervallo (0.1 = ±10%)
+    private long maxBackoffMs;	//Intervallo massimo dopo errori consecutivi
+    private long initialDelayMs;
+    private final AtomicBoolean running = new AtomicBoolean();	//Evita due esecuzioni sovrapposte
+    private final Deque<JobRun> history = new ArrayDeque<>();
+    private volatile int failures;	//Errori consecutivi
+    private volatile long nextRunAt;	//Prossima esecuzione prevista (currentTimeMillis)
+
+    //Costruttore che riceve nome, intervallo di base e lavoro (di default: nessun ritardo iniziale, backoff fino a 8 volte l'intervallo)
+    public RefreshJob(String name, long baseIntervalMs, JobTask task) {
+        this.name = name;
+        this.baseIntervalMs = baseIntervalMs;
+        this.task = task;
+        this.maxBackoffMs = baseIntervalMs * 8;
+    }
+
+    //Metodo che imposta come l'intervallo segue la domanda
+    public RefreshJob adaptive(IntervalPolicy policy) {
+        this.policy = policy;
+        return this;
+    }
+
+    //Metodo che imposta la variazione casuale dell'intervallo (evita che job uguali colpiscano lo stesso sito insieme)
+    public RefreshJob jitter(double jitter) {
+        this.jitter = Math.max(0, Math.min(0.5, jitter));
+        return this;
+    }
+
+    //Metodo che imposta l'intervallo massimo raggiunto dopo errori consecutivi
+    public RefreshJob maxBackoff(long maxBackoffMs) {
+        this.maxBackoffMs = maxBackoffMs;
+        return this;
+    }
+
+    //Metodo che imposta il ritardo della prima esecuzione
+    public RefreshJob initialDelay(long initialDelayMs) {
+        this.initialDelayMs = initialDelayMs;
+        return this;
+    }
+
+    public String getName() { return name; }
+    public long getBaseIntervalMs() { return baseIntervalMs; }
+    public long getInitialDelayMs() { return initialDelayMs; }
+    public int getFailures() { return failures; }
+    public long getNextRunAt() { return nextRunAt; }
+    public boolean isRunning() { return running.get(); }
+
+    //Metodo che ritorna le ultime esecuzioni, dalla più recente
+    public synchronized List<JobRun> getHistory() {
+        List<JobRun> runs = new ArrayList<>(history);
+        Collections.reverse(runs);
+        return runs;
+    }
+
+    //Metodi package-private usati dal RefreshScheduler
+    JobTask task() { return task; }
+    IntervalPolicy policy() { return policy; }
+    double jitterFraction() { return jitter; }
+    long maxBackoffMs() { return maxBackoffMs; }
+    boolean tryStart() { return running.compareAndSet(false, true); }
+    void finish() { running.set(false); }
+    void succeeded() { failures = 0; }
+    void failed() { failures++; }
+    void scheduledAt(long at) { nextRunAt = at; }
+
+    synchronized void record(JobRun run) {
+        if (history.size() == HISTORY_SIZE) history.removeFirst();
+        history.addLast(run);
+    }
+}
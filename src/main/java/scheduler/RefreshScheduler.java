@@ -0,0 +1,164 @@
+package scheduler;
+
+import metrics.MetricsRegistry;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*Classe RefreshScheduler: esegue i lavori periodici del bot (classifiche, partite live, meteo, pulizia delle cache) su pochi thread condivisi.
+Per ogni RefreshJob, dopo ogni esecuzione:
+1. L'intervallo successivo è quello di base adattato alla domanda (IntervalPolicy); se ora il job non serve, l'esecuzione viene saltata
+   e la domanda viene ricontrollata dopo al massimo IDLE_RECHECK_MS
+2. Dopo un errore l'intervallo raddoppia a ogni errore consecutivo, fino al massimo del job; un'esecuzione riuscita lo riporta alla base
+3. All'intervallo si aggiunge una variazione casuale (jitter)
+Ogni job viene riprogrammato solo alla fine della sua esecuzione e runNow non parte se è già in corso: due esecuzioni dello stesso job non si sovrappongono.
+ */
+public class RefreshScheduler {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+    private static final long IDLE_RECHECK_MS = 60_000;	//Un job senza domanda ricontrolla almeno ogni minuto
+
+    private final ScheduledExecutorService executor;
+    private final Map<String, RefreshJob> jobs = new ConcurrentHashMap<>();
+    private volatile boolean stopped;
+
+    //Costruttore che riceve il numero di thread condivisi dai job
+    public RefreshScheduler(int threads) {
+        this.executor = Executors.newScheduledThreadPool(threads, runnable -> {	//Thread daemon per non bloccare lo spegnimento della JVM
+            Thread thread = new Thread(runnable, "refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //Metodo che registra un job e ne programma la prima esecuzione
+    public RefreshScheduler register(RefreshJob job) {
+        if (jobs.putIfAbsent(job.getName(), job) != null) throw new IllegalArgumentException("Job già registrato: " + job.getName());
+        schedule(job, jittered(job.getInitialDelayMs(), job.jitterFraction()));
+        return this;
+    }
+
+    //Metodo che esegue subito un job (es. da /jobs); ritorna false se il job non esiste
+    public boolean runNow(String name) {
+        RefreshJob job = jobs.get(name);
+        if (job == null || stopped) return false;
+        executor.execute(() -> execute(job));	//Senza riprogrammare: la prossima esecuzione periodica resta quella prevista
+        return true;
+    }
+
+    //Metodo che ferma i job (quelli in corso vengono interrotti)
+    public void stop() {
+        stopped = true;
+        executor.shutdownNow();
+    }
+
+    //Metodo che ritorna lo stato dei job e le ultime esecuzioni come testo (per /jobs e per l'endpoint HTTP)
+    public String report(int runsPerJob) {
+        SimpleDateFormat time = new SimpleDateFormat("HH:mm:ss");
+        StringBuilder out = new StringBuilder("🗓 JOB PERIODICI (" + jobs.size() + ")\n");
+        jobs.values().stream().sorted((a, b) -> a.getName().compareTo(b.getName())).forEach(job -> {
+            out.append('\n').append(job.getName())
+                    .append(" · ogni ").append(formatDuration(job.getBaseIntervalMs()))
+                    .append(job.isRunning() ? " · in corso" : " · prossimo " + time.format(new Date(job.getNextRunAt())));
+            if (job.getFailures() > 0) out.append(" · ").append(job.getFailures()).append(" errori di fila");
+            out.append('\n');
+            List<JobRun> runs = job.getHistory();
+            for (int i = 0; i < runs.size() && i < runsPerJob; i++) {
+                JobRun run = runs.get(i);
+                out.append("  ").append(time.format(new Date(run.getStartedAt())))
+                        .append(' ').append(run.getDurationMs()).append(" ms ")
+                        .append(run.getResult()).append('\n');
+            }
+        });
+        return out.toString();
+    }
+
+    //Metodo privato che esegue un job periodico e programma l'esecuzione successiva
+    private void runAndReschedule(RefreshJob job) {
+        long delay = execute(job);
+        if (!stopped) schedule(job, delay);
+    }
+
+    //Metodo privato che esegue un job (se serve e non è già in corso) e ritorna il ritardo della prossima esecuzione
+    private long execute(RefreshJob job) {
+        long base = job.getBaseIntervalMs();
+        long interval = job.policy().intervalMs(base);
+        if (!job.tryStart()) {	//Esecuzione precedente ancora in corso (es. avviata con runNow)
+            record(job, System.currentTimeMillis(), 0, "overlap");
+            return jittered(interval > 0 ? interval : Math.min(base, IDLE_RECHECK_MS), job.jitterFraction());
+        }
+        long startedAt = System.currentTimeMillis();
+        long start = System.nanoTime();
+        try {
+            if (interval <= 0) {	//Nessuna domanda: salto e ricontrollo presto (solo nelle metriche, per non riempire la cronologia)
+                countRun(job, "skipped");
+                return jittered(Math.min(base, IDLE_RECHECK_MS), job.jitterFraction());
+            }
+            try {
+                job.task().run();
+                job.succeeded();
+                record(job, startedAt, elapsedMs(start), "ok");
+            } catch (Exception e) {
+                job.failed();
+                record(job, startedAt, elapsedMs(start), "errore: " + e.getMessage());
+                System.err.println("❌ Job " + job.getName() + " fallito (" + job.getFailures() + " di fila): " + e.getMessage());
+            }
+            METRICS.timer("refresh_job_seconds", "Durata delle esecuzioni dei job periodici", "job", job.getName())
+                    .record(System.nanoTime() - start);
+            return jittered(backoff(interval, job), job.jitterFraction());
+        } finally {
+            job.finish();
+        }
+    }
+
+    //Metodo privato che programma un job dopo delayMs
+    private void schedule(RefreshJob job, long delayMs) {
+        job.scheduledAt(System.currentTimeMillis() + delayMs);
+        executor.schedule(() -> runAndReschedule(job), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    //Metodo privato che registra un'esecuzione nella cronologia e nelle metriche
+    private static void record(RefreshJob job, long startedAt, long durationMs, String result) {
+        job.record(new JobRun(startedAt, durationMs, result));
+        countRun(job, result.startsWith("errore") ? "error" : result);
+    }
+
+    //Metodo statico privato che conta un'esecuzione nelle metriche (result: ok, error, overlap, skipped)
+    private static void countRun(RefreshJob job, String result) {
+        METRICS.counter("refresh_job_runs_total", "Esecuzioni dei job periodici per esito", "job", job.getName(), "result", result).inc();
+    }
+
+    //Metodo statico che ritorna l'intervallo dopo gli errori consecutivi del job (raddoppia a ogni errore, al massimo maxBackoff)
+    static long backoff(long intervalMs, RefreshJob job) {
+        int failures = job.getFailures();
+        if (failures == 0) return intervalMs;
+        long max = Math.max(intervalMs, job.maxBackoffMs());
+        return Math.min(max, intervalMs << Math.min(failures, 20));
+    }
+
+    //Metodo statico che aggiunge a un intervallo una variazione casuale di ±fraction
+    static long jittered(long intervalMs, double fraction) {
+        if (fraction <= 0 || intervalMs <= 0) return Math.max(0, intervalMs);
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-fraction, fraction);
+        return Math.round(intervalMs * factor);
+    }
+
+    //Metodo statico privato che ritorna i millisecondi trascorsi da start (nanoTime)
+    private static long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    //Metodo statico privato che scrive una durata in forma breve (es. 30s, 10m, 6h)
+    private static String formatDuration(long ms) {
+        if (ms < 1000) return ms + "ms";
+        if (ms % 3_600_000 == 0) return ms / 3_600_000 + "h";
+        if (ms % 60_000 == 0) return ms / 60_000 + "m";
+        return ms / 1000 + "s";
+    }
+}
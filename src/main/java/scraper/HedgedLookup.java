@@ -0,0 +1,102 @@
+package scraper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*Classe HedgedLookup per le ricerche speculative:
+1. Avvio la richiesta primaria
+2. Se non risponde entro un ritardo basato sul percentile delle sue latenze (o risponde senza risultato) avvio le alternative in parallelo
+3. Il primo risultato valido (non null) vince e tutti gli altri tentativi vengono cancellati
+ */
+public class HedgedLookup<T> {
+    private final ExecutorService executor;	//Pool di thread su cui eseguo i tentativi
+    private final LatencyTracker latencyTracker;	//Tracker delle latenze della richiesta primaria
+    private final double percentile;	//Percentile usato per calcolare il ritardo di hedging (es. 0.95)
+    private final long minDelayMs;	//Ritardo minimo prima di avviare le alternative
+    private final long maxDelayMs;	//Ritardo massimo prima di avviare le alternative
+    private final AtomicLong hedges = new AtomicLong();	//Conto quante volte ho dovuto avviare le alternative
+
+    //Costruttore della classe
+    public HedgedLookup(ExecutorService executor, LatencyTracker latencyTracker, double percentile, long minDelayMs, long maxDelayMs) {
+        this.executor = executor;
+        this.latencyTracker = latencyTracker;
+        this.percentile = percentile;
+        this.minDelayMs = minDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    //Metodo che calcola il ritardo dopo il quale avvio le alternative
+    public long hedgeDelayMs() {
+        long delay = latencyTracker.percentile(percentile, maxDelayMs / 2);	//Senza campioni sufficienti parto da metà del massimo
+        return Math.max(minDelayMs, Math.min(delay, maxDelayMs));	//Limito il ritardo tra minimo e massimo
+    }
+
+    //Metodo che ritorna quante ricerche hanno richiesto l'avvio delle alternative
+    public long getHedgeCount() {
+        return hedges.get();
+    }
+
+    //Metodo che esegue la ricerca e ritorna il primo risultato non null (oppure null se nessun tentativo ha successo entro il timeout)
+    public T execute(Callable<T> primary, List<Callable<T>> alternatives, long timeoutMs) throws InterruptedException {
+        CompletionService<T> completion = new ExecutorCompletionService<>(executor);	//Raccolgo i tentativi nell'ordine in cui terminano
+        List<Future<T>> futures = new ArrayList<>();	//Tengo i future per poterli cancellare alla fine
+        long start = System.nanoTime();	//Istante di inizio della ricerca
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);	//Scadenza complessiva della ricerca
+
+        AtomicBoolean recorded = new AtomicBoolean();	//La latenza della primaria va registrata una sola volta
+        Runnable recordPrimary = () -> {
+            if (recorded.compareAndSet(false, true)) latencyTracker.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        };
+        futures.add(completion.submit(() -> {	//Avvio la richiesta primaria misurandone la latenza
+            try {
+                return primary.call();
+            } finally {
+                recordPrimary.run();	//Registro la latenza anche se la richiesta fallisce
+            }
+        }));
+
+        try {
+            int pending = 1;	//Numero di tentativi ancora in corso
+            Future<T> done = completion.poll(hedgeDelayMs(), TimeUnit.MILLISECONDS);	//Aspetto la primaria al massimo per il ritardo di hedging
+            if (done != null) {	//La primaria ha risposto in tempo
+                pending--;
+                T result = resultOf(done);
+                if (result != null) return result;	//Risultato valido: non serve avviare le alternative
+            }
+
+            if (!alternatives.isEmpty()) hedges.incrementAndGet();	//Registro che sto avviando le alternative
+            for (Callable<T> alternative : alternatives) {	//Avvio tutte le alternative in parallelo
+                futures.add(completion.submit(alternative));
+                pending++;
+            }
+
+            while (pending > 0) {	//Aspetto il primo risultato valido tra i tentativi rimasti
+                long remaining = deadline - System.nanoTime();	//Tempo rimasto prima della scadenza
+                if (remaining <= 0) break;	//Tempo scaduto
+                Future<T> next = completion.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) break;	//Nessun tentativo terminato entro la scadenza
+                pending--;
+                T result = resultOf(next);
+                if (result != null) return result;	//Il primo risultato valido vince
+            }
+            return null;	//Nessun tentativo ha prodotto un risultato valido
+        } finally {
+            recordPrimary.run();	//Primaria ancora in corso: registro il tempo fino alla cancellazione, altrimenti le primarie lente non verrebbero mai contate
+            for (Future<T> future : futures) {	//Cancello tutti i tentativi ancora in corso
+                future.cancel(true);
+            }
+        }
+    }
+
+    //Metodo privato che estrae il risultato di un tentativo terminato, considerando gli errori come risultato mancante
+    private T resultOf(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();	//Il future è già terminato quindi non blocca
+        } catch (ExecutionException | CancellationException e) {
+            return null;	//Un tentativo fallito equivale a nessun risultato
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package scraper;
+
+import org.jsoup.nodes.Element;
+
+import java.util.*;
+
+/*Classe Infobox che indicizza in un solo passaggio le righe dell'infobox di una pagina Wikipedia:
+- per ogni riga salvo l'etichetta normalizzata (minuscolo, spazi singoli), la prima cella td e il testo della riga in minuscolo
+- le etichette sono indicizzate in una mappa (prima occorrenza), così gli estrattori dei campi le interrogano in O(1)
+ */
+public class Infobox {
+    private final List<Row> rows = new ArrayList<>();	//Tutte le righe della tabella in ordine
+    private final Map<String, Row> byLabel = new HashMap<>();	//Etichetta normalizzata -> prima riga con quell'etichetta e un valore
+    private final List<Row> labeledRows = new ArrayList<>();	//Righe con etichetta e valore, in ordine (per la ricerca per sottostringa)
+
+    //Costruttore privato: l'indice si crea con il metodo of()
+    private Infobox(Element table) {
+        for (Element tr : table.select("tr")) {	//Unico passaggio su tutte le righe della tabella
+            Row row = new Row(tr);
+            rows.add(row);
+            if (row.label != null && row.value != null) {	//Indicizzo solo le righe con etichetta e valore
+                labeledRows.add(row);
+                byLabel.putIfAbsent(row.label, row);	//Tengo la prima occorrenza come faceva la scansione riga per riga
+            }
+        }
+    }
+
+    //Metodo statico che costruisce l'indice dell'infobox
+    public static Infobox of(Element table) {
+        return new Infobox(table);
+    }
+
+    //Metodo che ritorna il testo della cella valore della prima riga la cui etichetta corrisponde a una delle parole chiave
+    public String value(String... keywords) {
+        Row row = find(keywords);
+        return row != null ? row.valueText() : null;
+    }
+
+    //Metodo che ritorna la prima riga la cui etichetta corrisponde a una delle parole chiave (prima esatta in O(1), poi per sottostringa)
+    public Row find(String... keywords) {
+        for (String keyword : keywords) {	//Ricerca esatta sull'etichetta normalizzata
+            Row row = byLabel.get(normalize(keyword));
+            if (row != null) return row;
+        }
+        for (Row row : labeledRows) {	//Fallback: etichette che contengono la parola chiave (es. "mano preferita")
+            for (String keyword : keywords) {
+                if (row.label.contains(normalize(keyword))) return row;
+            }
+        }
+        return null;	//Nessuna riga trovata
+    }
+
+    //Metodo che ritorna tutte le righe dell'infobox in ordine
+    public List<Row> rows() {
+        return rows;
+    }
+
+    //Metodo statico che normalizza un'etichetta (minuscolo e spazi singoli)
+    static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean space = false;	//Indico se l'ultimo carattere aggiunto è uno spazio
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == '\u00a0') {	//Comprimo spazi e spazi non separabili
+                space = sb.length() > 0;
+            } else {
+                if (space) sb.append(' ');
+                sb.append(Character.toLowerCase(c));
+                space = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    //Classe interna che rappresenta una riga indicizzata dell'infobox
+    public static class Row {
+        final Element element;	//Elemento tr originale
+        final String label;	//Etichetta normalizzata (null se la riga non ha intestazione)
+        final Element value;	//Prima cella td della riga (null se assente)
+        final String textLower;	//Testo dell'intera riga in minuscolo
+        private String valueText;	//Testo della cella valore, calcolato alla prima richiesta
+
+        Row(Element tr) {
+            this.element = tr;
+            Element th = tr.selectFirst("th, td.infobox-label");	//Intestazione della riga
+            this.label = th != null ? normalize(th.text()) : null;
+            this.value = tr.selectFirst("td");	//Prima cella dati
+            this.textLower = tr.text().toLowerCase();
+        }
+
+        //Metodo che ritorna il testo della cella valore senza spazi iniziali e finali
+        String valueText() {
+            if (valueText == null && value != null) valueText = value.text().trim();
+            return valueText;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package scraper;
+
+import java.util.Arrays;
+
+//Classe LatencyTracker che memorizza le ultime latenze osservate in un buffer circolare e ne calcola i percentili
+public class LatencyTracker {
+    private static final int MIN_SAMPLES = 10;	//Numero minimo di campioni prima di fidarmi del percentile calcolato
+    private final long[] samples;	//Buffer circolare con le latenze in millisecondi
+    private int next;	//Indice della prossima posizione da sovrascrivere
+    private int count;	//Numero di campioni effettivamente presenti nel buffer
+
+    //Costruttore che riceve la dimensione della finestra di campioni
+    public LatencyTracker(int windowSize) {
+        this.samples = new long[windowSize];	//Inizializzo il buffer con la dimensione richiesta
+    }
+
+    //Metodo per registrare una nuova latenza
+    public synchronized void record(long millis) {
+        samples[next] = millis;	//Salvo il campione nella posizione corrente
+        next = (next + 1) % samples.length;	//Avanzo l'indice in modo circolare
+        if (count < samples.length) count++;	//Aggiorno il numero di campioni finché il buffer non è pieno
+    }
+
+    //Metodo che ritorna il percentile richiesto (es. 0.95) oppure il valore di default se ho pochi campioni
+    public synchronized long percentile(double percentile, long defaultValue) {
+        if (count < MIN_SAMPLES) return defaultValue;	//Con pochi campioni uso il valore di default
+        long[] sorted = Arrays.copyOf(samples, count);	//Copio solo i campioni validi
+        Arrays.sort(sorted);	//Ordino le latenze
+        int index = (int) Math.ceil(percentile * count) - 1;	//Calcolo l'indice del percentile (nearest-rank)
+        return sorted[Math.max(0, Math.min(index, count - 1))];	//Ritorno il valore limitando l'indice ai bordi
+    }
+}
@@ -0,0 +1,81 @@
+package scraper;
+
+import model.Match;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/*Classe MatchBoardBuilder che costruisce la lista delle partite di oggi dai testi degli elementi di Sofascore, nell'ordine in cui vengono letti:
+- un titolo di torneo consentito imposta il torneo corrente (e la riga successiva può esserne il luogo)
+- un testo su più righe è un match, interpretato con MatchTextTokenizer (i duplicati vengono ignorati)
+- un torneo non interessante (ATP/WTA 125, ITF, Challenger) interrompe la lettura
+Il testo può arrivare dal browser (Selenium) o da uno snapshot registrato, con lo stesso risultato.
+ */
+public class MatchBoardBuilder {
+    private static final Pattern LOCATION_PATTERN = Pattern.compile("^[A-Za-z .'-]+,\\s*[A-Za-z .'-]+.*$");	//Riga "Città, Nazione" sotto il titolo di un torneo
+    private static final String[] ALLOWED_TOURNAMENTS = {
+            "Grande Slam", "Masters 1000", "ATP 250", "ATP 500", "WTA 250",
+            "WTA 500", "WTA 1000", "United Cup"
+    };	//Tornei accettati
+
+    private final List<Match> matches = new ArrayList<>();	//Partite lette
+    private final Set<String> processedTexts = new HashSet<>();	//Testi dei match già letti (per evitare duplicati)
+    private String currentTournament = "Generale";	//Torneo corrente
+    private String currentLocation = "";	//Luogo corrente
+    private boolean waitingForLocation = false;	//Indica che il prossimo testo può essere il luogo
+
+    //Metodo che elabora il testo di un elemento; ritorna false se la lettura va interrotta
+    public boolean accept(String text) {
+        if (text.isEmpty()) return true;	//Ignoro testo vuoto
+        //───── TORNEO NON INTERESSANTE ─────
+        if (isUninterestingTournament(text)) {
+            System.out.println("⛔ Torneo non interessante: " + text);	//Blocco subito i tornei che non mi interessano
+            return false;
+        }
+        //───── TITOLO TORNEO ─────
+        if (isTournamentTitle(text)) {
+            currentTournament = text;	//Aggiorno torneo corrente
+            currentLocation = "";	//Resetto location
+            waitingForLocation = true;	//Flag per leggere location al prossimo testo
+            return true;
+        }
+        //───── LUOGO TORNEO ─────
+        if (waitingForLocation && currentLocation.isEmpty() && isLocationLine(text)) {
+            currentLocation = text;	//Aggiorno location
+            waitingForLocation = false;	//Resetto flag
+            return true;
+        }
+        //───── MATCH ─────
+        if (!text.contains("\n")) return true;	//Ignoro elementi che non contengono dati match
+        if (!processedTexts.add(text)) return true;	//Ignoro duplicati
+        MatchTextTokenizer.ParsedMatch data = MatchTextTokenizer.tokenize(text);	//Estraggo i dati del match
+        if (!data.isValid() || data.getTime().isEmpty() || !data.hasValidStatus()) return true;	//Se non valido, salto
+        matches.add(data.toMatch(currentTournament, currentLocation));	//Creo il match e lo aggiungo alla lista
+        return true;
+    }
+
+    //Metodo che ritorna le partite lette
+    public List<Match> getMatches() {
+        return matches;
+    }
+
+    //Metodo statico privato per indicare se una riga rappresenta una location
+    private static boolean isLocationLine(String text) {
+        return LOCATION_PATTERN.matcher(text).matches();	//Verifica se il testo ha il formato "Città, Nazione" con eventuali caratteri speciali, spazi o punti
+    }
+
+    //Metodo statico privato che riconosce i tornei che non mi interessano
+    private static boolean isUninterestingTournament(String text) {
+        String upper = text.toUpperCase();	//Converto il testo in maiuscolo per controlli case-insensitive
+        return upper.contains("ATP 125") || upper.contains("WTA 125") ||
+                upper.contains("ITF") || upper.contains("CHALLENGER");
+    }
+
+    //Metodo statico privato per verificare che il torneo trovato sia tra quelli validi
+    private static boolean isTournamentTitle(String text) {
+        for (String t : ALLOWED_TOURNAMENTS) {
+            if (text.startsWith(t)) return true;	//Accetto il torneo se corrisponde o inizia con un nome valido
+        }
+        return false;	//Rifiuto tutto ciò che non rientra nei tornei consentiti
+    }
+}
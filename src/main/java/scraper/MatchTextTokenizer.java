@@ -0,0 +1,304 @@
+package scraper;
+
+import model.Match;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*Classe MatchTextTokenizer che interpreta il testo di un match di Sofascore (una informazione per riga) senza espressioni regolari:
+1. Ogni riga viene classificata come orario, stato, set completo, numero o nome di giocatore con dei controlli scritti a mano
+2. I set vengono salvati in array di interi (game del giocatore 1, game del giocatore 2, tiebreak)
+3. Set vinti, punteggio dei set e vincitore vengono calcolati una sola volta
+ */
+public final class MatchTextTokenizer {
+    public static final int NO_TIEBREAK = -1;	//Valore del tiebreak quando il set non lo prevede
+    private static final int NOT_A_NUMBER = -1;	//Valore dei token numerici che non sono punteggi ("A" o numeri fuori range)
+    private static final String[] STATUSES = {"LIVE", "FINE", "SRF", "A tavolino", "-", "Annullata", "Iniziato"};	//Stati riconosciuti (oltre a "... set")
+
+    //Enum Token con il tipo di ogni riga del testo
+    public enum Token { TIME, STATUS, SET_SCORE, NUMBER, PLAYER }
+
+    //Costruttore privato: classe di sole utilità statiche
+    private MatchTextTokenizer() {}
+
+    //Metodo statico che interpreta il testo di un match e ritorna i dati estratti
+    public static ParsedMatch tokenize(String text) {
+        ParsedMatch data = new ParsedMatch();	//Oggetto con i dati del match
+        int[] numbers = new int[16];	//Valori dei token numerici, in ordine
+        int numberCount = 0;	//Numero di token numerici letti
+        String firstNumber = null;	//Primo token numerico così come appare (per il game corrente)
+        String secondNumber = null;	//Secondo token numerico così come appare
+
+        int length = text.length();
+        int start = 0;	//Inizio della riga corrente
+        while (start <= length) {
+            int end = text.indexOf('\n', start);	//Fine della riga corrente
+            if (end < 0) end = length;
+            int s = start;
+            int e = end;
+            start = end + 1;	//Passo alla riga successiva
+            while (s < e && text.charAt(s) <= ' ') s++;	//Rimuovo gli spazi iniziali (come String.trim)
+            while (e > s && text.charAt(e - 1) <= ' ') e--;	//Rimuovo gli spazi finali
+            if (s == e) continue;	//Salto righe vuote
+
+            switch (classify(text, s, e)) {
+                case TIME:
+                    data.time = text.substring(s, e);	//Orario (HH:MM)
+                    break;
+                case STATUS:
+                    data.status = text.substring(s, e);	//Stato del match
+                    break;
+                case SET_SCORE:
+                    data.addFormattedSet(text, s, e);	//Set già formattato (es. 6-4 o 7-6(3))
+                    break;
+                case NUMBER:
+                    if (numberCount == numbers.length) numbers = Arrays.copyOf(numbers, numberCount * 2);
+                    numbers[numberCount] = parseNumber(text, s, e);
+                    if (numberCount == 0) firstNumber = text.substring(s, e);
+                    else if (numberCount == 1) secondNumber = text.substring(s, e);
+                    numberCount++;
+                    break;
+                default:
+                    data.players.add(text.substring(s, e));	//Altrimenti è il nome di un giocatore
+            }
+        }
+
+        //Se non ho set già formattati ma ho numeri ricostruisco i set dai numeri
+        if (data.setCount == 0 && numberCount > 0) {
+            boolean live = data.isLive();
+            if (live && numberCount >= 2) data.currentGame = firstNumber + "-" + secondNumber;	//Punteggio del game in corso
+            buildSetsFromNumbers(data, numbers, numberCount, live);
+        }
+        data.countSets();	//Calcolo una volta sola i set vinti
+        return data;
+    }
+
+    //Metodo statico che classifica una riga (già senza spazi iniziali e finali)
+    public static Token classify(String line) {
+        return classify(line, 0, line.length());
+    }
+
+    //Metodo statico privato che classifica la porzione [s, e) del testo
+    private static Token classify(String text, int s, int e) {
+        if (isTime(text, s, e)) return Token.TIME;
+        if (isStatus(text, s, e)) return Token.STATUS;
+        if (isSetScore(text, s, e)) return Token.SET_SCORE;
+        if (isNumber(text, s, e)) return Token.NUMBER;
+        return Token.PLAYER;
+    }
+
+    //Metodo statico privato che riconosce un orario: 1 o 2 cifre, ':' e 2 cifre
+    private static boolean isTime(String text, int s, int e) {
+        int colon = skipDigits(text, s, e);	//Posizione dopo le cifre delle ore
+        int hours = colon - s;
+        if (hours < 1 || hours > 2 || colon >= e || text.charAt(colon) != ':') return false;
+        return e - colon - 1 == 2 && skipDigits(text, colon + 1, e) == e;	//Esattamente due cifre per i minuti
+    }
+
+    //Metodo statico privato che riconosce uno stato noto oppure una riga che termina con "set" (es. "2º set")
+    private static boolean isStatus(String text, int s, int e) {
+        for (String status : STATUSES) {
+            if (equalsRegion(text, s, e, status)) return true;
+        }
+        if (e - s < 3 || !text.startsWith("set", e - 3)) return false;
+        for (int i = s; i < e - 3; i++) {	//Come ".*set": nessun terminatore di riga prima di "set"
+            if (isLineTerminator(text.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    //Metodo statico privato che riconosce un set completo: 1-2 cifre, '-', 1-2 cifre ed eventuale tiebreak tra parentesi
+    private static boolean isSetScore(String text, int s, int e) {
+        int dash = skipDigits(text, s, e);
+        if (dash - s < 1 || dash - s > 2 || dash >= e || text.charAt(dash) != '-') return false;
+        int afterGames = skipDigits(text, dash + 1, e);
+        int games = afterGames - dash - 1;
+        if (games < 1 || games > 2) return false;
+        if (afterGames == e) return true;	//Set senza tiebreak
+        if (text.charAt(afterGames) != '(' || text.charAt(e - 1) != ')') return false;
+        int tiebreakEnd = skipDigits(text, afterGames + 1, e);
+        return tiebreakEnd > afterGames + 1 && tiebreakEnd == e - 1;	//Almeno una cifra tra le parentesi
+    }
+
+    //Metodo statico privato che riconosce un numero oppure la lettera "A" (vantaggio)
+    private static boolean isNumber(String text, int s, int e) {
+        if (e - s == 1 && text.charAt(s) == 'A') return true;
+        return skipDigits(text, s, e) == e;
+    }
+
+    //Metodo statico privato che converte un token numerico, ritornando NOT_A_NUMBER per "A" o per valori oltre il range di un int
+    private static int parseNumber(String text, int s, int e) {
+        long value = 0;
+        for (int i = s; i < e; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return NOT_A_NUMBER;
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) return NOT_A_NUMBER;	//Come Integer.parseInt: numero non valido
+        }
+        return (int) value;
+    }
+
+    //Metodo statico privato che da una sequenza di numeri apparentemente senza significato ricostruisce i set (es. 40 40 6 5 3 2 1 0 --> game in corso: 40-40, set: 6-3 5-2)
+    private static void buildSetsFromNumbers(ParsedMatch data, int[] numbers, int numberCount, boolean live) {
+        int from = live && numberCount > 2 ? 2 : 0;	//Se LIVE scarto i primi due valori perché sono il game in corso
+        int[] scores = new int[numberCount - from];
+        int n = 0;
+        for (int i = from; i < numberCount; i++) {
+            if (numbers[i] != NOT_A_NUMBER) scores[n++] = numbers[i];	//Ignoro lettere come "A" nei punteggi dei set
+        }
+        if (n >= 2) n -= 2;	//Rimuovo gli ultimi due numeri che rappresentano il punteggio totale dei set
+        if (n % 2 != 0) n--;	//Ignoro l'ultimo numero se la lista è dispari
+        int numSets = n / 2;
+        for (int i = 0; i < numSets; i++) {	//Ricostruisco i set: giocatore 1[i] contro giocatore 2[i]
+            int games1 = scores[i];
+            int games2 = scores[i + numSets];
+            int tiebreak = NO_TIEBREAK;
+            if ((games1 == 7 && games2 == 6) || (games1 == 6 && games2 == 7)) {	//Set al tiebreak
+                if (i + 1 < numSets) {
+                    tiebreak = Math.min(scores[i + 1], scores[i + numSets + 1]);	//Il numero successivo è il tiebreak
+                    i++;	//Salto il numero già usato per il tiebreak
+                }
+            }
+            data.addSet(games1, games2, tiebreak, null);
+        }
+    }
+
+    //Metodo statico privato che salta le cifre a partire da from e ritorna la prima posizione non numerica
+    private static int skipDigits(String text, int from, int e) {
+        int i = from;
+        while (i < e && text.charAt(i) >= '0' && text.charAt(i) <= '9') i++;
+        return i;
+    }
+
+    //Metodo statico privato che confronta la porzione [s, e) con una stringa
+    private static boolean equalsRegion(String text, int s, int e, String value) {
+        return e - s == value.length() && text.regionMatches(s, value, 0, value.length());
+    }
+
+    //Metodo statico privato che indica se il carattere è un terminatore di riga per le espressioni regolari Java
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    //Classe interna con i dati di un match estratti dal testo
+    public static final class ParsedMatch {
+        String time = "";	//Orario del match
+        String status = "";	//Stato del match (LIVE, FINE, ecc.)
+        String currentGame = "";	//Punteggio del game corrente (LIVE)
+        final List<String> players = new ArrayList<>(2);	//Nomi dei giocatori
+        int[] games1 = new int[5];	//Game vinti dal giocatore 1 in ogni set
+        int[] games2 = new int[5];	//Game vinti dal giocatore 2 in ogni set
+        int[] tiebreaks = new int[5];	//Punteggio del tiebreak di ogni set (NO_TIEBREAK se assente)
+        int setCount;	//Numero di set letti
+        private final StringBuilder detailedScore = new StringBuilder();	//Set in forma testuale separati da spazio
+        private int setsWon1;	//Set vinti dal giocatore 1
+        private int setsWon2;	//Set vinti dal giocatore 2
+
+        ParsedMatch() {}
+
+        //Metodo che aggiunge un set letto già formattato, mantenendo il testo originale nel punteggio dettagliato
+        void addFormattedSet(String text, int s, int e) {
+            int dash = text.indexOf('-', s);
+            int afterGames = skipDigits(text, dash + 1, e);
+            int tiebreak = afterGames < e ? parseNumber(text, afterGames + 1, e - 1) : NO_TIEBREAK;
+            addSet(parseNumber(text, s, dash), parseNumber(text, dash + 1, afterGames), tiebreak, text.substring(s, e));
+        }
+
+        //Metodo che aggiunge un set (raw è il testo originale, null se il set è stato ricostruito dai numeri)
+        void addSet(int g1, int g2, int tiebreak, String raw) {
+            if (setCount == games1.length) {	//Allargo gli array se servono più set
+                games1 = Arrays.copyOf(games1, setCount * 2);
+                games2 = Arrays.copyOf(games2, setCount * 2);
+                tiebreaks = Arrays.copyOf(tiebreaks, setCount * 2);
+            }
+            games1[setCount] = g1;
+            games2[setCount] = g2;
+            tiebreaks[setCount] = tiebreak;
+            setCount++;
+            if (detailedScore.length() > 0) detailedScore.append(' ');
+            if (raw != null) {
+                detailedScore.append(raw);
+            } else {
+                detailedScore.append(g1).append('-').append(g2);
+                if (tiebreak != NO_TIEBREAK) detailedScore.append('(').append(tiebreak).append(')');
+            }
+        }
+
+        //Metodo che conta i set vinti da ciascun giocatore (i set pari non contano)
+        void countSets() {
+            setsWon1 = 0;
+            setsWon2 = 0;
+            for (int i = 0; i < setCount; i++) {
+                if (games1[i] > games2[i]) setsWon1++;
+                else if (games2[i] > games1[i]) setsWon2++;
+            }
+        }
+
+        public boolean isValid() {
+            return players.size() >= 2;	//Controllo che ci siano almeno due giocatori
+        }
+
+        public boolean hasValidStatus() {
+            if (status.isEmpty()) return false;	//Scarto stati vuoti
+            for (String known : STATUSES) {
+                if (status.equals(known)) return true;
+            }
+            return status.contains("set");	//Set in corso (es. "2º set")
+        }
+
+        //Metodo che indica se il match è in corso
+        public boolean isLive() {
+            return status.equals("LIVE") || (status.length() == 6 && status.charAt(0) >= '1' && status.charAt(0) <= '5'
+                    && status.startsWith("º set", 1));	//"LIVE" oppure "[1-5]º set"
+        }
+
+        //Metodo che indica se il match è concluso
+        public boolean isFinished() {
+            return status.equals("FINE") || status.equals("A tavolino");
+        }
+
+        //Metodo che ritorna il vincitore (chi ha vinto più set), null se non determinabile
+        public String getWinner() {
+            if (players.size() < 2 || setCount == 0) return null;
+            if (setsWon1 > setsWon2) return players.get(0);
+            if (setsWon2 > setsWon1) return players.get(1);
+            return null;	//Caso di parità
+        }
+
+        //Metodo che ritorna il punteggio in set nel formato "vinti-persi" del vincitore
+        public String getSetScore() {
+            return Math.max(setsWon1, setsWon2) + "-" + Math.min(setsWon1, setsWon2);
+        }
+
+        //Metodo che ritorna i set separati da spazio (es. "6-4 7-6(3)"), stringa vuota se non ci sono set
+        public String getDetailedScore() {
+            return detailedScore.toString();
+        }
+
+        //Metodo che crea il Match con i dati estratti (il match deve essere valido)
+        public Match toMatch(String tournament, String location) {
+            Match match = new Match(tournament, location, players.get(0), players.get(1), time, time, 0);	//Creo il match impostando i dati corretti
+            match.setStatus(status);	//Imposto lo status del match
+            if (!currentGame.isEmpty()) match.setCurrentGame(currentGame);	//Salvo il punteggio del game corrente se LIVE
+            if (setCount > 0) {
+                match.setDetailedScore(getDetailedScore());	//Imposto punteggio dettagliato
+                if (isFinished()) match.setSetScore(getSetScore());	//Se è finita imposto i set vinti
+            }
+            if (isFinished()) {
+                String winner = getWinner();
+                if (winner != null) match.setWinner(winner);	//Imposto vincitore
+            }
+            return match;
+        }
+
+        public String getTime() { return time; }
+        public String getStatus() { return status; }
+        public String getCurrentGame() { return currentGame; }
+        public List<String> getPlayers() { return players; }
+        public int getSetCount() { return setCount; }
+        public int getGames1(int set) { return games1[set]; }
+        public int getGames2(int set) { return games2[set]; }
+        public int getTiebreak(int set) { return tiebreaks[set]; }
+    }
+}
@@ -0,0 +1,21 @@
+package scraper;
+
+import java.util.concurrent.TimeUnit;
+
+//Enum MissReason che indica il motivo per cui la ricerca di un giocatore non ha prodotto risultati
+public enum MissReason {
+    NOT_FOUND("non trovato su Wikipedia né nelle classifiche", TimeUnit.MINUTES.toMillis(30)),	//Pagina inesistente (404) e nessun risultato nelle classifiche
+    NOT_TENNIS_PLAYER("la pagina trovata non è di un giocatore di tennis", TimeUnit.MINUTES.toMillis(30)),	//Pagina esistente ma non di un tennista
+    NETWORK_ERROR("Wikipedia non raggiungibile", TimeUnit.MINUTES.toMillis(2));	//Errore di rete o timeout: lo ricordo per poco tempo
+
+    private final String description;	//Descrizione leggibile del motivo
+    private final long ttlMs;	//Per quanto tempo ricordo questo tipo di esito negativo
+
+    MissReason(String description, long ttlMs) {
+        this.description = description;
+        this.ttlMs = ttlMs;
+    }
+
+    public String getDescription() { return description; }
+    public long getTtlMs() { return ttlMs; }
+}
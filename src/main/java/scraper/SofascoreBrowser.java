@@ -0,0 +1,60 @@
+package scraper;
+
+import jfr.ScrapeEvent;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.util.List;
+
+/*Classe SofascoreBrowser che legge la pagina delle partite di Sofascore con Chrome headless (Selenium).
+È separata da TennisService perché le classi di Selenium sono tante: così vengono caricate alla prima lettura delle partite e non all'avvio del bot.
+ */
+final class SofascoreBrowser {
+    static final String HOST = "www.sofascore.com";	//Host della pagina (per l'evento JFR)
+    private static final String URL = "https://" + HOST + "/it/tennis";	//Pagina dei match
+    private static final int MAX_SCROLLS = 180;	//Numero massimo di scroll per caricare contenuti
+
+    private SofascoreBrowser() { }
+
+    //Metodo statico che passa a board i testi delle partite nell'ordine della pagina, finché board li accetta; se recorded non è null ci aggiunge i testi letti.
+    //I testi letti vengono contati nell'evento JFR. Ritorna false se la lettura si è interrotta per un errore (board tiene le partite lette fino a lì); se Chrome non si avvia lancia l'eccezione
+    static boolean read(MatchBoardBuilder board, List<String> recorded, ScrapeEvent event) {
+        ChromeOptions options = new ChromeOptions();	//Configuro le opzioni di ChromeDriver
+        options.addArguments("--headless");	//Esecuzione in modalità headless (senza finestra)
+        options.addArguments("--disable-blink-features=AutomationControlled");	//Disabilita rilevamento automazione
+        options.addArguments("--window-size=1920,1080");	//Imposto dimensioni finestra
+        WebDriver driver = new ChromeDriver(options);	//Creo l’istanza di WebDriver
+        JavascriptExecutor js = (JavascriptExecutor) driver;	//Cast per eseguire JS
+
+        try {
+            driver.get(URL);	//Accedo alla pagina dei match
+            Thread.sleep(2000);	//Piccola pausa per il caricamento
+            scrolling:
+            for (int scroll = 0; scroll < MAX_SCROLLS; scroll++) {
+                List<WebElement> elements = driver.findElements(By.cssSelector("a[href^='/it/tennis/']"));	//Seleziono tutti i link rilevanti
+                for (WebElement el : elements) {
+                    try {
+                        String text = el.getText().trim();	//Recupero testo dell’elemento
+                        if (text.isEmpty()) continue;	//Ignoro testo vuoto
+                        event.text(text);	//Dimensione della lettura
+                        if (recorded != null) recorded.add(text);	//Registro il testo nell'ordine di lettura
+                        if (!board.accept(text)) break scrolling;	//Torneo non interessante: interrompo la lettura
+                    } catch (StaleElementReferenceException ignored) {}	//Ignoro eccezioni di elementi non più presenti
+                }
+                js.executeScript("window.scrollBy(0, 400);");	//Scroll verso il basso per caricare nuovi elementi
+                Thread.sleep(50);	//Piccola pausa
+            }
+            return true;
+        } catch (Exception e) {	//Gestione errori generali
+            e.printStackTrace();
+            return false;
+        } finally {
+            driver.quit();	//Chiudo il driver in ogni caso
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package scraper;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
+
+/*Classe TennisPageClassifier che decide se una pagina Wikipedia è di un tennista senza materializzare tutto il testo della pagina:
+1. Segnali strutturati: classe del template dell'infobox, riga "Sport", testo dell'infobox e categorie della pagina
+2. Solo come ultima risorsa: parole chiave in una finestra limitata del testo della pagina (già in minuscolo, spazi compressi)
+ */
+public final class TennisPageClassifier {
+    private static final int TEXT_WINDOW = 20_000;	//Numero massimo di caratteri di testo analizzati come ultima risorsa
+    private static final String[] KEYWORDS = {	//Parole chiave dell'euristica originale
+            "tennis", "atp", "wta", "grand slam", "australian open", "wimbledon", "us open", "roland garros"
+    };
+    private static final ThreadLocal<StringBuilder> WINDOW = ThreadLocal.withInitial(() -> new StringBuilder(TEXT_WINDOW));	//Buffer riutilizzato per thread
+
+    //Costruttore privato: classe di sole utilità statiche
+    private TennisPageClassifier() {}
+
+    //Metodo statico che verifica se la pagina appartiene a un tennista
+    public static boolean isTennisPlayer(Document doc) {
+        Element infobox = doc.selectFirst("table.infobox");	//Prima infobox della pagina
+        if (infobox != null) {
+            if (containsIgnoreCase(infobox.className(), "tennis")) return true;	//Template specifico del tennis (es. "infobox tennista")
+            if (hasTennisSportRow(infobox)) return true;	//Riga "Sport" con valore tennis
+            if (containsIgnoreCase(infobox.text(), "tennis")) return true;	//Testo dell'infobox (piccolo) che cita il tennis
+        }
+        for (Element category : doc.select("#mw-normal-catlinks a")) {	//Categorie della pagina (es. "Tennisti italiani")
+            if (containsIgnoreCase(category.text(), "tennis")) return true;
+        }
+        if (containsIgnoreCase(doc.title(), "tennis")) return true;	//Titolo della pagina (es. "..._(tennista)")
+        return windowContainsKeyword(doc);	//Ultima risorsa: finestra limitata del testo
+    }
+
+    //Metodo privato che cerca nell'infobox una riga "Sport" il cui valore contiene tennis
+    private static boolean hasTennisSportRow(Element infobox) {
+        for (Element th : infobox.select("th, td.infobox-label")) {	//Intestazioni delle righe
+            if (th.text().trim().equalsIgnoreCase("sport")) {
+                Element value = th.nextElementSibling();	//Cella valore accanto all'intestazione
+                return value != null && containsIgnoreCase(value.text(), "tennis");
+            }
+        }
+        return false;	//Nessuna riga Sport
+    }
+
+    //Metodo privato che copia al massimo TEXT_WINDOW caratteri del testo della pagina (minuscolo, spazi compressi) e cerca le parole chiave
+    private static boolean windowContainsKeyword(Document doc) {
+        Element root = doc.selectFirst("#mw-content-text");	//Contenuto dell'articolo (senza menu di navigazione)
+        if (root == null) root = doc.body();	//Se la struttura non è quella di Wikipedia uso il body
+        StringBuilder window = WINDOW.get();	//Buffer riutilizzato
+        window.setLength(0);
+        NodeTraversor.filter(new NodeFilter() {
+            @Override
+            public FilterResult head(Node node, int depth) {
+                if (window.length() >= TEXT_WINDOW) return FilterResult.STOP;	//Finestra piena: mi fermo
+                if (node instanceof TextNode) appendNormalized(window, ((TextNode) node).getWholeText());
+                return FilterResult.CONTINUE;
+            }
+
+            @Override
+            public FilterResult tail(Node node, int depth) {
+                return FilterResult.CONTINUE;
+            }
+        }, root);
+        for (String keyword : KEYWORDS) {	//Le parole chiave sono già in minuscolo
+            if (window.indexOf(keyword) >= 0) return true;
+        }
+        return false;
+    }
+
+    //Metodo privato che aggiunge il testo al buffer in minuscolo comprimendo gli spazi, senza allocare stringhe intermedie
+    private static void appendNormalized(StringBuilder window, String text) {
+        boolean space = window.length() > 0 && window.charAt(window.length() - 1) == ' ';	//Evito spazi doppi tra nodi
+        if (!space && window.length() > 0) {	//Separo il testo di nodi diversi con uno spazio
+            window.append(' ');
+            space = true;
+        }
+        for (int i = 0; i < text.length() && window.length() < TEXT_WINDOW; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == ' ') {	//Comprimo gli spazi
+                if (!space) window.append(' ');
+                space = true;
+            } else {
+                window.append(Character.toLowerCase(c));
+                space = false;
+            }
+        }
+    }
+
+    //Metodo statico che cerca una parola (in minuscolo) nel testo ignorando maiuscole e minuscole senza creare copie del testo
+    static boolean containsIgnoreCase(String text, String lowerNeedle) {
+        if (text == null) return false;
+        int max = text.length() - lowerNeedle.length();
+        for (int i = 0; i <= max; i++) {
+            if (text.regionMatches(true, i, lowerNeedle, 0, lowerNeedle.length())) return true;
+        }
+        return false;
+    }
+}
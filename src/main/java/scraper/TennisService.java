@@ -1,20 +1,26 @@
 package scraper;
 
+import cache.CacheSnapshot;
+import cache.TtlCache;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import jfr.ScrapeEvent;
+import metrics.MetricsRegistry;
+import metrics.Timer;
 import model.H2HData;
 import model.Match;
 import model.Player;
+import okhttp3.Call;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
-import org.openqa.selenium.*;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
+import replay.ReplayHarness;
+import tracing.Span;
+import tracing.Tracer;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,152 +31,252 @@ import java.util.regex.Pattern;
 4. Partite di oggi (Sofascore) - dinamico usando Selenium
  */
 public class TennisService {
+    private static final Pattern NOTE_PATTERN = Pattern.compile("\\[(?:nota )?\\d+\\]");	//Riferimenti e note di Wikipedia ([1], [nota 1])
+    private static final Pattern SPACES_PATTERN = Pattern.compile("\\s+");	//Sequenze di spazi
+    private static final Pattern RANKING_PATTERN = Pattern.compile("(\\d{1,3})(?:º|°|\\s|\\(|$)");	//Numero di ranking seguito da simboli comuni
+    private static final Pattern BIRTH_DATE_PATTERN = Pattern.compile("(\\d{1,2})\\s+\\w+\\s+(\\d{4})");	//Giorno, mese e anno di nascita
+    private static final long LOOKUP_TIMEOUT_MS = 15000;	//Tempo massimo complessivo per la ricerca speculativa di un giocatore
+    private static final long RANKING_INDEX_TTL_MS = TimeUnit.HOURS.toMillis(6);	//Validità dell'indice dei giocatori in classifica
+    public static final int RANKING_CACHE_SIZE = 100;	//Giocatori letti e tenuti in cache per classifica (le richieste più corte usano i primi)
+    private static final String SOFASCORE_SNAPSHOT = "sofascore-tennis";	//Nome dello snapshot del DOM di Sofascore per la registrazione/replay
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+    private static final Tracer TRACER = Tracer.getInstance();	//Tracing degli update
     private final OkHttpClient client;  //Dichiarazione di una variabile client OkHttpClient
+    private final ReplayHarness replay;	//Strato di registrazione/replay delle sorgenti esterne
+    private final ExecutorService lookupExecutor;	//Pool di thread per i tentativi paralleli di ricerca su Wikipedia
+    private final HedgedLookup<Player> hedgedLookup;	//Gestore delle ricerche speculative (hedged) dei giocatori
+    private volatile List<Player> rankingIndex = List.of();	//Indice in cache dei giocatori top 100 ATP e WTA
+    private volatile long rankingIndexBuiltAt;	//Istante in cui ho costruito l'indice delle classifiche
+    private final TtlCache<String, Player> playerCache = new TtlCache<>("giocatori", TimeUnit.HOURS.toMillis(6));	//Cache dei giocatori trovati (chiave: ricerca normalizzata)
+    private final TtlCache<String, MissReason> missCache = new TtlCache<>("ricerche fallite", TimeUnit.MINUTES.toMillis(30));	//Cache negativa delle ricerche fallite con il relativo motivo
+    private final TtlCache<String, List<Player>> rankingCache = new TtlCache<>("classifiche", TimeUnit.HOURS.toMillis(12));	//Classifiche lette (chiave: tipo), aggiornate dal RefreshScheduler
+    private final TtlCache<String, H2HData> h2hCache = new TtlCache<>("h2h", TimeUnit.HOURS.toMillis(6));	//Confronti testa a testa (chiave: i due nomi normalizzati)
+    private final TtlCache<String, String> imageCache = new TtlCache<>("immagini", TimeUnit.HOURS.toMillis(24));	//URL delle immagini dei giocatori trovate su Wikipedia
+    private final Map<String, Long> rankingRequestedAt = new ConcurrentHashMap<>();	//Ultima richiesta di ogni classifica da parte degli utenti
 
     //Costruttore della classe
     public TennisService() {
-        this.client = new OkHttpClient.Builder()    //Inizializzazione del client OkHttpClient
+        this(ReplayHarness.disabled());	//Nessuna registrazione o replay
+    }
+
+    //Costruttore che collega il servizio allo strato di registrazione/replay delle sorgenti esterne
+    public TennisService(ReplayHarness replay) {
+        this.replay = replay;
+        this.client = replay.configure(new OkHttpClient.Builder())    //Inizializzazione del client OkHttpClient
                 .connectTimeout(15, TimeUnit.SECONDS)
                 .readTimeout(15, TimeUnit.SECONDS)
                 .build();
+        this.lookupExecutor = Executors.newFixedThreadPool(4, runnable -> {	//Thread daemon per non bloccare lo spegnimento della JVM
+            Thread thread = new Thread(runnable, "wiki-lookup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hedgedLookup = new HedgedLookup<>(lookupExecutor, new LatencyTracker(128), 0.95, 300, 3000);	//Avvio le alternative oltre il p95 delle latenze (tra 300ms e 3s)
+        registerMetrics();	//Esporto cache e code nelle metriche
+    }
+
+    //Metodo privato che registra nelle metriche le cache e le code del servizio
+    private void registerMetrics() {
+        METRICS.registerCache(playerCache);
+        METRICS.registerCache(missCache);
+        METRICS.registerCache(rankingCache);
+        METRICS.registerCache(h2hCache);
+        METRICS.registerCache(imageCache);
+        METRICS.gauge("http_calls_queued", "Chiamate HTTP in coda nel client", () -> client.dispatcher().queuedCallsCount(), "client", "tennis");
+        METRICS.gauge("http_calls_running", "Chiamate HTTP in esecuzione nel client", () -> client.dispatcher().runningCallsCount(), "client", "tennis");
+        if (lookupExecutor instanceof ThreadPoolExecutor pool) {
+            METRICS.gauge("executor_queue_depth", "Attività in coda nei pool di thread", () -> pool.getQueue().size(), "pool", "wiki-lookup");
+        }
     }
 
     //==================== CLASSIFICHE (SCRAPING WIKIPEDIA) ====================
     //Metodo pubblico per prelevare n giocatori dalla classifica atp singolare
     public List<Player> getATPRankings(int limit) {
-        return getRankings(limit, "ATP_rankings", "atp");   //Richiamo il metodo getRankings con le informazioni corrette
+        return getRankings(limit, "atp");   //Richiamo il metodo getRankings con le informazioni corrette
     }
 
     //Metodo pubblico per prelevare n giocatori dalla classifica wta singolare
     public List<Player> getWTARankings(int limit) {
-        return getRankings(limit, "WTA_rankings", "wta");   //Richiamo il metodo getRankings con le informazioni corrette
+        return getRankings(limit, "wta");   //Richiamo il metodo getRankings con le informazioni corrette
     }
 
     //Metodo pubblico per prelevare n giocatori dalla classifica atp singolare annuale
     public List<Player> getRaceRankings(int limit) {
-        return getRankings(limit, "ATP_rankings", "race");  //Richiamo il metodo getRankings con le informazioni corrette
+        return getRankings(limit, "race");  //Richiamo il metodo getRankings con le informazioni corrette
     }
 
     //Metodo pubblico per prelevare n giocatori dalla classifica atp doppio
     public List<Player> getATPDoubleRankings(int limit) {
-        return getRankings(limit, "ATP_rankings", "atp_doppio");    //Richiamo il metodo getRankings con le informazioni corrette
+        return getRankings(limit, "atp_doppio");    //Richiamo il metodo getRankings con le informazioni corrette
     }
 
     //Metodo pubblico per prelevare n giocatori dalla classifica wta doppio
     public List<Player> getWTADoubleRankings(int limit) {
-        return getRankings(limit, "WTA_rankings", "wta_doppio");    //Richiamo il metodo getRankings con le informazioni corrette
+        return getRankings(limit, "wta_doppio");    //Richiamo il metodo getRankings con le informazioni corrette
+    }
+
+    //Metodo privato che ritorna i primi limit giocatori di una classifica, dalla cache se presente
+    private List<Player> getRankings(int limit, String type) {
+        rankingRequestedAt.put(type, System.currentTimeMillis());	//Domanda della classifica (per la frequenza degli aggiornamenti periodici)
+        if (limit > RANKING_CACHE_SIZE) return fetchRankings(limit, type);	//Richiesta più lunga di quelle in cache
+        List<Player> cached = rankingCache.get(type);
+        if (cached == null) {
+            cached = fetchRankings(RANKING_CACHE_SIZE, type);
+            if (!cached.isEmpty()) rankingCache.put(type, List.copyOf(cached));	//Una lettura fallita non va in cache
+        }
+        return new ArrayList<>(cached.subList(0, Math.min(limit, cached.size())));
+    }
+
+    //Metodo che rilegge una classifica da Wikipedia e la salva in cache (chiamato dal RefreshScheduler); lancia un'eccezione se la lettura fallisce
+    public void refreshRankings(String type) {
+        List<Player> players = fetchRankings(RANKING_CACHE_SIZE, type);
+        if (players.isEmpty()) throw new IllegalStateException("classifica " + type + " vuota o non disponibile");	//Tengo la versione in cache
+        rankingCache.put(type, List.copyOf(players));
+    }
+
+    //Metodo che ritorna l'istante (currentTimeMillis) dell'ultima richiesta di una classifica da parte degli utenti (0 se mai richiesta)
+    public long getRankingsRequestedAt(String type) {
+        return rankingRequestedAt.getOrDefault(type, 0L);
+    }
+
+    //Metodo che rimuove le voci scadute dalle cache del servizio e ritorna quante ne ha rimosse
+    public int evictExpired() {
+        return playerCache.evictExpired() + missCache.evictExpired() + rankingCache.evictExpired()
+                + h2hCache.evictExpired() + imageCache.evictExpired();
+    }
+
+    //Metodo che aggiunge le cache del servizio allo snapshot salvato tra un riavvio e l'altro
+    public void registerSnapshot(CacheSnapshot snapshot) {
+        TypeFactory types = snapshot.mapper().getTypeFactory();
+        snapshot.register(rankingCache, types.constructCollectionType(List.class, Player.class))
+                .register(playerCache, types.constructType(Player.class))
+                .register(missCache, types.constructType(MissReason.class))
+                .register(h2hCache, types.constructType(H2HData.class))
+                .register(imageCache, types.constructType(String.class));
     }
 
     //Metodo privato per la gestione dello scraping statico delle classifiche da Wikipedia
-    private List<Player> getRankings(int limit, String wikiPage, String type) {
+    private List<Player> fetchRankings(int limit, String type) {
+        String wikiPage = type.startsWith("wta") ? "WTA_rankings" : "ATP_rankings";	//Pagina di Wikipedia della classifica (race e doppio ATP sono nella pagina ATP)
         List<Player> players = new ArrayList<>();	//Inizializzo una ArrayList che conterrà i giocatori estratti
         System.out.println("🌐 Scraping classifiche " + type.toUpperCase() + " da Wikipedia...");	//Stampo a console il tipo di scraping che sto avviando
 
-        try {	//Avvio un blocco try per gestire eventuali eccezioni
+        try (Timer.Context timing = scrapeTimer("rankings_" + type).time(); Span span = scrapeSpan("rankings_" + type)) {	//Avvio un blocco try per gestire eventuali eccezioni, misurando la durata
             String url = "https://en.wikipedia.org/wiki/" + wikiPage;	//Costruisco l'URL completo della pagina Wikipedia
             Request request = new Request.Builder()	//Creo un oggetto Request per la chiamata HTTP
                     .url(url)	//Imposto l'URL della richiesta
                     .addHeader("User-Agent", "Mozilla/5.0")	//Aggiungo lo User-Agent per evitare blocchi lato server
                     .build();	//Costruisco la richiesta finale
-            try (Response response = client.newCall(request).execute()) {	//Eseguo la richiesta HTTP e salvo la risposta
+            try (ScrapeEvent event = ScrapeEvent.start("rankings_" + type, request.url().host());	//Evento JFR della pagina scaricata
+                 Response response = client.newCall(request).execute()) {	//Eseguo la richiesta HTTP e salvo la risposta
+                event.status(response.code());
                 if (!response.isSuccessful() || response.body() == null) {	//Controllo che la risposta sia valida
+                    countScrapeError("rankings_" + type);
                     return players;	//Se non è valida ritorno una lista vuota
                 }
 
                 String html = response.body().string();	//Estraggo il contenuto HTML dalla risposta
-                Document doc = Jsoup.parse(html);	//Parso l'HTML in un oggetto Document tramite Jsoup
-
-                Elements allTables = doc.select("table.wikitable");	//Seleziono tutte le tabelle con classe wikitable
-
-                int tableIndex = switch (type) {	//Decido quale tabella usare in base al tipo di classifica (uso un indice)
-                    case "race", "wta_doppio" -> 1;	//Per race e doppio WTA uso la seconda tabella
-                    case "atp" -> 2;	//Per ATP singolare uso la terza tabella
-                    case "atp_doppio" -> 4;	//Per ATP doppio uso la quinta tabella
-                    default -> 0;	//Di default uso la prima tabella
-                };
+                Document doc = event.parse(html);	//Parso l'HTML in un oggetto Document tramite Jsoup
 
-                int currentTableIndex = 0;	//Inizializzo il contatore delle tabelle valide trovate
+                players = parseRankings(doc, limit, type);	//Estraggo i giocatori dalle tabelle della pagina
+                System.out.println("✅ " + players.size() + " giocatori estratti");	//Stampo il numero di giocatori trovati
+            }
+        } catch (Exception e) {
+            countScrapeError("rankings_" + type);
+            System.out.println("❌ Errore scraping: " + e.getMessage());	//Gestisco eventuali errori generali di scraping
+        }
 
-                for (Element table : allTables) {	//Itero su tutte le tabelle trovate
-                    Elements headers = table.select("th");	//Estraggo le intestazioni della tabella
-                    String headerText = headers.text().toLowerCase();	//Converto il testo delle intestazioni in minuscolo
+        return players;	//Ritorno la lista finale dei giocatori
+    }
 
-                    if (headerText.contains("rank") || headerText.contains("player")) {	//Verifico che la tabella sia una classifica
-                        if ((type.equals("atp") || type.equals("atp_doppio") || type.equals("wta_doppio"))
-                                && currentTableIndex < tableIndex) {	//Salto le tabelle precedenti a quella desiderata
-                            currentTableIndex++;	//Incremento il contatore delle tabelle
-                            continue;	//Passo alla tabella successiva
+    //Metodo che estrae fino a limit giocatori dalla tabella di classifica del tipo richiesto (package-private per i benchmark)
+    List<Player> parseRankings(Document doc, int limit, String type) {
+        List<Player> players = new ArrayList<>();	//Lista dei giocatori estratti
+        Elements allTables = doc.select("table.wikitable");	//Seleziono tutte le tabelle con classe wikitable
+
+        int tableIndex = switch (type) {	//Decido quale tabella usare in base al tipo di classifica (uso un indice)
+            case "race", "wta_doppio" -> 1;	//Per race e doppio WTA uso la seconda tabella
+            case "atp" -> 2;	//Per ATP singolare uso la terza tabella
+            case "atp_doppio" -> 4;	//Per ATP doppio uso la quinta tabella
+            default -> 0;	//Di default uso la prima tabella
+        };
+
+        int currentTableIndex = 0;	//Inizializzo il contatore delle tabelle valide trovate
+
+        for (Element table : allTables) {	//Itero su tutte le tabelle trovate
+            Elements headers = table.select("th");	//Estraggo le intestazioni della tabella
+            String headerText = headers.text().toLowerCase();	//Converto il testo delle intestazioni in minuscolo
+
+            if (headerText.contains("rank") || headerText.contains("player")) {	//Verifico che la tabella sia una classifica
+                if ((type.equals("atp") || type.equals("atp_doppio") || type.equals("wta_doppio"))
+                        && currentTableIndex < tableIndex) {	//Salto le tabelle precedenti a quella desiderata
+                    currentTableIndex++;	//Incremento il contatore delle tabelle
+                    continue;	//Passo alla tabella successiva
+                }
+                System.out.println("✅ Usando tabella: " + table.select("caption").text());	//Stampo il nome della tabella scelta
+                Elements rows = table.select("tbody tr");	//Seleziono tutte le righe del corpo della tabella
+                int lastRanking = -1;	//Memorizzo l'ultimo ranking valido per gestire i pari merito "="
+                for (Element row : rows) {	//Itero su ogni riga della tabella
+                    if (players.size() >= limit) break;	//Mi fermo se ho raggiunto il limite di giocatori
+                    Elements cells = row.select("td");	//Estraggo tutte le celle della riga
+                    if (cells.size() < 3) continue;	//Scarto righe non valide o incomplete
+                    try {
+                        //-------------------- ESTRAZIONE DEL RANKING --------------------
+                        String rawRank = cells.get(0).text().trim();	//Estraggo il testo grezzo del ranking
+                        int ranking;	//Dichiaro la variabile ranking
+
+                        if (rawRank.equals("=")) {	//Se il ranking è "=" significa pari merito
+                            if (lastRanking == -1) continue;	//Se non ho un ranking precedente salto la riga
+                            ranking = lastRanking;	//Assegno lo stesso ranking precedente
+                        } else {
+                            String rankText = rawRank.replaceAll("[^0-9]", "");	//Rimuovo tutti i caratteri non numerici
+                            if (rankText.isEmpty()) continue;	//Se non resta nulla salto la riga
+                            ranking = Integer.parseInt(rankText);	//Converto il ranking in intero
+                            lastRanking = ranking;	//Salvo il ranking come ultimo valido
                         }
-                        System.out.println("✅ Usando tabella: " + table.select("caption").text());	//Stampo il nome della tabella scelta
-                        Elements rows = table.select("tbody tr");	//Seleziono tutte le righe del corpo della tabella
-                        int lastRanking = -1;	//Memorizzo l'ultimo ranking valido per gestire i pari merito "="
-                        for (Element row : rows) {	//Itero su ogni riga della tabella
-                            if (players.size() >= limit) break;	//Mi fermo se ho raggiunto il limite di giocatori
-                            Elements cells = row.select("td");	//Estraggo tutte le celle della riga
-                            if (cells.size() < 3) continue;	//Scarto righe non valide o incomplete
-                            try {
-                                //-------------------- ESTRAZIONE DEL RANKING --------------------
-                                String rawRank = cells.get(0).text().trim();	//Estraggo il testo grezzo del ranking
-                                int ranking;	//Dichiaro la variabile ranking
-
-                                if (rawRank.equals("=")) {	//Se il ranking è "=" significa pari merito
-                                    if (lastRanking == -1) continue;	//Se non ho un ranking precedente salto la riga
-                                    ranking = lastRanking;	//Assegno lo stesso ranking precedente
-                                } else {
-                                    String rankText = rawRank.replaceAll("[^0-9]", "");	//Rimuovo tutti i caratteri non numerici
-                                    if (rankText.isEmpty()) continue;	//Se non resta nulla salto la riga
-                                    ranking = Integer.parseInt(rankText);	//Converto il ranking in intero
-                                    lastRanking = ranking;	//Salvo il ranking come ultimo valido
-                                }
 
-                                //-------------------- NOME --------------------
-                                String name = "";	//Inizializzo una variabile per contenere il nome del giocatore
-                                for (int i = 1; i < Math.min(cells.size(), 4); i++) {	//Scorro alcune celle per trovare il nome
-                                    String cellText = cells.get(i).text().trim();	//Estraggo il testo della cella
-                                    if (cellText.split("\\s+").length >= 2 && !cellText.matches("^[0-9,]+$")) {	//Verifico che sembri un nome valido
-                                        name = cellText;	//Assegno il nome trovato
-                                        break;	//Esco dal ciclo
-                                    }
-                                }
-                                if (name.isEmpty()) continue;	//Se non ho trovato un nome valido salto la riga
-
-                                //-------------------- PUNTI --------------------
-                                int points = 0;	//Inizializzo i punti
-                                for (int i = 2; i < cells.size(); i++) {	//Scorro le celle alla ricerca dei punti
-                                    String pointsText = cells.get(i).text().replaceAll("[^0-9]", "");	//Estraggo solo i numeri
-                                    if (!pointsText.isEmpty() && pointsText.length() >= 3) {	//Controllo che siano plausibili
-                                        points = Integer.parseInt(pointsText);	//Converto i punti in intero
-                                        break;	//Esco dal ciclo
-                                    }
-                                }
+                        //-------------------- NOME --------------------
+                        String name = "";	//Inizializzo una variabile per contenere il nome del giocatore
+                        for (int i = 1; i < Math.min(cells.size(), 4); i++) {	//Scorro alcune celle per trovare il nome
+                            String cellText = cells.get(i).text().trim();	//Estraggo il testo della cella
+                            if (cellText.split("\\s+").length >= 2 && !cellText.matches("^[0-9,]+$")) {	//Verifico che sembri un nome valido
+                                name = cellText;	//Assegno il nome trovato
+                                break;	//Esco dal ciclo
+                            }
+                        }
+                        if (name.isEmpty()) continue;	//Se non ho trovato un nome valido salto la riga
+
+                        //-------------------- PUNTI --------------------
+                        int points = 0;	//Inizializzo i punti
+                        for (int i = 2; i < cells.size(); i++) {	//Scorro le celle alla ricerca dei punti
+                            String pointsText = cells.get(i).text().replaceAll("[^0-9]", "");	//Estraggo solo i numeri
+                            if (!pointsText.isEmpty() && pointsText.length() >= 3) {	//Controllo che siano plausibili
+                                points = Integer.parseInt(pointsText);	//Converto i punti in intero
+                                break;	//Esco dal ciclo
+                            }
+                        }
 
-                                //-------------------- NAZIONE --------------------
-                                String country = "Unknown";	//Imposto la nazione di default
-                                for (Element cell : cells) {	//Scorro tutte le celle
-                                    Elements imgs = cell.select("img");	//Cerco eventuali immagini
-                                    if (!imgs.isEmpty()) {	//Se trovo un'immagine
-                                        String alt = imgs.first().attr("alt");	//Leggo l'attributo alt
-                                        if (!alt.isEmpty() && alt.length() < 50) {	//Verifico che sia una nazione valida
-                                            country = cleanCountry(alt);	//Pulisco e assegno il nome della nazione
-                                            break;	//Esco dal ciclo
-                                        }
-                                    }
+                        //-------------------- NAZIONE --------------------
+                        String country = "Unknown";	//Imposto la nazione di default
+                        for (Element cell : cells) {	//Scorro tutte le celle
+                            Elements imgs = cell.select("img");	//Cerco eventuali immagini
+                            if (!imgs.isEmpty()) {	//Se trovo un'immagine
+                                String alt = imgs.first().attr("alt");	//Leggo l'attributo alt
+                                if (!alt.isEmpty() && alt.length() < 50) {	//Verifico che sia una nazione valida
+                                    country = cleanCountry(alt);	//Pulisco e assegno il nome della nazione
+                                    break;	//Esco dal ciclo
                                 }
-                                players.add(new Player(name, country, ranking, points, 0));	//Creo e aggiungo il Player alla lista
-                            } catch (Exception e) {
-                                //Salto la riga in caso di errore di parsing
                             }
                         }
-                        if (!players.isEmpty()) break;	//Se ho estratto giocatori interrompo la ricerca
+                        players.add(new Player(name, country, ranking, points, 0));	//Creo e aggiungo il Player alla lista
+                    } catch (Exception e) {
+                        //Salto la riga in caso di errore di parsing
                     }
                 }
-                System.out.println("✅ " + players.size() + " giocatori estratti");	//Stampo il numero di giocatori trovati
+                if (!players.isEmpty()) break;	//Se ho estratto giocatori interrompo la ricerca
             }
-        } catch (Exception e) {
-            System.out.println("❌ Errore scraping: " + e.getMessage());	//Gestisco eventuali errori generali di scraping
         }
-
-        return players;	//Ritorno la lista finale dei giocatori
+        return players;	//Ritorno i giocatori estratti
     }
 
     //Metodo per pulire il nome dei paesi
@@ -183,47 +289,124 @@ public class TennisService {
     }
 
     //==================== RICERCA GIOCATORE (SCRAPING WIKIPEDIA) ====================
-    //Metodo per cercare un giocatore su Wikipedia
+    //Metodo per cercare un giocatore su Wikipedia con richieste speculative (it.wikipedia, poi in parallelo variante tennista e indice classifiche)
     public Player searchPlayer(String playerName) {
+        String key = normalizeQuery(playerName);	//Normalizzo la ricerca per usarla come chiave delle cache
+        Player cached = playerCache.get(key);	//Controllo se ho già trovato questo giocatore
+        if (cached != null) {
+            System.out.println("⚡ Giocatore in cache: " + cached.getNome());
+            return cached;
+        }
+        if (missCache.get(key) != null) return null;	//Ricerca già fallita di recente: non ripeto il percorso costoso
+
         System.out.println("🔍 Cercando pagina Wikipedia per: " + playerName);	//Stampo a console il nome del giocatore che sto cercando
 
-        try {
-            String wikiName = formatWikipediaName(playerName);	//Formatto correttamente il nome per l'URL di Wikipedia
-            String url = "https://it.wikipedia.org/wiki/" + wikiName;	//Costruisco l'URL della pagina Wikipedia
-            System.out.println("📄 URL Wikipedia: " + url);	//Stampo l'URL che verrà interrogato
-            Request request = new Request.Builder()	//Creo una nuova richiesta HTTP
-                    .url(url)
-                    .addHeader("User-Agent", "Mozilla/5.0")
-                    .build();
-            try (Response response = client.newCall(request).execute()) {	//Eseguo la richiesta e ottengo la risposta
-                if (!response.isSuccessful()) {	//Controllo se la risposta non è andata a buon fine
-                    System.out.println("❌ Pagina non trovata: " + response.code());	//Stampo il codice di errore HTTP
-                    System.out.println("🔄 Tentativo ricerca nelle classifiche...");	//Avviso che proverò una ricerca alternativa
-                    return searchInRankings(playerName);	//Cerco il giocatore nelle classifiche
-                }
+        String wikiName = formatWikipediaName(playerName);	//Formatto correttamente il nome per l'URL di Wikipedia
+        Object tag = new Object();	//Tag che identifica le chiamate HTTP di questa ricerca per poterle cancellare
+        Set<MissReason> reasons = ConcurrentHashMap.newKeySet();	//Motivi di fallimento raccolti dai vari tentativi
+        List<Callable<Player>> alternatives = new ArrayList<>();	//Tentativi alternativi da avviare se la primaria è lenta o fallisce
+        alternatives.add(TRACER.propagate(() -> fetchWikipediaPlayer("https://it.wikipedia.org/wiki/" + wikiName + "_(tennista)", playerName, tag, reasons)));	//Variante di disambiguazione
+        if (isRankingIndexFresh()) {	//Uso l'indice delle classifiche solo se è già in cache (non costa nulla)
+            alternatives.add(() -> findInRankingIndex(playerName));
+        }
 
-                String html = response.body().string();	//Estraggo il contenuto HTML della pagina
-                Document doc = Jsoup.parse(html);	//Parso l'HTML in un oggetto Document con Jsoup
+        try (Timer.Context timing = scrapeTimer("search_player").time(); Span span = scrapeSpan("search_player")) {	//Misuro la ricerca speculativa
+            Player player = hedgedLookup.execute(
+                    TRACER.propagate(() -> fetchWikipediaPlayer("https://it.wikipedia.org/wiki/" + wikiName, playerName, tag, reasons)),	//Richiesta primaria (i tentativi sui thread del pool restano nella traccia dell'update)
+                    alternatives, LOOKUP_TIMEOUT_MS);
+            if (player != null) {	//Controllo se un tentativo è andato a buon fine
+                System.out.println("✅ Giocatore trovato: " + player.getNome());	//Stampo il nome del giocatore trovato
+                playerCache.put(key, player);	//Salvo il giocatore in cache
+                return player;	//Ritorno l'oggetto Player
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();	//Ripristino il flag di interruzione
+            return null;
+        } finally {
+            cancelCalls(tag);	//Cancello le richieste HTTP ancora in corso dei tentativi perdenti
+        }
 
-                if (!isTennisPlayer(doc)) {	//Verifico che la pagina appartenga a un giocatore di tennis
-                    System.out.println("⚠️ Non è un giocatore di tennis");	//Stampo un avviso se non è un tennista
-                    return null;	//Ritorno null perché il soggetto non è valido
-                }
+        System.out.println("🔄 Tentativo ricerca nelle classifiche...");	//Avviso che proverò una ricerca alternativa
+        Player player = searchInRankings(playerName);	//Cerco il giocatore nelle classifiche
+        if (player != null) {
+            playerCache.put(key, player);	//Salvo il giocatore in cache
+        } else {
+            MissReason reason = reasons.contains(MissReason.NOT_TENNIS_PLAYER) ? MissReason.NOT_TENNIS_PLAYER	//La pagina esiste ma non è di un tennista
+                    : reasons.contains(MissReason.NOT_FOUND) ? MissReason.NOT_FOUND	//Nessuna pagina trovata
+                    : MissReason.NETWORK_ERROR;	//Solo errori di rete, oppure nessun tentativo ha risposto entro il timeout: lo ricordo per poco
+            missCache.put(key, reason, reason.getTtlMs());	//Ricordo il fallimento con una durata più breve delle voci positive
+            System.out.println("🚫 Ricerca fallita salvata in cache: " + reason);
+        }
+        return player;
+    }
 
-                Player player = extractPlayerInfo(doc, playerName);	//Estraggo le informazioni del giocatore dalla pagina
+    //Metodo pubblico che ritorna il motivo di una ricerca fallita senza contarlo nelle statistiche della cache
+    public MissReason peekCachedMiss(String playerName) {
+        return missCache.peek(normalizeQuery(playerName));
+    }
 
-                if (player != null) {	//Controllo se l'estrazione è andata a buon fine
-                    System.out.println("✅ Giocatore trovato: " + player.getNome());	//Stampo il nome del giocatore trovato
-                    return player;	//Ritorno l'oggetto Player
-                } else {
-                    System.out.println("❌ Impossibile estrarre dati giocatore");	//Stampo errore di estrazione dati
-                    return null;	//Ritorno null in caso di fallimento
-                }
+    //Metodo pubblico che ritorna le statistiche delle cache di ricerca giocatori
+    public String getCacheStats() {
+        return "🗄️ CACHE RICERCHE\n" +
+                playerCache.stats() + "\n" +
+                missCache.stats() + "\n";
+    }
+
+    //Metodo statico che normalizza una ricerca (minuscolo, spazi singoli) per usarla come chiave
+    static String normalizeQuery(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    //Metodo privato che scarica una pagina Wikipedia e, se è di un tennista, ne estrae il giocatore (null in caso contrario, registrando il motivo)
+    private Player fetchWikipediaPlayer(String url, String playerName, Object tag, Set<MissReason> reasons) throws Exception {
+        System.out.println("📄 URL Wikipedia: " + url);	//Stampo l'URL che verrà interrogato
+        Request request = new Request.Builder()	//Creo una nuova richiesta HTTP
+                .url(url)
+                .addHeader("User-Agent", "Mozilla/5.0")
+                .tag(tag)	//Associo il tag della ricerca per poterla cancellare
+                .build();
+        Call call = client.newCall(request);	//Tengo la chiamata per sapere se è stata cancellata
+        try (Timer.Context timing = scrapeTimer("wikipedia_page").time(); Span span = scrapeSpan("wikipedia_page");
+             ScrapeEvent event = ScrapeEvent.start("wikipedia_page", request.url().host());
+             Response response = call.execute()) {	//Eseguo la richiesta e ottengo la risposta
+            span.tag("url", url);	//Pagina richiesta, per distinguere i tentativi nella traccia
+            event.status(response.code());
+            if (!response.isSuccessful() || response.body() == null) {	//Controllo se la risposta non è andata a buon fine
+                System.out.println("❌ Pagina non trovata: " + response.code() + " (" + url + ")");	//Stampo il codice di errore HTTP
+                reasons.add(response.code() == 404 ? MissReason.NOT_FOUND : MissReason.NETWORK_ERROR);	//404 = pagina inesistente, altrimenti errore del server
+                return null;
             }
 
-        } catch (Exception e) {
-            System.out.println("❌ Errore ricerca: " + e.getMessage());	//Gestisco eventuali errori durante la ricerca
-            return searchInRankings(playerName);	//In caso di errore provo comunque la ricerca nelle classifiche
+            String html = response.body().string();	//Estraggo il contenuto HTML della pagina
+            Document doc = event.parse(html);	//Parso l'HTML in un oggetto Document con Jsoup
+
+            if (!isTennisPlayer(doc)) {	//Verifico che la pagina appartenga a un giocatore di tennis
+                System.out.println("⚠️ Non è un giocatore di tennis (" + url + ")");	//Stampo un avviso se non è un tennista
+                reasons.add(MissReason.NOT_TENNIS_PLAYER);
+                return null;	//Ritorno null perché il soggetto non è valido
+            }
+
+            Player player = extractPlayerInfo(doc, playerName);	//Estraggo le informazioni del giocatore dalla pagina
+            if (player == null) {
+                System.out.println("❌ Impossibile estrarre dati giocatore");	//Stampo errore di estrazione dati
+                reasons.add(MissReason.NOT_FOUND);
+            }
+            return player;
+        } catch (java.io.IOException e) {
+            if (call.isCanceled() || Thread.currentThread().isInterrupted()) throw e;	//Tentativo perdente cancellato da cancelCalls: non è un errore di rete
+            countScrapeError("wikipedia_page");
+            reasons.add(MissReason.NETWORK_ERROR);	//Errore di connessione o timeout
+            throw e;
+        }
+    }
+
+    //Metodo privato che cancella tutte le chiamate HTTP (in coda o in esecuzione) associate a un tag
+    private void cancelCalls(Object tag) {
+        for (Call call : client.dispatcher().queuedCalls()) {	//Chiamate in coda
+            if (call.request().tag() == tag) call.cancel();
+        }
+        for (Call call : client.dispatcher().runningCalls()) {	//Chiamate in esecuzione
+            if (call.request().tag() == tag) call.cancel();
         }
     }
 
@@ -249,26 +432,7 @@ public class TennisService {
 
     //Metodo privato che verifica se la pagina appartiene a un tennista
     private boolean isTennisPlayer(Document doc) {
-        String pageText = doc.text().toLowerCase();	//Estraggo tutto il testo della pagina e lo converto in minuscolo
-
-        boolean isTennista = pageText.contains("tennis") ||	//Controllo se il testo contiene la parola tennis
-                pageText.contains("atp") ||	//Controllo se viene menzionato il circuito ATP
-                pageText.contains("wta") ||	//Controllo se viene menzionato il circuito WTA
-                pageText.contains("grand slam") ||	//Controllo la presenza del termine Grand Slam
-                pageText.contains("australian open") ||	//Controllo se è citato l'Australian Open
-                pageText.contains("wimbledon") ||	//Controllo se è citato Wimbledon
-                pageText.contains("us open") ||	//Controllo se è citato lo US Open
-                pageText.contains("roland garros");	//Controllo se è citato il Roland Garros
-
-        Elements infobox = doc.select("table.infobox");	//Seleziono la tabella infobox della pagina Wikipedia
-        if (!infobox.isEmpty()) {	//Verifico che l'infobox sia presente
-            String infoboxText = infobox.text().toLowerCase();	//Estraggo il testo dell'infobox e lo converto in minuscolo
-            if (infoboxText.contains("tennis") ||	//Controllo se nell'infobox compare la parola tennis
-                    infoboxText.contains("sport") && infoboxText.contains("tennis")) {	//Oppure se è indicato lo sport come tennis
-                return true;	//Se una delle condizioni è vera confermo che è un tennista
-            }
-        }
-        return isTennista;	//Ritorno il risultato basato sulla presenza di parole chiave nel testo della pagina
+        return TennisPageClassifier.isTennisPlayer(doc);	//Classificatore basato su infobox, categorie e finestra limitata di testo
     }
 
     //Metodo privato per estrarre le informazioni su un giocatore
@@ -280,20 +444,21 @@ public class TennisService {
                 return null;	//Ritorno null perché non posso estrarre i dati
             }
             Element table = infobox.first();	//Recupero la prima infobox trovata
+            Infobox index = Infobox.of(table);	//Indicizzo le righe dell'infobox in un solo passaggio
 
             String nome = extractFromTable(table, searchName);	//Estraggo il nome del giocatore
-            String nazionalita = extractNationality(table);	//Estraggo la nazionalità del giocatore
-            String altezza = cleanText(extractFromTableRow(table, "Altezza"));	//Estraggo e pulisco il valore dell’altezza
-            String peso = cleanText(extractFromTableRow(table, "Peso"));	//Estraggo e pulisco il valore del peso
-            String datanascita = extractBirthDate(table);	//Estraggo la data di nascita
-            int ranking = extractRanking(table);	//Estraggo il ranking attuale
-            String migliorRanking = cleanText(extractFromTableRow(table, "Miglior ranking"));	//Estraggo il miglior ranking in carriera
-            String vittorie = cleanText(extractFromTableRow(table, "Vittorie/sconfitte"));	//Estraggo il record vittorie/sconfitte
-            String titoliSingolo = cleanText(extractFromTableRow(table, "Titoli vinti"));	//Estraggo il numero di titoli vinti
-            String grandslamVinti = extractGrandSlams(table);	//Estraggo i Grand Slam vinti
-            String manoPreferita = cleanText(extractFromTableRow(table, "Mano"));	//Estraggo la mano preferita
-            String allenatore = cleanText(extractFromTableRow(table, "Allenatore"));	//Estraggo il nome dell’allenatore
-            String premiMonetari = cleanText(extractFromTableRow(table, "Montepremi", "Palmares"));	//Estraggo i premi monetari guadagnati
+            String nazionalita = extractNationality(index);	//Estraggo la nazionalità del giocatore
+            String altezza = cleanText(index.value("Altezza"));	//Estraggo e pulisco il valore dell’altezza
+            String peso = cleanText(index.value("Peso"));	//Estraggo e pulisco il valore del peso
+            String datanascita = extractBirthDate(index);	//Estraggo la data di nascita
+            int ranking = extractRanking(index);	//Estraggo il ranking attuale
+            String migliorRanking = cleanText(index.value("Miglior ranking"));	//Estraggo il miglior ranking in carriera
+            String vittorie = cleanText(index.value("Vittorie/sconfitte"));	//Estraggo il record vittorie/sconfitte
+            String titoliSingolo = cleanText(index.value("Titoli vinti"));	//Estraggo il numero di titoli vinti
+            String grandslamVinti = extractGrandSlams(index);	//Estraggo i Grand Slam vinti
+            String manoPreferita = cleanText(index.value("Mano"));	//Estraggo la mano preferita
+            String allenatore = cleanText(index.value("Allenatore"));	//Estraggo il nome dell’allenatore
+            String premiMonetari = cleanText(index.value("Montepremi", "Palmares"));	//Estraggo i premi monetari guadagnati
             String imageUrl = extractImageUrl(table);	//Estraggo l’URL dell’immagine del giocatore
 
             int eta = calculateAge(datanascita);	//Calcolo l’età del giocatore dalla data di nascita
@@ -376,30 +541,20 @@ public class TennisService {
         }
     }
 
-    //Metodo privato per pulire il testo rimuovendo note e spazi extra
-    private String cleanText(String text) {
+    //Metodo per pulire il testo rimuovendo note e spazi extra (package-private per i benchmark)
+    String cleanText(String text) {
         if (text == null) return null;	//Se il testo è null ritorno null immediatamente
-        text = text.replaceAll("\\[\\d+\\]", "");	//Rimuovo riferimenti numerici tipo [1], [2], ecc.
-        text = text.replaceAll("\\[nota \\d+\\]", "");	//Rimuovo note come [nota 1], [nota 2], ecc.
-        text = text.replaceAll("\\s+", " ");	//Sostituisco sequenze di spazi multipli con un singolo spazio
+        text = NOTE_PATTERN.matcher(text).replaceAll("");	//Rimuovo riferimenti numerici tipo [1] e note come [nota 1]
+        text = SPACES_PATTERN.matcher(text).replaceAll(" ");	//Sostituisco sequenze di spazi multipli con un singolo spazio
         return text.trim();	//Rimuovo spazi iniziali e finali e ritorno il testo pulito
     }
 
-    //Metodo privato per estrarre la data di nascita di un giocatore
-    private String extractBirthDate(Element table) {
-        Elements rows = table.select("tr");	//Seleziono tutte le righe della tabella
-        for (Element row : rows) {	//Itero su ogni riga
-            Elements th = row.select("th, td.infobox-label");	//Seleziono le intestazioni o celle con classe infobox-label
-            if (th.isEmpty()) continue;	//Se non ci sono intestazioni salto la riga
-            String header = th.first().text().toLowerCase();	//Estraggo il testo della prima intestazione e lo converto in minuscolo
-            if ((header.contains("data di nascita") ||	//Controllo se la riga contiene "data di nascita"
-                    (header.contains("nato") && !header.contains("nazionalità")))) {	//Oppure se contiene "nato" ma non "nazionalità"
-
-                Elements td = row.select("td");	//Seleziono le celle di dati della riga
-                if (!td.isEmpty()) {	//Se esiste almeno una cella
-                    return cleanText(td.first().text().trim());	//Ritorno il testo pulito e senza spazi superflui
-                }
-            }
+    //Metodo per estrarre la data di nascita di un giocatore (package-private per i benchmark)
+    String extractBirthDate(Infobox infobox) {
+        Infobox.Row row = infobox.find("Data di nascita");	//Cerco la riga della data di nascita
+        if (row == null) row = infobox.find("Nato");	//Altrimenti una riga che contiene "nato"
+        if (row != null && !row.label.contains("nazionalità")) {	//Scarto le etichette che parlano di nazionalità
+            return cleanText(row.valueText());	//Ritorno il testo pulito e senza spazi superflui
         }
         return null;	//Se non trovo la data ritorno null
     }
@@ -416,11 +571,11 @@ public class TennisService {
         return defaultName;	//Se non trovo il nome ritorno quello di default passato come parametro
     }
 
-    //Metodo privato che estrae la nazionalità del giocatore dall’infobox
-    private String extractNationality(Element table) {
-        Elements rows = table.select("tr");	//Seleziono tutte le righe della tabella
-        for (Element row : rows) {	//Itero su ogni riga
-            if (row.text().toLowerCase().contains("nazionalità")) {	//Controllo se la riga contiene il termine "nazionalità"
+    //Metodo che estrae la nazionalità del giocatore dall’infobox (package-private per i benchmark)
+    String extractNationality(Infobox infobox) {
+        for (Infobox.Row indexed : infobox.rows()) {	//Itero su ogni riga indicizzata
+            if (indexed.textLower.contains("nazionalità")) {	//Controllo se la riga contiene il termine "nazionalità"
+                Element row = indexed.element;	//Elemento tr originale
                 Elements links = row.select("a");	//Seleziono tutti i link presenti nella riga
                 for (Element link : links) {	//Itero su ogni link
                     String text = link.text().trim();	//Estraggo il testo e rimuovo spazi superflui
@@ -437,32 +592,12 @@ public class TennisService {
         return "Unknown";	//Se non trovo la nazionalità ritorno "Unknown"
     }
 
-    //Metodo privato che estrae il valore di una riga dell’infobox basandosi su parole chiave
-    private String extractFromTableRow(Element table, String... keywords) {
-        Elements rows = table.select("tr");	//Seleziono tutte le righe della tabella
-        for (Element row : rows) {	//Itero su ogni riga
-            Elements th = row.select("th, td.infobox-label");	//Seleziono le intestazioni o celle con classe infobox-label
-            if (th.isEmpty()) continue;	//Se non ci sono intestazioni salto la riga
-            String header = th.first().text().toLowerCase();	//Estraggo il testo della prima intestazione e lo converto in minuscolo
-            for (String keyword : keywords) {	//Itero su tutte le parole chiave passate come parametro
-                if (header.contains(keyword.toLowerCase())) {	//Controllo se l’intestazione contiene la parola chiave
-                    Elements td = row.select("td");	//Seleziono le celle di dati della riga
-                    if (!td.isEmpty()) {	//Se esiste almeno una cella
-                        return td.first().text().trim();	//Ritorno il testo della cella, pulito da spazi superflui
-                    }
-                }
-            }
-        }
-        return null;	//Se non trovo nulla ritorno null
-    }
-
-    //Metodo privato che estrae il ranking attuale del giocatore dall’infobox
-    private int extractRanking(Element table) {
-        String rankingText = extractFromTableRow(table, "Ranking attuale");	//Estraggo il testo della riga con la parola chiave "Ranking attuale"
+    //Metodo che estrae il ranking attuale del giocatore dall’infobox (package-private per i benchmark)
+    int extractRanking(Infobox infobox) {
+        String rankingText = infobox.value("Ranking attuale");	//Estraggo il testo della riga con la parola chiave "Ranking attuale"
         if (rankingText != null) {	//Se il testo è valido
             rankingText = cleanText(rankingText);	//Lo pulisco da note e spazi extra
-            Pattern pattern = Pattern.compile("(\\d{1,3})(?:º|°|\\s|\\(|$)");	//Creo un pattern regex per catturare un numero da 1 a 3 cifre seguito da simboli comuni
-            Matcher matcher = pattern.matcher(rankingText);	//Creo il matcher per applicare il pattern al testo
+            Matcher matcher = RANKING_PATTERN.matcher(rankingText);	//Applico il pattern precompilato (numero da 1 a 3 cifre seguito da simboli comuni)
             if (matcher.find()) {	//Se trovo una corrispondenza
                 try {
                     return Integer.parseInt(matcher.group(1));	//Converto il numero trovato in intero e lo ritorno
@@ -474,18 +609,17 @@ public class TennisService {
         return 0;	//Se non trovo il ranking ritorno 0
     }
 
-    //Metodo privato che estrae i risultati dei Grand Slam dall’infobox
-    private String extractGrandSlams(Element table) {
+    //Metodo che estrae i risultati dei Grand Slam dall’infobox (package-private per i benchmark)
+    String extractGrandSlams(Infobox infobox) {
         Map<String, StringBuilder> grandSlamResults = new LinkedHashMap<>();	//Creo una mappa ordinata per categorie di gioco
         grandSlamResults.put("Singolare", new StringBuilder());	//Inizializzo la categoria Singolare
         grandSlamResults.put("Doppio", new StringBuilder());	//Inizializzo la categoria Doppio
         grandSlamResults.put("Doppio Misto", new StringBuilder());	//Inizializzo la categoria Doppio Misto
 
-        Elements rows = table.select("tr");	//Seleziono tutte le righe della tabella
         String currentCategory = null;	//Variabile per tenere traccia della categoria corrente
 
-        for (Element row : rows) {	//Itero su ogni riga
-            String rowText = row.text().toLowerCase();	//Estraggo il testo della riga in minuscolo
+        for (Infobox.Row indexed : infobox.rows()) {	//Itero su ogni riga indicizzata
+            String rowText = indexed.textLower;	//Testo della riga in minuscolo già calcolato dall'indice
 
             if (rowText.contains("singolare")) {	//Se la riga indica Singolare
                 currentCategory = "Singolare";	//Imposto la categoria corrente
@@ -500,7 +634,7 @@ public class TennisService {
 
             if (currentCategory == null) continue;	//Se non ho ancora una categoria valida salto la riga
 
-            Elements cells = row.select("th, td");	//Seleziono tutte le celle della riga
+            Elements cells = indexed.element.select("th, td");	//Seleziono tutte le celle della riga (solo nelle sezioni Grand Slam)
             if (cells.size() < 2) continue;	//Se ci sono meno di due celle salto la riga
 
             String tournament = cells.get(0).text();	//Estraggo il nome del torneo dalla prima cella
@@ -533,8 +667,7 @@ public class TennisService {
     private int calculateAge(String birthDate) {
         if (birthDate == null || birthDate.isEmpty()) return 0;	//Se la data è nulla o vuota ritorno 0
         try {
-            Pattern pattern = Pattern.compile("(\\d{1,2})\\s+\\w+\\s+(\\d{4})");	//Creo un pattern regex per catturare giorno, mese e anno
-            Matcher matcher = pattern.matcher(birthDate);	//Creo un matcher per applicare il pattern al testo della data
+            Matcher matcher = BIRTH_DATE_PATTERN.matcher(birthDate);	//Applico il pattern precompilato (giorno, mese e anno)
             if (matcher.find()) {	//Se trovo una corrispondenza
                 int year = Integer.parseInt(matcher.group(2));	//Estraggo l’anno
                 int currentYear = java.time.Year.now().getValue();	//Ottengo l’anno corrente
@@ -549,18 +682,28 @@ public class TennisService {
     //Metodo privato che cerca un giocatore nelle classifiche ATP e WTA come fallback
     private Player searchInRankings(String playerName) {
         System.out.println("🔄 Ricerca fallback nelle classifiche...");	//Stampo a console che sto usando la ricerca alternativa
-
-        List<Player> atpPlayers = getATPRankings(100);	//Recupero i primi 100 giocatori ATP
-        for (Player player : atpPlayers) {	//Itero su ogni giocatore ATP
-            if (player.getNome().toLowerCase().contains(playerName.toLowerCase())) {	//Se il nome del giocatore contiene il testo cercato (case-insensitive)
-                System.out.println("✅ Trovato in ATP rankings");	//Stampo conferma
-                return player;	//Ritorno il giocatore trovato
+        if (!isRankingIndexFresh()) {	//Ricostruisco l'indice solo se è scaduto
+            List<Player> index = new ArrayList<>(getATPRankings(100));	//Recupero i primi 100 giocatori ATP
+            index.addAll(getWTARankings(100));	//Recupero i primi 100 giocatori WTA
+            if (!index.isEmpty()) {	//Salvo l'indice solo se lo scraping ha prodotto risultati
+                rankingIndex = index;
+                rankingIndexBuiltAt = System.currentTimeMillis();
             }
         }
-        List<Player> wtaPlayers = getWTARankings(100);	//Recupero i primi 100 giocatori WTA
-        for (Player player : wtaPlayers) {	//Itero su ogni giocatore WTA
-            if (player.getNome().toLowerCase().contains(playerName.toLowerCase())) {	//Se il nome del giocatore contiene il testo cercato
-                System.out.println("✅ Trovato in WTA rankings");	//Stampo conferma
+        return findInRankingIndex(playerName);	//Cerco il giocatore nell'indice
+    }
+
+    //Metodo privato che controlla se l'indice delle classifiche in cache è ancora valido
+    private boolean isRankingIndexFresh() {
+        return !rankingIndex.isEmpty() && System.currentTimeMillis() - rankingIndexBuiltAt < RANKING_INDEX_TTL_MS;
+    }
+
+    //Metodo privato che cerca un giocatore nell'indice delle classifiche in cache
+    private Player findInRankingIndex(String playerName) {
+        String search = playerName.toLowerCase();	//Confronto case-insensitive
+        for (Player player : rankingIndex) {	//Itero sui giocatori ATP e poi WTA
+            if (player.getNome().toLowerCase().contains(search)) {	//Se il nome del giocatore contiene il testo cercato
+                System.out.println("✅ Trovato nelle classifiche");	//Stampo conferma
                 return player;	//Ritorno il giocatore trovato
             }
         }
@@ -588,11 +731,27 @@ public class TennisService {
     }
 
     //==================== HEAD TO HEAD (SCAPRING MATCHSTAT CON IMMAGINI WIKIPEDIA) ====================
-    //Metodo pubblico per ottenere dati H2H tra due giocatori
+    //Metodo pubblico per ottenere dati H2H tra due giocatori (dalla cache se già richiesti di recente)
     public H2HData getH2HData(String player1, String player2) {
+        String key = normalizeQuery(player1) + "|" + normalizeQuery(player2);	//Chiave della cache (l'ordine dei giocatori conta)
+        H2HData cached = h2hCache.get(key);
+        if (cached != null) return cached;
+        H2HData h2hData = fetchH2HData(player1, player2);
+        if (h2hData != null) h2hCache.put(key, h2hData);	//Le letture fallite non vanno in cache
+        return h2hData;
+    }
+
+    //Metodo privato che scarica i dati H2H tra due giocatori da Matchstat e le immagini da Wikipedia
+    private H2HData fetchH2HData(String player1, String player2) {
         H2HData h2hData = new H2HData();	//Creo un oggetto H2HData per salvare i dati
 
-        try {	//Blocco try per gestire eventuali errori
+        Future<String> image1 = null;	//Ricerche delle immagini avviate in parallelo a Matchstat
+        Future<String> image2 = null;
+        try (Timer.Context timing = scrapeTimer("h2h").time(); Span span = scrapeSpan("h2h")) {	//Blocco try per gestire eventuali errori, misurando la durata
+            //Le immagini dipendono solo dai nomi: le cerco su Wikipedia mentre scarico le statistiche
+            image1 = lookupExecutor.submit(TRACER.propagate(() -> getPlayerImageFromWikipedia(player1)));
+            image2 = lookupExecutor.submit(TRACER.propagate(() -> getPlayerImageFromWikipedia(player2)));
+
             //OTTENGO STATISTICHE DA MATCHSTAT
             String formattedPlayer1 = formatPlayerNameForURL(player1);	//Formatto il nome del primo giocatore per l’URL
             String formattedPlayer2 = formatPlayerNameForURL(player2);	//Formatto il nome del secondo giocatore
@@ -607,14 +766,17 @@ public class TennisService {
                     .addHeader("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")	//Imposto User-Agent
                     .build();	//Costruisco la richiesta
 
-            try (Response response = client.newCall(request).execute()) {	//Eseguo la richiesta
+            try (ScrapeEvent event = ScrapeEvent.start("h2h", request.url().host());	//Evento JFR della pagina scaricata
+                 Response response = client.newCall(request).execute()) {	//Eseguo la richiesta
+                event.status(response.code());
                 if (!response.isSuccessful() || response.body() == null) {	//Se la risposta non è valida
+                    countScrapeError("h2h");
                     System.out.println("❌ Errore HTTP: " + response.code());	//Stampo errore
                     return null;	//Ritorno null
                 }
 
                 String html = response.body().string();	//Leggo il corpo della risposta
-                Document doc = Jsoup.parse(html);	//Parso l’HTML con Jsoup
+                Document doc = event.parse(html);	//Parso l’HTML con Jsoup
 
                 h2hData.setPlayer1Name(player1);	//Imposto i nomi dei giocatori inizialmente
                 h2hData.setPlayer2Name(player2);
@@ -703,8 +865,8 @@ public class TennisService {
             //OTTENGO IMMAGINI DA WIKIPEDIA
             System.out.println("📸 Recupero immagini da Wikipedia...");
 
-            String img1 = getPlayerImageFromWikipedia(player1);	//Recupero immagine giocatore 1
-            String img2 = getPlayerImageFromWikipedia(player2);	//Recupero immagine giocatore 2
+            String img1 = awaitImage(image1);	//Recupero immagine giocatore 1 (ricerca già avviata)
+            String img2 = awaitImage(image2);	//Recupero immagine giocatore 2
 
             if (img1 != null) {	//Se trovata
                 h2hData.setPlayer1Image(img1);	//Imposto l’immagine
@@ -723,15 +885,41 @@ public class TennisService {
             return h2hData;	//Ritorno l’oggetto H2HData completo
 
         } catch (Exception e) {	//Gestione errori generali
+            countScrapeError("h2h");
             System.out.println("❌ Errore scraping H2H: " + e.getMessage());	//Stampo messaggio di errore
             e.printStackTrace();	//Stampo stack trace
             return null;	//Ritorno null in caso di errore
+        } finally {
+            if (image1 != null) image1.cancel(true);	//Ricerche non più necessarie (es. Matchstat non ha risposto)
+            if (image2 != null) image2.cancel(true);
+        }
+    }
+
+    //Metodo privato che attende la ricerca di un'immagine avviata in parallelo (null se fallisce o supera il tempo massimo)
+    private String awaitImage(Future<String> image) {
+        try {
+            return image.get(LOOKUP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | java.util.concurrent.TimeoutException e) {	//Nome completo: Selenium ha una TimeoutException omonima
+            return null;
         }
     }
 
-    //Metodo privato per recuperare l’immagine di un giocatore da Wikipedia
+    //Metodo privato per recuperare l’immagine di un giocatore da Wikipedia (dalla cache se già trovata)
     private String getPlayerImageFromWikipedia(String playerName) {
-        try {	//Blocco try per gestire errori
+        String key = normalizeQuery(playerName);
+        String cached = imageCache.get(key);
+        if (cached != null) return cached;
+        String imageUrl = fetchPlayerImage(playerName);
+        if (imageUrl != null) imageCache.put(key, imageUrl);	//Salvo solo le immagini trovate
+        return imageUrl;
+    }
+
+    //Metodo privato che cerca l'immagine di un giocatore nell'infobox della sua pagina su Wikipedia
+    private String fetchPlayerImage(String playerName) {
+        try (Timer.Context timing = scrapeTimer("player_image").time(); Span span = scrapeSpan("player_image")) {	//Blocco try per gestire errori, misurando la durata
             String wikiName = formatWikipediaName(playerName);	//Formatto il nome del giocatore per l’URL di Wikipedia
             String url = "https://it.wikipedia.org/wiki/" + wikiName;	//Costruisco l’URL della pagina
 
@@ -742,14 +930,16 @@ public class TennisService {
                     .addHeader("User-Agent", "Mozilla/5.0")	//Imposto User-Agent
                     .build();
 
-            try (Response response = client.newCall(request).execute()) {	//Eseguo la richiesta
+            try (ScrapeEvent event = ScrapeEvent.start("player_image", request.url().host());	//Evento JFR della pagina scaricata
+                 Response response = client.newCall(request).execute()) {	//Eseguo la richiesta
+                event.status(response.code());
                 if (!response.isSuccessful() || response.body() == null) {	//Se la risposta non è valida
                     System.out.println("   ⚠️ Pagina non trovata per: " + playerName);	//Stampo avviso
                     return null;	//Ritorno null
                 }
 
                 String html = response.body().string();	//Leggo il corpo della risposta
-                Document doc = Jsoup.parse(html);	//Parso l’HTML con Jsoup
+                Document doc = event.parse(html);	//Parso l’HTML con Jsoup
 
                 //Verifico che sia un tennista
                 if (!isTennisPlayer(doc)) {	//Controllo se la pagina appartiene a un tennista
@@ -772,6 +962,7 @@ public class TennisService {
             }
 
         } catch (Exception e) {	//Gestione errori
+            countScrapeError("player_image");
             System.out.println("   ❌ Errore recupero immagine per " + playerName + ": " + e.getMessage());	//Stampo errore
             return null;	//Ritorno null in caso di errore
         }
@@ -833,262 +1024,44 @@ public class TennisService {
     //==================== PARTITE DI OGGI (SCAPRING DINAMICO SELENIUM DA SOFASCORE) ====================
     //Metodo pubblico per recuperare gli ultimi match dal sito Sofascore utilizzando Selenuim
     public List<Match> getRecentMatches() {
-        List<Match> matches = new ArrayList<>();	//Creo una lista vuota per salvare i match
-        ChromeOptions options = new ChromeOptions();	//Configuro le opzioni di ChromeDriver
-        options.addArguments("--headless");	//Esecuzione in modalità headless (senza finestra)
-        options.addArguments("--disable-blink-features=AutomationControlled");	//Disabilita rilevamento automazione
-        options.addArguments("--window-size=1920,1080");	//Imposto dimensioni finestra
-        WebDriver driver = new ChromeDriver(options);	//Creo l’istanza di WebDriver
-        JavascriptExecutor js = (JavascriptExecutor) driver;	//Cast per eseguire JS
-        Set<String> processedTexts = new HashSet<>();	//Set per evitare duplicati
-        String currentTournament = "Generale";	//Torneo corrente
-        String currentLocation = "";	//Luogo corrente
-        boolean waitingForLocation = false;	//Flag per indicare che il prossimo testo è la location
-
-        try {
-            driver.get("https://www.sofascore.com/it/tennis");	//Accedo alla pagina dei match
-            Thread.sleep(2000);	//Piccola pausa per il caricamento
-            int maxScrolls = 180;	//Numero massimo di scroll per caricare contenuti
-            for (int scroll = 0; scroll < maxScrolls; scroll++) {
-                List<WebElement> elements = driver.findElements(By.cssSelector("a[href^='/it/tennis/']"));	//Seleziono tutti i link rilevanti
-                for (WebElement el : elements) {
-                    try {
-                        String text = el.getText().trim();	//Recupero testo dell’elemento
-                        if (text.isEmpty()) continue;	//Ignoro testo vuoto
-                        //───── TITOLO TORNEO ─────
-                        if (isTournamentTitle(text)) {	//Se è titolo torneo
-                            currentTournament = text;	//Aggiorno torneo corrente
-                            currentLocation = "";	//Resetto location
-                            waitingForLocation = true;	//Flag per leggere location al prossimo testo
-                            continue;
-                        }
-                        //───── LUOGO TORNEO (non funziona ma comunque fa una prova) ─────
-                        if (waitingForLocation && currentLocation.isEmpty() && isLocationLine(text)) {	//Se attendo la location
-                            currentLocation = text;	//Aggiorno location
-                            waitingForLocation = false;	//Resetto flag
-                            continue;
-                        }
-                        //───── MATCH ─────
-                        if (!text.contains("\n")) continue;	//Ignoro elementi che non contengono dati match
-                        if (!processedTexts.add(text)) continue;	//Ignoro duplicati
-                        MatchTextData data = parseMatchText(text);	//Estraggo i dati del match
-                        if (!data.isValid() || data.time.isEmpty() || !data.hasValidStatus()) continue;	//Se non valido, salto
-                        //Creo il match impostando i dati corretti
-                        Match match = new Match(
-                                currentTournament,
-                                currentLocation,
-                                data.players.get(0),
-                                data.players.get(1),
-                                data.time,
-                                data.time,
-                                0
-                        );
-                        match.setStatus(data.status);	//Imposto lo status del match
-                        //Salvo il punteggio del game corrente se LIVE
-                        if (data.currentGame != null && !data.currentGame.isEmpty()) {
-                            match.setCurrentGame(data.currentGame);	//Imposto punteggio game corrente
-                        }
-                        //Punteggio dettagliato
-                        if (!data.scores.isEmpty()) {
-                            String scoreString = String.join(" ", data.scores);	//Combino i set in una stringa
-                            match.setDetailedScore(scoreString);	//Imposto punteggio dettagliato
-                            //Se è finita, calcolo il numero di set vinti da ciascuno
-                            if (data.status.equals("FINE") || data.status.equals("A tavolino")) {
-                                int player1Sets = 0;
-                                int player2Sets = 0;
-                                for (String set : data.scores) {	//Itero sui set
-                                    String[] parts = set.replaceAll("\\(\\d+\\)", "").split("-");	//Rimuovo eventuali numeri tra parentesi e split
-                                    if (parts.length != 2) continue;
-                                    try {
-                                        int score1 = Integer.parseInt(parts[0].trim());	//Parso punteggio giocatore 1
-                                        int score2 = Integer.parseInt(parts[1].trim());	//Parso punteggio giocatore 2
-
-                                        if (score1 > score2) player1Sets++;	//Incremento set vinti
-                                        else if (score2 > score1) player2Sets++;
-                                    } catch (NumberFormatException e) {
-                                        //Ignoro set non valido
-                                    }
-                                }
-                                int maxSets = Math.max(player1Sets, player2Sets);
-                                int minSets = Math.min(player1Sets, player2Sets);
-                                match.setSetScore(maxSets + "-" + minSets);	//Imposto punteggio set
-                            }
-                        }
-                        //Determino il vincitore se partita finita
-                        if (data.status.equals("FINE") || data.status.equals("A tavolino")) {
-                            String winner = determineWinner(data);	//Calcolo vincitore
-                            if (winner != null) {
-                                match.setWinner(winner);	//Imposto vincitore
-                            }
-                        }
-                        matches.add(match);	//Aggiungo il match alla lista
-                    } catch (StaleElementReferenceException ignored) {}	//Ignoro eccezioni di elementi non più presenti
-                }
-                js.executeScript("window.scrollBy(0, 400);");	//Scroll verso il basso per caricare nuovi elementi
-                Thread.sleep(50);	//Piccola pausa
-            }
-        } catch (StopScraperException e) {	//Gestisco interruzioni personalizzate
-            System.out.println("⛔ " + e.getMessage());
-        } catch (Exception e) {	//Gestione errori generali
-            e.printStackTrace();
-        } finally {
-            driver.quit();	//Chiudo il driver in ogni caso
-        }
-        return matches;	//Ritorno la lista di match
-    }
-
-    //Metodo statico privato per indicare se una riga rappresenta una location
-    private static boolean isLocationLine(String text) {
-        return text.matches("^[A-Za-z .'-]+,\\s*[A-Za-z .'-]+.*$");	//Verifica se il testo ha il formato "Città, Nazione" con eventuali caratteri speciali, spazi o punti
-    }
-
-    //Metodo privato utilizzato per determinare il vincitore di un match
-    private String determineWinner(MatchTextData data) {	//Riceve un oggetto MatchTextData contenente punteggi e giocatori
-        if (data.players.size() < 2 || data.scores.isEmpty()) {	//Se ci sono meno di 2 giocatori o nessun set
-            return null;	//Non è possibile determinare il vincitore
-        }
-        int player1Sets = 0;	//Contatore set vinti dal giocatore 1
-        int player2Sets = 0;	//Contatore set vinti dal giocatore 2
-        //Analizzo ogni set (formato: "6-4" o "7-6(3)")
-        for (String setScore : data.scores) {
-            String[] parts = setScore.replaceAll("\\(\\d+\\)", "").split("-");	//Rimuovo tie-break tra parentesi e divido i punteggi
-            if (parts.length != 2) continue;	//Ignoro set non validi
-
-            try {
-                int score1 = Integer.parseInt(parts[0].trim());	//Parso punteggio giocatore 1
-                int score2 = Integer.parseInt(parts[1].trim());	//Parso punteggio giocatore 2
-                if (score1 > score2) {	//Se giocatore 1 ha vinto il set
-                    player1Sets++;
-                } else if (score2 > score1) {	//Se giocatore 2 ha vinto il set
-                    player2Sets++;
-                }
-            } catch (NumberFormatException e) {
-                //Ignoro set non validi
-            }
-        }
-        //Chi ha vinto più set ha vinto la partita
-        if (player1Sets > player2Sets) {	//Giocatore 1 ha vinto più set
-            return data.players.get(0);
-        } else if (player2Sets > player1Sets) {	//Giocatore 2 ha vinto più set
-            return data.players.get(1);
-        }
-        return null; //Caso di parità, ma dovrebbe essere impossibile
-    }
-
-    //Metodo statico privato che crea un oggetto MatchTextData da una Stringa ottenuta dal parsing
-    private static MatchTextData parseMatchText(String text) {
-        MatchTextData data = new MatchTextData();	//Creo un nuovo oggetto per memorizzare i dati del match
-        String[] lines = text.split("\n");	//Divido il testo in righe, ogni riga contiene un'informazione diversa
-        List<String> allNumbers = new ArrayList<>();	//Creo una lista temporanea per salvare numeri o punti live
-        for (String line : lines) {
-            line = line.trim();	//Rimuovo spazi iniziali e finali
-            if (line.isEmpty()) continue;	//Salto righe vuote
-            if (line.matches("\\d{1,2}:\\d{2}")) data.time = line;	//Se la riga è orario (HH:MM), la salvo
-            else if (line.matches("LIVE|FINE|SRF|A tavolino|.*set|-|Annullata|Iniziato")) data.status = line;	//Se è status, lo salvo
-            else if (line.matches("\\d{1,2}-\\d{1,2}(\\(\\d+\\))?")) data.scores.add(line);	//Se è punteggio completo, lo aggiungo
-            else if (line.matches("\\d+|A")) allNumbers.add(line);	//Se è numero o "A", lo salvo in allNumbers
-            else data.players.add(line);	//Altrimenti considero la riga come nome di un giocatore
-        }
-        //Se non ho punteggi già formattati ma ho numeri
-        if (data.scores.isEmpty() && !allNumbers.isEmpty()) {
-            boolean isLive = data.status.equals("LIVE") || data.status.matches("[1-5]º set");	//Controllo se il match è live
-            if (isLive && allNumbers.size() >= 2) data.currentGame = allNumbers.get(0) + "-" + allNumbers.get(1);	//Salvo punteggio live dei primi due numeri
-            data.scores = parseScoreNumbers(allNumbers, isLive);	//Ricostruisco i punteggi dai numeri
-        }
-        return data;	//Ritorno l'oggetto con tutti i dati parsati
-    }
-
-    //Metodo statico privato che da una stringa di numeri apparentemente senza significato, ritorna i set corretti (es. 40 40 6 5 3 2 1 0 --> game in corso: 40-40, set: 6-3 5-2)
-    private static List<String> parseScoreNumbers(List<String> allNumbers, boolean isLive) {
-        List<String> sets = new ArrayList<>();	//Creo la lista dei set finali da restituire
-        //Se LIVE, scarto i primi due valori perché li ho già salvati in currentGame
-        List<String> setNumbers;
-        if (isLive && allNumbers.size() > 2) setNumbers = allNumbers.subList(2, allNumbers.size());
-        else setNumbers = new ArrayList<>(allNumbers);	//Altrimenti uso tutti i numeri
-        //Converti solo valori numerici per i set
-        List<Integer> scores = new ArrayList<>();
-        for (String s : setNumbers) {
-            try {
-                int num = Integer.parseInt(s);
-                scores.add(num);	//Salvo il numero valido
-            } catch (NumberFormatException e) {
-                //Ignoro lettere come "A" nei punteggi dei set
-            }
-        }
-        //Rimuovo gli ultimi due numeri se rappresentano il punteggio totale dei set
-        if (scores.size() >= 2) scores = scores.subList(0, scores.size() - 2);
-        //Ignoro l'ultimo numero se la lista è dispari
-        if (scores.size() % 2 != 0) scores = scores.subList(0, scores.size() - 1);
-        if (scores.isEmpty()) return sets;	//Se non ci sono punteggi, ritorno lista vuota
-        int numSets = scores.size() / 2;	//Calcolo il numero di set
-        //Ricostruisco i set: player1[i] vs player2[i]
-        for (int i = 0; i < numSets; i++) {
-            int score1 = scores.get(i);
-            int score2 = scores.get(i + numSets);
-            if (isValidTennisScore(score1, score2)) {
-                String setScore = score1 + "-" + score2;
-                sets.add(setScore);	//Aggiungo il set valido alla lista
-                //Se il set è 7-6 o 6-7, aggiungo il tiebreak
-                if ((score1 == 7 && score2 == 6) || (score1 == 6 && score2 == 7)) {
-                    if (i + 1 < numSets) {
-                        int nextNum = Math.min(scores.get(i + 1), scores.get(i + numSets + 1));
-                        sets.set(sets.size() - 1, setScore + "(" + nextNum + ")");	//Aggiungo il tiebreak al set
-                        i++;	//Salto il prossimo numero perché già usato per il tiebreak
+        MatchBoardBuilder board = new MatchBoardBuilder();	//Costruisco la lista dei match dai testi letti
+        if (replay.isReplaying()) {	//In replay rileggo i testi registrati senza avviare il browser
+            try (Timer.Context timing = scrapeTimer("recent_matches").time(); Span span = scrapeSpan("recent_matches");
+                 ScrapeEvent event = ScrapeEvent.start("recent_matches", SofascoreBrowser.HOST)) {	//Evento JFR come per la lettura con il browser
+                List<String> texts = replay.replaySnapshot(SOFASCORE_SNAPSHOT);
+                if (texts == null) {
+                    countScrapeError("recent_matches");	//Snapshot mancante o errore simulato
+                } else {
+                    for (String text : texts) {
+                        event.text(text);
+                        if (!board.accept(text)) break;
                     }
                 }
-            } else {
-                break;	//Se il set non è valido, interrompo il parsing
             }
+            return board.getMatches();
         }
-        return sets;	//Ritorno la lista dei set ricostruiti
-    }
 
-    //Metodo statico privato per verificare la correttezza di un set
-    private static boolean isValidTennisScore(int score1, int score2) {
-        return score1 >= 0 && score2 >= 0;  //Controllo che i valori dei set siano positivi
-    }
-
-    //Classe interna di supporto per salvare temporaneamente le informazioni sul Match
-    private static class MatchTextData {
-        String time = "";	//Salvo l’orario del match
-        List<String> players = new ArrayList<>();	//Memorizzo i nomi dei giocatori
-        List<String> scores = new ArrayList<>();	//Contengo i punteggi dei set
-        String status = "";	//Indico lo stato del match (LIVE, FINE, ecc.)
-        String currentGame = "";	//Memorizzo il punteggio del game corrente (LIVE)
-
-        boolean isValid() {
-            return players.size() >= 2;	//Controllo che ci siano almeno due giocatori
+        List<String> recorded = replay.isRecording() ? new ArrayList<>() : null;	//Testi letti da salvare come snapshot
+        try (Timer.Context timing = scrapeTimer("recent_matches").time(); Span span = scrapeSpan("recent_matches");	//Misuro la lettura della pagina
+             ScrapeEvent event = ScrapeEvent.start("recent_matches", SofascoreBrowser.HOST)) {	//Evento JFR della lettura con il browser
+            if (!SofascoreBrowser.read(board, recorded, event)) countScrapeError("recent_matches");	//Selenium viene caricato solo qui, alla prima lettura delle partite
         }
+        if (recorded != null) replay.recordSnapshot(SOFASCORE_SNAPSHOT, recorded);	//Salvo lo snapshot del DOM per il replay
+        return board.getMatches();	//Ritorno la lista di match
+    }
 
-        boolean hasValidStatus() {
-            if (status == null || status.isEmpty()) return false;	//Scarto stati nulli o vuoti
-            return status.equals("LIVE") || status.equals("FINE") || status.equals("A tavolino") ||
-                    status.equals("SRF") || status.equals("Annullata") || status.equals("Iniziato") ||
-                    status.equals("-") || status.contains("set");	//Verifico che lo stato sia riconosciuto
-        }
+    //Metodo statico privato che ritorna il timer di un'operazione di scraping
+    private static Timer scrapeTimer(String operation) {
+        return METRICS.timer("scraper_operation_seconds", "Durata delle operazioni di scraping", "operation", operation);
     }
 
-    //Metodo statico privato per verificare che il torneo trovato sia tra quelli validi e non sia 'poco interessante'
-    private static boolean isTournamentTitle(String text) {
-        String upper = text.toUpperCase();	//Converto il testo in maiuscolo per controlli case-insensitive
-        if (upper.contains("ATP 125") || upper.contains("WTA 125") ||
-                upper.contains("ITF") || upper.contains("CHALLENGER")) {
-            throw new StopScraperException("Torneo non interessante: " + text);	//Blocco subito i tornei che non mi interessano
-        }
-        String[] allowedTournaments = {
-                "Grande Slam", "Masters 1000", "ATP 250", "ATP 500", "WTA 250",
-                "WTA 500", "WTA 1000", "United Cup"
-        };	//Definisco la lista dei tornei accettati
-        for (String t : allowedTournaments) {
-            if (text.equals(t) || text.startsWith(t)) return true;	//Accetto il torneo se corrisponde o inizia con un nome valido
-        }
-        return false;	//Rifiuto tutto ciò che non rientra nei tornei consentiti
+    //Metodo statico privato che apre lo span di un'operazione di scraping nella traccia corrente
+    private static Span scrapeSpan(String operation) {
+        return TRACER.span("scraper." + operation);
     }
 
-    //Eccezione personalizzata per interrompere lo scraping nel caso si trovi un torneo non interessante
-    private static class StopScraperException extends RuntimeException {
-        public StopScraperException(String message) {
-            super(message);	//Passo il messaggio all'eccezione RuntimeException
-        }
+    //Metodo statico privato che conta un errore di scraping (HTTP non valido o eccezione)
+    private static void countScrapeError(String operation) {
+        METRICS.counter("scraper_errors_total", "Errori delle operazioni di scraping", "operation", operation).inc();
     }
-}
\ No newline at end of file
+}
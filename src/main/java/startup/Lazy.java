@@ -0,0 +1,76 @@
+package startup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/*Classe Lazy: un servizio creato alla prima richiesta (get) invece che all'avvio.
+La creazione avviene una sola volta anche con più thread; il tempo impiegato viene registrato nello StartupTimer.
+Con whenInitialized si collega al servizio qualcosa che non deve crearlo (es. lo snapshot delle cache): viene eseguito alla creazione.
+ */
+public final class Lazy<T> implements Supplier<T> {
+    private final String name;	//Nome del servizio (usato nello StartupTimer)
+    private Supplier<T> factory;	//Creazione del servizio (null dopo la creazione)
+    private volatile T value;
+    private List<Consumer<T>> onInit = new ArrayList<>();	//Azioni da eseguire alla creazione (null dopo la creazione)
+
+    private Lazy(String name, Supplier<T> factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    //Metodo statico che ritorna un servizio creato alla prima richiesta
+    public static <T> Lazy<T> of(String name, Supplier<T> factory) {
+        return new Lazy<>(name, factory);
+    }
+
+    //Metodo statico che ritorna un servizio già creato
+    public static <T> Lazy<T> ready(String name, T value) {
+        Lazy<T> lazy = new Lazy<>(name, null);
+        lazy.value = value;
+        lazy.onInit = null;
+        return lazy;
+    }
+
+    //Metodo che ritorna il servizio, creandolo se è la prima richiesta
+    @Override
+    public T get() {
+        T current = value;
+        if (current != null) return current;
+        synchronized (this) {
+            if (value == null) {
+                long start = System.nanoTime();
+                T created = factory.get();
+                factory = null;	//La factory può tenere riferimenti che non servono più
+                StartupTimer.getInstance().lazyInit(name, System.nanoTime() - start);
+                for (Consumer<T> action : onInit) {	//Prima di pubblicarlo: la prima richiesta trova già le cache rilette
+                    try {
+                        action.accept(created);
+                    } catch (RuntimeException e) {	//Un'azione fallita non impedisce di usare il servizio
+                        System.err.println("⚠️ Azione alla creazione di " + name + " fallita: " + e.getMessage());
+                    }
+                }
+                onInit = null;
+                value = created;
+            }
+            return value;
+        }
+    }
+
+    //Metodo che esegue action sul servizio quando viene creato, oppure subito se è già stato creato (senza crearlo)
+    public void whenInitialized(Consumer<T> action) {
+        synchronized (this) {
+            if (value == null) {
+                onInit.add(action);
+                return;
+            }
+        }
+        action.accept(value);
+    }
+
+    //Metodo che indica se il servizio è già stato creato
+    public boolean isInitialized() {
+        return value != null;
+    }
+}
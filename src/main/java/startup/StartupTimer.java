@@ -0,0 +1,79 @@
+package startup;
+
+import metrics.MetricsRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*Classe StartupTimer (singleton) che misura l'avvio del bot fase per fase:
+1. "jvm": dall'avvio della JVM al primo uso dello StartupTimer (all'inizio di main; è la parte che l'archivio AppCDS accorcia)
+2. Le fasi segnate da Main con phase (es. "config", "bot", "register"): ognuna dura dalla fase precedente
+3. I servizi creati alla prima richiesta (Lazy), con il loro tempo di creazione
+4. Il tempo dall'avvio della JVM alla consegna della prima risposta
+Le durate finiscono anche nelle metriche (startup_phase_seconds{phase}).
+ */
+public class StartupTimer {
+    private static StartupTimer instance;	//Istanza unica
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+
+    private final long jvmStartNanos;	//Avvio della JVM, sulla scala di System.nanoTime
+    private long lastMarkNanos;	//Fine della fase precedente
+    private final Map<String, Long> phases = new LinkedHashMap<>();	//Fase -> durata in nanosecondi
+    private volatile long firstUpdateNanos;	//Dall'avvio della JVM alla prima risposta consegnata (0 finché non arriva)
+
+    private StartupTimer() {
+        long now = System.nanoTime();
+        this.jvmStartNanos = now - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+        this.lastMarkNanos = now;
+        record("jvm", now - jvmStartNanos);
+    }
+
+    //Metodo statico che ritorna l'istanza unica (la prima chiamata segna la fine della fase "jvm")
+    public static synchronized StartupTimer getInstance() {
+        if (instance == null) instance = new StartupTimer();
+        return instance;
+    }
+
+    //Metodo che chiude la fase name: la sua durata va dalla fase precedente a ora
+    public synchronized void phase(String name) {
+        long now = System.nanoTime();
+        record(name, now - lastMarkNanos);
+        lastMarkNanos = now;
+    }
+
+    //Metodo che registra la creazione di un servizio alla prima richiesta (chiamato da Lazy)
+    synchronized void lazyInit(String name, long nanos) {
+        record("lazy_" + name, nanos);
+        System.out.println("⏱ " + name + " creato alla prima richiesta in " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms");
+    }
+
+    //Metodo che registra la consegna della prima risposta (le chiamate successive non fanno nulla)
+    public void firstUpdateHandled() {
+        if (firstUpdateNanos != 0) return;
+        synchronized (this) {
+            if (firstUpdateNanos != 0) return;
+            firstUpdateNanos = System.nanoTime() - jvmStartNanos;
+            record("first_update", firstUpdateNanos);
+        }
+        System.out.println("⏱ Prima risposta consegnata " + TimeUnit.NANOSECONDS.toMillis(firstUpdateNanos) + " ms dopo l'avvio della JVM");
+    }
+
+    //Metodo che ritorna le fasi misurate come testo
+    public synchronized String report() {
+        StringBuilder out = new StringBuilder("⏱ AVVIO\n");
+        long total = lastMarkNanos - jvmStartNanos;
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            out.append(String.format("  %-20s %6d ms%n", phase.getKey(), TimeUnit.NANOSECONDS.toMillis(phase.getValue())));
+        }
+        out.append(String.format("  %-20s %6d ms", "totale", TimeUnit.NANOSECONDS.toMillis(total)));
+        return out.toString();
+    }
+
+    //Metodo privato che salva la durata di una fase e la esporta nelle metriche
+    private void record(String name, long nanos) {
+        phases.put(name, nanos);
+        METRICS.gauge("startup_phase_seconds", "Durata delle fasi di avvio del bot", () -> nanos / 1e9, "phase", name);
+    }
+}
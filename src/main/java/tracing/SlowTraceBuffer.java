@@ -0,0 +1,36 @@
+package tracing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+//Classe SlowTraceBuffer: buffer circolare di dimensione fissa con le ultime tracce lente (la più vecchia viene sovrascritta)
+public class SlowTraceBuffer {
+    private final Span[] traces;
+    private int next;	//Prossima posizione da sovrascrivere
+    private int count;	//Tracce presenti
+
+    //Costruttore che riceve il numero massimo di tracce conservate
+    public SlowTraceBuffer(int capacity) {
+        this.traces = new Span[Math.max(1, capacity)];
+    }
+
+    //Metodo che aggiunge una traccia completata
+    public synchronized void add(Span root) {
+        traces[next] = root;
+        next = (next + 1) % traces.length;
+        if (count < traces.length) count++;
+    }
+
+    //Metodo che ritorna le tracce presenti ordinate dalla più lenta
+    public synchronized List<Span> slowestFirst() {
+        List<Span> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) result.add(traces[i]);
+        result.sort(Comparator.comparingLong(Span::durationNanos).reversed());
+        return result;
+    }
+
+    public int capacity() {
+        return traces.length;
+    }
+}
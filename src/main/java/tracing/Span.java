@@ -0,0 +1,108 @@
+package tracing;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*Classe Span: un'operazione misurata all'interno della traccia di un update (es. db.saveUser, scraper.h2h, telegram.sendMessage).
+Lo span radice rappresenta l'intero update; gli altri sono figli dello span corrente del thread (vedi Tracer).
+Quando il campionamento è disattivato si usa NOOP, che non registra nulla.
+ */
+public class Span implements AutoCloseable {
+    static final Span NOOP = new Span(null, null, "");	//Span vuoto: nessun costo oltre alla chiamata
+    private static final int MAX_SPANS_PER_TRACE = 200;	//Limite di span per traccia (es. invii di messaggi molto lunghi)
+
+    private final Tracer tracer;
+    private final Span parent;
+    private final Span root;
+    private final String name;
+    private final long startNanos;
+    private final long startedAtMillis;	//Orario di inizio (solo per lo span radice)
+    private final List<Span> children = new ArrayList<>();	//Span figli (accesso sincronizzato sulla radice)
+    private final AtomicInteger spanCount;	//Span creati nella traccia (solo sulla radice)
+    private StringBuilder tags;	//Dettagli "chiave=valore"
+    private volatile long endNanos;	//0 finché lo span è in corso
+
+    //Costruttore package-private: gli span si creano da Tracer
+    Span(Tracer tracer, Span parent, String name) {
+        this.tracer = tracer;
+        this.parent = parent;
+        this.root = parent != null ? parent.root : this;
+        this.name = name;
+        this.startNanos = System.nanoTime();
+        this.startedAtMillis = parent == null ? System.currentTimeMillis() : 0;
+        this.spanCount = parent == null ? new AtomicInteger(1) : null;
+    }
+
+    //Metodo che aggiunge un dettaglio allo span (ignorato se lo span non viene registrato)
+    public Span tag(String key, Object value) {
+        if (tracer == null || value == null) return this;
+        synchronized (root) {
+            if (tags == null) tags = new StringBuilder();
+            tags.append(' ').append(key).append('=').append(value);
+        }
+        return this;
+    }
+
+    public boolean isRecording() {
+        return tracer != null;
+    }
+
+    //Metodo che chiude lo span: lo span corrente del thread torna al padre e, se è la radice, la traccia viene consegnata al Tracer
+    @Override
+    public void close() {
+        if (tracer == null || endNanos != 0) return;
+        endNanos = System.nanoTime();
+        tracer.onClose(this);
+    }
+
+    //Metodo package-private che crea uno span figlio (NOOP se la traccia ha raggiunto il limite di span)
+    Span child(String name) {
+        if (root.spanCount.incrementAndGet() > MAX_SPANS_PER_TRACE) return NOOP;
+        Span child = new Span(tracer, this, name);
+        synchronized (root) {
+            children.add(child);
+        }
+        return child;
+    }
+
+    Span getParent() { return parent; }
+    boolean isRoot() { return parent == null; }
+
+    //Metodo che ritorna la durata in nanosecondi (fino ad ora se lo span è ancora in corso)
+    public long durationNanos() {
+        long end = endNanos;
+        return (end != 0 ? end : System.nanoTime()) - startNanos;
+    }
+
+    //Metodo package-private che scrive la traccia (da chiamare sulla radice) come albero testuale
+    void render(StringBuilder out) {
+        synchronized (root) {
+            out.append("⏱ ").append(millis(durationNanos())).append(" ms · ").append(name);
+            if (tags != null) out.append(" ·").append(tags);
+            out.append(" · ").append(new SimpleDateFormat("dd/MM HH:mm:ss").format(new Date(startedAtMillis))).append('\n');
+            for (Span child : children) child.renderChild(out, 1);
+            int dropped = spanCount.get() - MAX_SPANS_PER_TRACE;
+            if (dropped > 0) out.append("  … altri ").append(dropped).append(" span non registrati\n");
+        }
+    }
+
+    //Metodo privato che scrive uno span figlio con il suo scostamento dall'inizio della traccia
+    private void renderChild(StringBuilder out, int depth) {
+        out.append("  ".repeat(depth))
+                .append('+').append(millis(startNanos - root.startNanos)).append(" ms  ")
+                .append(millis(durationNanos())).append(" ms  ")
+                .append(name);
+        if (tags != null) out.append(tags);
+        if (endNanos == 0) out.append(" (in corso)");
+        out.append('\n');
+        for (Span child : children) child.renderChild(out, depth + 1);
+    }
+
+    //Metodo statico privato che converte i nanosecondi in millisecondi
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,111 @@
+package tracing;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*Classe Tracer (singleton) per il tracing leggero degli update:
+1. startTrace apre lo span radice di un update, solo per una frazione degli update (TRACE_SAMPLE_RATE)
+2. span apre uno span figlio dello span corrente del thread; senza traccia attiva ritorna Span.NOOP
+3. propagate porta lo span corrente su un altro thread (es. i tentativi paralleli di ricerca su Wikipedia)
+4. detach lascia aperta la radice quando il thread passa ad altro: la traccia si chiude alla consegna della risposta, e gli invii la registrano con span(parent, nome)
+5. Alla chiusura della radice, le tracce più lunghe di TRACE_SLOW_MS finiscono in SlowTraceBuffer
+Con il campionamento disattivato (default) il costo è una lettura di un campo e di un ThreadLocal per span.
+ */
+public class Tracer {
+    private static Tracer instance;	//Istanza unica
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();	//Span corrente del thread
+
+    private volatile double sampleRate;	//Frazione di update tracciati (0 = disattivato, 1 = tutti)
+    private volatile long slowNanos = 1_000_000_000L;	//Soglia oltre la quale una traccia viene conservata
+    private volatile SlowTraceBuffer buffer = new SlowTraceBuffer(20);
+
+    private Tracer() { }
+
+    //Metodo statico che ritorna l'istanza unica del tracer
+    public static synchronized Tracer getInstance() {
+        if (instance == null) instance = new Tracer();
+        return instance;
+    }
+
+    //Metodo che configura campionamento, soglia delle tracce lente e numero di tracce conservate
+    public void configure(double sampleRate, long slowMs, int bufferSize) {
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+        this.slowNanos = slowMs * 1_000_000L;
+        if (bufferSize != buffer.capacity()) this.buffer = new SlowTraceBuffer(bufferSize);
+    }
+
+    public boolean isEnabled() {
+        return sampleRate > 0;
+    }
+
+    //Metodo che apre la traccia di un update (NOOP se l'update non viene campionato)
+    public Span startTrace(String name) {
+        double rate = sampleRate;
+        if (rate <= 0 || (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate)) return Span.NOOP;
+        Span current = CURRENT.get();
+        Span span = current != null ? current.child(name) : new Span(this, null, name);	//Dentro una traccia diventa un figlio
+        if (span.isRecording()) CURRENT.set(span);
+        return span;
+    }
+
+    //Metodo che apre uno span figlio dello span corrente del thread (NOOP se non c'è una traccia attiva)
+    public Span span(String name) {
+        Span parent = CURRENT.get();
+        if (parent == null) return Span.NOOP;
+        Span span = parent.child(name);
+        if (span.isRecording()) CURRENT.set(span);
+        return span;
+    }
+
+    //Metodo che apre uno span figlio di uno span dato, senza cambiare lo span corrente del thread (es. gli invii eseguiti dalla coda di Telegram)
+    public Span span(Span parent, String name) {
+        if (parent == null || !parent.isRecording()) return Span.NOOP;
+        return parent.child(name);
+    }
+
+    //Metodo che toglie uno span (ancora aperto) dal thread corrente, che può così passare ad altro lavoro
+    public void detach(Span span) {
+        if (CURRENT.get() == span) {
+            if (span.isRoot()) CURRENT.remove();
+            else CURRENT.set(span.getParent());
+        }
+    }
+
+    //Metodo che ritorna un Callable che viene eseguito con lo span corrente del thread chiamante
+    public <T> Callable<T> propagate(Callable<T> task) {
+        Span parent = CURRENT.get();
+        if (parent == null) return task;	//Nessuna traccia attiva: niente da propagare
+        return () -> {
+            Span previous = CURRENT.get();
+            CURRENT.set(parent);
+            try {
+                return task.call();
+            } finally {
+                if (previous != null) CURRENT.set(previous);
+                else CURRENT.remove();
+            }
+        };
+    }
+
+    //Metodo package-private chiamato alla chiusura di uno span
+    void onClose(Span span) {
+        if (CURRENT.get() == span) {	//Lo span corrente torna al padre
+            if (span.isRoot()) CURRENT.remove();
+            else CURRENT.set(span.getParent());
+        }
+        if (span.isRoot() && span.durationNanos() >= slowNanos) buffer.add(span);	//Traccia lenta da conservare
+    }
+
+    //Metodo che ritorna le tracce lente (al massimo limit, dalla più lenta) come testo
+    public String dump(int limit) {
+        List<Span> traces = buffer.slowestFirst();
+        StringBuilder out = new StringBuilder("🐢 TRACCE LENTE (" + traces.size() + ")\n");
+        if (!isEnabled()) out.append("⚠️ Tracing disattivato (TRACE_SAMPLE_RATE=0)\n");
+        for (int i = 0; i < traces.size() && i < limit; i++) {
+            out.append('\n');
+            traces.get(i).render(out);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,145 @@
+package webhook;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import metrics.MetricsRegistry;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*Classe WebhookServer: riceve gli update di Telegram in modalità webhook (alternativa al long polling).
+1. POST sul percorso configurato con il JSON dell'update; l'header X-Telegram-Bot-Api-Secret-Token deve essere il segreto
+   registrato con setWebhook, altrimenti 401
+2. L'update viene messo in una coda limitata e Telegram riceve subito 200; con la coda piena risponde 503 e Telegram lo rimanda più tardi
+3. Un solo thread "webhook-consumer" passa gli update al bot nell'ordine di arrivo, come fa il long polling:
+   lo stato delle conversazioni è in un ConversationStateStore thread-safe, ma consume accoda i messaggi di una chat dopo il precedente
+   e unisce quelli identici ancora in gestione, e questo vale solo se gli update arrivano da un thread alla volta
+In locale si prova con: curl -H "X-Telegram-Bot-Api-Secret-Token: <segreto>" -d @update.json http://127.0.0.1:8443/telegram
+ */
+public class WebhookServer {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();	//Registro delle metriche
+    private static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+    private static final int MAX_BODY_BYTES = 1024 * 1024;	//Un update è al massimo qualche KB
+
+    private final HttpServer server;
+    private final ExecutorService executor;	//Thread che leggono le richieste HTTP
+    private final BlockingQueue<Update> queue;	//Update accettati e non ancora elaborati
+    private final Thread consumerThread;
+    private final Consumer<Update> consumer;
+    private final byte[] secret;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private volatile boolean stopped;
+
+    //Costruttore che avvia il server: riceve indirizzo, porta, percorso, segreto, dimensione della coda e chi elabora gli update (es. bot::consume)
+    public WebhookServer(String host, int port, String path, String secretToken, int queueCapacity, Consumer<Update> consumer) throws IOException {
+        this.secret = secretToken.getBytes(StandardCharsets.UTF_8);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.consumer = consumer;
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.executor = Executors.newFixedThreadPool(2, runnable -> {	//Leggere e accodare è veloce: bastano due thread
+            Thread thread = new Thread(runnable, "webhook-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(path, this::handle);
+        METRICS.gauge("webhook_queue_depth", "Update ricevuti via webhook in attesa di elaborazione", queue::size);
+        this.consumerThread = new Thread(this::consumeLoop, "webhook-consumer");
+        consumerThread.start();
+        server.start();
+        System.out.println("🪝 Webhook in ascolto su http://" + host + ":" + getPort() + path);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    //Metodo che smette di accettare update ed elabora quelli già accodati (al massimo timeoutMs)
+    public void stop(long timeoutMs) {
+        server.stop(0);	//Le richieste successive ricevono un errore e Telegram le rimanda
+        executor.shutdownNow();
+        stopped = true;
+        try {
+            consumerThread.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        consumerThread.interrupt();	//Update non elaborati in tempo: Telegram non li rimanda (erano già confermati)
+        if (!queue.isEmpty()) System.err.println("⚠️ Webhook fermato con " + queue.size() + " update non elaborati");
+    }
+
+    //Metodo privato che risponde a una richiesta di Telegram
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                reply(exchange, 405, "method_not_allowed");
+                return;
+            }
+            String token = exchange.getRequestHeaders().getFirst(SECRET_HEADER);
+            if (token == null || !MessageDigest.isEqual(secret, token.getBytes(StandardCharsets.UTF_8))) {	//Confronto a tempo costante
+                reply(exchange, 401, "bad_secret");
+                return;
+            }
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readNBytes(MAX_BODY_BYTES + 1);
+            }
+            if (body.length > MAX_BODY_BYTES) {
+                reply(exchange, 413, "too_large");
+                return;
+            }
+            Update update;
+            try {
+                update = mapper.readValue(body, Update.class);
+            } catch (IOException e) {
+                reply(exchange, 400, "bad_request");	//JSON non valido: inutile che Telegram lo rimandi
+                return;
+            }
+            if (stopped || !queue.offer(update)) {	//Coda piena: Telegram riproverà più tardi
+                reply(exchange, 503, "queue_full");
+                return;
+            }
+            reply(exchange, 200, "accepted");
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Errore nel webhook: " + e.getMessage());
+            reply(exchange, 500, "error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    //Metodo privato che invia il codice di risposta (senza corpo) e conta l'esito
+    private static void reply(HttpExchange exchange, int status, String result) throws IOException {
+        METRICS.counter("webhook_requests_total", "Richieste ricevute dal webhook per esito", "result", result).inc();
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    //Metodo privato eseguito dal thread che elabora gli update uno alla volta
+    private void consumeLoop() {
+        while (!stopped || !queue.isEmpty()) {
+            Update update;
+            try {
+                update = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (update == null) continue;
+            try {
+                consumer.accept(update);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Errore nell'elaborazione dell'update " + update.getUpdateId() + ": " + e.getMessage());	//Un update non deve fermare gli altri
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*Test di FavoriteIndex con i nomi come li scrive Sofascore ("J. Sinner"):
+1. nome completo e nome abbreviato sono lo stesso giocatore
+2. un preferito con il solo cognome segue il giocatore abbreviato, e viceversa
+3. con lo stesso cognome l'iniziale distingue i giocatori
+ */
+class FavoriteIndexTest {
+
+    @Test
+    void fullNameMatchesAbbreviatedName() {
+        FavoriteIndex index = new FavoriteIndex();
+        index.add(1, "Jannik Sinner");
+        assertEquals(Set.of(1L), index.subscribersOf("J. Sinner"));
+        assertEquals(Set.of(1L), index.subscribersOf("Jannik Sinner"));
+    }
+
+    @Test
+    void bareSurnameMatchesAbbreviatedName() {
+        FavoriteIndex index = new FavoriteIndex();
+        index.add(1, "Sinner");
+        index.add(2, "Jannik Sinner");
+        assertEquals(Set.of(1L, 2L), index.subscribersOf("J. Sinner"));
+        assertEquals(Set.of(1L, 2L), index.subscribersOf("Sinner"));
+        assertTrue(FavoriteIndex.samePlayer(FavoriteIndex.canonical("Sinner"), FavoriteIndex.canonical("J. Sinner")));
+    }
+
+    @Test
+    void initialSeparatesPlayersWithSameSurname() {
+        FavoriteIndex index = new FavoriteIndex();
+        index.add(1, "Alexander Zverev");
+        index.add(2, "Mischa Zverev");
+        index.add(3, "Zverev");
+        assertEquals(Set.of(1L, 3L), index.subscribersOf("A. Zverev"));
+        assertEquals(Set.of(2L, 3L), index.subscribersOf("M. Zverev"));
+        assertEquals(3, index.players());
+    }
+
+    @Test
+    void removeKeepsOtherFavoritesWithSameSurname() {
+        FavoriteIndex index = new FavoriteIndex();
+        index.add(1, "Sinner");
+        index.add(1, "Jannik Sinner");
+        index.remove(1, "Sinner");
+        assertEquals(Set.of(1L), index.subscribersOf("J. Sinner"));
+        index.remove(1, "Jannik Sinner");
+        assertTrue(index.subscribersOf("J. Sinner").isEmpty());
+        assertTrue(index.isEmpty());
+    }
+}
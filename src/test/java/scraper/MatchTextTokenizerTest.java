@@ -0,0 +1,57 @@
+package scraper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/*Test differenziale di MatchTextTokenizer contro il vecchio parser a espressioni regolari (LegacyMatchTextParser):
+1. i match della pagina di Sofascore salvata
+2. i casi limite di sofascore_match_edge_cases.txt (tiebreak, vantaggi, numeri dispari, spazi, stati senza punteggio)
+3. testi casuali generati con un seme fisso dalle righe di sofascore_match_lines.txt
+In ogni caso i due parser devono dare lo stesso riepilogo (orario, stato, game, giocatori, set, validità, stato riconosciuto, set vinti, vincitore).
+ */
+class MatchTextTokenizerTest {
+    private static final long SEED = 42;	//Seme fisso: ogni esecuzione genera gli stessi testi
+    private static final int RANDOM_TEXTS = 100_000;	//Numero di testi casuali confrontati
+
+    @Test
+    void recordedMatchesAgreeWithLegacyParser() {
+        List<Fixtures.MatchBlock> blocks = Fixtures.sofascoreMatches();
+        assertFalse(blocks.isEmpty(), "Nessun match nella fixture");
+        for (Fixtures.MatchBlock block : blocks) assertSameSummary(block.text);
+    }
+
+    @Test
+    void edgeCasesAgreeWithLegacyParser() {
+        List<Fixtures.MatchBlock> blocks = Fixtures.sofascoreMatches("sofascore_match_edge_cases.txt");
+        assertFalse(blocks.isEmpty(), "Nessun caso limite nella fixture");
+        for (Fixtures.MatchBlock block : blocks) assertSameSummary(block.text);
+    }
+
+    @Test
+    void randomTextsAgreeWithLegacyParser() {
+        List<String> pool = Fixtures.lines("sofascore_match_lines.txt");
+        Random random = new Random(SEED);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < RANDOM_TEXTS; i++) {
+            text.setLength(0);
+            int lines = 1 + random.nextInt(14);	//Da 1 a 14 righe per testo
+            for (int j = 0; j < lines; j++) {
+                if (j > 0) text.append(random.nextInt(10) == 0 ? "\n \n" : "\n");	//Ogni tanto una riga vuota in mezzo
+                text.append(pool.get(random.nextInt(pool.size())));
+            }
+            assertSameSummary(text.toString());
+        }
+    }
+
+    //Metodo privato che confronta il riepilogo dei due parser sullo stesso testo
+    private static void assertSameSummary(String text) {
+        List<String> expected = LegacyMatchTextParser.parse(text);
+        List<String> actual = LegacyMatchTextParser.summarize(MatchTextTokenizer.tokenize(text));
+        assertEquals(expected, actual, () -> "Risultato diverso per:\n" + text);
+    }
+}
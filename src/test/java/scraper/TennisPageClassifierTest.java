@@ -0,0 +1,93 @@
+package scraper;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*Test di TennisPageClassifier contro il controllo originale sul testo completo della pagina (LegacyTennisClassifier):
+1. le pagine di classifier_pages.txt (segnali dell'infobox, categorie, titolo, falsi positivi dell'euristica originale, casi limite del testo)
+2. le pagine Wikipedia salvate e le loro varianti senza infobox, categorie, titolo o parti del testo, così ogni segnale viene provato da solo
+3. le due differenze volute: parole chiave solo nei menu di navigazione oppure oltre la finestra di testo analizzata
+ */
+class TennisPageClassifierTest {
+    private static final String[] RECORDED_PAGES = {
+            "player_sinner.html", "player_paolini.html", "non_tennis_calciatore.html", "non_tennis_torino.html", "atp_rankings.html"
+    };
+
+    @Test
+    void handcraftedPagesAgreeWithLegacyCheck() {
+        Map<String, String> pages = Fixtures.pages("classifier_pages.txt");
+        assertFalse(pages.isEmpty(), "Nessuna pagina nella fixture");
+        for (Map.Entry<String, String> page : pages.entrySet()) {
+            assertSameVerdict(page.getKey(), Jsoup.parse(page.getValue()));
+        }
+    }
+
+    @Test
+    void recordedPagesAndVariantsAgreeWithLegacyCheck() {
+        for (String name : RECORDED_PAGES) {
+            String html = Fixtures.read(name);
+            for (Map.Entry<String, Consumer<Document>> variant : variants().entrySet()) {
+                Document doc = Jsoup.parse(html);
+                variant.getValue().accept(doc);
+                assertSameVerdict(name + " (" + variant.getKey() + ")", doc);
+            }
+        }
+    }
+
+    @Test
+    void handcraftedPagesHaveExpectedVerdict() {
+        Map<String, String> pages = Fixtures.pages("classifier_pages.txt");
+        for (String name : new String[]{"tennista_infobox_tennista", "tennista_riga_sport_inglese", "tennista_solo_categorie", "tennista_titolo_disambiguato", "tennista_spazio_non_separabile"}) {
+            assertTrue(TennisPageClassifier.isTennisPlayer(Jsoup.parse(pages.get(name))), name);
+        }
+        for (String name : new String[]{"cestista", "nuotatrice_riga_sport_vuota", "parola_chiave_solo_in_script", "parola_chiave_solo_in_attributi", "pagina_vuota"}) {
+            assertFalse(TennisPageClassifier.isTennisPlayer(Jsoup.parse(pages.get(name))), name);
+        }
+    }
+
+    //Le differenze dal controllo originale sono volute: il classificatore ignora i menu fuori dal contenuto e il testo oltre la finestra
+    @Test
+    void ignoresNavigationAndTextBeyondWindow() {
+        Document navigation = Jsoup.parse("<html><head><title>Cestista - Wikipedia</title></head><body>"
+                + "<div id=\"mw-navigation\"><ul><li>Portale Tennis</li></ul></div>"
+                + "<div id=\"mw-content-text\"><p>Un cestista italiano.</p></div></body></html>");
+        assertTrue(LegacyTennisClassifier.isTennisPlayer(navigation));
+        assertFalse(TennisPageClassifier.isTennisPlayer(navigation));
+
+        Document longPage = Jsoup.parse("<html><head><title>Storia - Wikipedia</title></head><body><div id=\"mw-content-text\"><p>"
+                + "storia della città ".repeat(2_000) + "</p><p>Sede di un torneo di tennis.</p></div></body></html>");
+        assertTrue(LegacyTennisClassifier.isTennisPlayer(longPage));
+        assertFalse(TennisPageClassifier.isTennisPlayer(longPage));
+    }
+
+    //Metodo privato con le modifiche applicate a ogni pagina salvata
+    private static Map<String, Consumer<Document>> variants() {
+        Map<String, Consumer<Document>> variants = new LinkedHashMap<>();
+        variants.put("originale", doc -> { });
+        variants.put("senza infobox", doc -> doc.select("table.infobox").remove());
+        variants.put("senza categorie", doc -> doc.select("#catlinks").remove());
+        variants.put("senza titolo", doc -> doc.title(""));
+        variants.put("senza infobox, categorie e titolo", doc -> {
+            doc.select("table.infobox, #catlinks").remove();
+            doc.title("");
+        });
+        variants.put("solo infobox", doc -> doc.select("#mw-content-text p, #mw-content-text h2, #mw-content-text ul").remove());
+        variants.put("solo introduzione", doc -> doc.select("#mw-content-text p:gt(0), #mw-content-text h2, #mw-content-text ul").remove());
+        variants.put("senza menu di navigazione", doc -> doc.select("#mw-navigation").remove());
+        return variants;
+    }
+
+    //Metodo privato che verifica che i due classificatori diano lo stesso esito
+    private static void assertSameVerdict(String name, Document doc) {
+        assertEquals(LegacyTennisClassifier.isTennisPlayer(doc), TennisPageClassifier.isTennisPlayer(doc), name);
+    }
+}
@@ -0,0 +1,103 @@
+package scraper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Classe Fixtures che carica dal classpath le pagine e i testi salvati in src/testFixtures/resources/fixtures usati dai test e dai benchmark
+public final class Fixtures {
+
+    //Costruttore privato: classe di sole utilità statiche
+    private Fixtures() {}
+
+    //Metodo statico che legge una fixture come stringa UTF-8
+    public static String read(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) throw new IllegalStateException("Fixture non trovata: " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossibile leggere la fixture " + name, e);
+        }
+    }
+
+    //Metodo statico che legge le righe non vuote di una fixture, saltando i commenti che iniziano con #
+    public static List<String> lines(String name) {
+        List<String> lines = new ArrayList<>();
+        for (String line : read(name).split("\n")) {
+            if (!line.isEmpty() && !line.startsWith("#")) lines.add(line);
+        }
+        return lines;
+    }
+
+    //Metodo statico che legge più pagine HTML da una fixture: ogni pagina inizia con una riga "=== nome" (le righe precedenti sono commenti)
+    public static Map<String, String> pages(String name) {
+        Map<String, String> pages = new LinkedHashMap<>();
+        String page = null;
+        StringBuilder html = new StringBuilder();
+        for (String line : read(name).split("\n")) {
+            if (line.startsWith("=== ")) {	//Nuova pagina
+                if (page != null) pages.put(page, html.toString());
+                page = line.substring(4).trim();
+                html.setLength(0);
+            } else if (page != null) {
+                html.append(line).append('\n');
+            }
+        }
+        if (page != null) pages.put(page, html.toString());
+        return pages;
+    }
+
+    //Metodo statico che legge i testi dei match della pagina di Sofascore salvata
+    public static List<MatchBlock> sofascoreMatches() {
+        return sofascoreMatches("sofascore_matches.txt");
+    }
+
+    /*Metodo statico che legge i testi dei match di Sofascore da una fixture:
+    - una riga "## Torneo | Luogo" indica il torneo dei match successivi
+    - ogni match è il testo dell'elemento (una informazione per riga) ed è chiuso da una riga "---"
+     */
+    public static List<MatchBlock> sofascoreMatches(String name) {
+        List<MatchBlock> blocks = new ArrayList<>();
+        String tournament = "Generale";
+        String location = "";
+        StringBuilder text = new StringBuilder();
+        for (String line : read(name).split("\n")) {
+            if (line.startsWith("## ")) {	//Nuovo torneo
+                String[] parts = line.substring(3).split("\\|");
+                tournament = parts[0].trim();
+                location = parts.length > 1 ? parts[1].trim() : "";
+            } else if (line.equals("---")) {	//Fine del match
+                if (text.length() > 0) blocks.add(new MatchBlock(tournament, location, text.toString()));
+                text.setLength(0);
+            } else {
+                if (text.length() > 0) text.append('\n');
+                text.append(line);
+            }
+        }
+        return blocks;
+    }
+
+    //Metodo statico che scarta l'output su console dei metodi misurati (i log di scraping falserebbero i tempi)
+    public static void silenceStdout() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    //Classe interna che rappresenta il testo di un match con il torneo a cui appartiene
+    public static final class MatchBlock {
+        public final String tournament;	//Torneo del match
+        public final String location;	//Luogo del torneo
+        public final String text;	//Testo dell'elemento di Sofascore
+
+        MatchBlock(String tournament, String location, String text) {
+            this.tournament = tournament;
+            this.location = location;
+            this.text = text;
+        }
+    }
+}
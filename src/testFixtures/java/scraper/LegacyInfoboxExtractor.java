@@ -0,0 +1,179 @@
+package scraper;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*Classe LegacyInfoboxExtractor: copia dell'estrazione dei campi dell'infobox com'era prima di Infobox (una scansione di tutte le righe per ogni campo).
+Serve come riferimento per PlayerPageBenchmark, che ne confronta tempi e risultati con l'estrazione dall'infobox indicizzata.
+ */
+final class LegacyInfoboxExtractor {
+
+    //Costruttore privato: classe di sole utilità statiche
+    private LegacyInfoboxExtractor() {}
+
+    //Metodo statico che estrae i campi dell'infobox nell'ordine di extractPlayerInfo (nazionalità, altezza, peso, nascita, ranking, miglior ranking, vittorie, titoli, Grand Slam, mano, allenatore, montepremi)
+    static List<String> fields(Element table) {
+        List<String> fields = new ArrayList<>();
+        fields.add(extractNationality(table));
+        fields.add(cleanText(extractFromTableRow(table, "Altezza")));
+        fields.add(cleanText(extractFromTableRow(table, "Peso")));
+        fields.add(extractBirthDate(table));
+        fields.add(String.valueOf(extractRanking(table)));
+        fields.add(cleanText(extractFromTableRow(table, "Miglior ranking")));
+        fields.add(cleanText(extractFromTableRow(table, "Vittorie/sconfitte")));
+        fields.add(cleanText(extractFromTableRow(table, "Titoli vinti")));
+        fields.add(extractGrandSlams(table));
+        fields.add(cleanText(extractFromTableRow(table, "Mano")));
+        fields.add(cleanText(extractFromTableRow(table, "Allenatore")));
+        fields.add(cleanText(extractFromTableRow(table, "Montepremi", "Palmares")));
+        return fields;
+    }
+
+    //Metodo privato per pulire il testo rimuovendo note e spazi extra
+    private static String cleanText(String text) {
+        if (text == null) return null;	//Se il testo è null ritorno null immediatamente
+        text = text.replaceAll("\\[\\d+\\]", "");	//Rimuovo riferimenti numerici tipo [1], [2], ecc.
+        text = text.replaceAll("\\[nota \\d+\\]", "");	//Rimuovo note come [nota 1], [nota 2], ecc.
+        text = text.replaceAll("\\s+", " ");	//Sostituisco sequenze di spazi multipli con un singolo spazio
+        return text.trim();	//Rimuovo spazi iniziali e finali e ritorno il testo pulito
+    }
+
+    //Metodo privato per estrarre la data di nascita di un giocatore
+    private static String extractBirthDate(Element table) {
+        Elements rows = table.select("tr");	//Seleziono tutte le righe della tabella
+        for (Element row : rows) {	//Itero su ogni riga
+            Elements th = row.select("th, td.infobox-label");	//Seleziono le intestazioni o celle con classe infobox-label
+            if (th.isEmpty()) continue;	//Se non ci sono intestazioni salto la riga
+            String header = th.first().text().toLowerCase();	//Estraggo il testo della prima intestazione e lo converto in minuscolo
+            if ((header.contains("data di nascita") ||	//Controllo se la riga contiene "data di nascita"
+                    (header.contains("nato") && !header.contains("nazionalità")))) {	//Oppure se contiene "nato" ma non "nazionalità"
+
+                Elements td = row.select("td");	//Seleziono le celle di dati della riga
+                if (!td.isEmpty()) {	//Se esiste almeno una cella
+                    return cleanText(td.first().text().trim());	//Ritorno il testo pulito e senza spazi superflui
+                }
+            }
+        }
+        return null;	//Se non trovo la data ritorno null
+    }
+
+    //Metodo privato che estrae la nazionalità del giocatore dall’infobox
+    private static String extractNationality(Element table) {
+        Elements rows = table.select("tr");	//Seleziono tutte le righe della tabella
+        for (Element row : rows) {	//Itero su ogni riga
+            if (row.text().toLowerCase().contains("nazionalità")) {	//Controllo se la riga contiene il termine "nazionalità"
+                Elements links = row.select("a");	//Seleziono tutti i link presenti nella riga
+                for (Element link : links) {	//Itero su ogni link
+                    String text = link.text().trim();	//Estraggo il testo e rimuovo spazi superflui
+                    if (!text.isEmpty() && !text.equalsIgnoreCase("nazionalità")) {	//Se il testo è valido e non è la parola "nazionalità"
+                        return text;	//Ritorno il testo come nazionalità
+                    }
+                }
+                String cellText = row.select("td").text().trim();	//Se non ci sono link validi, estraggo il testo della cella td
+                if (!cellText.isEmpty() && !cellText.equalsIgnoreCase("nazionalità")) {	//Controllo che il testo sia valido
+                    return cellText;	//Ritorno il testo come nazionalità
+                }
+            }
+        }
+        return "Unknown";	//Se non trovo la nazionalità ritorno "Unknown"
+    }
+
+    //Metodo privato che estrae il valore di una riga dell’infobox basandosi su parole chiave
+    private static String extractFromTableRow(Element table, String... keywords) {
+        Elements rows = table.select("tr");	//Seleziono tutte le righe della tabella
+        for (Element row : rows) {	//Itero su ogni riga
+            Elements th = row.select("th, td.infobox-label");	//Seleziono le intestazioni o celle con classe infobox-label
+            if (th.isEmpty()) continue;	//Se non ci sono intestazioni salto la riga
+            String header = th.first().text().toLowerCase();	//Estraggo il testo della prima intestazione e lo converto in minuscolo
+            for (String keyword : keywords) {	//Itero su tutte le parole chiave passate come parametro
+                if (header.contains(keyword.toLowerCase())) {	//Controllo se l’intestazione contiene la parola chiave
+                    Elements td = row.select("td");	//Seleziono le celle di dati della riga
+                    if (!td.isEmpty()) {	//Se esiste almeno una cella
+                        return td.first().text().trim();	//Ritorno il testo della cella, pulito da spazi superflui
+                    }
+                }
+            }
+        }
+        return null;	//Se non trovo nulla ritorno null
+    }
+
+    //Metodo privato che estrae il ranking attuale del giocatore dall’infobox
+    private static int extractRanking(Element table) {
+        String rankingText = extractFromTableRow(table, "Ranking attuale");	//Estraggo il testo della riga con la parola chiave "Ranking attuale"
+        if (rankingText != null) {	//Se il testo è valido
+            rankingText = cleanText(rankingText);	//Lo pulisco da note e spazi extra
+            Pattern pattern = Pattern.compile("(\\d{1,3})(?:º|°|\\s|\\(|$)");	//Creo un pattern regex per catturare un numero da 1 a 3 cifre seguito da simboli comuni
+            Matcher matcher = pattern.matcher(rankingText);	//Creo il matcher per applicare il pattern al testo
+            if (matcher.find()) {	//Se trovo una corrispondenza
+                try {
+                    return Integer.parseInt(matcher.group(1));	//Converto il numero trovato in intero e lo ritorno
+                } catch (Exception e) {	//Se c’è un errore di conversione
+                    return 0;	//Ritorno 0 come valore di default
+                }
+            }
+        }
+        return 0;	//Se non trovo il ranking ritorno 0
+    }
+
+    //Metodo privato che estrae i risultati dei Grand Slam dall’infobox
+    private static String extractGrandSlams(Element table) {
+        Map<String, StringBuilder> grandSlamResults = new LinkedHashMap<>();	//Creo una mappa ordinata per categorie di gioco
+        grandSlamResults.put("Singolare", new StringBuilder());	//Inizializzo la categoria Singolare
+        grandSlamResults.put("Doppio", new StringBuilder());	//Inizializzo la categoria Doppio
+        grandSlamResults.put("Doppio Misto", new StringBuilder());	//Inizializzo la categoria Doppio Misto
+
+        Elements rows = table.select("tr");	//Seleziono tutte le righe della tabella
+        String currentCategory = null;	//Variabile per tenere traccia della categoria corrente
+
+        for (Element row : rows) {	//Itero su ogni riga
+            String rowText = row.text().toLowerCase();	//Estraggo il testo della riga in minuscolo
+
+            if (rowText.contains("singolare")) {	//Se la riga indica Singolare
+                currentCategory = "Singolare";	//Imposto la categoria corrente
+                continue;
+            } else if (rowText.contains("doppio misto")) {	//Se la riga indica Doppio Misto
+                currentCategory = "Doppio Misto";	//Imposto la categoria corrente
+                continue;
+            } else if (rowText.contains("doppio")) {	//Se la riga indica Doppio
+                currentCategory = "Doppio";	//Imposto la categoria corrente
+                continue;
+            }
+
+            if (currentCategory == null) continue;	//Se non ho ancora una categoria valida salto la riga
+
+            Elements cells = row.select("th, td");	//Seleziono tutte le celle della riga
+            if (cells.size() < 2) continue;	//Se ci sono meno di due celle salto la riga
+
+            String tournament = cells.get(0).text();	//Estraggo il nome del torneo dalla prima cella
+            String result = cleanText(cells.get(1).text());	//Estraggo e pulisco il risultato dalla seconda cella
+            StringBuilder sb = grandSlamResults.get(currentCategory);	//Recupero il StringBuilder della categoria corrente
+
+            if (tournament.contains("Australian")) {	//Se il torneo è l’Australian Open
+                sb.append("🇦🇺 Australian Open: ").append(result).append("\n");	//Aggiungo il risultato con l’emoji della bandiera
+            } else if (tournament.contains("Roland") || tournament.contains("France")) {	//Se è Roland Garros
+                sb.append("🇫🇷 Roland Garros: ").append(result).append("\n");	//Aggiungo il risultato
+            } else if (tournament.contains("Wimbledon")) {	//Se è Wimbledon
+                sb.append("🇬🇧 Wimbledon: ").append(result).append("\n");	//Aggiungo il risultato
+            } else if (tournament.contains("US") || tournament.contains("U.S.")) {	//Se è US Open
+                sb.append("🇺🇸 US Open: ").append(result).append("\n");	//Aggiungo il risultato
+            }
+        }
+
+        StringBuilder finalResult = new StringBuilder();	//Creo un StringBuilder finale per concatenare tutte le categorie
+        for (Map.Entry<String, StringBuilder> entry : grandSlamResults.entrySet()) {	//Itero su ogni categoria
+            if (!entry.getValue().isEmpty()) {	//Se la categoria contiene risultati
+                finalResult.append(entry.getKey()).append(":\n");	//Aggiungo il titolo della categoria
+                finalResult.append(entry.getValue()).append("\n");	//Aggiungo i risultati
+            }
+        }
+
+        return !finalResult.isEmpty() ? finalResult.toString().trim() : null;	//Ritorno il testo finale o null se vuoto
+    }
+}
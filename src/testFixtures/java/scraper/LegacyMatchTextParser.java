@@ -0,0 +1,189 @@
+package scraper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*Classe LegacyMatchTextParser: copia del parser dei testi di Sofascore basato su espressioni regolari usato prima di MatchTextTokenizer.
+Serve come riferimento per MatchTextTokenizerTest, che confronta i risultati dei due parser, e per MatchTextBenchmark, che ne confronta velocità e allocazioni.
+ */
+final class LegacyMatchTextParser {
+
+    //Costruttore privato: classe di sole utilità statiche
+    private LegacyMatchTextParser() {}
+
+    //Metodo statico che interpreta il testo come faceva getRecentMatches e ritorna un riepilogo confrontabile (orario, stato, game, giocatori, set, validità, stato riconosciuto, set vinti, vincitore)
+    static List<String> parse(String text) {
+        MatchTextData data = parseMatchText(text);
+        List<String> summary = new ArrayList<>();
+        summary.add(data.time);
+        summary.add(data.status);
+        summary.add(data.currentGame);
+        summary.add(String.valueOf(data.players));
+        summary.add(String.join(" ", data.scores));
+        summary.add(String.valueOf(data.isValid()));
+        summary.add(String.valueOf(data.hasValidStatus()));
+        boolean finished = data.status.equals("FINE") || data.status.equals("A tavolino");
+        String setScore = null;
+        if (!data.scores.isEmpty() && finished) {	//Conteggio dei set vinti come in getRecentMatches
+            int player1Sets = 0;
+            int player2Sets = 0;
+            for (String set : data.scores) {
+                String[] parts = set.replaceAll("\\(\\d+\\)", "").split("-");
+                if (parts.length != 2) continue;
+                try {
+                    int score1 = Integer.parseInt(parts[0].trim());
+                    int score2 = Integer.parseInt(parts[1].trim());
+                    if (score1 > score2) player1Sets++;
+                    else if (score2 > score1) player2Sets++;
+                } catch (NumberFormatException e) {
+                    //Ignoro set non valido
+                }
+            }
+            setScore = Math.max(player1Sets, player2Sets) + "-" + Math.min(player1Sets, player2Sets);
+        }
+        summary.add(setScore);
+        summary.add(finished ? determineWinner(data) : null);
+        return summary;
+    }
+
+    //Metodo statico che produce lo stesso riepilogo a partire dal risultato del tokenizer
+    static List<String> summarize(MatchTextTokenizer.ParsedMatch data) {
+        List<String> summary = new ArrayList<>();
+        summary.add(data.getTime());
+        summary.add(data.getStatus());
+        summary.add(data.getCurrentGame());
+        summary.add(String.valueOf(data.getPlayers()));
+        summary.add(data.getDetailedScore());
+        summary.add(String.valueOf(data.isValid()));
+        summary.add(String.valueOf(data.hasValidStatus()));
+        summary.add(data.getSetCount() > 0 && data.isFinished() ? data.getSetScore() : null);
+        summary.add(data.isFinished() ? data.getWinner() : null);
+        return summary;
+    }
+
+    //Metodo privato utilizzato per determinare il vincitore di un match
+    private static String determineWinner(MatchTextData data) {	//Riceve un oggetto MatchTextData contenente punteggi e giocatori
+        if (data.players.size() < 2 || data.scores.isEmpty()) {	//Se ci sono meno di 2 giocatori o nessun set
+            return null;	//Non è possibile determinare il vincitore
+        }
+        int player1Sets = 0;	//Contatore set vinti dal giocatore 1
+        int player2Sets = 0;	//Contatore set vinti dal giocatore 2
+        //Analizzo ogni set (formato: "6-4" o "7-6(3)")
+        for (String setScore : data.scores) {
+            String[] parts = setScore.replaceAll("\\(\\d+\\)", "").split("-");	//Rimuovo tie-break tra parentesi e divido i punteggi
+            if (parts.length != 2) continue;	//Ignoro set non validi
+
+            try {
+                int score1 = Integer.parseInt(parts[0].trim());	//Parso punteggio giocatore 1
+                int score2 = Integer.parseInt(parts[1].trim());	//Parso punteggio giocatore 2
+                if (score1 > score2) {	//Se giocatore 1 ha vinto il set
+                    player1Sets++;
+                } else if (score2 > score1) {	//Se giocatore 2 ha vinto il set
+                    player2Sets++;
+                }
+            } catch (NumberFormatException e) {
+                //Ignoro set non validi
+            }
+        }
+        //Chi ha vinto più set ha vinto la partita
+        if (player1Sets > player2Sets) {	//Giocatore 1 ha vinto più set
+            return data.players.get(0);
+        } else if (player2Sets > player1Sets) {	//Giocatore 2 ha vinto più set
+            return data.players.get(1);
+        }
+        return null; //Caso di parità, ma dovrebbe essere impossibile
+    }
+
+    //Metodo statico privato che crea un oggetto MatchTextData da una Stringa ottenuta dal parsing
+    private static MatchTextData parseMatchText(String text) {
+        MatchTextData data = new MatchTextData();	//Creo un nuovo oggetto per memorizzare i dati del match
+        String[] lines = text.split("\n");	//Divido il testo in righe, ogni riga contiene un'informazione diversa
+        List<String> allNumbers = new ArrayList<>();	//Creo una lista temporanea per salvare numeri o punti live
+        for (String line : lines) {
+            line = line.trim();	//Rimuovo spazi iniziali e finali
+            if (line.isEmpty()) continue;	//Salto righe vuote
+            if (line.matches("\\d{1,2}:\\d{2}")) data.time = line;	//Se la riga è orario (HH:MM), la salvo
+            else if (line.matches("LIVE|FINE|SRF|A tavolino|.*set|-|Annullata|Iniziato")) data.status = line;	//Se è status, lo salvo
+            else if (line.matches("\\d{1,2}-\\d{1,2}(\\(\\d+\\))?")) data.scores.add(line);	//Se è punteggio completo, lo aggiungo
+            else if (line.matches("\\d+|A")) allNumbers.add(line);	//Se è numero o "A", lo salvo in allNumbers
+            else data.players.add(line);	//Altrimenti considero la riga come nome di un giocatore
+        }
+        //Se non ho punteggi già formattati ma ho numeri
+        if (data.scores.isEmpty() && !allNumbers.isEmpty()) {
+            boolean isLive = data.status.equals("LIVE") || data.status.matches("[1-5]º set");	//Controllo se il match è live
+            if (isLive && allNumbers.size() >= 2) data.currentGame = allNumbers.get(0) + "-" + allNumbers.get(1);	//Salvo punteggio live dei primi due numeri
+            data.scores = parseScoreNumbers(allNumbers, isLive);	//Ricostruisco i punteggi dai numeri
+        }
+        return data;	//Ritorno l'oggetto con tutti i dati parsati
+    }
+
+    //Metodo statico privato che da una stringa di numeri apparentemente senza significato, ritorna i set corretti (es. 40 40 6 5 3 2 1 0 --> game in corso: 40-40, set: 6-3 5-2)
+    private static List<String> parseScoreNumbers(List<String> allNumbers, boolean isLive) {
+        List<String> sets = new ArrayList<>();	//Creo la lista dei set finali da restituire
+        //Se LIVE, scarto i primi due valori perché li ho già salvati in currentGame
+        List<String> setNumbers;
+        if (isLive && allNumbers.size() > 2) setNumbers = allNumbers.subList(2, allNumbers.size());
+        else setNumbers = new ArrayList<>(allNumbers);	//Altrimenti uso tutti i numeri
+        //Converti solo valori numerici per i set
+        List<Integer> scores = new ArrayList<>();
+        for (String s : setNumbers) {
+            try {
+                int num = Integer.parseInt(s);
+                scores.add(num);	//Salvo il numero valido
+            } catch (NumberFormatException e) {
+                //Ignoro lettere come "A" nei punteggi dei set
+            }
+        }
+        //Rimuovo gli ultimi due numeri se rappresentano il punteggio totale dei set
+        if (scores.size() >= 2) scores = scores.subList(0, scores.size() - 2);
+        //Ignoro l'ultimo numero se la lista è dispari
+        if (scores.size() % 2 != 0) scores = scores.subList(0, scores.size() - 1);
+        if (scores.isEmpty()) return sets;	//Se non ci sono punteggi, ritorno lista vuota
+        int numSets = scores.size() / 2;	//Calcolo il numero di set
+        //Ricostruisco i set: player1[i] vs player2[i]
+        for (int i = 0; i < numSets; i++) {
+            int score1 = scores.get(i);
+            int score2 = scores.get(i + numSets);
+            if (isValidTennisScore(score1, score2)) {
+                String setScore = score1 + "-" + score2;
+                sets.add(setScore);	//Aggiungo il set valido alla lista
+                //Se il set è 7-6 o 6-7, aggiungo il tiebreak
+                if ((score1 == 7 && score2 == 6) || (score1 == 6 && score2 == 7)) {
+                    if (i + 1 < numSets) {
+                        int nextNum = Math.min(scores.get(i + 1), scores.get(i + numSets + 1));
+                        sets.set(sets.size() - 1, setScore + "(" + nextNum + ")");	//Aggiungo il tiebreak al set
+                        i++;	//Salto il prossimo numero perché già usato per il tiebreak
+                    }
+                }
+            } else {
+                break;	//Se il set non è valido, interrompo il parsing
+            }
+        }
+        return sets;	//Ritorno la lista dei set ricostruiti
+    }
+
+    //Metodo statico privato per verificare la correttezza di un set
+    private static boolean isValidTennisScore(int score1, int score2) {
+        return score1 >= 0 && score2 >= 0;  //Controllo che i valori dei set siano positivi
+    }
+
+    //Classe interna di supporto per salvare temporaneamente le informazioni sul Match
+    private static class MatchTextData {
+        String time = "";	//Salvo l’orario del match
+        List<String> players = new ArrayList<>();	//Memorizzo i nomi dei giocatori
+        List<String> scores = new ArrayList<>();	//Contengo i punteggi dei set
+        String status = "";	//Indico lo stato del match (LIVE, FINE, ecc.)
+        String currentGame = "";	//Memorizzo il punteggio del game corrente (LIVE)
+
+        boolean isValid() {
+            return players.size() >= 2;	//Controllo che ci siano almeno due giocatori
+        }
+
+        boolean hasValidStatus() {
+            if (status == null || status.isEmpty()) return false;	//Scarto stati nulli o vuoti
+            return status.equals("LIVE") || status.equals("FINE") || status.equals("A tavolino") ||
+                    status.equals("SRF") || status.equals("Annullata") || status.equals("Iniziato") ||
+                    status.equals("-") || status.contains("set");	//Verifico che lo stato sia riconosciuto
+        }
+    }
+}
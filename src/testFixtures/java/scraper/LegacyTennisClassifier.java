@@ -0,0 +1,37 @@
+package scraper;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.select.Elements;
+
+/*Classe LegacyTennisClassifier: copia di isTennisPlayer com'era prima di TennisPageClassifier (testo completo della pagina in minuscolo).
+Serve come riferimento per TennisPageClassifierTest, che verifica che i due classificatori diano lo stesso esito, e per TennisPageBenchmark.
+ */
+final class LegacyTennisClassifier {
+
+    //Costruttore privato: classe di sole utilità statiche
+    private LegacyTennisClassifier() {}
+
+    //Metodo statico che verifica se la pagina appartiene a un tennista
+    static boolean isTennisPlayer(Document doc) {
+        String pageText = doc.text().toLowerCase();	//Estraggo tutto il testo della pagina e lo converto in minuscolo
+
+        boolean isTennista = pageText.contains("tennis") ||
+                pageText.contains("atp") ||
+                pageText.contains("wta") ||
+                pageText.contains("grand slam") ||
+                pageText.contains("australian open") ||
+                pageText.contains("wimbledon") ||
+                pageText.contains("us open") ||
+                pageText.contains("roland garros");
+
+        Elements infobox = doc.select("table.infobox");	//Seleziono la tabella infobox della pagina Wikipedia
+        if (!infobox.isEmpty()) {
+            String infoboxText = infobox.text().toLowerCase();
+            if (infoboxText.contains("tennis") ||
+                    infoboxText.contains("sport") && infoboxText.contains("tennis")) {
+                return true;
+            }
+        }
+        return isTennista;
+    }
+}